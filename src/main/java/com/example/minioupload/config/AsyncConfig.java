@@ -68,4 +68,84 @@ public class AsyncConfig {
         
         return executor;
     }
-}
\ No newline at end of file
+    
+    /**
+     * 创建PDF页面并行渲染专用的线程池执行器
+     * 
+     * 并行渲染模式下，每个转换任务会把页面分发给多个渲染工作线程，
+     * 每个工作线程持有独立的PDDocument/PDFRenderer（PDFBox非线程安全）。
+     * 所有转换任务共享此线程池，线程数即整个进程的渲染并发上限：
+     * - 核心/最大线程数：pdf.conversion.parallel-rendering.worker-threads（0表示CPU核心数）
+     * - 队列：无界，工作线程排队等待空闲线程，不会被拒绝
+     * 
+     * 线程名称前缀：PdfRender-
+     * 
+     * @param properties PDF转换配置
+     * @return 配置完成的ThreadPoolTaskExecutor线程池执行器
+     */
+    @Bean(name = "pdfRenderExecutor")
+    public Executor pdfRenderExecutor(PdfConversionProperties properties) {
+        int threads = properties.getParallelRendering().resolveWorkerThreads();
+        
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setThreadNamePrefix("PdfRender-");
+        executor.initialize();
+        
+        return executor;
+    }
+    
+    /**
+     * 创建按需渲染专用的线程池执行器
+     * 
+     * 按需渲染由查询请求触发，请求线程在等待渲染结果。与pdfRenderExecutor分开，
+     * 大批量并行转换占满渲染线程时，首次访问的页面不会排在整份文档之后：
+     * - 核心/最大线程数：pdf.conversion.lazy-rendering.render-threads（0表示CPU核心数的一半）
+     * - 队列容量：pdf.conversion.lazy-rendering.queue-capacity，队列满时拒绝，请求直接返回错误
+     * 
+     * 线程名称前缀：PdfLazyRender-
+     * 
+     * @param properties PDF转换配置
+     * @return 配置完成的ThreadPoolTaskExecutor线程池执行器
+     */
+    @Bean(name = "pdfLazyRenderExecutor")
+    public Executor pdfLazyRenderExecutor(PdfConversionProperties properties) {
+        PdfConversionProperties.LazyRenderingConfig lazyRendering = properties.getLazyRendering();
+        int threads = lazyRendering.resolveRenderThreads();
+        
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(Math.max(0, lazyRendering.getQueueCapacity()));
+        executor.setThreadNamePrefix("PdfLazyRender-");
+        executor.initialize();
+        
+        return executor;
+    }
+    
+    /**
+     * 创建PDF转换流水线专用的线程池执行器
+     * 
+     * 流水线的渲染、编码、上传阶段各自占用一个线程并通过有界队列相互等待，
+     * 因此不能与其他任务共用有界线程池（阶段线程排队会导致上下游互相等待）。
+     * 此线程池不设队列，按需创建线程，空闲60秒后回收；
+     * 总并发由videoCompressionExecutor的任务数和每个流水线的阶段线程数共同决定。
+     * 
+     * 线程名称前缀：PdfPipeline-
+     * 
+     * @return 配置完成的ThreadPoolTaskExecutor线程池执行器
+     */
+    @Bean(name = "pdfPipelineExecutor")
+    public Executor pdfPipelineExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(0);
+        executor.setMaxPoolSize(Integer.MAX_VALUE);
+        executor.setQueueCapacity(0);
+        executor.setKeepAliveSeconds(60);
+        executor.setThreadNamePrefix("PdfPipeline-");
+        executor.initialize();
+        
+        return executor;
+    }
+}
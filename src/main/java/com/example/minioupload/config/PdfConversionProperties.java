@@ -4,6 +4,9 @@ import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+
 @Data
 @Configuration
 @ConfigurationProperties(prefix = "pdf.conversion")
@@ -21,6 +24,46 @@ public class PdfConversionProperties {
     
     private ImageRenderingConfig imageRendering = new ImageRenderingConfig();
     
+    private ParallelRenderingConfig parallelRendering = new ParallelRenderingConfig();
+    
+    private PipelineConfig pipeline = new PipelineConfig();
+    
+    private InMemoryEncodingConfig inMemoryEncoding = new InMemoryEncodingConfig();
+    
+    private RenderMemoryConfig renderMemory = new RenderMemoryConfig();
+    
+    private TileConfig tiles = new TileConfig();
+    
+    private VariantConfig variants = new VariantConfig();
+    
+    private LazyRenderingConfig lazyRendering = new LazyRenderingConfig();
+    
+    private PriorityRenderingConfig priorityRendering = new PriorityRenderingConfig();
+    
+    private ProgressConfig progress = new ProgressConfig();
+    
+    private ColorModeConfig colorMode = new ColorModeConfig();
+    
+    private PageDedupeConfig pageDedupe = new PageDedupeConfig();
+    
+    private DocumentDedupeConfig documentDedupe = new DocumentDedupeConfig();
+    
+    private DocumentSessionConfig documentSession = new DocumentSessionConfig();
+    
+    private FontCacheConfig fontCache = new FontCacheConfig();
+    
+    private WatchdogConfig watchdog = new WatchdogConfig();
+    
+    private RenderWorkerConfig renderWorker = new RenderWorkerConfig();
+    
+    private CostModelConfig costModel = new CostModelConfig();
+    
+    private RetryConfig retry = new RetryConfig();
+    
+    private RecoveryConfig recovery = new RecoveryConfig();
+    
+    private PagePersistenceConfig pagePersistence = new PagePersistenceConfig();
+    
     private WordConversionMode wordConversionMode = WordConversionMode.LIBREOFFICE_FIRST;
     
     public enum WordConversionMode {
@@ -36,12 +79,493 @@ public class PdfConversionProperties {
         
         private String format = "PNG";
         
+        /**
+         * 图片质量（0.0-1.0），JPEG和WebP分别使用 jpeg-quality、webp-quality
+         */
         private float quality = 1.0f;
         
+        /**
+         * JPEG压缩质量（0.0-1.0），默认0.75与之前ImageIO.write的固定质量一致
+         */
+        private float jpegQuality = 0.75f;
+        
+        /**
+         * 有损WebP质量（0.0-1.0）；无损WebP时表示压缩力度，越大体积越小、编码越慢
+         */
+        private float webpQuality = 0.8f;
+        
+        /**
+         * format为webp时是否使用无损压缩
+         */
+        private boolean webpLossless = false;
+        
+        /**
+         * format为jpg时是否输出渐进式JPEG
+         */
+        private boolean progressiveJpeg = false;
+        
+        /**
+         * 默认渲染档位（DRAFT、STANDARD、ARCHIVAL），请求可通过renderProfile覆盖
+         */
+        private String profile = "STANDARD";
+        
+        /**
+         * DRAFT档位是否跳过图片（只渲染文字和矢量图形）
+         */
+        private boolean draftSkipImages = false;
+        
         private boolean antialiasing = true;
         
         private boolean renderText = true;
         
         private boolean renderImages = true;
     }
+    
+    @Data
+    public static class ParallelRenderingConfig {
+        private boolean enabled = false;
+        
+        /**
+         * 渲染工作线程数，0表示使用CPU核心数
+         */
+        private int workerThreads = 0;
+        
+        /**
+         * 页数不少于该值时才启用并行渲染
+         */
+        private int minPages = 4;
+        
+        public int resolveWorkerThreads() {
+            return workerThreads > 0 ? workerThreads : Runtime.getRuntime().availableProcessors();
+        }
+    }
+    
+    @Data
+    public static class PipelineConfig {
+        private boolean enabled = false;
+        
+        private int renderThreads = 1;
+        
+        private int encodeThreads = 1;
+        
+        private int uploadThreads = 2;
+        
+        /**
+         * 渲染 -> 编码 队列容量（位图，占用内存较大）
+         */
+        private int encodeQueueCapacity = 2;
+        
+        /**
+         * 编码 -> 上传 队列容量（临时图片文件）
+         */
+        private int uploadQueueCapacity = 4;
+    }
+    
+    @Data
+    public static class InMemoryEncodingConfig {
+        private boolean enabled = false;
+        
+        /**
+         * 单页编码结果超过该大小时改为写入临时文件
+         */
+        private long spillThresholdBytes = 33554432L;
+        
+        private int bufferPoolSize = 8;
+        
+        private int initialBufferBytes = 1048576;
+        
+        /**
+         * 超过该容量的缓冲区不再放回缓冲池
+         */
+        private long maxPooledBufferBytes = 8388608L;
+    }
+    
+    @Data
+    public static class RenderMemoryConfig {
+        private boolean enabled = false;
+        
+        /**
+         * 渲染位图内存预算（字节），0表示按堆上限和heapRatio计算
+         */
+        private long budgetBytes = 0L;
+        
+        /**
+         * 未指定budgetBytes时，预算占JVM最大堆的比例
+         */
+        private double heapRatio = 0.5;
+        
+        /**
+         * 超出预算的页面自动降级时允许的最低DPI
+         */
+        private int minDpi = 72;
+        
+        public long resolveBudgetBytes() {
+            if (budgetBytes > 0) {
+                return budgetBytes;
+            }
+            return (long) (Runtime.getRuntime().maxMemory() * heapRatio);
+        }
+    }
+    
+    @Data
+    public static class TileConfig {
+        /**
+         * 请求未指定generateTiles时是否默认生成瓦片
+         */
+        private boolean enabled = false;
+        
+        private int tileSize = 256;
+        
+        /**
+         * 瓦片图片格式（jpg、png）
+         */
+        private String format = "jpg";
+    }
+    
+    @Data
+    public static class VariantConfig {
+        /**
+         * 缩略图长边像素
+         */
+        private int thumbnailMaxSize = 150;
+        
+        /**
+         * 预览图长边像素（屏幕分辨率）
+         */
+        private int previewMaxSize = 1920;
+    }
+    
+    @Data
+    public static class LazyRenderingConfig {
+        /**
+         * 请求未指定lazy时是否默认使用按需渲染
+         */
+        private boolean enabled = false;
+        
+        /**
+         * 本地PDF缓存未被访问超过该时间后删除（分钟）
+         */
+        private int localCacheTtlMinutes = 30;
+        
+        /**
+         * 请求线程等待页面渲染的最长时间（秒），超时后渲染在后台继续
+         */
+        private int requestTimeoutSeconds = 30;
+        
+        /**
+         * 每次加载PDF依次渲染的最多页数，请求范围更大时分组并行渲染
+         */
+        private int pagesPerSession = 10;
+        
+        /**
+         * 按需渲染专用线程数，与批量转换的渲染线程池分开，大批量转换时首次访问不会排在其后（0表示CPU核心数的一半，至少1）
+         */
+        private int renderThreads = 0;
+        
+        /**
+         * 等待渲染的页面组的最大排队数，队列已满时本次请求直接返回错误
+         */
+        private int queueCapacity = 100;
+        
+        public int resolveRenderThreads() {
+            return renderThreads > 0 ? renderThreads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        }
+    }
+    
+    @Data
+    public static class PriorityRenderingConfig {
+        /**
+         * 是否优先渲染前几页和请求指定的页面
+         */
+        private boolean enabled = false;
+        
+        /**
+         * 优先渲染的前N页
+         */
+        private int firstPages = 3;
+    }
+    
+    @Data
+    public static class ProgressConfig {
+        /**
+         * Redis中的进度记录在最后一次更新后保留的时间（分钟）
+         */
+        private int ttlMinutes = 60;
+        
+        /**
+         * SSE连接最长保持时间（分钟）
+         */
+        private int sseTimeoutMinutes = 30;
+    }
+    
+    @Data
+    public static class ColorModeConfig {
+        /**
+         * 是否自动检测页面颜色模式（彩色/灰度/黑白）
+         */
+        private boolean enabled = false;
+        
+        /**
+         * 颜色检测采样渲染的DPI
+         */
+        private int sampleDpi = 24;
+        
+        /**
+         * 像素RGB三通道最大差值超过该值视为彩色像素
+         */
+        private int chromaTolerance = 24;
+        
+        /**
+         * 彩色像素比例超过该值时按彩色渲染
+         */
+        private double colorPixelRatio = 0.002;
+        
+        /**
+         * 灰度页面是否进一步检测并转换为黑白二值
+         */
+        private boolean bilevelEnabled = true;
+        
+        /**
+         * 中间调像素比例不超过该值的灰度页面视为黑白页面
+         */
+        private double bilevelMaxMidtoneRatio = 0.05;
+        
+        /**
+         * 黑白转换亮度阈值（0-255），不低于该值为白
+         */
+        private int bilevelThreshold = 160;
+    }
+    
+    @Data
+    public static class PageDedupeConfig {
+        /**
+         * 是否按页面内容指纹复用已渲染的页面图片
+         */
+        private boolean enabled = false;
+    }
+    
+    @Data
+    public static class DocumentDedupeConfig {
+        /**
+         * 相同租户以相同参数再次提交相同内容的PDF时是否直接复用之前的转换结果
+         * 默认关闭：复用时不上传PDF，任务共享之前任务的图片对象
+         */
+        private boolean enabled = false;
+    }
+    
+    @Data
+    public static class DocumentSessionConfig {
+        /**
+         * 加载PDF时的流缓存策略：MEMORY、TEMP_FILE、MIXED、ADAPTIVE
+         */
+        private String streamCache = "ADAPTIVE";
+        
+        /**
+         * MIXED策略下每个文档最多使用的堆内存（字节），超出部分写入临时目录
+         */
+        private long maxMainMemoryBytes = 67108864L;
+        
+        /**
+         * ADAPTIVE策略：不超过该大小的文件整体读入堆内存，流缓存仅使用内存
+         */
+        private long memoryOnlyMaxFileBytes = 16777216L;
+        
+        /**
+         * ADAPTIVE策略：不小于该大小的文件流缓存仅使用临时文件，介于两个阈值之间的文件使用MIXED
+         */
+        private long tempFileMinFileBytes = 67108864L;
+        
+        /**
+         * ADAPTIVE策略：超过memoryOnlyMaxFileBytes的文件是否以内存映射方式读取（映射区在堆外）
+         */
+        private boolean memoryMappedSource = true;
+    }
+    
+    @Data
+    public static class FontCacheConfig {
+        /**
+         * 启动后是否在后台预热PDFBox字体系统（系统字体扫描、标准字体、渲染管线）
+         */
+        private boolean warmUpOnStartup = true;
+        
+        /**
+         * 是否在文档之间共享已解析的嵌入字体（按字体对象内容的SHA-256匹配）
+         */
+        private boolean sharedCacheEnabled = true;
+        
+        /**
+         * 共享字体缓存最多保留的字体数，超出时淘汰最久未使用的字体
+         */
+        private int maxFonts = 256;
+    }
+    
+    @Data
+    public static class WatchdogConfig {
+        /**
+         * 单页（渲染、编码或上传）最长处理时间（秒），超过后任务按超时终止；0表示不限制
+         */
+        private int pageTimeoutSeconds = 120;
+        
+        /**
+         * 看门狗检查截止时间和单页耗时的间隔（毫秒）
+         */
+        private long checkIntervalMillis = 1000L;
+        
+        /**
+         * 从数据库同步其他节点发起的取消请求的间隔（毫秒）
+         */
+        private long cancelPollIntervalMillis = 3000L;
+    }
+    
+    @Data
+    public static class RenderWorkerConfig {
+        /**
+         * 是否在独立的子JVM中渲染页面：PDF的解析、图片解码和光栅化不占用Web进程的堆，
+         * 子进程内存溢出、崩溃或卡死只影响当前页面
+         */
+        private boolean enabled = false;
+        
+        /**
+         * 子进程数量，即所有任务合计可同时渲染的页面数
+         */
+        private int poolSize = 2;
+        
+        /**
+         * 每个子进程的最大堆（-Xmx）
+         */
+        private String maxHeap = "512m";
+        
+        /**
+         * 额外的子进程JVM参数，以空格分隔
+         */
+        private String jvmOptions = "";
+        
+        /**
+         * 启动子进程使用的java命令，为空时使用当前JVM
+         */
+        private String javaCommand = "";
+        
+        /**
+         * 子进程渲染多少次后退出并由新进程替换，0表示不回收
+         */
+        private int maxJobsPerWorker = 200;
+        
+        /**
+         * 子进程启动并连接的最长等待时间（秒）
+         */
+        private int startTimeoutSeconds = 30;
+        
+        /**
+         * 单次渲染的最长时间（秒），超过后强制结束子进程；0表示不限制（仍受看门狗单页超时约束）
+         */
+        private int renderTimeoutSeconds = 300;
+    }
+    
+    @Data
+    public static class CostModelConfig {
+        /**
+         * 是否估算页面渲染成本：多个渲染线程时按预估耗时从高到低调度页面，并记录预估与实际耗时
+         */
+        private boolean enabled = true;
+        
+        /**
+         * 每页固定耗时（毫秒）
+         */
+        private double baseMs = 50;
+        
+        /**
+         * 每百万输出像素的耗时（毫秒）
+         */
+        private double outputMegapixelMs = 20;
+        
+        /**
+         * 每百万图片像素（页面引用的图片XObject）的耗时（毫秒）
+         */
+        private double imageMegapixelMs = 100;
+        
+        /**
+         * 每KB内容流的耗时（毫秒）
+         */
+        private double contentKilobyteMs = 2.5;
+        
+        /**
+         * 指标中保留的最近预估/实际耗时样本数
+         */
+        private int sampleHistory = 100;
+    }
+    
+    @Data
+    public static class RetryConfig {
+        /**
+         * 单页渲染和单个对象上传的最多尝试次数（含第一次），1表示不重试
+         */
+        private int maxAttempts = 3;
+        
+        /**
+         * 第一次重试前的等待时间（毫秒）
+         */
+        private long initialBackoffMillis = 500L;
+        
+        /**
+         * 每次重试后等待时间的放大倍数
+         */
+        private double backoffMultiplier = 2.0;
+        
+        /**
+         * 单次等待时间上限（毫秒）
+         */
+        private long maxBackoffMillis = 8000L;
+    }
+    
+    @Data
+    public static class RecoveryConfig {
+        /**
+         * 启动时是否恢复本节点上未完成的任务（节点重启前处于SUBMITTED、PROCESSING、PARTIAL状态）
+         */
+        private boolean enabled = true;
+        
+        /**
+         * 节点标识，记录在任务的owner_node中；为空时使用主机名。
+         * 容器等主机名每次启动都会变化的环境需配置固定值，否则重启后无法识别本节点的任务
+         */
+        private String nodeId = "";
+        
+        public boolean isNodeIdConfigured() {
+            return nodeId != null && !nodeId.trim().isEmpty();
+        }
+        
+        public String resolveNodeId() {
+            if (nodeId != null && !nodeId.trim().isEmpty()) {
+                return nodeId.trim();
+            }
+            try {
+                return InetAddress.getLocalHost().getHostName();
+            } catch (UnknownHostException e) {
+                return "localhost";
+            }
+        }
+    }
+    
+    @Data
+    public static class PagePersistenceConfig {
+        /**
+         * 是否在页面完成后分批保存图片记录；关闭时（默认）全部页面完成后一次保存
+         */
+        private boolean enabled = false;
+        
+        /**
+         * 累积多少页后保存一批
+         */
+        private int batchSize = 20;
+        
+        /**
+         * 最早完成的页面等待保存的最长时间（毫秒），超过后不满一批也保存
+         */
+        private long flushIntervalMillis = 2000L;
+        
+        /**
+         * 后台保存线程检查已满或等待超时批次的间隔（毫秒）
+         */
+        private long checkIntervalMillis = 500L;
+    }
 }
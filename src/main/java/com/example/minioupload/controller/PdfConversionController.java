@@ -1,6 +1,7 @@
 package com.example.minioupload.controller;
 
 import com.example.minioupload.dto.*;
+import com.example.minioupload.service.PdfConversionMetrics;
 import com.example.minioupload.service.PdfUploadService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -9,8 +10,10 @@ import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  * PDF转换控制器
@@ -23,6 +26,7 @@ import java.util.List;
 public class PdfConversionController {
     
     private final PdfUploadService pdfUploadService;
+    private final PdfConversionMetrics pdfConversionMetrics;
 
     /**
      * 上传PDF文件并转换为图像
@@ -34,6 +38,12 @@ public class PdfConversionController {
      * @param pages        可选参数，指定需要转换的页面列表
      * @param imageDpi     可选参数，设置输出图像的DPI分辨率
      * @param imageFormat  可选参数，指定输出图像格式（如JPEG、PNG等）
+     * @param generateTiles 可选参数，是否额外生成深度缩放瓦片金字塔（DZI）
+     * @param variants     可选参数，额外输出的图片规格（THUMBNAIL、PREVIEW）
+     * @param lazy         可选参数，是否按需渲染（页面在首次访问时渲染）
+     * @param priorityPages 可选参数，需要优先渲染的页码列表
+     * @param renderProfile 可选参数，渲染档位（DRAFT、STANDARD、ARCHIVAL）
+     * @param incrementalMode 可选参数，增量转换模式（EXPLICIT、AUTO），AUTO时自动检测变更页面
      * @return             返回PDF上传和转换结果响应对象
      */
     @PostMapping(value = "/upload", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
@@ -44,7 +54,13 @@ public class PdfConversionController {
             @RequestParam("tenantId") String tenantId,
             @RequestParam(value = "pages", required = false) List<Integer> pages,
             @RequestParam(value = "imageDpi", required = false) Integer imageDpi,
-            @RequestParam(value = "imageFormat", required = false) String imageFormat) {
+            @RequestParam(value = "imageFormat", required = false) String imageFormat,
+            @RequestParam(value = "generateTiles", required = false) Boolean generateTiles,
+            @RequestParam(value = "variants", required = false) List<String> variants,
+            @RequestParam(value = "lazy", required = false) Boolean lazy,
+            @RequestParam(value = "priorityPages", required = false) List<Integer> priorityPages,
+            @RequestParam(value = "renderProfile", required = false) String renderProfile,
+            @RequestParam(value = "incrementalMode", required = false) String incrementalMode) {
         
         log.info("Received PDF upload request - businessId: {}, userId: {}, tenantId: {}, file: {}, size: {} bytes, pages: {}", 
             businessId, userId, tenantId, file.getOriginalFilename(), file.getSize(), pages);
@@ -64,6 +80,12 @@ public class PdfConversionController {
             .pages(pages)
             .imageDpi(imageDpi)
             .imageFormat(imageFormat)
+            .generateTiles(generateTiles)
+            .variants(variants)
+            .lazy(lazy)
+            .priorityPages(priorityPages)
+            .renderProfile(renderProfile)
+            .incrementalMode(incrementalMode)
             .build();
         
         try {
@@ -143,6 +165,54 @@ public class PdfConversionController {
         return ResponseEntity.ok(task);
     }
 
+    /**
+     * 取消排队或执行中的转换任务
+     * 停止转换并删除已上传的图片和PDF，任务状态变为CANCELLED
+     *
+     * @param taskId 任务ID
+     * @return 取消结果（CANCELLING表示正在停止，CANCELLED表示已取消）；任务已结束时返回409
+     */
+    @DeleteMapping("/task/{taskId}")
+    public ResponseEntity<PdfUploadResponse> cancelTask(@PathVariable String taskId) {
+        log.info("Cancelling task: {}", taskId);
+        
+        PdfUploadResponse response = pdfUploadService.cancelTask(taskId);
+        
+        if ("NOT_FOUND".equals(response.getStatus())) {
+            return ResponseEntity.notFound().build();
+        }
+        
+        if ("ERROR".equals(response.getStatus())) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
+        }
+        
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * 重新执行失败的转换任务
+     * 从MinIO下载任务的PDF，按原转换参数只转换上次未完成的页面
+     *
+     * @param taskId 任务ID
+     * @return 执行结果（PROCESSING表示已开始重新执行）；任务不是FAILED状态或PDF未保存时返回409
+     */
+    @PostMapping("/task/{taskId}/retry")
+    public ResponseEntity<PdfUploadResponse> retryTask(@PathVariable String taskId) {
+        log.info("Retrying task: {}", taskId);
+        
+        PdfUploadResponse response = pdfUploadService.retryTask(taskId);
+        
+        if ("NOT_FOUND".equals(response.getStatus())) {
+            return ResponseEntity.notFound().build();
+        }
+        
+        if ("ERROR".equals(response.getStatus())) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
+        }
+        
+        return ResponseEntity.ok(response);
+    }
+
     /**
      * 获取符合指定条件的转换任务列表
      *
@@ -181,6 +251,30 @@ public class PdfConversionController {
         return ResponseEntity.ok(progress);
     }
 
+    /**
+     * 订阅指定任务的转换进度（Server-Sent Events）
+     * 连接建立后立即推送当前进度，之后每完成一页或状态变化推送一次 progress 事件，任务结束后服务端关闭连接
+     *
+     * @param taskId 任务ID
+     * @return SSE连接
+     */
+    @GetMapping(value = "/progress/{taskId}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamProgress(@PathVariable String taskId) {
+        log.debug("Streaming progress for taskId: {}", taskId);
+        return pdfUploadService.streamProgress(taskId);
+    }
+
+    /**
+     * 获取PDF转换运行指标
+     * 包含流水线各阶段的队列深度、背压阻塞时间等，用于调整各阶段线程数和队列容量
+     *
+     * @return 指标快照
+     */
+    @GetMapping("/metrics")
+    public ResponseEntity<Map<String, Object>> getMetrics() {
+        return ResponseEntity.ok(pdfConversionMetrics.snapshot());
+    }
+
     /**
      * 获取已转换的PDF页面图像
      *
@@ -189,6 +283,7 @@ public class PdfConversionController {
      * @param userId     可选参数，用户ID
      * @param startPage  可选参数，起始页码，默认为1
      * @param pageSize   可选参数，每页图像数量，默认为10
+     * @param variant    可选参数，图片规格（FULL、PREVIEW、THUMBNAIL），默认为FULL
      * @return           返回页面图像信息响应对象
      */
     @GetMapping("/images")
@@ -197,13 +292,14 @@ public class PdfConversionController {
             @RequestParam("tenantId") String tenantId,
             @RequestParam(value = "userId", required = false) String userId,
             @RequestParam(value = "startPage", required = false, defaultValue = "1") Integer startPage,
-            @RequestParam(value = "pageSize", required = false, defaultValue = "10") Integer pageSize) {
+            @RequestParam(value = "pageSize", required = false, defaultValue = "10") Integer pageSize,
+            @RequestParam(value = "variant", required = false, defaultValue = "FULL") String variant) {
         
-        log.info("Getting page images - businessId: {}, tenantId: {}, userId: {}, startPage: {}, pageSize: {}", 
-            businessId, tenantId, userId, startPage, pageSize);
+        log.info("Getting page images - businessId: {}, tenantId: {}, userId: {}, startPage: {}, pageSize: {}, variant: {}", 
+            businessId, tenantId, userId, startPage, pageSize, variant);
         
         try {
-            PdfImageResponse response = pdfUploadService.getImages(businessId, tenantId, userId, startPage, pageSize);
+            PdfImageResponse response = pdfUploadService.getImages(businessId, tenantId, userId, startPage, pageSize, variant);
             
             if ("NOT_FOUND".equals(response.getStatus())) {
                 return ResponseEntity.notFound().build();
@@ -227,6 +323,53 @@ public class PdfConversionController {
         }
     }
     
+    /**
+     * 获取单个PDF页面图像
+     * 按需渲染模式下页面未渲染时立即渲染后返回
+     *
+     * @param pageNumber 页码（从1开始）
+     * @param businessId 业务ID
+     * @param tenantId   租户ID，必填
+     * @param userId     可选参数，用户ID
+     * @param variant    可选参数，图片规格（FULL、PREVIEW、THUMBNAIL），默认为FULL
+     * @return           返回页面图像信息响应对象
+     */
+    @GetMapping("/images/{pageNumber}")
+    public ResponseEntity<PdfImageResponse> getPageImage(
+            @PathVariable Integer pageNumber,
+            @RequestParam("businessId") String businessId,
+            @RequestParam("tenantId") String tenantId,
+            @RequestParam(value = "userId", required = false) String userId,
+            @RequestParam(value = "variant", required = false, defaultValue = "FULL") String variant) {
+        
+        log.info("Getting page image - businessId: {}, tenantId: {}, userId: {}, pageNumber: {}, variant: {}", 
+            businessId, tenantId, userId, pageNumber, variant);
+        
+        try {
+            PdfImageResponse response = pdfUploadService.getPageImage(businessId, tenantId, userId, pageNumber, variant);
+            
+            if ("NOT_FOUND".equals(response.getStatus())) {
+                return ResponseEntity.notFound().build();
+            }
+            
+            if ("ERROR".equals(response.getStatus())) {
+                return ResponseEntity.badRequest().body(response);
+            }
+            
+            return ResponseEntity.ok(response);
+            
+        } catch (Exception e) {
+            log.error("Failed to get page image - businessId: {}, pageNumber: {}", businessId, pageNumber, e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(PdfImageResponse.builder()
+                    .businessId(businessId)
+                    .userId(userId)
+                    .status("ERROR")
+                    .message("Failed to retrieve page image: " + e.getMessage())
+                    .build());
+        }
+    }
+    
     /**
      * 预览PDF图片并渲染注解
      *
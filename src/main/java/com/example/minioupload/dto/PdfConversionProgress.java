@@ -21,7 +21,7 @@ public class PdfConversionProgress {
     private String jobId;
     
     /**
-     * 任务状态：SUBMITTED(已提交)、PROCESSING(处理中)、COMPLETED(已完成)、FAILED(失败)、NOT_FOUND(未找到)
+     * 任务状态：SUBMITTED(已提交)、PROCESSING(处理中)、COMPLETED(已完成)、FAILED(失败)、PARTIAL(部分页面可用)、NOT_FOUND(未找到)
      */
     private String status;
     
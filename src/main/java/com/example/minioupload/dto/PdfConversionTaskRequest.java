@@ -51,4 +51,44 @@ public class PdfConversionTaskRequest {
      * 默认值由配置文件指定，推荐PNG格式
      */
     private String imageFormat;
+    
+    /**
+     * 是否生成深度缩放瓦片金字塔（DZI），可选
+     * 默认值由配置文件指定（pdf.conversion.tiles.enabled）
+     */
+    private Boolean generateTiles;
+    
+    /**
+     * 需要额外输出的图片规格，可选
+     * 支持：THUMBNAIL（缩略图）、PREVIEW（预览图）、FULL（原图）
+     * 原图始终生成；所有规格由同一次渲染的位图缩小得到，分别存储
+     */
+    private List<String> variants;
+    
+    /**
+     * 是否按需渲染，可选，仅对基础版本生效
+     * 开启后上传时只记录页数和页面尺寸，页面在首次访问时才渲染
+     * 默认值由配置文件指定（pdf.conversion.lazy-rendering.enabled）
+     */
+    private Boolean lazy;
+    
+    /**
+     * 需要优先渲染的页码列表（从1开始），可选
+     * 启用优先渲染时这些页面和前N页最先渲染并立即可查询，任务进入PARTIAL状态，其余页面在后台继续转换
+     */
+    private List<Integer> priorityPages;
+    
+    /**
+     * 渲染档位，可选
+     * 支持：DRAFT（快速预览，图片降采样、最近邻插值）、STANDARD（默认）、ARCHIVAL（最高质量）
+     * 默认值由配置文件指定（pdf.conversion.image-rendering.profile）
+     */
+    private String renderProfile;
+    
+    /**
+     * 增量转换模式，可选
+     * EXPLICIT（默认）：只转换pages指定的页面
+     * AUTO：提交完整文档，不传pages，逐页比较内容哈希，只转换与基础版本不同的页面，未变化的页面沿用基础版本图片
+     */
+    private String incrementalMode;
 }
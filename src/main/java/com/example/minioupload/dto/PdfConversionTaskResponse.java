@@ -59,7 +59,7 @@ public class PdfConversionTaskResponse {
     private String pdfUrl;
     
     /**
-     * 任务状态：SUBMITTED(已提交)、PROCESSING(处理中)、COMPLETED(已完成)、FAILED(失败)
+     * 任务状态：SUBMITTED(已提交)、PROCESSING(处理中)、COMPLETED(已完成)、FAILED(失败)、READY(按需渲染就绪)、PARTIAL(部分页面可用)
      */
     private String status;
     
@@ -69,6 +69,16 @@ public class PdfConversionTaskResponse {
      */
     private Boolean isBase;
     
+    /**
+     * 各页PDF尺寸，按需渲染模式下提供，用于页面渲染前预先布局
+     */
+    private List<PdfPageDimension> pageDimensions;
+    
+    /**
+     * 自动增量转换检测到的页面差异，其他任务为null
+     */
+    private PdfPageDiff pageDiff;
+    
     /**
      * 错误信息（任务失败时）
      */
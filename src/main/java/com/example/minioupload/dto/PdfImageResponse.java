@@ -53,7 +53,7 @@ public class PdfImageResponse {
     private List<PdfPageImageInfo> images;
     
     /**
-     * 响应状态：SUCCESS(成功)、ERROR(错误)、NOT_FOUND(未找到)
+     * 响应状态：SUCCESS(成功)、ERROR(错误)、NOT_FOUND(未找到)、PARTIAL(转换进行中，仅返回已完成的页面)
      */
     private String status;
     
@@ -0,0 +1,54 @@
+package com.example.minioupload.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 自动增量转换检测到的页面差异DTO
+ * 逐页比较新提交PDF与基础版本的页面内容哈希得到
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PdfPageDiff {
+
+    /**
+     * 比较所用的基础任务ID
+     */
+    private String baseTaskId;
+
+    /**
+     * 基础版本的页面内容哈希是否可用
+     * 为false时无法比较（基础PDF未保存或无法读取），所有页面均视为变更
+     */
+    private Boolean baseHashesAvailable;
+
+    /**
+     * 内容与基础版本不同的页码（两者都存在的页面）
+     */
+    @Builder.Default
+    private List<Integer> changedPages = new ArrayList<>();
+
+    /**
+     * 基础版本中不存在的新增页码
+     */
+    @Builder.Default
+    private List<Integer> addedPages = new ArrayList<>();
+
+    /**
+     * 新文档中已不存在的基础版本页码
+     */
+    @Builder.Default
+    private List<Integer> removedPages = new ArrayList<>();
+
+    /**
+     * 内容未变化、直接沿用基础版本图片的页数
+     */
+    private Integer unchangedPageCount;
+}
@@ -0,0 +1,32 @@
+package com.example.minioupload.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * PDF页面尺寸DTO
+ * 按需渲染模式下页面尚未渲染时，客户端可据此预先布局页面占位
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PdfPageDimension {
+
+    /**
+     * 页码（从1开始）
+     */
+    private Integer pageNumber;
+
+    /**
+     * PDF页面宽度（PDF点，1点=1/72英寸）
+     */
+    private Double width;
+
+    /**
+     * PDF页面高度（PDF点，1点=1/72英寸）
+     */
+    private Double height;
+}
@@ -20,6 +20,11 @@ public class PdfPageImageInfo {
      */
     private Integer pageNumber;
     
+    /**
+     * 图片规格：FULL、PREVIEW、THUMBNAIL
+     */
+    private String variant;
+    
     /**
      * 图片对象存储键（可能是文件路径或MinIO对象键）
      */
@@ -55,4 +60,35 @@ public class PdfPageImageInfo {
      * 图片文件大小（字节）
      */
     private Long fileSize;
+    
+    /**
+     * 颜色模式（COLOR、GRAY、BILEVEL）
+     */
+    private String colorMode;
+    
+    /**
+     * DZI瓦片描述文件对象键（未生成瓦片时为null）
+     * 瓦片对象键：{描述文件键去掉.dzi}_files/{level}/{col}_{row}.{tileFormat}
+     */
+    private String tileManifestKey;
+    
+    /**
+     * DZI瓦片描述文件预签名URL
+     */
+    private String tileManifestUrl;
+    
+    /**
+     * 瓦片边长（像素）
+     */
+    private Integer tileSize;
+    
+    /**
+     * 瓦片金字塔最高级别
+     */
+    private Integer tileMaxLevel;
+    
+    /**
+     * 瓦片图片格式
+     */
+    private String tileFormat;
 }
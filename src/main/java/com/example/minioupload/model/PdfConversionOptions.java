@@ -0,0 +1,56 @@
+package com.example.minioupload.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * PDF转换参数
+ * 以JSON形式保存在pdf_conversion_task.conversion_options中，
+ * 用于按需渲染、重试等需要在任务提交之后按原参数重新渲染页面的场景
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PdfConversionOptions {
+
+    /**
+     * 渲染DPI
+     */
+    private Integer imageDpi;
+
+    /**
+     * 图片格式
+     */
+    private String imageFormat;
+
+    /**
+     * 是否生成深度缩放瓦片
+     */
+    private Boolean generateTiles;
+
+    /**
+     * 原图之外的图片规格
+     */
+    private List<String> variants;
+
+    /**
+     * 是否为按需渲染（懒加载）模式
+     * true: 上传时只记录页数和页面尺寸，页面在首次访问时渲染
+     */
+    private Boolean lazy;
+
+    /**
+     * 渲染档位
+     */
+    private String renderProfile;
+
+    /**
+     * 增量转换模式
+     */
+    private String incrementalMode;
+}
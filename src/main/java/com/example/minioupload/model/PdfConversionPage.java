@@ -0,0 +1,73 @@
+package com.example.minioupload.model;
+
+import com.baomidou.mybatisplus.annotation.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * 页面转换台账实体类
+ * 记录转换任务每一页的处理状态，任务重新执行时只处理未完成的页面
+ * 
+ * 数据库表：pdf_conversion_page
+ * 索引：
+ * - uk_task_page: 任务ID+页码唯一索引
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@TableName("pdf_conversion_page")
+public class PdfConversionPage {
+
+    /**
+     * 主键ID，自增
+     */
+    @TableId(value = "id", type = IdType.AUTO)
+    private Long id;
+
+    /**
+     * 关联的任务ID
+     */
+    @TableField("task_id")
+    private String taskId;
+
+    /**
+     * 页码（从1开始）
+     */
+    @TableField("page_number")
+    private Integer pageNumber;
+
+    /**
+     * 页面状态
+     * PENDING: 待处理
+     * COMPLETED: 图片已上传且图片记录已保存
+     * FAILED: 渲染或上传重试用尽后失败
+     */
+    @TableField("status")
+    private String status;
+
+    /**
+     * 处理该页的执行次数
+     */
+    @TableField("attempts")
+    private Integer attempts;
+
+    /**
+     * 最近一次失败的错误信息
+     */
+    @TableField("error_message")
+    private String errorMessage;
+
+    /**
+     * 创建时间
+     */
+    @TableField(value = "created_at", fill = FieldFill.INSERT)
+    private LocalDateTime createdAt;
+
+    /**
+     * 更新时间
+     */
+    @TableField(value = "updated_at", fill = FieldFill.INSERT_UPDATE)
+    private LocalDateTime updatedAt;
+}
@@ -82,13 +82,30 @@ public class PdfConversionTask {
     @TableField("pdf_object_key")
     private String pdfObjectKey;
 
+    /**
+     * PDF内容SHA-256（十六进制）
+     * 上传保存文件时流式计算，用于文档级去重
+     */
+    @TableField("content_hash")
+    private String contentHash;
+
     /**
      * 任务状态
-     * 可能的值：SUBMITTED(已提交)、PROCESSING(处理中)、COMPLETED(已完成)、FAILED(失败)
+     * 可能的值：SUBMITTED(已提交)、PROCESSING(处理中)、COMPLETED(已完成)、FAILED(失败)、
+     * READY(按需渲染模式下页数和尺寸已记录，页面在首次访问时渲染)、
+     * PARTIAL(优先页面已可查询，其余页面仍在转换)、
+     * CANCELLED(已取消)、TIMEOUT(超过截止时间或单页处理时间被终止)
      */
     @TableField("status")
     private String status;
 
+    /**
+     * 执行任务的节点标识
+     * 节点重启后据此找出本节点未完成的任务并恢复执行
+     */
+    @TableField("owner_node")
+    private String ownerNode;
+
     /**
      * 是否为基础转换（全量转换）
      * true: 全量转换，转换所有页面
@@ -104,6 +121,39 @@ public class PdfConversionTask {
     @TableField("error_message")
     private String errorMessage;
 
+    /**
+     * 请求取消的时间
+     * 执行任务的节点定期检查，非空时停止转换
+     */
+    @TableField("cancel_requested_at")
+    private LocalDateTime cancelRequestedAt;
+
+    /**
+     * 转换参数（JSON，对应PdfConversionOptions）
+     */
+    @TableField("conversion_options")
+    private String conversionOptions;
+
+    /**
+     * 各页PDF尺寸（JSON数组，对应PdfPageDimension列表）
+     * 按需渲染模式下在上传时记录
+     */
+    @TableField("page_dimensions")
+    private String pageDimensions;
+
+    /**
+     * 各页内容哈希（JSON数组，下标为页码-1）
+     * 基础版本在第一次被自动增量转换引用时计算并记录，自动增量转换据此检测变更页面
+     */
+    @TableField("page_hashes")
+    private String pageHashes;
+
+    /**
+     * 自动增量转换检测到的页面差异（JSON，对应PdfPageDiff）
+     */
+    @TableField("page_diff")
+    private String pageDiff;
+
     /**
      * 任务创建时间
      * 自动设置，不可更新
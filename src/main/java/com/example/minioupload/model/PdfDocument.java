@@ -0,0 +1,84 @@
+package com.example.minioupload.model;
+
+import com.baomidou.mybatisplus.annotation.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * 已转换PDF文档索引实体类
+ * 记录按某组参数完整转换过的PDF内容，相同内容以相同参数再次提交时直接复用转换结果
+ * 
+ * 数据库表：pdf_document
+ * 索引：
+ * - uk_tenant_hash_options: 租户+内容哈希+DPI+格式+其余参数哈希唯一索引
+ * - idx_task_id: 来源任务ID索引
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@TableName("pdf_document")
+public class PdfDocument {
+
+    /**
+     * 主键ID，自增
+     */
+    @TableId(value = "id", type = IdType.AUTO)
+    private Long id;
+
+    /**
+     * 租户ID
+     */
+    @TableField("tenant_id")
+    private String tenantId;
+
+    /**
+     * PDF内容SHA-256（十六进制）
+     */
+    @TableField("content_hash")
+    private String contentHash;
+
+    /**
+     * 渲染DPI
+     */
+    @TableField("image_dpi")
+    private Integer imageDpi;
+
+    /**
+     * 图片格式
+     */
+    @TableField("image_format")
+    private String imageFormat;
+
+    /**
+     * 其余影响输出的转换参数的SHA-256
+     * 包括图片规格、瓦片、渲染档位以及渲染相关配置
+     */
+    @TableField("options_hash")
+    private String optionsHash;
+
+    /**
+     * 完成转换的任务ID
+     */
+    @TableField("task_id")
+    private String taskId;
+
+    /**
+     * PDF总页数
+     */
+    @TableField("total_pages")
+    private Integer totalPages;
+
+    /**
+     * PDF文件大小（字节）
+     */
+    @TableField("file_size")
+    private Long fileSize;
+
+    /**
+     * 创建时间
+     */
+    @TableField(value = "created_at", fill = FieldFill.INSERT)
+    private LocalDateTime createdAt;
+}
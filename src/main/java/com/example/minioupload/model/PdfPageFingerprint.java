@@ -0,0 +1,66 @@
+package com.example.minioupload.model;
+
+import com.baomidou.mybatisplus.annotation.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * 页面内容指纹索引实体类
+ * 记录已渲染页面的内容指纹与图片对象的对应关系，相同内容的页面直接引用已有对象
+ * 
+ * 数据库表：pdf_page_fingerprint
+ * 索引：
+ * - uk_tenant_fingerprint: 租户+指纹唯一索引
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@TableName("pdf_page_fingerprint")
+public class PdfPageFingerprint {
+
+    /**
+     * 主键ID，自增
+     */
+    @TableId(value = "id", type = IdType.AUTO)
+    private Long id;
+
+    /**
+     * 租户ID
+     */
+    @TableField("tenant_id")
+    private String tenantId;
+
+    /**
+     * 页面内容指纹（SHA-256十六进制）
+     */
+    @TableField("fingerprint")
+    private String fingerprint;
+
+    /**
+     * 首次渲染生成的图片记录模板（JSON数组）
+     * 包含原图、其他规格和瓦片信息，复用时按模板为新任务生成pdf_page_image记录
+     */
+    @TableField("page_images")
+    private String pageImages;
+
+    /**
+     * 引用该组图片对象的页面数
+     * 降为0时图片对象可以删除
+     */
+    @TableField("ref_count")
+    private Integer refCount;
+
+    /**
+     * 创建时间
+     */
+    @TableField(value = "created_at", fill = FieldFill.INSERT)
+    private LocalDateTime createdAt;
+
+    /**
+     * 更新时间
+     */
+    @TableField(value = "updated_at", fill = FieldFill.INSERT_UPDATE)
+    private LocalDateTime updatedAt;
+}
@@ -61,6 +61,13 @@ public class PdfPageImage {
     @TableField("page_number")
     private Integer pageNumber;
 
+    /**
+     * 图片规格（FULL、PREVIEW、THUMBNAIL）
+     * 同一页的各规格由同一次渲染生成，分别存储为独立记录
+     */
+    @TableField("variant")
+    private String variant;
+
     /**
      * 图片对象存储键
      * 可以是本地文件路径或MinIO/S3的对象键
@@ -106,12 +113,51 @@ public class PdfPageImage {
     @TableField("rendering_dpi")
     private Integer renderingDpi;
 
+    /**
+     * 颜色模式（COLOR、GRAY、BILEVEL）
+     * 启用自动颜色模式检测时，黑白/灰度页面以更小的位图渲染和编码
+     */
+    @TableField("color_mode")
+    private String colorMode;
+
+    /**
+     * 页面内容指纹
+     * 启用页面去重时非空，图片对象由pdf_page_fingerprint按引用计数管理，可能被多条记录共享
+     */
+    @TableField("content_fingerprint")
+    private String contentFingerprint;
+
     /**
      * 图片文件大小（字节）
      */
     @TableField("file_size")
     private Long fileSize;
 
+    /**
+     * DZI瓦片描述文件对象键
+     * 瓦片位于同名的 _files/ 目录下，未生成瓦片时为null
+     */
+    @TableField("tile_manifest_key")
+    private String tileManifestKey;
+
+    /**
+     * 瓦片边长（像素）
+     */
+    @TableField("tile_size")
+    private Integer tileSize;
+
+    /**
+     * 瓦片金字塔最高级别（对应原始分辨率，第0级为1×1像素）
+     */
+    @TableField("tile_max_level")
+    private Integer tileMaxLevel;
+
+    /**
+     * 瓦片图片格式
+     */
+    @TableField("tile_format")
+    private String tileFormat;
+
     /**
      * 图片创建时间
      * 自动设置，不可更新
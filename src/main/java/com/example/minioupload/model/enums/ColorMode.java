@@ -0,0 +1,50 @@
+package com.example.minioupload.model.enums;
+
+/**
+ * 页面渲染颜色模式枚举
+ * 启用自动颜色模式检测时按页面内容选择，未启用时均为彩色
+ */
+public enum ColorMode {
+    /**
+     * 彩色（RGB，每像素4字节）
+     */
+    COLOR("COLOR", "彩色"),
+
+    /**
+     * 灰度（每像素1字节）
+     */
+    GRAY("GRAY", "灰度"),
+
+    /**
+     * 黑白二值（每像素1位）
+     */
+    BILEVEL("BILEVEL", "黑白");
+
+    private final String code;
+    private final String description;
+
+    ColorMode(String code, String description) {
+        this.code = code;
+        this.description = description;
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    /**
+     * 根据code获取枚举
+     */
+    public static ColorMode fromCode(String code) {
+        for (ColorMode mode : values()) {
+            if (mode.code.equalsIgnoreCase(code)) {
+                return mode;
+            }
+        }
+        throw new IllegalArgumentException("不支持的颜色模式: " + code);
+    }
+}
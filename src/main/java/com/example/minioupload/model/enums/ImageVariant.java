@@ -0,0 +1,50 @@
+package com.example.minioupload.model.enums;
+
+/**
+ * 页面图片输出规格枚举
+ * 所有规格均由同一次渲染得到的整页位图缩小生成
+ */
+public enum ImageVariant {
+    /**
+     * 原始渲染分辨率（按请求DPI渲染的整页图片）
+     */
+    FULL("FULL", "原图"),
+
+    /**
+     * 屏幕分辨率预览图（长边不超过 pdf.conversion.variants.preview-max-size）
+     */
+    PREVIEW("PREVIEW", "预览图"),
+
+    /**
+     * 缩略图（长边不超过 pdf.conversion.variants.thumbnail-max-size）
+     */
+    THUMBNAIL("THUMBNAIL", "缩略图");
+
+    private final String code;
+    private final String description;
+
+    ImageVariant(String code, String description) {
+        this.code = code;
+        this.description = description;
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    /**
+     * 根据code获取枚举
+     */
+    public static ImageVariant fromCode(String code) {
+        for (ImageVariant variant : values()) {
+            if (variant.code.equalsIgnoreCase(code)) {
+                return variant;
+            }
+        }
+        throw new IllegalArgumentException("不支持的图片规格: " + code);
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.minioupload.model.enums;
+
+/**
+ * 增量转换模式
+ */
+public enum IncrementalMode {
+
+    /**
+     * 只转换请求pages参数指定的页面
+     */
+    EXPLICIT("EXPLICIT", "按指定页码增量转换"),
+
+    /**
+     * 提交完整文档，逐页比较内容哈希，只转换与基础版本不同的页面
+     */
+    AUTO("AUTO", "自动检测变更页面");
+
+    private final String code;
+    private final String description;
+
+    IncrementalMode(String code, String description) {
+        this.code = code;
+        this.description = description;
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    /**
+     * 根据代码获取增量转换模式
+     *
+     * @param code 模式代码（不区分大小写）
+     * @return 增量转换模式
+     * @throws IllegalArgumentException 不支持的模式时抛出
+     */
+    public static IncrementalMode fromCode(String code) {
+        for (IncrementalMode mode : values()) {
+            if (mode.code.equalsIgnoreCase(code)) {
+                return mode;
+            }
+        }
+        throw new IllegalArgumentException("不支持的增量转换模式: " + code);
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.minioupload.model.enums;
+
+/**
+ * 页面渲染档位枚举
+ * 决定PDFRenderer的渲染提示、图片子采样和是否跳过图片/文字
+ */
+public enum RenderProfile {
+    /**
+     * 草稿：关闭抗锯齿、最近邻插值、允许图片子采样，用于快速预览
+     */
+    DRAFT("DRAFT", "草稿"),
+
+    /**
+     * 标准：按 image-rendering 的 antialiasing、render-text、render-images 配置渲染
+     */
+    STANDARD("STANDARD", "标准"),
+
+    /**
+     * 存档：最高质量渲染提示、双三次插值、不做子采样，忽略跳过图片/文字的配置
+     */
+    ARCHIVAL("ARCHIVAL", "存档");
+
+    private final String code;
+    private final String description;
+
+    RenderProfile(String code, String description) {
+        this.code = code;
+        this.description = description;
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    /**
+     * 根据code获取枚举
+     */
+    public static RenderProfile fromCode(String code) {
+        for (RenderProfile profile : values()) {
+            if (profile.code.equalsIgnoreCase(code)) {
+                return profile;
+            }
+        }
+        throw new IllegalArgumentException("不支持的渲染档位: " + code);
+    }
+}
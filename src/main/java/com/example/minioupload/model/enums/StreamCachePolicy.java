@@ -0,0 +1,55 @@
+package com.example.minioupload.model.enums;
+
+/**
+ * PDFBox流缓存策略枚举
+ * 决定加载PDF时解析出的流数据缓存在堆内存还是临时文件中
+ */
+public enum StreamCachePolicy {
+    /**
+     * 仅内存：速度最快，大文件占用堆内存多
+     */
+    MEMORY("MEMORY", "仅内存"),
+
+    /**
+     * 仅临时文件：堆内存占用最少，读写临时文件有额外开销
+     */
+    TEMP_FILE("TEMP_FILE", "仅临时文件"),
+
+    /**
+     * 混合：先使用内存，超过上限后写入临时文件
+     */
+    MIXED("MIXED", "混合"),
+
+    /**
+     * 自适应：按文件大小选择，小文件整体读入内存，大文件使用内存映射读取并把流缓存放到临时文件
+     */
+    ADAPTIVE("ADAPTIVE", "自适应");
+
+    private final String code;
+    private final String description;
+
+    StreamCachePolicy(String code, String description) {
+        this.code = code;
+        this.description = description;
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    /**
+     * 根据code获取枚举
+     */
+    public static StreamCachePolicy fromCode(String code) {
+        for (StreamCachePolicy policy : values()) {
+            if (policy.code.equalsIgnoreCase(code)) {
+                return policy;
+            }
+        }
+        throw new IllegalArgumentException("不支持的流缓存策略: " + code);
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.minioupload.repository;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.example.minioupload.model.PdfConversionPage;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+import java.util.Collection;
+import java.util.List;
+
+@Mapper
+public interface PdfConversionPageRepository extends BaseMapper<PdfConversionPage> {
+    
+    /**
+     * 登记本次执行要处理的页面：新页面插入为PENDING，已登记但未完成的页面重置为PENDING并增加执行次数，
+     * 已完成的页面不修改
+     */
+    @Insert("<script>" +
+            "INSERT INTO pdf_conversion_page (task_id, page_number, status, attempts) VALUES " +
+            "<foreach collection='pageNumbers' item='pageNumber' separator=','>" +
+            "(#{taskId}, #{pageNumber}, 'PENDING', 1)" +
+            "</foreach>" +
+            " ON DUPLICATE KEY UPDATE " +
+            "attempts = IF(status = 'COMPLETED', attempts, attempts + 1), " +
+            "error_message = IF(status = 'COMPLETED', error_message, NULL), " +
+            "status = IF(status = 'COMPLETED', status, 'PENDING')" +
+            "</script>")
+    int upsertPending(@Param("taskId") String taskId, @Param("pageNumbers") Collection<Integer> pageNumbers);
+    
+    @Update("<script>" +
+            "UPDATE pdf_conversion_page SET status = 'COMPLETED', error_message = NULL " +
+            "WHERE task_id = #{taskId} AND page_number IN " +
+            "<foreach collection='pageNumbers' item='pageNumber' open='(' separator=',' close=')'>#{pageNumber}</foreach>" +
+            "</script>")
+    int markCompleted(@Param("taskId") String taskId, @Param("pageNumbers") Collection<Integer> pageNumbers);
+    
+    @Update("UPDATE pdf_conversion_page SET status = 'FAILED', error_message = #{errorMessage} " +
+            "WHERE task_id = #{taskId} AND page_number = #{pageNumber} AND status <> 'COMPLETED'")
+    int markFailed(@Param("taskId") String taskId, @Param("pageNumber") int pageNumber,
+                   @Param("errorMessage") String errorMessage);
+    
+    @Select("SELECT page_number FROM pdf_conversion_page WHERE task_id = #{taskId} AND status = 'COMPLETED'")
+    List<Integer> findCompletedPageNumbers(@Param("taskId") String taskId);
+    
+    @Select("SELECT page_number FROM pdf_conversion_page WHERE task_id = #{taskId} AND status <> 'COMPLETED' " +
+            "ORDER BY page_number ASC")
+    List<Integer> findUnfinishedPageNumbers(@Param("taskId") String taskId);
+    
+    @Select("SELECT COUNT(*) FROM pdf_conversion_page WHERE task_id = #{taskId}")
+    int countByTaskId(@Param("taskId") String taskId);
+    
+    @Delete("DELETE FROM pdf_conversion_page WHERE task_id = #{taskId}")
+    int deleteByTaskId(@Param("taskId") String taskId);
+}
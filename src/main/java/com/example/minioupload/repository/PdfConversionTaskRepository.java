@@ -5,6 +5,7 @@ import com.example.minioupload.model.PdfConversionTask;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
 
 import java.util.List;
 
@@ -14,6 +15,58 @@ public interface PdfConversionTaskRepository extends BaseMapper<PdfConversionTas
     @Select("SELECT * FROM pdf_conversion_task WHERE task_id = #{taskId}")
     PdfConversionTask findByTaskId(String taskId);
     
+    /**
+     * 记录取消请求，已请求过或任务已结束时不修改
+     */
+    @Update("UPDATE pdf_conversion_task SET cancel_requested_at = NOW() WHERE task_id = #{taskId} " +
+            "AND cancel_requested_at IS NULL AND status IN ('SUBMITTED', 'PROCESSING', 'PARTIAL')")
+    int requestCancel(String taskId);
+    
+    /**
+     * 取消未结束的任务：状态检查、取消请求和状态更新在同一条语句中完成，
+     * 不会把其他节点刚完成的任务改为CANCELLED
+     * 
+     * @return 1表示已取消，0表示任务已结束
+     */
+    @Update("UPDATE pdf_conversion_task SET cancel_requested_at = COALESCE(cancel_requested_at, NOW()), " +
+            "status = 'CANCELLED', error_message = #{errorMessage} " +
+            "WHERE task_id = #{taskId} AND status IN ('SUBMITTED', 'PROCESSING', 'PARTIAL')")
+    int cancelUnfinished(@Param("taskId") String taskId, @Param("errorMessage") String errorMessage);
+    
+    /**
+     * 记录已上传的PDF对象键，任务失败后重新执行时从该对象下载PDF
+     */
+    @Update("UPDATE pdf_conversion_task SET pdf_object_key = #{pdfObjectKey} WHERE task_id = #{taskId}")
+    int updatePdfObjectKey(@Param("taskId") String taskId, @Param("pdfObjectKey") String pdfObjectKey);
+    
+    /**
+     * 记录各页内容哈希（基础版本首次被自动增量转换引用时计算）
+     */
+    @Update("UPDATE pdf_conversion_task SET page_hashes = #{pageHashes} WHERE task_id = #{taskId}")
+    int updatePageHashes(@Param("taskId") String taskId, @Param("pageHashes") String pageHashes);
+    
+    /**
+     * 把处于指定状态的任务重置为SUBMITTED以重新执行，清除错误信息和取消请求，执行节点改为当前节点；
+     * PARTIAL状态的任务保持PARTIAL，已可用的优先页面在重新执行期间仍可查询
+     * 
+     * @return 1表示重置成功，0表示任务不在指定状态（已被其他请求重置）
+     */
+    @Update("UPDATE pdf_conversion_task SET status = IF(status = 'PARTIAL', 'PARTIAL', 'SUBMITTED'), " +
+            "error_message = NULL, cancel_requested_at = NULL, " +
+            "owner_node = #{ownerNode} WHERE task_id = #{taskId} AND status = #{expectedStatus}")
+    int resetForRetry(@Param("taskId") String taskId, @Param("expectedStatus") String expectedStatus,
+                      @Param("ownerNode") String ownerNode);
+    
+    /**
+     * 查询节点上未完成的任务（排队、执行中或只完成了优先页面）
+     */
+    @Select("SELECT * FROM pdf_conversion_task WHERE owner_node = #{ownerNode} " +
+            "AND status IN ('SUBMITTED', 'PROCESSING', 'PARTIAL') ORDER BY created_at ASC")
+    List<PdfConversionTask> findUnfinishedByOwnerNode(@Param("ownerNode") String ownerNode);
+    
+    @Select("SELECT COUNT(*) FROM pdf_conversion_task WHERE task_id = #{taskId} AND cancel_requested_at IS NOT NULL")
+    int countCancelRequested(String taskId);
+    
     @Select("SELECT * FROM pdf_conversion_task WHERE business_id = #{businessId}")
     List<PdfConversionTask> findByBusinessId(String businessId);
     
@@ -26,6 +79,16 @@ public interface PdfConversionTaskRepository extends BaseMapper<PdfConversionTas
     @Select("SELECT * FROM pdf_conversion_task WHERE business_id = #{businessId} AND tenant_id = #{tenantId} AND is_base = 1 LIMIT 1")
     PdfConversionTask findByBusinessIdAndTenantIdAndIsBaseTrue(@Param("businessId") String businessId, @Param("tenantId") String tenantId);
     
+    /**
+     * 查询用户最近一次完成的自动增量转换任务（记录了页面差异），其页数即该用户当前版本的页数
+     */
+    @Select("SELECT * FROM pdf_conversion_task WHERE business_id = #{businessId} AND tenant_id = #{tenantId} " +
+            "AND user_id = #{userId} AND is_base = 0 AND page_diff IS NOT NULL AND status = 'COMPLETED' " +
+            "ORDER BY created_at DESC, id DESC LIMIT 1")
+    PdfConversionTask findLatestCompletedAutoIncrementalTask(@Param("businessId") String businessId,
+                                                             @Param("tenantId") String tenantId,
+                                                             @Param("userId") String userId);
+    
     @Select("SELECT * FROM pdf_conversion_task WHERE business_id = #{businessId} ORDER BY created_at DESC")
     List<PdfConversionTask> findByBusinessIdOrderByCreatedAtDesc(String businessId);
 }
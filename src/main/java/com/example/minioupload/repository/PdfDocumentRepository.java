@@ -0,0 +1,25 @@
+package com.example.minioupload.repository;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.example.minioupload.model.PdfDocument;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+@Mapper
+public interface PdfDocumentRepository extends BaseMapper<PdfDocument> {
+    
+    @Select("SELECT * FROM pdf_document WHERE tenant_id = #{tenantId} AND content_hash = #{contentHash} " +
+            "AND image_dpi = #{imageDpi} AND image_format = #{imageFormat} AND options_hash = #{optionsHash}")
+    PdfDocument findByKey(@Param("tenantId") String tenantId, @Param("contentHash") String contentHash,
+                          @Param("imageDpi") int imageDpi, @Param("imageFormat") String imageFormat,
+                          @Param("optionsHash") String optionsHash);
+    
+    /**
+     * 登记已转换文档，相同键已存在时保留原记录
+     */
+    @Insert("INSERT IGNORE INTO pdf_document (tenant_id, content_hash, image_dpi, image_format, options_hash, task_id, total_pages, file_size) " +
+            "VALUES (#{tenantId}, #{contentHash}, #{imageDpi}, #{imageFormat}, #{optionsHash}, #{taskId}, #{totalPages}, #{fileSize})")
+    int insertIfAbsent(PdfDocument document);
+}
@@ -0,0 +1,43 @@
+package com.example.minioupload.repository;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.example.minioupload.model.PdfPageFingerprint;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+@Mapper
+public interface PdfPageFingerprintRepository extends BaseMapper<PdfPageFingerprint> {
+    
+    @Select("SELECT * FROM pdf_page_fingerprint WHERE tenant_id = #{tenantId} AND fingerprint = #{fingerprint}")
+    PdfPageFingerprint findByTenantIdAndFingerprint(@Param("tenantId") String tenantId, @Param("fingerprint") String fingerprint);
+    
+    /**
+     * 登记新指纹，已存在时不做任何修改
+     * 
+     * @return 1表示登记成功，0表示指纹已被其他页面登记
+     */
+    @Insert("INSERT IGNORE INTO pdf_page_fingerprint (tenant_id, fingerprint, page_images, ref_count) " +
+            "VALUES (#{tenantId}, #{fingerprint}, #{pageImages}, 1)")
+    int insertIfAbsent(@Param("tenantId") String tenantId, @Param("fingerprint") String fingerprint,
+                       @Param("pageImages") String pageImages);
+    
+    /**
+     * 增加引用计数；计数已降为0（正在回收）的指纹不再接受新引用
+     * 
+     * @return 1表示引用成功
+     */
+    @Update("UPDATE pdf_page_fingerprint SET ref_count = ref_count + 1 " +
+            "WHERE tenant_id = #{tenantId} AND fingerprint = #{fingerprint} AND ref_count > 0")
+    int incrementRefCount(@Param("tenantId") String tenantId, @Param("fingerprint") String fingerprint);
+    
+    @Update("UPDATE pdf_page_fingerprint SET ref_count = ref_count - 1 " +
+            "WHERE tenant_id = #{tenantId} AND fingerprint = #{fingerprint} AND ref_count > 0")
+    int decrementRefCount(@Param("tenantId") String tenantId, @Param("fingerprint") String fingerprint);
+    
+    @Delete("DELETE FROM pdf_page_fingerprint WHERE tenant_id = #{tenantId} AND fingerprint = #{fingerprint} AND ref_count = 0")
+    int deleteUnreferenced(@Param("tenantId") String tenantId, @Param("fingerprint") String fingerprint);
+}
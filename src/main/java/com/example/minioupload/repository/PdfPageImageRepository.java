@@ -2,6 +2,7 @@ package com.example.minioupload.repository;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.example.minioupload.model.PdfPageImage;
+import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
@@ -11,25 +12,65 @@ import java.util.List;
 @Mapper
 public interface PdfPageImageRepository extends BaseMapper<PdfPageImage> {
     
+    /**
+     * 多行INSERT批量保存图片记录，一条语句一次往返
+     * 不经过MyBatis-Plus自动填充，created_at由调用方设置；
+     * 同一任务同页同规格已有记录时（唯一键 uk_task_page_variant，如多个节点同时按需渲染同一页面）保留已有记录
+     */
+    @Insert("<script>" +
+            "INSERT INTO pdf_page_image (task_id, business_id, user_id, tenant_id, page_number, variant, " +
+            "image_object_key, is_base, width, height, pdf_width, pdf_height, rendering_dpi, color_mode, " +
+            "content_fingerprint, file_size, tile_manifest_key, tile_size, tile_max_level, tile_format, created_at) VALUES " +
+            "<foreach collection='pageImages' item='image' separator=','>" +
+            "(#{image.taskId}, #{image.businessId}, #{image.userId}, #{image.tenantId}, #{image.pageNumber}, " +
+            "#{image.variant}, #{image.imageObjectKey}, #{image.isBase}, #{image.width}, #{image.height}, " +
+            "#{image.pdfWidth}, #{image.pdfHeight}, #{image.renderingDpi}, #{image.colorMode}, " +
+            "#{image.contentFingerprint}, #{image.fileSize}, #{image.tileManifestKey}, #{image.tileSize}, " +
+            "#{image.tileMaxLevel}, #{image.tileFormat}, #{image.createdAt})" +
+            "</foreach>" +
+            " ON DUPLICATE KEY UPDATE id = id" +
+            "</script>")
+    int insertBatch(@Param("pageImages") List<PdfPageImage> pageImages);
+    
     @Select("SELECT * FROM pdf_page_image WHERE task_id = #{taskId}")
     List<PdfPageImage> findByTaskId(String taskId);
     
-    @Select("SELECT * FROM pdf_page_image WHERE business_id = #{businessId} AND is_base = 1 ORDER BY page_number ASC")
+    @Select("SELECT * FROM pdf_page_image WHERE business_id = #{businessId} AND is_base = 1 AND variant = 'FULL' ORDER BY page_number ASC")
     List<PdfPageImage> findByBusinessIdAndIsBaseTrueOrderByPageNumberAsc(String businessId);
     
-    @Select("SELECT * FROM pdf_page_image WHERE business_id = #{businessId} AND tenant_id = #{tenantId} AND is_base = 1 ORDER BY page_number ASC")
+    @Select("SELECT * FROM pdf_page_image WHERE business_id = #{businessId} AND tenant_id = #{tenantId} AND is_base = 1 AND variant = 'FULL' ORDER BY page_number ASC")
     List<PdfPageImage> findByBusinessIdAndTenantIdAndIsBaseTrueOrderByPageNumberAsc(@Param("businessId") String businessId, @Param("tenantId") String tenantId);
     
-    @Select("SELECT * FROM pdf_page_image WHERE business_id = #{businessId} AND user_id = #{userId} AND is_base = 0 ORDER BY page_number ASC")
+    @Select("SELECT * FROM pdf_page_image WHERE business_id = #{businessId} AND user_id = #{userId} AND is_base = 0 AND variant = 'FULL' ORDER BY page_number ASC")
     List<PdfPageImage> findByBusinessIdAndUserIdAndIsBaseFalseOrderByPageNumberAsc(@Param("businessId") String businessId, @Param("userId") String userId);
     
     @Select("SELECT * FROM pdf_page_image WHERE business_id = #{businessId} AND " +
-            "((is_base = 1) OR (user_id = #{userId} AND is_base = 0)) " +
+            "((is_base = 1) OR (user_id = #{userId} AND is_base = 0)) AND variant = 'FULL' " +
             "ORDER BY page_number ASC")
     List<PdfPageImage> findMergedImages(@Param("businessId") String businessId, @Param("userId") String userId);
     
     @Select("SELECT * FROM pdf_page_image WHERE business_id = #{businessId} AND tenant_id = #{tenantId} AND " +
-            "((is_base = 1) OR (user_id = #{userId} AND is_base = 0)) " +
+            "((is_base = 1) OR (user_id = #{userId} AND is_base = 0)) AND variant = 'FULL' " +
             "ORDER BY page_number ASC")
     List<PdfPageImage> findMergedImages(@Param("businessId") String businessId, @Param("tenantId") String tenantId, @Param("userId") String userId);
+    
+    @Select("SELECT * FROM pdf_page_image WHERE business_id = #{businessId} AND tenant_id = #{tenantId} AND is_base = 1 " +
+            "AND variant = #{variant} ORDER BY page_number ASC")
+    List<PdfPageImage> findBaseImagesByVariant(@Param("businessId") String businessId, @Param("tenantId") String tenantId,
+                                               @Param("variant") String variant);
+    
+    @Select("SELECT * FROM pdf_page_image WHERE business_id = #{businessId} AND tenant_id = #{tenantId} AND " +
+            "((is_base = 1) OR (user_id = #{userId} AND is_base = 0)) AND variant = #{variant} " +
+            "ORDER BY page_number ASC, created_at DESC, id DESC")
+    List<PdfPageImage> findMergedImagesByVariant(@Param("businessId") String businessId, @Param("tenantId") String tenantId,
+                                                 @Param("userId") String userId, @Param("variant") String variant);
+    
+    @Select("SELECT page_number FROM pdf_page_image WHERE task_id = #{taskId} AND variant = 'FULL'")
+    List<Integer> findRenderedPageNumbers(@Param("taskId") String taskId);
+    
+    @Select("SELECT COUNT(*) FROM pdf_page_image WHERE task_id = #{taskId} AND page_number = #{pageNumber} AND variant = 'FULL'")
+    int countRenderedPage(@Param("taskId") String taskId, @Param("pageNumber") int pageNumber);
+    
+    @Select("SELECT COUNT(*) FROM pdf_page_image WHERE task_id = #{taskId} AND variant = 'FULL'")
+    int countRenderedPages(@Param("taskId") String taskId);
 }
@@ -0,0 +1,24 @@
+package com.example.minioupload.service;
+
+/**
+ * 转换被取消或超时时抛出
+ *
+ * 由 {@link ConversionControl} 在页面之间或渲染的内容流操作符之间抛出，
+ * 经过各渲染模式时可能被包装为IOException，调用方应以 {@link ConversionControl#isAborted()} 判断。
+ */
+public class ConversionAbortedException extends RuntimeException {
+
+    private final String status;
+
+    public ConversionAbortedException(String status, String message) {
+        super(message, null, false, false);
+        this.status = status;
+    }
+
+    /**
+     * 任务应进入的状态：CANCELLED或TIMEOUT
+     */
+    public String getStatus() {
+        return status;
+    }
+}
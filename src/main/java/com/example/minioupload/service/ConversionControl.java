@@ -0,0 +1,209 @@
+package com.example.minioupload.service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 单次转换（或单次按需渲染）的截止时间与取消控制
+ *
+ * - 截止时间从 {@link #start()} 开始计算，排队等待执行的时间不计入
+ * - 处理每一页前通过 {@link #enterPage(int)} 检查是否已取消或超时；渲染器在每个内容流操作符之前
+ *   检查 {@link #throwIfAborted()}，单页渲染中途也能停止
+ * - {@link ConversionWatchdog} 定期检查整体截止时间和单页耗时，超时或取消时中断正在处理页面的线程，
+ *   使阻塞在渲染内存预算、队列或上传上的线程尽快退出
+ * - 任务进入完成状态前调用 {@link #finish()}，之后不再接受取消，避免已完成的任务被回收
+ *
+ * 线程安全。
+ */
+public final class ConversionControl {
+
+    public static final String STATUS_CANCELLED = "CANCELLED";
+    public static final String STATUS_TIMEOUT = "TIMEOUT";
+
+    private final String key;
+    private final boolean task;
+    private final long timeoutNanos;
+    private final long pageTimeoutNanos;
+    private final Map<Thread, PageScope> activePages = new ConcurrentHashMap<>();
+
+    private volatile long deadlineNanos;
+    private volatile boolean started;
+    private volatile boolean finished;
+    private volatile String abortStatus;
+    private volatile String abortMessage;
+
+    ConversionControl(String key, boolean task, long timeoutSeconds, long pageTimeoutSeconds) {
+        this.key = key;
+        this.task = task;
+        this.timeoutNanos = TimeUnit.SECONDS.toNanos(Math.max(0L, timeoutSeconds));
+        this.pageTimeoutNanos = TimeUnit.SECONDS.toNanos(Math.max(0L, pageTimeoutSeconds));
+    }
+
+    /**
+     * 不设截止时间、不登记到看门狗的控制（直接调用转换接口时的默认值）
+     */
+    public static ConversionControl unbounded() {
+        return new ConversionControl("unbounded", false, 0, 0);
+    }
+
+    /**
+     * 任务ID，按需渲染时为 任务ID:页码
+     */
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * 是否为转换任务（可通过接口取消），按需渲染为false
+     */
+    boolean isTask() {
+        return task;
+    }
+
+    /**
+     * 开始执行，截止时间从此刻开始计算
+     */
+    public void start() {
+        deadlineNanos = System.nanoTime() + timeoutNanos;
+        started = true;
+    }
+
+    /**
+     * 检查是否已取消或超过截止时间，是则抛出 {@link ConversionAbortedException}
+     */
+    public void checkpoint() {
+        if (abortStatus == null && started && timeoutNanos > 0 && System.nanoTime() - deadlineNanos > 0) {
+            abort(STATUS_TIMEOUT, "Conversion exceeded " + TimeUnit.NANOSECONDS.toSeconds(timeoutNanos) + " seconds");
+        }
+        throwIfAborted();
+    }
+
+    /**
+     * 仅检查取消标记（不读取时钟），供渲染器在每个操作符之前调用
+     */
+    public void throwIfAborted() {
+        String status = abortStatus;
+        if (status != null) {
+            throw new ConversionAbortedException(status, abortMessage);
+        }
+    }
+
+    public boolean isAborted() {
+        return abortStatus != null;
+    }
+
+    /**
+     * 终止原因对应的任务状态：CANCELLED或TIMEOUT，未终止时为null
+     */
+    public String getAbortStatus() {
+        return abortStatus;
+    }
+
+    public String getAbortMessage() {
+        return abortMessage;
+    }
+
+    /**
+     * 开始处理一页：先执行 {@link #checkpoint()}，再登记当前线程以便看门狗检查单页耗时和中断
+     *
+     * @param pageNumber 页码
+     * @return 页面处理结束时关闭
+     */
+    public PageScope enterPage(int pageNumber) {
+        checkpoint();
+        PageScope scope = new PageScope(pageNumber);
+        activePages.put(scope.thread, scope);
+        return scope;
+    }
+
+    /**
+     * 终止转换并中断正在处理页面的线程
+     *
+     * @param status CANCELLED或TIMEOUT
+     * @param message 原因
+     * @return 是否由本次调用终止；已完成或已终止时返回false
+     */
+    public synchronized boolean abort(String status, String message) {
+        if (finished || abortStatus != null) {
+            return false;
+        }
+        abortMessage = message;
+        abortStatus = status;
+        for (PageScope scope : activePages.values()) {
+            scope.thread.interrupt();
+        }
+        return true;
+    }
+
+    /**
+     * 标记转换完成，之后不再接受取消
+     *
+     * @return 是否标记成功；已终止时返回false
+     */
+    public synchronized boolean tryFinish() {
+        if (abortStatus != null) {
+            return false;
+        }
+        finished = true;
+        return true;
+    }
+
+    /**
+     * 标记转换完成，已终止时抛出 {@link ConversionAbortedException}
+     */
+    public void finish() {
+        if (!tryFinish()) {
+            throwIfAborted();
+        }
+    }
+
+    /**
+     * 看门狗调用：检查整体截止时间和单页耗时，超时则终止
+     *
+     * @return 是否因本次检查而终止
+     */
+    boolean checkTimeouts() {
+        if (!started || abortStatus != null || finished) {
+            return false;
+        }
+        long now = System.nanoTime();
+        if (timeoutNanos > 0 && now - deadlineNanos > 0) {
+            return abort(STATUS_TIMEOUT, "Conversion exceeded " + TimeUnit.NANOSECONDS.toSeconds(timeoutNanos) + " seconds");
+        }
+        if (pageTimeoutNanos > 0) {
+            for (PageScope scope : activePages.values()) {
+                if (now - scope.startNanos > pageTimeoutNanos) {
+                    return abort(STATUS_TIMEOUT, "Page " + scope.pageNumber + " exceeded "
+                        + TimeUnit.NANOSECONDS.toSeconds(pageTimeoutNanos) + " seconds");
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 单页处理范围
+     */
+    public final class PageScope implements AutoCloseable {
+
+        private final Thread thread = Thread.currentThread();
+        private final int pageNumber;
+        private final long startNanos = System.nanoTime();
+
+        private PageScope(int pageNumber) {
+            this.pageNumber = pageNumber;
+        }
+
+        @Override
+        public void close() {
+            synchronized (ConversionControl.this) {
+                activePages.remove(thread, this);
+                if (abortStatus != null) {
+                    // 清除终止时设置的中断标记，线程池线程和后续清理不受影响
+                    Thread.interrupted();
+                }
+            }
+        }
+    }
+}
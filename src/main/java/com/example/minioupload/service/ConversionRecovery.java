@@ -0,0 +1,154 @@
+package com.example.minioupload.service;
+
+import com.example.minioupload.config.PdfConversionProperties;
+import com.example.minioupload.model.PdfConversionTask;
+import com.example.minioupload.repository.PdfConversionTaskRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * 节点重启后恢复未完成的转换任务
+ *
+ * 任务提交时记录所属节点（owner_node）。应用就绪后查询本节点处于SUBMITTED、PROCESSING、PARTIAL状态的任务，
+ * 交给 {@link PdfUploadService#recoverTask} 继续执行：优先使用本地临时PDF，否则从MinIO下载，
+ * 页面台账中已完成的页面不再渲染。
+ *
+ * 之后清理临时目录中重启前遗留、且任务已结束（或不存在）的任务目录。
+ *
+ * 未配置节点标识（PDF_NODE_ID）时使用主机名，启动时输出警告：容器环境中主机名每次启动都会变化，
+ * 重启前的任务不会被识别为本节点的任务。
+ *
+ * 配置：pdf.conversion.recovery
+ */
+@Slf4j
+@Component
+public class ConversionRecovery {
+
+    private static final Set<String> UNFINISHED_STATUSES = new HashSet<>(Arrays.asList("SUBMITTED", "PROCESSING", "PARTIAL"));
+
+    private final PdfConversionProperties properties;
+    private final PdfConversionTaskRepository taskRepository;
+    private final PdfUploadService pdfUploadService;
+
+    public ConversionRecovery(PdfConversionProperties properties, PdfConversionTaskRepository taskRepository,
+                              PdfUploadService pdfUploadService) {
+        this.properties = properties;
+        this.taskRepository = taskRepository;
+        this.pdfUploadService = pdfUploadService;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (!properties.isEnabled() || !properties.getRecovery().isEnabled()) {
+            return;
+        }
+        if (!properties.getRecovery().isNodeIdConfigured()) {
+            log.warn("pdf.conversion.recovery.node-id (PDF_NODE_ID) is not set, using host name '{}' as node id. "
+                + "If the host name changes on restart (e.g. container pods), unfinished tasks of the previous "
+                + "instance will not be recovered; set a node id that stays the same across restarts",
+                properties.getRecovery().resolveNodeId());
+        }
+        Set<String> recovered = recoverTasks();
+        cleanupOrphanedTaskDirectories(recovered);
+    }
+
+    /**
+     * 恢复本节点未完成的任务，单个任务失败不影响其他任务
+     *
+     * @return 交给恢复流程处理的任务ID
+     */
+    Set<String> recoverTasks() {
+        String nodeId = properties.getRecovery().resolveNodeId();
+        List<PdfConversionTask> tasks;
+        try {
+            tasks = taskRepository.findUnfinishedByOwnerNode(nodeId);
+        } catch (RuntimeException e) {
+            log.error("Failed to query unfinished tasks of node {}", nodeId, e);
+            return new HashSet<>();
+        }
+        if (tasks.isEmpty()) {
+            return new HashSet<>();
+        }
+
+        log.info("Recovering {} unfinished tasks of node {}", tasks.size(), nodeId);
+        Set<String> recovered = new HashSet<>();
+        for (PdfConversionTask task : tasks) {
+            recovered.add(task.getTaskId());
+            try {
+                pdfUploadService.recoverTask(task);
+            } catch (RuntimeException e) {
+                log.error("Failed to recover taskId: {}", task.getTaskId(), e);
+            }
+        }
+        return recovered;
+    }
+
+    /**
+     * 删除重启前遗留的任务临时目录：目录名为任务ID、任务已结束或不存在，且启动后未被修改
+     *
+     * @param recovered 正在恢复的任务ID，其目录由转换结束时清理
+     */
+    void cleanupOrphanedTaskDirectories(Set<String> recovered) {
+        Path tempDir = Paths.get(properties.getTempDirectory());
+        if (!Files.isDirectory(tempDir)) {
+            return;
+        }
+        long startTime = ManagementFactory.getRuntimeMXBean().getStartTime();
+        int removed = 0;
+        try (Stream<Path> entries = Files.list(tempDir)) {
+            for (Path entry : (Iterable<Path>) entries::iterator) {
+                String taskId = entry.getFileName().toString();
+                if (!Files.isDirectory(entry) || !isTaskId(taskId) || recovered.contains(taskId)
+                        || Files.getLastModifiedTime(entry).toMillis() >= startTime) {
+                    continue;
+                }
+                PdfConversionTask task = taskRepository.findByTaskId(taskId);
+                if (task != null && UNFINISHED_STATUSES.contains(task.getStatus())) {
+                    continue;
+                }
+                deleteRecursively(entry);
+                removed++;
+            }
+        } catch (IOException | RuntimeException e) {
+            log.warn("Failed to clean up orphaned task directories under {}", tempDir, e);
+        }
+        if (removed > 0) {
+            log.info("Removed {} orphaned task directories under {}", removed, tempDir);
+        }
+    }
+
+    private static boolean isTaskId(String name) {
+        try {
+            return UUID.fromString(name).toString().equals(name);
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private static void deleteRecursively(Path dir) throws IOException {
+        try (Stream<Path> paths = Files.walk(dir)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> {
+                try {
+                    Files.deleteIfExists(path);
+                } catch (IOException e) {
+                    log.warn("Failed to delete: {}", path, e);
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.example.minioupload.service;
+
+import com.example.minioupload.config.PdfConversionProperties;
+import com.example.minioupload.repository.PdfConversionTaskRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 转换看门狗
+ *
+ * 登记本节点上排队和执行中的转换任务（以及按需渲染），定期：
+ * - 检查整体截止时间（timeout-seconds）和单页耗时（watchdog.page-timeout-seconds），超时则终止
+ * - 从数据库同步其他节点收到的取消请求（cancel_requested_at），终止本节点上的执行
+ *
+ * 终止只设置标记并中断处理页面的线程，状态更新和已上传对象的清理由执行转换的线程在退出时完成。
+ *
+ * 配置：pdf.conversion.timeout-seconds、pdf.conversion.watchdog
+ */
+@Slf4j
+@Component
+public class ConversionWatchdog {
+
+    private final PdfConversionProperties properties;
+    private final PdfConversionTaskRepository taskRepository;
+    private final Map<String, ConversionControl> controls = new ConcurrentHashMap<>();
+    private volatile long lastCancelPoll;
+
+    public ConversionWatchdog(PdfConversionProperties properties, PdfConversionTaskRepository taskRepository) {
+        this.properties = properties;
+        this.taskRepository = taskRepository;
+    }
+
+    /**
+     * 登记转换任务，任务提交到线程池前调用，排队期间即可取消
+     *
+     * @param taskId 任务ID
+     * @return 任务控制，执行开始时调用 {@link ConversionControl#start()}，结束后调用 {@link #unregister}
+     */
+    public ConversionControl register(String taskId) {
+        ConversionControl control = new ConversionControl(taskId, true, properties.getTimeoutSeconds(),
+            properties.getWatchdog().getPageTimeoutSeconds());
+        controls.put(taskId, control);
+        return control;
+    }
+
+    /**
+     * 登记一次按需渲染并立即开始计时，不能通过接口取消
+     *
+     * @param taskId 任务ID
+     * @param pageNumber 页码
+     * @return 渲染控制，结束后调用 {@link #unregister}
+     */
+    public ConversionControl registerRender(String taskId, int pageNumber) {
+        ConversionControl control = new ConversionControl(taskId + ":" + pageNumber, false,
+            properties.getTimeoutSeconds(), properties.getWatchdog().getPageTimeoutSeconds());
+        control.start();
+        controls.put(control.getKey(), control);
+        return control;
+    }
+
+    public void unregister(ConversionControl control) {
+        controls.remove(control.getKey(), control);
+    }
+
+    /**
+     * 取消本节点上排队或执行中的任务
+     *
+     * @param taskId 任务ID
+     * @return 任务在本节点上且取消成功时返回true
+     */
+    public boolean cancel(String taskId) {
+        ConversionControl control = controls.get(taskId);
+        return control != null && control.isTask() && control.abort(ConversionControl.STATUS_CANCELLED, "Cancelled by user");
+    }
+
+    /**
+     * 任务进入完成状态前调用：同步其他节点的取消后标记完成
+     *
+     * @param control 任务控制
+     * @throws ConversionAbortedException 任务已被取消或超时
+     */
+    public void finish(ConversionControl control) {
+        if (!tryFinish(control)) {
+            control.throwIfAborted();
+        }
+    }
+
+    /**
+     * 同 {@link #finish}，已终止时返回false而不抛出异常
+     */
+    public boolean tryFinish(ConversionControl control) {
+        if (control.isTask()) {
+            pollCancellation(control);
+        }
+        return control.tryFinish();
+    }
+
+    @Scheduled(fixedDelayString = "${pdf.conversion.watchdog.check-interval-millis:1000}")
+    public void check() {
+        if (controls.isEmpty()) {
+            return;
+        }
+        boolean pollCancellations = System.currentTimeMillis() - lastCancelPoll
+            >= properties.getWatchdog().getCancelPollIntervalMillis();
+        for (ConversionControl control : controls.values()) {
+            if (control.checkTimeouts()) {
+                log.warn("Conversion {} timed out: {}", control.getKey(), control.getAbortMessage());
+            } else if (pollCancellations && control.isTask()) {
+                pollCancellation(control);
+            }
+        }
+        if (pollCancellations) {
+            lastCancelPoll = System.currentTimeMillis();
+        }
+    }
+
+    private void pollCancellation(ConversionControl control) {
+        if (control.isAborted()) {
+            return;
+        }
+        try {
+            if (taskRepository.countCancelRequested(control.getKey()) > 0
+                    && control.abort(ConversionControl.STATUS_CANCELLED, "Cancelled by user")) {
+                log.info("Conversion {} cancelled from another node", control.getKey());
+            }
+        } catch (RuntimeException e) {
+            log.warn("Failed to poll cancellation of task {}", control.getKey(), e);
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package com.example.minioupload.service;
+
+import com.example.minioupload.config.PdfConversionProperties;
+import com.example.minioupload.model.PdfConversionOptions;
+import com.example.minioupload.model.PdfConversionTask;
+import com.example.minioupload.model.PdfDocument;
+import com.example.minioupload.model.PdfPageImage;
+import com.example.minioupload.model.enums.ImageVariant;
+import com.example.minioupload.model.enums.RenderProfile;
+import com.example.minioupload.repository.PdfConversionTaskRepository;
+import com.example.minioupload.repository.PdfDocumentRepository;
+import com.example.minioupload.repository.PdfPageImageRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 文档级去重服务
+ *
+ * 上传的PDF在保存到本地时流式计算SHA-256。全量转换完成后按
+ * （租户、内容哈希、DPI、格式、其余参数哈希）登记到 pdf_document；
+ * 之后同一租户以相同参数提交相同内容时，直接为新任务复制来源任务的图片记录并标记为完成，
+ * 不上传PDF、不渲染、不写MinIO。
+ *
+ * 复制的记录与来源任务共享MinIO对象。其中已登记页面指纹的页面（见 {@link PageDedupeService}）
+ * 逐页增加引用计数，因此按引用计数回收时不会误删仍被引用的对象。
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class DocumentDedupeService {
+
+    private final PdfConversionProperties properties;
+    private final PdfDocumentRepository documentRepository;
+    private final PdfConversionTaskRepository taskRepository;
+    private final PdfPageImageRepository pageImageRepository;
+    private final PageDedupeService pageDedupeService;
+
+    public boolean isEnabled() {
+        return properties.getDocumentDedupe().isEnabled();
+    }
+
+    /**
+     * 复制输入流到文件，同时计算内容SHA-256
+     *
+     * @param inputStream 输入流（由调用方关闭）
+     * @param target 目标文件
+     * @return 内容SHA-256（十六进制）
+     * @throws IOException 写入失败时抛出
+     */
+    public static String copyWithHash(InputStream inputStream, Path target) throws IOException {
+        MessageDigest digest = newDigest();
+        try (DigestInputStream in = new DigestInputStream(inputStream, digest)) {
+            Files.copy(in, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * 查找以相同参数完成过转换的相同文档
+     *
+     * @param tenantId 租户ID
+     * @param contentHash PDF内容SHA-256
+     * @param options 已解析为确定值的转换参数
+     * @return 文档索引记录，不存在时返回null
+     */
+    public PdfDocument find(String tenantId, String contentHash, PdfConversionOptions options) {
+        return documentRepository.findByKey(tenantId, contentHash, options.getImageDpi(),
+            options.getImageFormat().toUpperCase(), optionsHash(options));
+    }
+
+    /**
+     * 复制来源任务的转换结果到新任务
+     *
+     * 复制全部图片记录（各规格、瓦片信息），并把来源任务的PDF对象键、页数和页面尺寸写入新任务；
+     * 任务状态由调用方更新。来源任务已不存在、未完成或没有图片记录时删除该索引记录并返回false。
+     *
+     * @param document 文档索引记录
+     * @param task 新任务
+     * @return 是否复制成功；失败时调用方应正常转换
+     */
+    @Transactional
+    public boolean cloneConversion(PdfDocument document, PdfConversionTask task) {
+        PdfConversionTask source = taskRepository.findByTaskId(document.getTaskId());
+        List<PdfPageImage> sourceImages = source != null && "COMPLETED".equals(source.getStatus())
+            ? pageImageRepository.findByTaskId(source.getTaskId())
+            : new ArrayList<>();
+        if (sourceImages.isEmpty()) {
+            log.warn("Source task {} of document {} is no longer available, removing index entry",
+                document.getTaskId(), document.getContentHash());
+            documentRepository.deleteById(document.getId());
+            return false;
+        }
+
+        if (!pageDedupeService.sharePageImages(sourceImages, task.getTaskId(), task.getBusinessId(), task.getUserId(),
+                task.getTenantId(), Boolean.TRUE.equals(task.getIsBase()))) {
+            return false;
+        }
+
+        task.setPdfObjectKey(source.getPdfObjectKey());
+        task.setTotalPages(source.getTotalPages());
+        task.setPageDimensions(source.getPageDimensions());
+        task.setPageHashes(source.getPageHashes());
+        taskRepository.updateById(task);
+
+        log.info("Cloned conversion of taskId: {} to taskId: {}, images: {}",
+            source.getTaskId(), task.getTaskId(), sourceImages.size());
+        return true;
+    }
+
+    /**
+     * 登记已完成全量转换的文档
+     *
+     * @param task 已完成的任务（需包含内容哈希）
+     * @param options 任务的转换参数
+     * @param fileSize PDF文件大小
+     */
+    public void record(PdfConversionTask task, PdfConversionOptions options, long fileSize) {
+        if (task.getContentHash() == null || options.getImageDpi() == null || options.getImageFormat() == null) {
+            return;
+        }
+        try {
+            documentRepository.insertIfAbsent(PdfDocument.builder()
+                .tenantId(task.getTenantId())
+                .contentHash(task.getContentHash())
+                .imageDpi(options.getImageDpi())
+                .imageFormat(options.getImageFormat().toUpperCase())
+                .optionsHash(optionsHash(options))
+                .taskId(task.getTaskId())
+                .totalPages(task.getTotalPages())
+                .fileSize(fileSize)
+                .build());
+        } catch (Exception e) {
+            log.warn("Failed to record converted document for taskId: {}", task.getTaskId(), e);
+        }
+    }
+
+    private String optionsHash(PdfConversionOptions options) {
+        Set<ImageVariant> variants = EnumSet.noneOf(ImageVariant.class);
+        if (options.getVariants() != null) {
+            for (String code : options.getVariants()) {
+                ImageVariant variant = ImageVariant.fromCode(code.trim());
+                if (variant != ImageVariant.FULL) {
+                    variants.add(variant);
+                }
+            }
+        }
+        RenderProfile profile = options.getRenderProfile() != null ? RenderProfile.fromCode(options.getRenderProfile()) : null;
+        String signature = pageDedupeService.renderSignature(options.getImageDpi(), options.getImageFormat(),
+            Boolean.TRUE.equals(options.getGenerateTiles()), variants, profile);
+        return HexFormat.of().formatHex(newDigest().digest(signature.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
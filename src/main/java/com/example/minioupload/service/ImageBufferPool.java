@@ -0,0 +1,56 @@
+package com.example.minioupload.service;
+
+import com.example.minioupload.config.PdfConversionProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * 图片编码缓冲池
+ *
+ * 内存编码模式下，页面图片直接编码到可增长的字节缓冲区并从内存上传到MinIO。
+ * 缓冲区在页面之间复用，避免每页重新分配并逐步扩容数MB的数组。
+ *
+ * - 空闲缓冲区数量上限：pdf.conversion.in-memory-encoding.buffer-pool-size
+ * - 容量超过 max-pooled-buffer-bytes 的缓冲区归还时直接丢弃，防止池长期占用大块内存
+ */
+@Slf4j
+@Component
+public class ImageBufferPool {
+
+    private final BlockingQueue<PooledImageBuffer> idleBuffers;
+    private final int initialBufferBytes;
+    private final long maxPooledBufferBytes;
+
+    public ImageBufferPool(PdfConversionProperties properties) {
+        PdfConversionProperties.InMemoryEncodingConfig config = properties.getInMemoryEncoding();
+        this.idleBuffers = new ArrayBlockingQueue<>(Math.max(1, config.getBufferPoolSize()));
+        this.initialBufferBytes = Math.max(1024, config.getInitialBufferBytes());
+        this.maxPooledBufferBytes = config.getMaxPooledBufferBytes();
+    }
+
+    /**
+     * 获取一个已清空的缓冲区
+     *
+     * @return 缓冲区
+     */
+    public PooledImageBuffer acquire() {
+        PooledImageBuffer buffer = idleBuffers.poll();
+        if (buffer == null) {
+            buffer = new PooledImageBuffer(this, initialBufferBytes);
+        }
+        buffer.markAcquired();
+        return buffer;
+    }
+
+    void release(PooledImageBuffer buffer) {
+        if (buffer.capacity() > maxPooledBufferBytes) {
+            log.debug("Discarding oversized image buffer: {} bytes", buffer.capacity());
+            return;
+        }
+        buffer.reset();
+        idleBuffers.offer(buffer);
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.minioupload.service;
+
+import javax.imageio.ImageIO;
+import javax.imageio.stream.ImageOutputStream;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * 使用ImageIO默认参数编码（PNG、BMP等无质量参数的格式）
+ */
+class ImageIoPageEncoder implements PageImageEncoder {
+
+    private final String format;
+    private final String contentType;
+
+    ImageIoPageEncoder(String format) {
+        this.format = format.toLowerCase();
+        this.contentType = "image/" + this.format;
+    }
+
+    @Override
+    public String getFormat() {
+        return format;
+    }
+
+    @Override
+    public String getContentType() {
+        return contentType;
+    }
+
+    @Override
+    public void encode(BufferedImage image, OutputStream output) throws IOException {
+        try (ImageOutputStream imageOutput = new MemoryCacheImageOutputStream(output)) {
+            if (!ImageIO.write(image, format, imageOutput)) {
+                throw new IOException("No image writer available for format: " + format);
+            }
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.minioupload.service;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+
+/**
+ * 按指定质量编码JPEG
+ *
+ * ImageIO.write 对JPEG固定使用0.75质量且忽略配置；这里显式设置压缩质量，
+ * 并可选输出渐进式JPEG（大图在慢速网络下先显示模糊全貌）。
+ * 带透明通道的位图先合成到白色背景，JPEG不支持透明；黑白二值位图转为灰度后编码。
+ */
+class JpegPageEncoder implements PageImageEncoder {
+
+    private final float quality;
+    private final boolean progressive;
+
+    JpegPageEncoder(float quality, boolean progressive) {
+        this.quality = Math.max(0.05f, Math.min(1.0f, quality));
+        this.progressive = progressive;
+    }
+
+    @Override
+    public String getFormat() {
+        return "jpg";
+    }
+
+    @Override
+    public String getContentType() {
+        return "image/jpeg";
+    }
+
+    @Override
+    public void encode(BufferedImage image, OutputStream output) throws IOException {
+        Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName("jpeg");
+        if (!writers.hasNext()) {
+            throw new IOException("No image writer available for format: jpeg");
+        }
+        ImageWriter writer = writers.next();
+        try (ImageOutputStream imageOutput = new MemoryCacheImageOutputStream(output)) {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(quality);
+            if (progressive) {
+                param.setProgressiveMode(ImageWriteParam.MODE_DEFAULT);
+            }
+            writer.setOutput(imageOutput);
+            writer.write(null, new IIOImage(toOpaque(image), null, null), param);
+        } finally {
+            writer.dispose();
+        }
+    }
+
+    private static BufferedImage toOpaque(BufferedImage image) {
+        boolean binary = image.getType() == BufferedImage.TYPE_BYTE_BINARY;
+        if (!binary && !image.getColorModel().hasAlpha()) {
+            return image;
+        }
+        BufferedImage opaque = new BufferedImage(image.getWidth(), image.getHeight(),
+            binary ? BufferedImage.TYPE_BYTE_GRAY : BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = opaque.createGraphics();
+        try {
+            graphics.setColor(Color.WHITE);
+            graphics.fillRect(0, 0, image.getWidth(), image.getHeight());
+            graphics.drawImage(image, 0, 0, null);
+        } finally {
+            graphics.dispose();
+        }
+        return opaque;
+    }
+}
@@ -0,0 +1,376 @@
+package com.example.minioupload.service;
+
+import com.example.minioupload.config.PdfConversionProperties;
+import com.example.minioupload.model.PdfConversionOptions;
+import com.example.minioupload.model.PdfConversionTask;
+import com.example.minioupload.model.enums.ImageVariant;
+import com.example.minioupload.model.enums.RenderProfile;
+import com.example.minioupload.repository.PdfPageImageRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Stream;
+
+/**
+ * 按需渲染（懒加载）服务
+ *
+ * 按需渲染模式下上传时只记录页数和页面尺寸，页面在首次被访问时才渲染：
+ * 1. 查询pdf_page_image判断页面是否已渲染
+ * 2. 未渲染的页面按组提交到按需渲染专用线程池（不与批量转换共用），每组只加载一次PDF；同一页面的并发首次请求合并为一次渲染
+ * 3. 渲染结果上传MinIO并写入pdf_page_image，之后的访问直接读取
+ *
+ * 请求线程最多等待 request-timeout-seconds（远小于Servlet超时），超时后渲染在后台继续。
+ *
+ * 渲染所需的PDF从MinIO下载后缓存在本地临时目录，超过 local-cache-ttl-minutes 未访问时删除。
+ * 请求合并仅在本节点内生效；多个节点同时渲染同一页面时，pdf_page_image 的唯一键
+ * (task_id, page_number, variant) 保证只保留一组记录（见 {@link PageImagePersister}）。
+ * 每次渲染登记到 {@link ConversionWatchdog}，超过 timeout-seconds 或单页处理时间时中途停止，不会一直占用渲染线程。
+ */
+@Slf4j
+@Service
+public class LazyPageRenderService {
+
+    private static final String LOCAL_CACHE_DIR = "lazy-cache";
+
+    private final PdfConversionProperties properties;
+    private final PdfToImageService pdfToImageService;
+    private final MinioStorageService minioStorageService;
+    private final PdfPageImageRepository pageImageRepository;
+    private final PageImagePersister pageImagePersister;
+    private final PageDedupeService pageDedupeService;
+    private final PdfConversionMetrics metrics;
+    private final ConversionWatchdog conversionWatchdog;
+    private final ObjectMapper objectMapper;
+    private final Executor lazyRenderExecutor;
+
+    private final Map<String, CompletableFuture<Void>> inFlightRenders = new ConcurrentHashMap<>();
+    private final Map<String, Object> sourceLocks = new ConcurrentHashMap<>();
+
+    public LazyPageRenderService(
+            PdfConversionProperties properties,
+            PdfToImageService pdfToImageService,
+            MinioStorageService minioStorageService,
+            PdfPageImageRepository pageImageRepository,
+            PageImagePersister pageImagePersister,
+            PageDedupeService pageDedupeService,
+            PdfConversionMetrics metrics,
+            ConversionWatchdog conversionWatchdog,
+            ObjectMapper objectMapper,
+            @Qualifier("pdfLazyRenderExecutor") Executor lazyRenderExecutor) {
+        this.properties = properties;
+        this.pdfToImageService = pdfToImageService;
+        this.minioStorageService = minioStorageService;
+        this.pageImageRepository = pageImageRepository;
+        this.pageImagePersister = pageImagePersister;
+        this.pageDedupeService = pageDedupeService;
+        this.metrics = metrics;
+        this.conversionWatchdog = conversionWatchdog;
+        this.objectMapper = objectMapper;
+        this.lazyRenderExecutor = lazyRenderExecutor;
+    }
+
+    /**
+     * 读取任务保存的转换参数
+     *
+     * @param task 转换任务
+     * @return 转换参数，未保存或解析失败时返回空参数
+     */
+    public PdfConversionOptions readOptions(PdfConversionTask task) {
+        if (task.getConversionOptions() == null || task.getConversionOptions().isEmpty()) {
+            return new PdfConversionOptions();
+        }
+        try {
+            return objectMapper.readValue(task.getConversionOptions(), PdfConversionOptions.class);
+        } catch (JsonProcessingException e) {
+            log.error("Failed to deserialize conversion options for taskId: {}", task.getTaskId(), e);
+            return new PdfConversionOptions();
+        }
+    }
+
+    /**
+     * 判断任务是否为按需渲染模式
+     */
+    public boolean isLazy(PdfConversionTask task) {
+        return Boolean.TRUE.equals(readOptions(task).getLazy());
+    }
+
+    /**
+     * 确保指定页面已渲染，未渲染的页面立即渲染并等待完成
+     *
+     * 本次请求需要渲染的页面按 pages-per-session 分组，每组打开一次文档依次渲染；
+     * 最多等待 request-timeout-seconds，超时后渲染在后台继续，之后的请求直接读取结果。
+     *
+     * @param task 按需渲染模式的基础任务
+     * @param pageNumbers 页码（从1开始），超出范围的页码被忽略
+     * @throws IOException 任一页面渲染失败或等待超时时抛出
+     */
+    public void ensurePagesRendered(PdfConversionTask task, Collection<Integer> pageNumbers) throws IOException {
+        Set<Integer> rendered = new HashSet<>(pageImageRepository.findRenderedPageNumbers(task.getTaskId()));
+        int totalPages = task.getTotalPages() != null ? task.getTotalPages() : 0;
+
+        List<CompletableFuture<Void>> pending = new ArrayList<>();
+        Map<Integer, CompletableFuture<Void>> owned = new TreeMap<>();
+        for (Integer pageNumber : new TreeSet<>(pageNumbers)) {
+            if (pageNumber < 1 || pageNumber > totalPages || rendered.contains(pageNumber)) {
+                continue;
+            }
+            CompletableFuture<Void> created = new CompletableFuture<>();
+            CompletableFuture<Void> existing = inFlightRenders.putIfAbsent(renderKey(task.getTaskId(), pageNumber), created);
+            if (existing != null) {
+                metrics.recordLazyCoalesced();
+                pending.add(existing);
+            } else {
+                owned.put(pageNumber, created);
+                pending.add(created);
+            }
+        }
+        if (pending.isEmpty()) {
+            return;
+        }
+        submitWindows(task, owned);
+
+        try {
+            CompletableFuture.allOf(pending.toArray(new CompletableFuture[0]))
+                .get(Math.max(1, properties.getLazyRendering().getRequestTimeoutSeconds()), TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while rendering pages on demand", e);
+        } catch (TimeoutException e) {
+            throw new IOException("Pages of taskId " + task.getTaskId() + " are still rendering, please retry later", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw new IOException("On-demand rendering failed: " + cause.getMessage(), cause);
+        }
+    }
+
+    /**
+     * 把本次请求负责渲染的页面按组提交到按需渲染线程池，队列已满时这些页面立即失败
+     */
+    private void submitWindows(PdfConversionTask task, Map<Integer, CompletableFuture<Void>> owned) {
+        int windowSize = Math.max(1, properties.getLazyRendering().getPagesPerSession());
+        List<Integer> pages = new ArrayList<>(owned.keySet());
+        for (int i = 0; i < pages.size(); i += windowSize) {
+            Map<Integer, CompletableFuture<Void>> window = new TreeMap<>();
+            for (Integer pageNumber : pages.subList(i, Math.min(pages.size(), i + windowSize))) {
+                window.put(pageNumber, owned.get(pageNumber));
+            }
+            try {
+                CompletableFuture.runAsync(() -> renderWindow(task, window), lazyRenderExecutor);
+            } catch (RejectedExecutionException e) {
+                completeWindow(task, window, e);
+            }
+        }
+    }
+
+    /**
+     * 打开一次文档依次渲染一组页面，每页完成后立即通知等待该页的请求
+     */
+    private void renderWindow(PdfConversionTask task, Map<Integer, CompletableFuture<Void>> window) {
+        Throwable failure = null;
+        try {
+            // 合并范围之外的并发请求（包括其他节点）可能已经完成渲染
+            Set<Integer> rendered = new HashSet<>(pageImageRepository.findRenderedPageNumbers(task.getTaskId()));
+            PdfConversionOptions options = readOptions(task);
+            try (PdfDocumentSession session = pdfToImageService.openSession(getLocalSource(task))) {
+                for (Map.Entry<Integer, CompletableFuture<Void>> entry : window.entrySet()) {
+                    int pageNumber = entry.getKey();
+                    try {
+                        if (!rendered.contains(pageNumber)) {
+                            doRenderPage(task, options, session, pageNumber);
+                        }
+                        entry.getValue().complete(null);
+                    } catch (Throwable e) {
+                        log.error("On-demand rendering failed for taskId: {}, page: {}", task.getTaskId(), pageNumber, e);
+                        entry.getValue().completeExceptionally(e);
+                    }
+                }
+            }
+        } catch (Throwable e) {
+            log.error("On-demand rendering failed for taskId: {}, pages: {}", task.getTaskId(), window.keySet(), e);
+            failure = e;
+        } finally {
+            completeWindow(task, window, failure != null ? failure : new IOException("On-demand rendering stopped"));
+        }
+    }
+
+    /**
+     * 结束一组页面的渲染：未完成的页面以失败结束，并移出合并表
+     */
+    private void completeWindow(PdfConversionTask task, Map<Integer, CompletableFuture<Void>> window, Throwable failure) {
+        for (Map.Entry<Integer, CompletableFuture<Void>> entry : window.entrySet()) {
+            entry.getValue().completeExceptionally(failure);
+            inFlightRenders.remove(renderKey(task.getTaskId(), entry.getKey()), entry.getValue());
+        }
+    }
+
+    private static String renderKey(String taskId, int pageNumber) {
+        return taskId + ":" + pageNumber;
+    }
+
+    private void doRenderPage(PdfConversionTask task, PdfConversionOptions options, PdfDocumentSession session,
+                              int pageNumber) throws IOException {
+        int dpi = options.getImageDpi() != null ? options.getImageDpi() : properties.getImageRendering().getDpi();
+        String format = options.getImageFormat() != null ? options.getImageFormat() : properties.getImageRendering().getFormat();
+
+        Set<ImageVariant> variants = EnumSet.noneOf(ImageVariant.class);
+        if (options.getVariants() != null) {
+            for (String code : options.getVariants()) {
+                ImageVariant variant = ImageVariant.fromCode(code);
+                if (variant != ImageVariant.FULL) {
+                    variants.add(variant);
+                }
+            }
+        }
+        RenderProfile renderProfile = options.getRenderProfile() != null ? RenderProfile.fromCode(options.getRenderProfile()) : null;
+        ConversionControl control = conversionWatchdog.registerRender(task.getTaskId(), pageNumber);
+        PdfToImageService.OutputOptions outputOptions = PdfToImageService.OutputOptions.builder()
+            .generateTiles(Boolean.TRUE.equals(options.getGenerateTiles()))
+            .variants(variants)
+            .renderProfile(renderProfile)
+            .control(control)
+            .build();
+
+        long startTime = System.currentTimeMillis();
+        String fingerprint = null;
+        PdfToImageService.PageRenderInfo renderInfo;
+        try {
+            if (pageDedupeService.isEnabled()) {
+                String signature = pageDedupeService.renderSignature(
+                    dpi, format, Boolean.TRUE.equals(options.getGenerateTiles()), variants, renderProfile);
+                fingerprint = pageDedupeService.fingerprintPages(session, List.of(pageNumber), signature).get(pageNumber);
+                if (fingerprint != null && pageDedupeService.reuse(fingerprint, task.getTaskId(), task.getBusinessId(),
+                        task.getUserId(), task.getTenantId(), pageNumber, Boolean.TRUE.equals(task.getIsBase()))) {
+                    log.info("Reused existing images for page {} of taskId: {}", pageNumber, task.getTaskId());
+                    return;
+                }
+            }
+
+            renderInfo = pdfToImageService.renderSinglePageAndUpload(
+                session, task.getUserId(), task.getBusinessId(), task.getTaskId(), pageNumber, dpi, format, outputOptions);
+        } finally {
+            conversionWatchdog.unregister(control);
+            if (control.isAborted()) {
+                metrics.recordLazyRenderTimedOut();
+                Thread.interrupted();
+            }
+        }
+        renderInfo.setContentFingerprint(fingerprint);
+
+        Map<Integer, PdfToImageService.PageRenderInfo> renderInfoMap = new TreeMap<>();
+        renderInfoMap.put(pageNumber, renderInfo);
+        pageImagePersister.savePageImages(task.getTaskId(), task.getBusinessId(), task.getUserId(), task.getTenantId(),
+            renderInfoMap, Boolean.TRUE.equals(task.getIsBase()), dpi);
+
+        metrics.recordLazyRender();
+        log.info("Rendered page {} on demand for taskId: {} in {}ms",
+            pageNumber, task.getTaskId(), System.currentTimeMillis() - startTime);
+    }
+
+    /**
+     * 将上传时的PDF放入本地缓存，首批页面访问无需再从MinIO下载
+     *
+     * @param taskId 任务ID
+     * @param pdfFile 上传的PDF临时文件
+     */
+    public void cacheLocalSource(String taskId, File pdfFile) {
+        Path cacheFile = localSourcePath(taskId);
+        try {
+            Files.createDirectories(cacheFile.getParent());
+            Files.copy(pdfFile.toPath(), cacheFile, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            log.warn("Failed to cache PDF locally for taskId: {}, will download on first access", taskId, e);
+        }
+    }
+
+    /**
+     * 获取本地缓存的PDF，不存在时从MinIO下载
+     */
+    private File getLocalSource(PdfConversionTask task) throws IOException {
+        Path cacheFile = localSourcePath(task.getTaskId());
+        Object lock = sourceLocks.computeIfAbsent(task.getTaskId(), k -> new Object());
+        synchronized (lock) {
+            if (Files.exists(cacheFile)) {
+                Files.setLastModifiedTime(cacheFile, FileTime.fromMillis(System.currentTimeMillis()));
+                return cacheFile.toFile();
+            }
+            if (task.getPdfObjectKey() == null || task.getPdfObjectKey().isEmpty()) {
+                throw new IOException("PDF object key not recorded for taskId: " + task.getTaskId());
+            }
+
+            Files.createDirectories(cacheFile.getParent());
+            Path downloading = cacheFile.resolveSibling(cacheFile.getFileName() + ".part");
+            try (InputStream inputStream = minioStorageService.downloadFile(task.getPdfObjectKey())) {
+                Files.copy(inputStream, downloading, StandardCopyOption.REPLACE_EXISTING);
+            }
+            Files.move(downloading, cacheFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            metrics.recordLazySourceDownload();
+            log.debug("Downloaded PDF for on-demand rendering: {}", task.getPdfObjectKey());
+            return cacheFile.toFile();
+        }
+    }
+
+    private Path localSourcePath(String taskId) {
+        return Paths.get(properties.getTempDirectory(), LOCAL_CACHE_DIR, taskId + ".pdf");
+    }
+
+    /**
+     * 定期清理长时间未访问的本地PDF缓存
+     */
+    @Scheduled(fixedDelay = 300000)
+    public void evictIdleLocalSources() {
+        Path cacheDir = Paths.get(properties.getTempDirectory(), LOCAL_CACHE_DIR);
+        if (!Files.isDirectory(cacheDir)) {
+            return;
+        }
+        long expireBefore = System.currentTimeMillis()
+            - TimeUnit.MINUTES.toMillis(properties.getLazyRendering().getLocalCacheTtlMinutes());
+
+        try (Stream<Path> files = Files.list(cacheDir)) {
+            files.forEach(file -> {
+                String taskId = file.getFileName().toString().replaceFirst("\\.pdf(\\.part)?$", "");
+                Object lock = sourceLocks.computeIfAbsent(taskId, k -> new Object());
+                synchronized (lock) {
+                    try {
+                        if (Files.getLastModifiedTime(file).toMillis() < expireBefore) {
+                            Files.deleteIfExists(file);
+                            sourceLocks.remove(taskId, lock);
+                            log.debug("Evicted idle local PDF cache: {}", file);
+                        }
+                    } catch (IOException e) {
+                        log.warn("Failed to evict local PDF cache: {}", file, e);
+                    }
+                }
+            });
+        } catch (IOException e) {
+            log.warn("Failed to scan local PDF cache directory: {}", cacheDir, e);
+        }
+    }
+}
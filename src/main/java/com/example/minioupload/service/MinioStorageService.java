@@ -13,6 +13,7 @@ import software.amazon.awssdk.core.sync.RequestBody;
 import software.amazon.awssdk.services.s3.S3Client;
 import software.amazon.awssdk.services.s3.model.*;
 import software.amazon.awssdk.services.s3.model.DeleteObjectsResponse;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Response;
 import software.amazon.awssdk.services.s3.presigner.S3Presigner;
 import software.amazon.awssdk.services.s3.presigner.model.GetObjectPresignRequest;
 import software.amazon.awssdk.services.s3.presigner.model.PresignedGetObjectRequest;
@@ -118,6 +119,40 @@ public class MinioStorageService {
         }
     }
     
+    /**
+     * 上传内存中的字节数据到MinIO
+     * 直接读取数组中的有效部分，不复制数据；SDK重试时会重新从数组开头读取
+     * 
+     * @param data 数据数组
+     * @param length 有效数据长度（从下标0开始）
+     * @param objectKey MinIO中的对象键
+     * @param contentType 内容类型
+     * @return 上传成功返回objectKey
+     * @throws IOException 上传失败时抛出
+     */
+    public String uploadBytes(byte[] data, int length, String objectKey, String contentType) throws IOException {
+        log.info("Uploading bytes to MinIO: {}, size: {}, type: {}", objectKey, length, contentType);
+        
+        try {
+            PutObjectRequest request = PutObjectRequest.builder()
+                .bucket(s3ConfigProperties.getBucket())
+                .key(objectKey)
+                .contentType(contentType)
+                .contentLength((long) length)
+                .build();
+            
+            s3Client.putObject(request, RequestBody.fromContentProvider(
+                () -> new ByteArrayInputStream(data, 0, length), length, contentType));
+            
+            log.info("Bytes uploaded successfully: {} ({} bytes)", objectKey, length);
+            return objectKey;
+            
+        } catch (S3Exception e) {
+            log.error("Failed to upload bytes to MinIO: {}", objectKey, e);
+            throw new IOException("MinIO upload failed: " + e.getMessage(), e);
+        }
+    }
+    
     /**
      * 删除MinIO中的文件
      * 
@@ -181,6 +216,56 @@ public class MinioStorageService {
         }
     }
     
+    /**
+     * 删除指定前缀下的全部文件
+     * 
+     * @param prefix 对象键前缀（如瓦片目录 xxx_files/）
+     * @throws IOException 列举或删除失败时抛出
+     */
+    public void deleteByPrefix(String prefix) throws IOException {
+        ListObjectsV2Request request = ListObjectsV2Request.builder()
+            .bucket(s3ConfigProperties.getBucket())
+            .prefix(prefix)
+            .build();
+        
+        try {
+            for (ListObjectsV2Response page : s3Client.listObjectsV2Paginator(request)) {
+                java.util.List<String> keys = page.contents().stream()
+                    .map(S3Object::key)
+                    .collect(java.util.stream.Collectors.toList());
+                deleteFiles(keys);
+            }
+        } catch (S3Exception e) {
+            log.error("Failed to delete files with prefix: {}", prefix, e);
+            throw new IOException("MinIO prefix delete failed: " + e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * 列出指定前缀下的全部对象键
+     * 
+     * @param prefix 对象键前缀
+     * @return 对象键列表
+     * @throws IOException 列举失败时抛出
+     */
+    public java.util.List<String> listObjectKeys(String prefix) throws IOException {
+        ListObjectsV2Request request = ListObjectsV2Request.builder()
+            .bucket(s3ConfigProperties.getBucket())
+            .prefix(prefix)
+            .build();
+        
+        try {
+            java.util.List<String> keys = new java.util.ArrayList<>();
+            for (ListObjectsV2Response page : s3Client.listObjectsV2Paginator(request)) {
+                page.contents().forEach(object -> keys.add(object.key()));
+            }
+            return keys;
+        } catch (S3Exception e) {
+            log.error("Failed to list files with prefix: {}", prefix, e);
+            throw new IOException("MinIO list failed: " + e.getMessage(), e);
+        }
+    }
+    
     /**
      * 检查文件是否存在
      * 
@@ -0,0 +1,115 @@
+package com.example.minioupload.service;
+
+import com.example.minioupload.config.PdfConversionProperties;
+import com.example.minioupload.model.enums.ColorMode;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.awt.image.Raster;
+
+/**
+ * 页面颜色模式分析
+ *
+ * 分两步判断：
+ * 1. 低分辨率RGB采样图中色度（RGB三通道最大差值）超过容差的像素比例超过阈值时为彩色，否则按灰度渲染
+ * 2. 灰度整页位图中中间调像素（既不接近黑也不接近白）比例不超过阈值时视为黑白页面，
+ *    按阈值转换为1位二值位图；抗锯齿文字边缘的少量灰色像素会被归为黑或白
+ *
+ * 第一步只需几十DPI的渲染，第二步直接复用灰度位图，不需要再次渲染。
+ */
+final class PageColorAnalyzer {
+
+    /**
+     * 低于该亮度视为黑色，高于 255 - MIDTONE_MARGIN 视为白色
+     */
+    private static final int MIDTONE_MARGIN = 64;
+
+    private PageColorAnalyzer() {
+    }
+
+    /**
+     * 根据低分辨率采样图判断页面是否包含彩色内容
+     *
+     * @param sample RGB采样位图
+     * @param config 颜色模式配置
+     * @return COLOR或GRAY
+     */
+    static ColorMode detect(BufferedImage sample, PdfConversionProperties.ColorModeConfig config) {
+        int width = sample.getWidth();
+        int height = sample.getHeight();
+        long total = (long) width * height;
+        long allowed = (long) Math.floor(total * config.getColorPixelRatio());
+
+        int[] row = new int[width];
+        long colorPixels = 0;
+        for (int y = 0; y < height; y++) {
+            sample.getRGB(0, y, width, 1, row, 0, width);
+            for (int rgb : row) {
+                int r = (rgb >> 16) & 0xFF;
+                int g = (rgb >> 8) & 0xFF;
+                int b = rgb & 0xFF;
+                int chroma = Math.max(r, Math.max(g, b)) - Math.min(r, Math.min(g, b));
+                if (chroma > config.getChromaTolerance() && ++colorPixels > allowed) {
+                    return ColorMode.COLOR;
+                }
+            }
+        }
+        return ColorMode.GRAY;
+    }
+
+    /**
+     * 判断灰度位图是否可以无明显损失地转换为黑白二值
+     *
+     * @param gray TYPE_BYTE_GRAY位图
+     * @param maxMidtoneRatio 允许的中间调像素比例
+     */
+    static boolean isBilevel(BufferedImage gray, double maxMidtoneRatio) {
+        byte[] pixels = grayPixels(gray);
+        long allowed = (long) Math.floor(pixels.length * maxMidtoneRatio);
+        long midtones = 0;
+        for (byte pixel : pixels) {
+            int value = pixel & 0xFF;
+            if (value >= MIDTONE_MARGIN && value <= 255 - MIDTONE_MARGIN && ++midtones > allowed) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 按阈值把灰度位图转换为1位二值位图（TYPE_BYTE_BINARY，0为黑，1为白）
+     *
+     * @param gray TYPE_BYTE_GRAY位图
+     * @param threshold 亮度阈值，不低于该值为白
+     * @return 二值位图
+     */
+    static BufferedImage toBilevel(BufferedImage gray, int threshold) {
+        int width = gray.getWidth();
+        int height = gray.getHeight();
+        byte[] source = grayPixels(gray);
+        int sourceStride = source.length / height;
+
+        BufferedImage binary = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_BINARY);
+        byte[] target = ((DataBufferByte) binary.getRaster().getDataBuffer()).getData();
+        int targetStride = (width + 7) / 8;
+
+        for (int y = 0; y < height; y++) {
+            int sourceOffset = y * sourceStride;
+            int targetOffset = y * targetStride;
+            for (int x = 0; x < width; x++) {
+                if ((source[sourceOffset + x] & 0xFF) >= threshold) {
+                    target[targetOffset + (x >> 3)] |= (byte) (0x80 >>> (x & 7));
+                }
+            }
+        }
+        return binary;
+    }
+
+    private static byte[] grayPixels(BufferedImage gray) {
+        Raster raster = gray.getRaster();
+        if (gray.getType() != BufferedImage.TYPE_BYTE_GRAY || !(raster.getDataBuffer() instanceof DataBufferByte)) {
+            throw new IllegalArgumentException("Expected a TYPE_BYTE_GRAY image but got type " + gray.getType());
+        }
+        return ((DataBufferByte) raster.getDataBuffer()).getData();
+    }
+}
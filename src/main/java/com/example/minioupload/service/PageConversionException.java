@@ -0,0 +1,46 @@
+package com.example.minioupload.service;
+
+import java.io.IOException;
+
+/**
+ * 单页渲染或上传重试用尽后抛出，记录失败的页码和尝试次数
+ *
+ * 经过各渲染模式时可能被再次包装，调用方通过 {@link #find(Throwable)} 在异常链中查找。
+ */
+public class PageConversionException extends IOException {
+
+    private final int pageNumber;
+    private final int attempts;
+
+    public PageConversionException(int pageNumber, int attempts, Throwable cause) {
+        super("Page " + pageNumber + " failed after " + attempts + " attempt(s): " + cause.getMessage(), cause);
+        this.pageNumber = pageNumber;
+        this.attempts = attempts;
+    }
+
+    public int getPageNumber() {
+        return pageNumber;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    /**
+     * 在异常链中查找单页失败
+     *
+     * @param throwable 异常
+     * @return 单页失败，不存在时返回null
+     */
+    public static PageConversionException find(Throwable throwable) {
+        for (Throwable cause = throwable; cause != null; cause = cause.getCause()) {
+            if (cause instanceof PageConversionException) {
+                return (PageConversionException) cause;
+            }
+            if (cause.getCause() == cause) {
+                break;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,308 @@
+package com.example.minioupload.service;
+
+import com.example.minioupload.config.PdfConversionProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.rendering.PDFRenderer;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 页面转换流水线
+ *
+ * 将页面转换拆分为 渲染 -> 编码 -> 上传 三个阶段，阶段之间通过有界阻塞队列交接：
+ * - 渲染阶段：每个渲染线程持有独立的PDDocument/PDFRenderer（第一个线程使用会话文档，其余线程各自加载），按页码顺序领取页面
+ * - 编码阶段：将位图编码为图片文件
+ * - 上传阶段：将图片文件上传到MinIO
+ *
+ * 第N页上传的同时第N+1页可以在渲染，CPU与网络I/O得以重叠；
+ * 当MinIO变慢时上传队列被填满，编码和渲染阶段随之阻塞（背压），
+ * 内存中积压的位图数量不会超过队列容量。
+ *
+ * 每次转换创建一个实例，不可复用。
+ */
+@Slf4j
+class PageConversionPipeline {
+
+    private static final long POLL_INTERVAL_MS = 200;
+
+    @FunctionalInterface
+    interface RendererFactory {
+        PDFRenderer create(PdfDocumentSession session);
+    }
+
+    @FunctionalInterface
+    interface RenderStage {
+        PdfToImageService.RenderedPage render(PDDocument document, PDFRenderer renderer, int pageNumber) throws IOException;
+    }
+
+    @FunctionalInterface
+    interface EncodeStage {
+        PdfToImageService.EncodedPage encode(PdfToImageService.RenderedPage renderedPage) throws IOException;
+    }
+
+    @FunctionalInterface
+    interface UploadStage {
+        PdfToImageService.PageRenderInfo upload(PdfToImageService.EncodedPage encodedPage) throws IOException;
+    }
+
+    private static final PdfToImageService.RenderedPage RENDER_END = PdfToImageService.RenderedPage.builder().build();
+    private static final PdfToImageService.EncodedPage ENCODE_END = PdfToImageService.EncodedPage.builder().build();
+
+    private final PdfConversionProperties.PipelineConfig config;
+    private final Executor executor;
+    private final PdfConversionMetrics.StageStats renderStats;
+    private final PdfConversionMetrics.StageStats encodeStats;
+    private final PdfConversionMetrics.StageStats uploadStats;
+
+    private final BlockingQueue<PdfToImageService.RenderedPage> encodeQueue;
+    private final BlockingQueue<PdfToImageService.EncodedPage> uploadQueue;
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+    PageConversionPipeline(PdfConversionProperties.PipelineConfig config, Executor executor, PdfConversionMetrics metrics) {
+        this.config = config;
+        this.executor = executor;
+        this.renderStats = metrics.pipelineStage(PdfConversionMetrics.STAGE_RENDER);
+        this.encodeStats = metrics.pipelineStage(PdfConversionMetrics.STAGE_ENCODE);
+        this.uploadStats = metrics.pipelineStage(PdfConversionMetrics.STAGE_UPLOAD);
+        this.encodeQueue = new ArrayBlockingQueue<>(Math.max(1, config.getEncodeQueueCapacity()));
+        this.uploadQueue = new ArrayBlockingQueue<>(Math.max(1, config.getUploadQueueCapacity()));
+    }
+
+    /**
+     * 执行流水线
+     *
+     * @param session 文档会话
+     * @param pageNumbers 需要转换的页码列表（从1开始）
+     * @param rendererFactory 为每个渲染线程的文档创建渲染器
+     * @param renderStage 渲染函数
+     * @param encodeStage 编码函数
+     * @param uploadStage 上传函数
+     * @return 页码到页面渲染信息的映射，按页码排序
+     * @throws IOException 任一阶段失败时抛出
+     */
+    Map<Integer, PdfToImageService.PageRenderInfo> run(PdfDocumentSession session, List<Integer> pageNumbers,
+                                                       RendererFactory rendererFactory, RenderStage renderStage, EncodeStage encodeStage,
+                                                       UploadStage uploadStage) throws IOException {
+        int renderThreads = Math.max(1, Math.min(config.getRenderThreads(), pageNumbers.size()));
+        int encodeThreads = Math.max(1, config.getEncodeThreads());
+        int uploadThreads = Math.max(1, config.getUploadThreads());
+
+        Map<Integer, PdfToImageService.PageRenderInfo> results = new ConcurrentHashMap<>();
+        AtomicInteger cursor = new AtomicInteger();
+        AtomicInteger activeRenderers = new AtomicInteger(renderThreads);
+        AtomicInteger activeEncoders = new AtomicInteger(encodeThreads);
+        AtomicBoolean sessionDocumentClaimed = new AtomicBoolean(false);
+
+        List<CompletableFuture<Void>> stages = new ArrayList<>();
+        for (int i = 0; i < renderThreads; i++) {
+            stages.add(runStage(() -> renderLoop(session, sessionDocumentClaimed, pageNumbers, cursor, rendererFactory, renderStage, activeRenderers, encodeThreads)));
+        }
+        for (int i = 0; i < encodeThreads; i++) {
+            stages.add(runStage(() -> encodeLoop(encodeStage, activeEncoders, uploadThreads)));
+        }
+        for (int i = 0; i < uploadThreads; i++) {
+            stages.add(runStage(() -> uploadLoop(uploadStage, results)));
+        }
+
+        try {
+            CompletableFuture.allOf(stages.toArray(new CompletableFuture[0])).join();
+        } catch (CompletionException e) {
+            // 失败原因已记录在failure中
+        } finally {
+            drainQueues();
+        }
+
+        Throwable cause = failure.get();
+        if (cause != null) {
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new IOException("Conversion pipeline failed: " + cause.getMessage(), cause);
+        }
+
+        return new TreeMap<>(results);
+    }
+
+    private void renderLoop(PdfDocumentSession session, AtomicBoolean sessionDocumentClaimed, List<Integer> pageNumbers,
+                            AtomicInteger cursor, RendererFactory rendererFactory, RenderStage renderStage,
+                            AtomicInteger activeRenderers, int encodeThreads) throws Exception {
+        boolean useSessionDocument = sessionDocumentClaimed.compareAndSet(false, true);
+        PdfDocumentSession workerSession = null;
+        try {
+            workerSession = useSessionDocument ? session : session.openWorkerSession();
+            PDDocument document = workerSession.getDocument();
+            PDFRenderer pdfRenderer = rendererFactory.create(workerSession);
+            int pageCount = document.getNumberOfPages();
+
+            int index;
+            while (failure.get() == null && (index = cursor.getAndIncrement()) < pageNumbers.size()) {
+                Integer pageNumber = pageNumbers.get(index);
+                if (pageNumber < 1 || pageNumber > pageCount) {
+                    log.warn("Invalid page number: {}, skipping", pageNumber);
+                    continue;
+                }
+
+                long start = System.nanoTime();
+                PdfToImageService.RenderedPage renderedPage = renderStage.render(document, pdfRenderer, pageNumber);
+                renderStats.recordProcessed(System.nanoTime() - start);
+
+                if (!put(encodeQueue, renderedPage, renderStats, encodeStats)) {
+                    renderedPage.releaseMemory();
+                }
+            }
+        } finally {
+            try {
+                if (activeRenderers.decrementAndGet() == 0) {
+                    for (int i = 0; i < encodeThreads; i++) {
+                        put(encodeQueue, RENDER_END, renderStats, encodeStats);
+                    }
+                }
+            } finally {
+                if (!useSessionDocument && workerSession != null) {
+                    workerSession.close();
+                }
+            }
+        }
+    }
+
+    private void encodeLoop(EncodeStage encodeStage, AtomicInteger activeEncoders, int uploadThreads) throws Exception {
+        try {
+            while (true) {
+                PdfToImageService.RenderedPage renderedPage = take(encodeQueue, encodeStats);
+                if (renderedPage == RENDER_END) {
+                    break;
+                }
+
+                long start = System.nanoTime();
+                PdfToImageService.EncodedPage encodedPage = encodeStage.encode(renderedPage);
+                encodeStats.recordProcessed(System.nanoTime() - start);
+
+                if (!put(uploadQueue, encodedPage, encodeStats, uploadStats)) {
+                    encodedPage.discard();
+                }
+            }
+        } finally {
+            if (activeEncoders.decrementAndGet() == 0) {
+                for (int i = 0; i < uploadThreads; i++) {
+                    put(uploadQueue, ENCODE_END, encodeStats, uploadStats);
+                }
+            }
+        }
+    }
+
+    private void uploadLoop(UploadStage uploadStage, Map<Integer, PdfToImageService.PageRenderInfo> results) throws Exception {
+        while (true) {
+            PdfToImageService.EncodedPage encodedPage = take(uploadQueue, uploadStats);
+            if (encodedPage == ENCODE_END) {
+                break;
+            }
+
+            long start = System.nanoTime();
+            PdfToImageService.PageRenderInfo pageInfo = uploadStage.upload(encodedPage);
+            uploadStats.recordProcessed(System.nanoTime() - start);
+
+            results.put(pageInfo.getPageNumber(), pageInfo);
+        }
+    }
+
+    /**
+     * 向下游队列投递，队列满时阻塞并累计背压时间；流水线失败时放弃投递
+     *
+     * @return 是否投递成功
+     */
+    private <T> boolean put(BlockingQueue<T> queue, T item,
+                         PdfConversionMetrics.StageStats producer,
+                         PdfConversionMetrics.StageStats consumer) throws InterruptedException {
+        long start = System.nanoTime();
+        try {
+            while (!queue.offer(item, POLL_INTERVAL_MS, TimeUnit.MILLISECONDS)) {
+                if (failure.get() != null) {
+                    return false;
+                }
+            }
+            consumer.queueIncremented();
+            return true;
+        } finally {
+            producer.recordStall(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * 从上游队列领取，队列空时阻塞并累计空闲时间；流水线失败时抛出异常退出
+     */
+    private <T> T take(BlockingQueue<T> queue, PdfConversionMetrics.StageStats consumer) throws InterruptedException {
+        long start = System.nanoTime();
+        try {
+            T item;
+            while ((item = queue.poll(POLL_INTERVAL_MS, TimeUnit.MILLISECONDS)) == null) {
+                if (failure.get() != null) {
+                    throw new CancellationSignal();
+                }
+            }
+            consumer.queueDecremented();
+            return item;
+        } finally {
+            consumer.recordIdle(System.nanoTime() - start);
+        }
+    }
+
+    private CompletableFuture<Void> runStage(StageTask task) {
+        return CompletableFuture.runAsync(() -> {
+            try {
+                task.run();
+            } catch (CancellationSignal e) {
+                // 其他阶段已失败，直接退出
+            } catch (Throwable e) {
+                if (failure.compareAndSet(null, e)) {
+                    log.error("Conversion pipeline stage failed", e);
+                }
+                throw new CompletionException(e);
+            }
+        }, executor);
+    }
+
+    /**
+     * 失败退出后清理队列中残留的位图（归还渲染内存预算）、编码缓冲区和临时文件
+     */
+    private void drainQueues() {
+        PdfToImageService.RenderedPage renderedPage;
+        while ((renderedPage = encodeQueue.poll()) != null) {
+            encodeStats.queueDecremented();
+            renderedPage.releaseMemory();
+        }
+        PdfToImageService.EncodedPage encodedPage;
+        while ((encodedPage = uploadQueue.poll()) != null) {
+            uploadStats.queueDecremented();
+            encodedPage.discard();
+        }
+    }
+
+    @FunctionalInterface
+    private interface StageTask {
+        void run() throws Exception;
+    }
+
+    /**
+     * 流水线已失败时用于让阻塞中的阶段退出
+     */
+    private static class CancellationSignal extends RuntimeException {
+        CancellationSignal() {
+            super(null, null, false, false);
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package com.example.minioupload.service;
+
+import com.example.minioupload.config.PdfConversionProperties;
+import lombok.Builder;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.pdfbox.cos.COSArray;
+import org.apache.pdfbox.cos.COSBase;
+import org.apache.pdfbox.cos.COSDictionary;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.cos.COSStream;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 页面渲染成本模型
+ *
+ * 渲染前只读取页面字典（不解析内容流、不解码图片）估算每页的渲染耗时：
+ * - 输出像素：裁剪框面积按DPI换算的位图像素数（填充、合成的开销）
+ * - 图片像素：页面及其表单XObject引用的图片XObject（含软蒙版）像素数之和（解码、缩放的开销）
+ * - 内容流大小：页面及表单XObject内容流的字节数（解析和绘制操作符的开销）
+ *
+ * 预估耗时（毫秒）= base-ms + 输出百万像素 × output-megapixel-ms + 图片百万像素 × image-megapixel-ms
+ *                  + 内容流KB × content-kilobyte-ms
+ *
+ * 多个渲染线程时按预估耗时从高到低排列页面（LPT，最长处理时间优先），渲染线程依次领取，
+ * 避免一个大页面最后才开始渲染、其余线程空等。每页的预估与实际渲染耗时记录到指标中，
+ * 用于校准各项系数。
+ *
+ * 配置：pdf.conversion.cost-model
+ */
+@Slf4j
+@Component
+public class PageCostModel {
+
+    private final PdfConversionProperties.CostModelConfig config;
+    private final PdfConversionMetrics.RenderCostStats stats;
+
+    public PageCostModel(PdfConversionProperties properties, PdfConversionMetrics metrics) {
+        this.config = properties.getCostModel();
+        this.stats = metrics.renderCost();
+        this.stats.setHistorySize(config.getSampleHistory());
+    }
+
+    public boolean isEnabled() {
+        return config.isEnabled();
+    }
+
+    /**
+     * 估算页面成本并生成渲染顺序
+     *
+     * @param document 文档
+     * @param pageNumbers 需要渲染的页码
+     * @param fixedOrderPages 前N页保持传入顺序（优先渲染的页面），只重排其余页面
+     * @param dpi 渲染DPI
+     * @param reorder 是否按成本重排（只有一个渲染线程时重排没有意义，只记录预估与实际耗时）
+     * @return 渲染计划
+     */
+    public Plan plan(PDDocument document, List<Integer> pageNumbers, int fixedOrderPages, int dpi, boolean reorder) {
+        long start = System.nanoTime();
+        Map<Integer, PageCost> costs = new HashMap<>();
+        int pageCount = document.getNumberOfPages();
+        for (Integer pageNumber : pageNumbers) {
+            if (pageNumber >= 1 && pageNumber <= pageCount && !costs.containsKey(pageNumber)) {
+                costs.put(pageNumber, estimate(document.getPage(pageNumber - 1), dpi));
+            }
+        }
+
+        List<Integer> order = pageNumbers;
+        if (reorder) {
+            int fixed = Math.max(0, Math.min(fixedOrderPages, pageNumbers.size()));
+            List<Integer> rest = new ArrayList<>(pageNumbers.subList(fixed, pageNumbers.size()));
+            rest.sort(Comparator.comparingDouble((Integer p) -> costs.containsKey(p) ? costs.get(p).getPredictedMs() : 0)
+                .reversed());
+            order = new ArrayList<>(pageNumbers.subList(0, fixed));
+            order.addAll(rest);
+        }
+        log.debug("Estimated render cost of {} pages in {}ms", costs.size(), (System.nanoTime() - start) / 1_000_000);
+        return new Plan(Collections.unmodifiableList(order), costs);
+    }
+
+    /**
+     * 估算单页的成本特征
+     */
+    PageCost estimate(PDPage page, int dpi) {
+        PDRectangle cropBox = page.getCropBox();
+        double scale = dpi / 72.0;
+        double outputPixels = cropBox.getWidth() * scale * cropBox.getHeight() * scale;
+
+        long[] totals = new long[2];
+        Set<COSBase> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+        addContentBytes(page.getCOSObject().getDictionaryObject(COSName.CONTENTS), totals);
+        addResources(page.getCOSObject().getCOSDictionary(COSName.RESOURCES), totals, visited);
+
+        PageCost cost = PageCost.builder()
+            .outputMegapixels(outputPixels / 1_000_000.0)
+            .imageMegapixels(totals[0] / 1_000_000.0)
+            .contentKilobytes(totals[1] / 1024.0)
+            .build();
+        cost.setPredictedMs(predictedMs(cost));
+        return cost;
+    }
+
+    private double predictedMs(PageCost cost) {
+        return config.getBaseMs()
+            + cost.getOutputMegapixels() * config.getOutputMegapixelMs()
+            + cost.getImageMegapixels() * config.getImageMegapixelMs()
+            + cost.getContentKilobytes() * config.getContentKilobyteMs();
+    }
+
+    /**
+     * 累加图片像素（totals[0]）和表单内容流字节数（totals[1]），同一对象只计一次
+     */
+    private static void addResources(COSDictionary resources, long[] totals, Set<COSBase> visited) {
+        if (resources == null || !visited.add(resources)) {
+            return;
+        }
+        COSDictionary xObjects = resources.getCOSDictionary(COSName.XOBJECT);
+        if (xObjects == null) {
+            return;
+        }
+        for (COSName name : xObjects.keySet()) {
+            COSBase object = xObjects.getDictionaryObject(name);
+            if (!(object instanceof COSStream) || !visited.add(object)) {
+                continue;
+            }
+            COSStream stream = (COSStream) object;
+            if (COSName.IMAGE.equals(stream.getCOSName(COSName.SUBTYPE))) {
+                totals[0] += imagePixels(stream);
+                COSBase softMask = stream.getDictionaryObject(COSName.SMASK);
+                if (softMask instanceof COSStream && visited.add(softMask)) {
+                    totals[0] += imagePixels((COSStream) softMask);
+                }
+            } else if (COSName.FORM.equals(stream.getCOSName(COSName.SUBTYPE))) {
+                totals[1] += Math.max(0, stream.getLength());
+                addResources(stream.getCOSDictionary(COSName.RESOURCES), totals, visited);
+            }
+        }
+    }
+
+    private static long imagePixels(COSStream image) {
+        return (long) Math.max(0, image.getInt(COSName.WIDTH, 0)) * Math.max(0, image.getInt(COSName.HEIGHT, 0));
+    }
+
+    private static void addContentBytes(COSBase contents, long[] totals) {
+        if (contents instanceof COSStream) {
+            totals[1] += Math.max(0, ((COSStream) contents).getLength());
+        } else if (contents instanceof COSArray) {
+            for (COSBase item : (COSArray) contents) {
+                COSBase stream = item.getCOSObject();
+                if (stream instanceof COSStream) {
+                    totals[1] += Math.max(0, ((COSStream) stream).getLength());
+                }
+            }
+        }
+    }
+
+    /**
+     * 单页成本特征与预估耗时
+     */
+    @Data
+    @Builder
+    public static class PageCost {
+        private double outputMegapixels;
+        private double imageMegapixels;
+        private double contentKilobytes;
+        private double predictedMs;
+    }
+
+    /**
+     * 一次转换的渲染计划：渲染顺序和各页预估成本
+     */
+    public class Plan {
+
+        private final List<Integer> order;
+        private final Map<Integer, PageCost> costs;
+
+        private Plan(List<Integer> order, Map<Integer, PageCost> costs) {
+            this.order = order;
+            this.costs = costs;
+        }
+
+        /**
+         * 渲染顺序
+         */
+        public List<Integer> getOrder() {
+            return order;
+        }
+
+        public PageCost getCost(int pageNumber) {
+            return costs.get(pageNumber);
+        }
+
+        /**
+         * 记录页面实际渲染耗时，与预估一起写入指标
+         *
+         * @param pageNumber 页码
+         * @param renderNanos 实际渲染耗时（不含等待渲染内存预算的时间）
+         */
+        public void recordActual(int pageNumber, long renderNanos) {
+            PageCost cost = costs.get(pageNumber);
+            if (cost == null) {
+                return;
+            }
+            double actualMs = renderNanos / 1_000_000.0;
+            stats.record(pageNumber, cost.getOutputMegapixels(), cost.getImageMegapixels(),
+                cost.getContentKilobytes(), cost.getPredictedMs(), actualMs);
+            log.debug("Page {} render cost predicted {}ms, actual {}ms", pageNumber,
+                Math.round(cost.getPredictedMs()), Math.round(actualMs));
+        }
+    }
+}
@@ -0,0 +1,384 @@
+package com.example.minioupload.service;
+
+import com.example.minioupload.config.PdfConversionProperties;
+import com.example.minioupload.model.PdfPageFingerprint;
+import com.example.minioupload.model.PdfPageImage;
+import com.example.minioupload.model.enums.ImageVariant;
+import com.example.minioupload.model.enums.RenderProfile;
+import com.example.minioupload.repository.PdfPageFingerprintRepository;
+import com.example.minioupload.repository.PdfPageImageRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.rendering.PDFRenderer;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * 页面级内容去重服务
+ *
+ * 渲染前按页面内容和渲染参数计算指纹（见 {@link PageFingerprinter}），在 pdf_page_fingerprint 中查找：
+ * - 命中：按索引中的记录模板为当前任务生成pdf_page_image记录，图片键指向已有对象，跳过渲染和上传
+ * - 未命中：正常渲染，保存时登记指纹，当前页面的图片对象成为该指纹的共享对象
+ *
+ * 索引按租户隔离。每条引用共享对象的pdf_page_image记录（按页计）持有一次引用，
+ * 删除记录时调用 {@link #release}，引用计数降为0时才删除MinIO中的对象，
+ * 因此任何一方删除都不会影响仍在引用该对象的其他任务。
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PageDedupeService {
+
+    /**
+     * 只比较页面内容、不含渲染参数的哈希签名
+     */
+    private static final String CONTENT_SIGNATURE = "content-v1";
+
+    private final PdfConversionProperties properties;
+    private final PdfPageFingerprintRepository fingerprintRepository;
+    private final PdfPageImageRepository pageImageRepository;
+    private final MinioStorageService minioStorageService;
+    private final ObjectMapper objectMapper;
+
+    public boolean isEnabled() {
+        return properties.getPageDedupe().isEnabled();
+    }
+
+    /**
+     * 生成渲染参数签名
+     *
+     * 所有影响输出图片的参数都必须包含在内，任一参数或相关配置变化都会使指纹不同。
+     *
+     * @param dpi 请求的渲染DPI
+     * @param format 图片格式
+     * @param generateTiles 是否生成瓦片
+     * @param variants 原图之外的规格
+     * @param renderProfile 渲染档位，为空时使用配置的默认档位
+     * @return 签名字符串
+     */
+    public String renderSignature(int dpi, String format, boolean generateTiles,
+                                  Collection<ImageVariant> variants, RenderProfile renderProfile) {
+        PdfConversionProperties.ImageRenderingConfig rendering = properties.getImageRendering();
+        RenderProfile profile = renderProfile != null ? renderProfile : RenderProfile.fromCode(rendering.getProfile());
+        Set<String> variantCodes = new TreeSet<>();
+        if (variants != null) {
+            variants.forEach(variant -> variantCodes.add(variant.getCode()));
+        }
+
+        StringBuilder signature = new StringBuilder("v1")
+            .append("|dpi=").append(dpi)
+            .append("|format=").append(format.toUpperCase())
+            .append("|profile=").append(profile.getCode())
+            .append("|variants=").append(variantCodes)
+            .append("|tiles=").append(generateTiles)
+            .append("|pdfbox=").append(PDFRenderer.class.getPackage().getImplementationVersion())
+            .append('|').append(rendering)
+            .append('|').append(properties.getColorMode());
+        if (!variantCodes.isEmpty()) {
+            signature.append('|').append(properties.getVariants());
+        }
+        if (generateTiles) {
+            signature.append('|').append(properties.getTiles());
+        }
+        return signature.toString();
+    }
+
+    /**
+     * 计算页面指纹
+     *
+     * @param pdfFile PDF文件
+     * @param pageNumbers 页码列表（从1开始）
+     * @param renderSignature 渲染参数签名
+     * @return 页码到指纹的映射；读取失败的页面不包含在结果中
+     */
+    public Map<Integer, String> fingerprintPages(File pdfFile, Collection<Integer> pageNumbers, String renderSignature) {
+        try (PdfDocumentSession session = PdfDocumentSession.open(pdfFile, properties)) {
+            return fingerprintPages(session, pageNumbers, renderSignature);
+        } catch (IOException e) {
+            log.warn("Failed to fingerprint pages of {}, all pages will be rendered", pdfFile.getName(), e);
+            return new HashMap<>();
+        }
+    }
+
+    /**
+     * 使用已打开的文档会话计算页面指纹
+     *
+     * @param session 文档会话
+     * @param pageNumbers 页码列表（从1开始）
+     * @param renderSignature 渲染参数签名
+     * @return 页码到指纹的映射；读取失败的页面不包含在结果中
+     */
+    public Map<Integer, String> fingerprintPages(PdfDocumentSession session, Collection<Integer> pageNumbers,
+                                                 String renderSignature) {
+        Map<Integer, String> fingerprints = new HashMap<>();
+        long start = System.currentTimeMillis();
+        PDDocument document = session.getDocument();
+        PageFingerprinter fingerprinter = session.fingerprinter(renderSignature);
+        for (Integer pageNumber : pageNumbers) {
+            if (pageNumber < 1 || pageNumber > document.getNumberOfPages()) {
+                continue;
+            }
+            try {
+                fingerprints.put(pageNumber, fingerprinter.fingerprint(document.getPage(pageNumber - 1)));
+            } catch (IOException | RuntimeException e) {
+                log.warn("Failed to fingerprint page {} of {}, page will be rendered", pageNumber,
+                    session.getFile().getName(), e);
+            }
+        }
+        log.debug("Fingerprinted {} pages of {} in {}ms", fingerprints.size(), session.getFile().getName(),
+            System.currentTimeMillis() - start);
+        return fingerprints;
+    }
+
+    /**
+     * 计算各页内容哈希（不含渲染参数），用于比较两个版本的文档哪些页面发生了变化
+     *
+     * @param pdfFile PDF文件
+     * @return 按页码顺序排列的哈希列表，下标为页码-1；文档无法读取时抛出异常
+     * @throws IOException 读取失败时抛出
+     */
+    public List<String> contentHashes(File pdfFile) throws IOException {
+        try (PdfDocumentSession session = PdfDocumentSession.open(pdfFile, properties)) {
+            return contentHashes(session);
+        }
+    }
+
+    /**
+     * 使用已打开的文档会话计算各页内容哈希
+     *
+     * @param session 文档会话
+     * @return 按页码顺序排列的哈希列表，下标为页码-1
+     * @throws IOException 读取失败时抛出
+     */
+    public List<String> contentHashes(PdfDocumentSession session) throws IOException {
+        PDDocument document = session.getDocument();
+        PageFingerprinter fingerprinter = session.fingerprinter(CONTENT_SIGNATURE);
+        List<String> hashes = new ArrayList<>(document.getNumberOfPages());
+        for (int i = 0; i < document.getNumberOfPages(); i++) {
+            hashes.add(fingerprinter.fingerprint(document.getPage(i)));
+        }
+        return hashes;
+    }
+
+    /**
+     * 为其他任务的图片记录生成共享同一组对象的副本
+     *
+     * 已登记指纹的页面逐页增加引用计数；任一指纹正在回收时撤销已增加的计数并返回false，不插入任何记录。
+     *
+     * @param sourceImages 来源图片记录（会被修改）
+     * @param taskId 目标任务ID
+     * @param businessId 业务ID
+     * @param userId 用户ID
+     * @param tenantId 租户ID
+     * @param isBase 是否为基础转换
+     * @return 是否复制成功
+     */
+    @Transactional
+    public boolean sharePageImages(List<PdfPageImage> sourceImages, String taskId, String businessId, String userId,
+                                   String tenantId, boolean isBase) {
+        List<String> acquired = new ArrayList<>();
+        for (PdfPageImage image : sourceImages) {
+            if (image.getContentFingerprint() == null || !ImageVariant.FULL.getCode().equals(image.getVariant())) {
+                continue;
+            }
+            if (fingerprintRepository.incrementRefCount(tenantId, image.getContentFingerprint()) == 0) {
+                acquired.forEach(fingerprint -> fingerprintRepository.decrementRefCount(tenantId, fingerprint));
+                log.info("Shared page images of fingerprint {} are being released, cannot share", image.getContentFingerprint());
+                return false;
+            }
+            acquired.add(image.getContentFingerprint());
+        }
+
+        for (PdfPageImage image : sourceImages) {
+            image.setId(null);
+            image.setTaskId(taskId);
+            image.setBusinessId(businessId);
+            image.setUserId(userId);
+            image.setTenantId(tenantId);
+            image.setIsBase(isBase);
+            image.setCreatedAt(null);
+            pageImageRepository.insert(image);
+        }
+        return true;
+    }
+
+    /**
+     * 尝试复用已有页面图片
+     *
+     * 命中时增加引用计数，并按索引中的记录模板为当前任务保存图片记录（原图和各规格）。
+     *
+     * @param fingerprint 页面指纹
+     * @param taskId 任务ID
+     * @param businessId 业务ID
+     * @param userId 用户ID
+     * @param tenantId 租户ID
+     * @param pageNumber 页码
+     * @param isBase 是否为基础转换
+     * @return 是否复用成功；未命中时调用方应正常渲染
+     */
+    @Transactional
+    public boolean reuse(String fingerprint, String taskId, String businessId, String userId, String tenantId,
+                         int pageNumber, boolean isBase) {
+        if (fingerprintRepository.incrementRefCount(tenantId, fingerprint) == 0) {
+            return false;
+        }
+        PdfPageFingerprint entry = fingerprintRepository.findByTenantIdAndFingerprint(tenantId, fingerprint);
+        List<PdfPageImage> templates = readTemplates(entry);
+        if (templates.isEmpty()) {
+            fingerprintRepository.decrementRefCount(tenantId, fingerprint);
+            return false;
+        }
+
+        for (PdfPageImage template : templates) {
+            template.setTaskId(taskId);
+            template.setBusinessId(businessId);
+            template.setUserId(userId);
+            template.setTenantId(tenantId);
+            template.setPageNumber(pageNumber);
+            template.setIsBase(isBase);
+            template.setContentFingerprint(fingerprint);
+            pageImageRepository.insert(template);
+        }
+        log.debug("Reused page images for taskId: {}, page: {}, fingerprint: {}", taskId, pageNumber, fingerprint);
+        return true;
+    }
+
+    /**
+     * 登记新渲染页面的指纹
+     *
+     * @param tenantId 租户ID
+     * @param fingerprint 页面指纹
+     * @param pageImages 该页的全部图片记录（原图和各规格）
+     * @return 是否登记成功；指纹已被并发任务登记时返回false，当前页面的对象不参与共享
+     */
+    public boolean register(String tenantId, String fingerprint, List<PdfPageImage> pageImages) {
+        List<PdfPageImage> templates = new ArrayList<>();
+        for (PdfPageImage pageImage : pageImages) {
+            templates.add(PdfPageImage.builder()
+                .variant(pageImage.getVariant())
+                .imageObjectKey(pageImage.getImageObjectKey())
+                .width(pageImage.getWidth())
+                .height(pageImage.getHeight())
+                .pdfWidth(pageImage.getPdfWidth())
+                .pdfHeight(pageImage.getPdfHeight())
+                .renderingDpi(pageImage.getRenderingDpi())
+                .colorMode(pageImage.getColorMode())
+                .fileSize(pageImage.getFileSize())
+                .tileManifestKey(pageImage.getTileManifestKey())
+                .tileSize(pageImage.getTileSize())
+                .tileMaxLevel(pageImage.getTileMaxLevel())
+                .tileFormat(pageImage.getTileFormat())
+                .build());
+        }
+        try {
+            return fingerprintRepository.insertIfAbsent(tenantId, fingerprint, objectMapper.writeValueAsString(templates)) > 0;
+        } catch (JsonProcessingException e) {
+            log.warn("Failed to serialize page image templates for fingerprint: {}", fingerprint, e);
+            return false;
+        }
+    }
+
+    /**
+     * 释放一页对共享图片对象的引用
+     *
+     * 删除 content_fingerprint 非空的pdf_page_image记录时（每页一次）调用。
+     * 引用计数降为0时删除索引记录以及原图、各规格图片和瓦片对象。
+     *
+     * @param tenantId 租户ID
+     * @param fingerprint 页面指纹
+     */
+    @Transactional
+    public void release(String tenantId, String fingerprint) {
+        if (fingerprintRepository.decrementRefCount(tenantId, fingerprint) == 0) {
+            return;
+        }
+        PdfPageFingerprint entry = fingerprintRepository.findByTenantIdAndFingerprint(tenantId, fingerprint);
+        if (entry == null || entry.getRefCount() > 0 || fingerprintRepository.deleteUnreferenced(tenantId, fingerprint) == 0) {
+            return;
+        }
+
+        List<String> objectKeys = new ArrayList<>();
+        List<String> tilePrefixes = new ArrayList<>();
+        for (PdfPageImage template : readTemplates(entry)) {
+            collectObjectKeys(template, objectKeys, tilePrefixes);
+        }
+        try {
+            minioStorageService.deleteFiles(objectKeys);
+            for (String prefix : tilePrefixes) {
+                minioStorageService.deleteByPrefix(prefix);
+            }
+            log.info("Deleted unreferenced page images for fingerprint: {}, objects: {}", fingerprint, objectKeys.size());
+        } catch (IOException e) {
+            log.error("Failed to delete unreferenced page images for fingerprint: {}, keys: {}", fingerprint, objectKeys, e);
+        }
+    }
+
+    /**
+     * 删除任务的全部图片记录并释放其中的共享引用（取消或超时的任务回收转换结果时调用）
+     *
+     * 逐条删除记录，只有本次删除成功的记录才释放引用，重复调用或多个节点同时回收时不会重复释放。
+     *
+     * @param taskId 任务ID
+     * @return 释放后仍被其他任务引用的对象键和瓦片目录前缀，回收该任务的对象时需保留
+     */
+    public Set<String> discardTaskImages(String taskId) {
+        Map<String, String> fingerprints = new HashMap<>();
+        for (PdfPageImage image : pageImageRepository.findByTaskId(taskId)) {
+            if (pageImageRepository.deleteById(image.getId()) == 0 || image.getContentFingerprint() == null) {
+                continue;
+            }
+            fingerprints.put(image.getContentFingerprint(), image.getTenantId());
+            if (ImageVariant.FULL.getCode().equals(image.getVariant())) {
+                release(image.getTenantId(), image.getContentFingerprint());
+            }
+        }
+
+        List<String> retained = new ArrayList<>();
+        for (Map.Entry<String, String> fingerprint : fingerprints.entrySet()) {
+            PdfPageFingerprint entry = fingerprintRepository.findByTenantIdAndFingerprint(fingerprint.getValue(), fingerprint.getKey());
+            for (PdfPageImage template : readTemplates(entry)) {
+                collectObjectKeys(template, retained, retained);
+            }
+        }
+        return new HashSet<>(retained);
+    }
+
+    /**
+     * 收集一条图片记录对应的对象键（图片和瓦片描述文件）与瓦片目录前缀
+     */
+    private static void collectObjectKeys(PdfPageImage image, List<String> objectKeys, List<String> tilePrefixes) {
+        objectKeys.add(image.getImageObjectKey());
+        if (image.getTileManifestKey() != null) {
+            String manifestKey = image.getTileManifestKey();
+            objectKeys.add(manifestKey);
+            tilePrefixes.add(manifestKey.substring(0, manifestKey.lastIndexOf('.')) + "_files/");
+        }
+    }
+
+    private List<PdfPageImage> readTemplates(PdfPageFingerprint entry) {
+        if (entry == null || entry.getPageImages() == null) {
+            return new ArrayList<>();
+        }
+        try {
+            return objectMapper.readValue(entry.getPageImages(), new TypeReference<List<PdfPageImage>>() {});
+        } catch (JsonProcessingException e) {
+            log.warn("Failed to parse page image templates for fingerprint: {}", entry.getFingerprint(), e);
+            return new ArrayList<>();
+        }
+    }
+}
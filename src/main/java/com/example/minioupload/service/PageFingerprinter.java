@@ -0,0 +1,229 @@
+package com.example.minioupload.service;
+
+import org.apache.pdfbox.cos.COSArray;
+import org.apache.pdfbox.cos.COSBase;
+import org.apache.pdfbox.cos.COSBoolean;
+import org.apache.pdfbox.cos.COSDictionary;
+import org.apache.pdfbox.cos.COSFloat;
+import org.apache.pdfbox.cos.COSInteger;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.cos.COSNull;
+import org.apache.pdfbox.cos.COSObject;
+import org.apache.pdfbox.cos.COSStream;
+import org.apache.pdfbox.cos.COSString;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 页面内容指纹计算
+ *
+ * 指纹为以下内容的SHA-256：
+ * - 渲染参数签名（DPI、格式、档位、规格等，由调用方给出）
+ * - 页面框（MediaBox、CropBox）和旋转角度（已解析继承值）
+ * - 页面字典（内容流、注释、透明组等），流按原始（未解码）字节计入
+ * - 页面资源（字体、图片、表单XObject等，已解析继承值）
+ * - 文档级可选内容配置和表单默认资源（影响页面和注释外观的渲染）
+ *
+ * 不影响渲染结果的键（父节点、结构树、动作、跳转目标、元数据）不计入，
+ * 否则链接注释会把其他页面甚至整棵页面树带入指纹。
+ * 同一文档内被多页共享的流（字体、图片）只读取一次原始字节。
+ *
+ * 每个文档创建一个实例，非线程安全。
+ */
+final class PageFingerprinter {
+
+    private static final Set<COSName> IGNORED_KEYS = Set.of(
+        COSName.PARENT, COSName.P, COSName.A, COSName.AA, COSName.DEST, COSName.PA,
+        COSName.STRUCT_PARENT, COSName.STRUCT_PARENTS, COSName.METADATA, COSName.getPDFName("Thumb"),
+        COSName.PIECE_INFO, COSName.LAST_MODIFIED);
+
+    private static final Set<COSName> PAGE_RESOLVED_KEYS = Set.of(
+        COSName.RESOURCES, COSName.MEDIA_BOX, COSName.CROP_BOX, COSName.ROTATE);
+
+    private static final Set<COSName> ACRO_FORM_RENDER_KEYS = Set.of(
+        COSName.DR, COSName.DA, COSName.NEED_APPEARANCES, COSName.Q);
+
+    private final PDDocument document;
+    private final byte[] signature;
+    private final Map<COSStream, byte[]> streamDigests = new IdentityHashMap<>();
+
+    PageFingerprinter(PDDocument document, String renderSignature) {
+        this.document = document;
+        this.signature = renderSignature.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 计算页面指纹
+     *
+     * @param page 页面
+     * @return SHA-256十六进制字符串
+     * @throws IOException 读取流数据失败时抛出
+     */
+    String fingerprint(PDPage page) throws IOException {
+        MessageDigest digest = newDigest();
+        Map<COSBase, Integer> visited = new IdentityHashMap<>();
+
+        digest.update(signature);
+        updateRectangle(digest, page.getMediaBox());
+        updateRectangle(digest, page.getCropBox());
+        updateLong(digest, page.getRotation());
+
+        COSDictionary pageDict = page.getCOSObject();
+        visited.put(pageDict, visited.size());
+        updateDictionary(digest, pageDict, PAGE_RESOLVED_KEYS, visited);
+        update(digest, page.getResources().getCOSObject(), visited);
+
+        COSDictionary catalog = document.getDocumentCatalog().getCOSObject();
+        update(digest, catalog.getItem(COSName.OCPROPERTIES), visited);
+        if (pageDict.containsKey(COSName.ANNOTS)) {
+            COSBase acroForm = catalog.getDictionaryObject(COSName.ACRO_FORM);
+            if (acroForm instanceof COSDictionary) {
+                for (COSName key : ACRO_FORM_RENDER_KEYS) {
+                    updateName(digest, key);
+                    update(digest, ((COSDictionary) acroForm).getItem(key), visited);
+                }
+            }
+        }
+
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * 计算任意对象（含其引用的对象和流原始字节）的摘要，用于字体等资源的跨文档匹配
+     *
+     * @param base 对象
+     * @return SHA-256十六进制字符串
+     * @throws IOException 读取流数据失败时抛出
+     */
+    String digest(COSBase base) throws IOException {
+        MessageDigest digest = newDigest();
+        digest.update(signature);
+        update(digest, base, new IdentityHashMap<>());
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private void update(MessageDigest digest, COSBase base, Map<COSBase, Integer> visited) throws IOException {
+        if (base instanceof COSObject) {
+            base = ((COSObject) base).getObject();
+        }
+        if (base == null || base instanceof COSNull) {
+            digest.update((byte) 'N');
+        } else if (base instanceof COSBoolean) {
+            digest.update((byte) (((COSBoolean) base).getValue() ? 'T' : 'F'));
+        } else if (base instanceof COSInteger) {
+            digest.update((byte) 'I');
+            updateLong(digest, ((COSInteger) base).longValue());
+        } else if (base instanceof COSFloat) {
+            digest.update((byte) 'D');
+            updateLong(digest, Float.floatToIntBits(((COSFloat) base).floatValue()));
+        } else if (base instanceof COSName) {
+            updateName(digest, (COSName) base);
+        } else if (base instanceof COSString) {
+            digest.update((byte) 'S');
+            updateBytes(digest, ((COSString) base).getBytes());
+        } else if (base instanceof COSArray || base instanceof COSDictionary) {
+            // 同一页内重复出现（含循环引用）的容器只记录首次出现的序号
+            Integer index = visited.get(base);
+            if (index != null) {
+                digest.update((byte) 'R');
+                updateLong(digest, index);
+                return;
+            }
+            visited.put(base, visited.size());
+            if (base instanceof COSArray) {
+                COSArray array = (COSArray) base;
+                digest.update((byte) 'A');
+                updateLong(digest, array.size());
+                for (int i = 0; i < array.size(); i++) {
+                    update(digest, array.get(i), visited);
+                }
+            } else {
+                updateDictionary(digest, (COSDictionary) base, Set.of(), visited);
+                if (base instanceof COSStream) {
+                    digest.update((byte) 'B');
+                    digest.update(streamDigest((COSStream) base));
+                }
+            }
+        } else {
+            digest.update((byte) '?');
+            updateBytes(digest, base.getClass().getName().getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private void updateDictionary(MessageDigest digest, COSDictionary dictionary, Set<COSName> skippedKeys,
+                                  Map<COSBase, Integer> visited) throws IOException {
+        List<COSName> keys = new ArrayList<>(dictionary.keySet());
+        keys.removeIf(key -> IGNORED_KEYS.contains(key) || skippedKeys.contains(key));
+        keys.sort(null);
+
+        digest.update((byte) 'M');
+        updateLong(digest, keys.size());
+        for (COSName key : keys) {
+            updateName(digest, key);
+            update(digest, dictionary.getItem(key), visited);
+        }
+    }
+
+    private byte[] streamDigest(COSStream stream) throws IOException {
+        byte[] cached = streamDigests.get(stream);
+        if (cached != null) {
+            return cached;
+        }
+        MessageDigest digest = newDigest();
+        byte[] buffer = new byte[8192];
+        try (InputStream in = stream.createRawInputStream()) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        byte[] result = digest.digest();
+        streamDigests.put(stream, result);
+        return result;
+    }
+
+    private static void updateRectangle(MessageDigest digest, PDRectangle rectangle) {
+        digest.update((byte) 'X');
+        updateLong(digest, Float.floatToIntBits(rectangle.getLowerLeftX()));
+        updateLong(digest, Float.floatToIntBits(rectangle.getLowerLeftY()));
+        updateLong(digest, Float.floatToIntBits(rectangle.getUpperRightX()));
+        updateLong(digest, Float.floatToIntBits(rectangle.getUpperRightY()));
+    }
+
+    private static void updateName(MessageDigest digest, COSName name) {
+        digest.update((byte) '/');
+        updateBytes(digest, name.getName().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void updateBytes(MessageDigest digest, byte[] bytes) {
+        updateLong(digest, bytes.length);
+        digest.update(bytes);
+    }
+
+    private static void updateLong(MessageDigest digest, long value) {
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            digest.update((byte) (value >>> shift));
+        }
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package com.example.minioupload.service;
+
+import com.example.minioupload.config.PdfConversionProperties;
+import com.example.minioupload.model.PdfConversionTask;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 页面图片记录分批保存
+ *
+ * 转换过程中每个任务打开一个 {@link Batch}，页面上传完成后加入批次（只放入内存，不访问数据库）。
+ * 后台保存线程每 check-interval-millis 检查一次，以下情况在一个事务中保存（{@link PageImagePersister}）：
+ * - 累积到 batch-size 页
+ * - 最早加入的页面等待超过 flush-interval-millis
+ *
+ * 保存后标记页面台账为COMPLETED。已完成的页面在转换过程中即可查询，
+ * 节点重启后从最后保存的页面继续（见 {@link ConversionRecovery}）。
+ * 保存失败时页面留在批次中，按 flush-interval-millis 起倍增（最长1分钟）的间隔重试，
+ * 数据库不可用时渲染和上传线程不受影响。
+ *
+ * 保存在独立线程执行，不占用 @Scheduled 共用的调度线程（转换超时检查也在该线程上）。
+ *
+ * 配置：pdf.conversion.page-persistence
+ */
+@Slf4j
+@Component
+public class PageImageBatchWriter {
+
+    /**
+     * 保存失败后重试间隔的上限（毫秒）
+     */
+    private static final long MAX_RETRY_BACKOFF_MILLIS = 60_000L;
+
+    private final PdfConversionProperties.PagePersistenceConfig config;
+    private final PageImagePersister pageImagePersister;
+    private final PageLedger pageLedger;
+    private final Set<Batch> openBatches = ConcurrentHashMap.newKeySet();
+    private ScheduledExecutorService flusher;
+
+    public PageImageBatchWriter(PdfConversionProperties properties, PageImagePersister pageImagePersister,
+                                PageLedger pageLedger) {
+        this.config = properties.getPagePersistence();
+        this.pageImagePersister = pageImagePersister;
+        this.pageLedger = pageLedger;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!config.isEnabled()) {
+            return;
+        }
+        long interval = Math.max(10L, config.getCheckIntervalMillis());
+        flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "page-persistence");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flushDue, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (flusher != null) {
+            flusher.shutdownNow();
+        }
+    }
+
+    public boolean isEnabled() {
+        return config.isEnabled();
+    }
+
+    /**
+     * 打开任务的批次，转换结束时必须关闭
+     *
+     * @param task 任务
+     * @param dpi 请求的渲染DPI
+     * @param persistedPages 已保存的页码，每批保存后加入
+     * @return 批次
+     */
+    public Batch open(PdfConversionTask task, int dpi, Set<Integer> persistedPages) {
+        Batch batch = new Batch(task, dpi, persistedPages);
+        openBatches.add(batch);
+        return batch;
+    }
+
+    /**
+     * 保存已满或等待超时的批次
+     */
+    void flushDue() {
+        long now = System.nanoTime();
+        for (Batch batch : openBatches) {
+            if (!batch.isDue(now)) {
+                continue;
+            }
+            try {
+                batch.flush();
+            } catch (RuntimeException e) {
+                long backoffMillis = batch.recordFailure();
+                log.warn("Failed to save page images of taskId: {}, retrying in {}ms",
+                    batch.task.getTaskId(), backoffMillis, e);
+            }
+        }
+    }
+
+    /**
+     * 单个任务的待保存页面
+     *
+     * 页面集合由批次自身的锁保护，加入页面不会等待进行中的保存；
+     * 保存和关闭由 flushLock 串行执行。
+     */
+    public final class Batch implements AutoCloseable {
+
+        private final PdfConversionTask task;
+        private final int dpi;
+        private final Set<Integer> persistedPages;
+        private final Object flushLock = new Object();
+        private Map<Integer, PdfToImageService.PageRenderInfo> pending = new TreeMap<>();
+        private long oldestNanos;
+        private long retryAtNanos = System.nanoTime();
+        private int failures;
+        private boolean closed;
+
+        private Batch(PdfConversionTask task, int dpi, Set<Integer> persistedPages) {
+            this.task = task;
+            this.dpi = dpi;
+            this.persistedPages = persistedPages;
+        }
+
+        /**
+         * 加入已上传的页面，由后台保存线程保存
+         */
+        public synchronized void add(PdfToImageService.PageRenderInfo pageInfo) {
+            if (closed) {
+                throw new IllegalStateException("Page image batch of taskId " + task.getTaskId() + " is closed");
+            }
+            if (pending.isEmpty()) {
+                oldestNanos = System.nanoTime();
+            }
+            pending.put(pageInfo.getPageNumber(), pageInfo);
+        }
+
+        /**
+         * 保存所有待保存的页面；失败时页面放回批次并抛出异常
+         */
+        public void flush() {
+            synchronized (flushLock) {
+                Map<Integer, PdfToImageService.PageRenderInfo> pages;
+                long pagesOldestNanos;
+                synchronized (this) {
+                    if (closed || pending.isEmpty()) {
+                        return;
+                    }
+                    pages = pending;
+                    pagesOldestNanos = oldestNanos;
+                    pending = new TreeMap<>();
+                }
+
+                try {
+                    pageImagePersister.savePageImages(task.getTaskId(), task.getBusinessId(), task.getUserId(),
+                        task.getTenantId(), pages, Boolean.TRUE.equals(task.getIsBase()), dpi);
+                } catch (RuntimeException e) {
+                    synchronized (this) {
+                        pages.putAll(pending);
+                        pending = pages;
+                        oldestNanos = pagesOldestNanos;
+                    }
+                    throw e;
+                }
+                pageLedger.markCompleted(task.getTaskId(), pages.keySet());
+                persistedPages.addAll(pages.keySet());
+                synchronized (this) {
+                    failures = 0;
+                }
+                log.debug("Saved {} page images of taskId: {}", pages.size(), task.getTaskId());
+            }
+        }
+
+        private synchronized boolean isDue(long now) {
+            if (closed || pending.isEmpty() || now - retryAtNanos < 0) {
+                return false;
+            }
+            return pending.size() >= Math.max(1, config.getBatchSize())
+                || now - oldestNanos >= TimeUnit.MILLISECONDS.toNanos(config.getFlushIntervalMillis());
+        }
+
+        /**
+         * 记录一次保存失败，返回下次重试前的等待时间（毫秒）
+         */
+        private synchronized long recordFailure() {
+            failures++;
+            long backoffMillis = Math.max(1L, config.getFlushIntervalMillis()) << Math.min(failures - 1, 16);
+            backoffMillis = Math.min(MAX_RETRY_BACKOFF_MILLIS, backoffMillis);
+            retryAtNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(backoffMillis);
+            return backoffMillis;
+        }
+
+        /**
+         * 关闭批次，不再保存；需要保存剩余页面时先调用 {@link #flush()}。
+         * 等待进行中的保存结束后返回，之后回收任务输出不会与保存交错
+         */
+        @Override
+        public void close() {
+            synchronized (flushLock) {
+                synchronized (this) {
+                    closed = true;
+                    pending.clear();
+                }
+                openBatches.remove(this);
+            }
+        }
+    }
+}
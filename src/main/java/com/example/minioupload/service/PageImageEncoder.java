@@ -0,0 +1,33 @@
+package com.example.minioupload.service;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * 页面图片编码器
+ *
+ * 把渲染得到的位图编码为某种图片格式写入输出流。实现必须是线程安全的，
+ * 同一实例会被多个渲染/编码线程同时使用。
+ */
+interface PageImageEncoder {
+
+    /**
+     * 图片格式（小写，同时用作文件扩展名），如 png、jpg、webp
+     */
+    String getFormat();
+
+    /**
+     * 上传MinIO时使用的Content-Type
+     */
+    String getContentType();
+
+    /**
+     * 编码位图
+     *
+     * @param image 位图
+     * @param output 输出流，编码器不负责关闭
+     * @throws IOException 编码失败时抛出
+     */
+    void encode(BufferedImage image, OutputStream output) throws IOException;
+}
@@ -0,0 +1,148 @@
+package com.example.minioupload.service;
+
+import com.example.minioupload.config.PdfConversionProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 页面图片编码器注册表
+ *
+ * 按请求的图片格式选择编码器：
+ * - jpg/jpeg：按 image-rendering.jpeg-quality 设置压缩质量（默认0.75，与ImageIO默认一致）
+ * - webp：通过javacv附带的FFmpeg libwebp编码，image-rendering.webp-quality 设置质量，
+ *   image-rendering.webp-lossless 控制有损/无损；超出WebP尺寸上限的页面改用JPEG（有损）或PNG（无损）
+ * - 其他（png、bmp等）：ImageIO默认编码
+ *
+ * 每次编码的输出字节数和耗时按格式累计到 /api/pdf/metrics 的 encoders 分组，
+ * 用于比较不同格式每页的存储体积和编码速度。
+ */
+@Slf4j
+@Component
+public class PageImageEncoders {
+
+    private final PdfConversionProperties.ImageRenderingConfig config;
+    private final PdfConversionMetrics metrics;
+    private final Map<String, PageImageEncoder> encoders = new ConcurrentHashMap<>();
+    private volatile Boolean webpAvailable;
+
+    public PageImageEncoders(PdfConversionProperties properties, PdfConversionMetrics metrics) {
+        this.config = properties.getImageRendering();
+        this.metrics = metrics;
+    }
+
+    /**
+     * 获取格式对应的编码器
+     *
+     * @param format 图片格式（不区分大小写）
+     * @return 编码器
+     * @throws IOException 格式为webp但FFmpeg中没有libwebp编码器时抛出
+     */
+    PageImageEncoder forFormat(String format) throws IOException {
+        String key = format.trim().toLowerCase();
+        if ("webp".equals(key) && !isWebpAvailable()) {
+            throw new IOException("WebP encoding requires the FFmpeg libwebp encoder, which is not available");
+        }
+        return encoders.computeIfAbsent(key, this::createEncoder);
+    }
+
+    private PageImageEncoder createEncoder(String format) {
+        switch (format) {
+            case "jpg":
+            case "jpeg":
+                return new JpegPageEncoder(config.getJpegQuality(), config.isProgressiveJpeg());
+            case "webp":
+                return new WebpPageEncoder(config.getWebpQuality(), config.isWebpLossless());
+            default:
+                return new ImageIoPageEncoder(format);
+        }
+    }
+
+    /**
+     * 按位图尺寸确定实际使用的格式
+     *
+     * WebP单边最多 {@value WebpPageEncoder#MAX_DIMENSION} 像素，高DPI渲染的大幅面图纸超出时
+     * 改用JPEG（有损WebP）或PNG（无损WebP），避免编码失败导致任务失败。
+     *
+     * @param format 请求的图片格式
+     * @param width 位图宽度
+     * @param height 位图高度
+     * @return 实际使用的格式
+     */
+    String formatFor(String format, int width, int height) {
+        if (!"webp".equalsIgnoreCase(format.trim()) || WebpPageEncoder.fits(width, height)) {
+            return format;
+        }
+        String fallback = config.isWebpLossless() ? "png" : "jpg";
+        log.info("Image {}x{} exceeds the WebP size limit, encoding as {}", width, height, fallback);
+        return fallback;
+    }
+
+    private boolean isWebpAvailable() {
+        Boolean available = webpAvailable;
+        if (available == null) {
+            available = WebpPageEncoder.isAvailable();
+            webpAvailable = available;
+        }
+        return available;
+    }
+
+    /**
+     * 编码页面图片到输出流并记录体积和耗时
+     *
+     * @param encoder 编码器
+     * @param image 位图
+     * @param output 输出流，不会被关闭
+     * @return 写出的字节数
+     * @throws IOException 编码失败时抛出
+     */
+    long encode(PageImageEncoder encoder, BufferedImage image, OutputStream output) throws IOException {
+        CountingOutputStream counting = new CountingOutputStream(output);
+        long start = System.nanoTime();
+        encoder.encode(image, counting);
+        counting.flush();
+        metrics.encoder(encoder.getFormat()).record(counting.count, System.nanoTime() - start);
+        return counting.count;
+    }
+
+    /**
+     * 编码页面图片为字节数组并记录体积和耗时
+     */
+    byte[] encodeToBytes(PageImageEncoder encoder, BufferedImage image) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream(64 * 1024);
+        encode(encoder, image, output);
+        return output.toByteArray();
+    }
+
+    private static class CountingOutputStream extends FilterOutputStream {
+        private long count;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+
+        @Override
+        public void close() {
+            // 由调用方关闭底层输出流
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.example.minioupload.service;
+
+import com.example.minioupload.model.PdfPageImage;
+import com.example.minioupload.model.enums.ColorMode;
+import com.example.minioupload.model.enums.ImageVariant;
+import com.example.minioupload.repository.PdfPageImageRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 页面图片元数据持久化服务
+ *
+ * 把页面渲染结果（原图、其他规格、瓦片信息）转换为pdf_page_image记录并保存。
+ * 全量/增量转换和按需渲染共用同一套记录构建逻辑。
+ *
+ * 一次保存的全部记录在同一事务中以多行INSERT写入，每条语句最多 {@value #INSERT_BATCH_SIZE} 条记录。
+ * 同一任务同页同规格已有记录时保留已有记录（多个节点同时按需渲染同一页面时上传的是同一对象键）。
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PageImagePersister {
+
+    /**
+     * 单条多行INSERT包含的最多记录数
+     */
+    private static final int INSERT_BATCH_SIZE = 500;
+
+    private final PdfPageImageRepository pageImageRepository;
+    private final PageDedupeService pageDedupeService;
+
+    /**
+     * 保存页面图片元数据到数据库（包含PDF尺寸信息）
+     *
+     * @param taskId 任务ID
+     * @param businessId 业务ID
+     * @param userId 用户ID
+     * @param tenantId 租户ID
+     * @param pageRenderInfoMap 页码到页面渲染信息的映射
+     * @param isBase 是否为基础转换
+     * @param dpi 请求的渲染DPI
+     */
+    @Transactional
+    public void savePageImages(String taskId, String businessId, String userId, String tenantId,
+                               Map<Integer, PdfToImageService.PageRenderInfo> pageRenderInfoMap,
+                               boolean isBase, int dpi) {
+        List<PdfPageImage> rows = new ArrayList<>();
+        for (PdfToImageService.PageRenderInfo renderInfo : pageRenderInfoMap.values()) {
+            List<PdfPageImage> pageImages = toPageImages(taskId, businessId, userId, tenantId, renderInfo, isBase, dpi);
+            if (registerFingerprint(tenantId, renderInfo, pageImages, dpi)) {
+                pageImages.forEach(pageImage -> pageImage.setContentFingerprint(renderInfo.getContentFingerprint()));
+            }
+            rows.addAll(pageImages);
+
+            log.debug("Prepared page image metadata with info: taskId={}, page={}, objectKey={}, pdfSize={}x{}, imageSize={}x{}, dpi={}",
+                taskId, renderInfo.getPageNumber(), renderInfo.getMinioObjectKey(),
+                renderInfo.getPdfWidth(), renderInfo.getPdfHeight(),
+                renderInfo.getImageWidth(), renderInfo.getImageHeight(), dpi);
+        }
+        insertBatch(rows);
+    }
+
+    /**
+     * 分段多行INSERT，调用方事务内执行
+     */
+    private void insertBatch(List<PdfPageImage> rows) {
+        LocalDateTime now = LocalDateTime.now();
+        rows.forEach(row -> row.setCreatedAt(now));
+        for (int i = 0; i < rows.size(); i += INSERT_BATCH_SIZE) {
+            pageImageRepository.insertBatch(rows.subList(i, Math.min(rows.size(), i + INSERT_BATCH_SIZE)));
+        }
+    }
+
+    /**
+     * 登记页面指纹，使之后相同内容的页面可以复用本页图片
+     * 受渲染内存预算限制降低了DPI的页面不登记，避免以较低分辨率的图片响应之后的请求
+     */
+    private boolean registerFingerprint(String tenantId, PdfToImageService.PageRenderInfo renderInfo,
+                                        List<PdfPageImage> pageImages, int dpi) {
+        if (renderInfo.getContentFingerprint() == null) {
+            return false;
+        }
+        if (renderInfo.getRenderingDpi() != null && renderInfo.getRenderingDpi() != dpi) {
+            return false;
+        }
+        return pageDedupeService.register(tenantId, renderInfo.getContentFingerprint(), pageImages);
+    }
+
+    /**
+     * 构建单页的全部图片记录：原图一条，每个其他规格各一条
+     */
+    List<PdfPageImage> toPageImages(String taskId, String businessId, String userId, String tenantId,
+                                    PdfToImageService.PageRenderInfo renderInfo, boolean isBase, int dpi) {
+        List<PdfPageImage> pageImages = new ArrayList<>();
+        String colorMode = (renderInfo.getColorMode() != null ? renderInfo.getColorMode() : ColorMode.COLOR).getCode();
+
+        PdfPageImage pageImage = PdfPageImage.builder()
+            .taskId(taskId)
+            .businessId(businessId)
+            .userId(userId)
+            .tenantId(tenantId)
+            .pageNumber(renderInfo.getPageNumber())
+            .variant(ImageVariant.FULL.getCode())
+            .imageObjectKey(renderInfo.getMinioObjectKey())
+            .isBase(isBase)
+            .width(renderInfo.getImageWidth())
+            .height(renderInfo.getImageHeight())
+            .pdfWidth(renderInfo.getPdfWidth())
+            .pdfHeight(renderInfo.getPdfHeight())
+            .renderingDpi(renderInfo.getRenderingDpi() != null ? renderInfo.getRenderingDpi() : dpi)
+            .colorMode(colorMode)
+            .fileSize(renderInfo.getFileSize())
+            .build();
+
+        PdfToImageService.TileInfo tileInfo = renderInfo.getTileInfo();
+        if (tileInfo != null) {
+            pageImage.setTileManifestKey(tileInfo.getManifestKey());
+            pageImage.setTileSize(tileInfo.getTileSize());
+            pageImage.setTileMaxLevel(tileInfo.getMaxLevel());
+            pageImage.setTileFormat(tileInfo.getFormat());
+        }
+        pageImages.add(pageImage);
+
+        for (PdfToImageService.VariantInfo variantInfo : renderInfo.getVariants()) {
+            pageImages.add(PdfPageImage.builder()
+                .taskId(taskId)
+                .businessId(businessId)
+                .userId(userId)
+                .tenantId(tenantId)
+                .pageNumber(renderInfo.getPageNumber())
+                .variant(variantInfo.getVariant().getCode())
+                .imageObjectKey(variantInfo.getMinioObjectKey())
+                .isBase(isBase)
+                .width(variantInfo.getImageWidth())
+                .height(variantInfo.getImageHeight())
+                .pdfWidth(renderInfo.getPdfWidth())
+                .pdfHeight(renderInfo.getPdfHeight())
+                .renderingDpi(effectiveDpi(variantInfo.getImageWidth(), renderInfo.getPdfWidth(), pageImage.getRenderingDpi()))
+                .colorMode(colorMode)
+                .fileSize(variantInfo.getFileSize())
+                .build());
+        }
+
+        return pageImages;
+    }
+
+    /**
+     * 由图片宽度反推缩小后图片的等效DPI，保证坐标换算（像素 = 点 × DPI / 72）仍然成立
+     */
+    private int effectiveDpi(Integer imageWidth, Double pdfWidth, int fallbackDpi) {
+        if (imageWidth == null || pdfWidth == null || pdfWidth <= 0) {
+            return fallbackDpi;
+        }
+        return Math.max(1, (int) Math.round(imageWidth * 72.0 / pdfWidth));
+    }
+}
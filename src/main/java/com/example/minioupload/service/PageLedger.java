@@ -0,0 +1,133 @@
+package com.example.minioupload.service;
+
+import com.example.minioupload.repository.PdfConversionPageRepository;
+import com.example.minioupload.repository.PdfPageImageRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * 页面转换台账
+ *
+ * 记录转换任务每一页的处理状态（pdf_conversion_page）：
+ * - 开始渲染前登记本次要处理的页面（PENDING）
+ * - 页面图片记录保存后标记为COMPLETED（包括页面去重直接复用的页面）
+ * - 单页重试用尽导致任务失败时标记该页为FAILED并记录错误信息
+ *
+ * 任务重新执行时只处理未完成的页面。台账写入失败不影响转换，
+ * 判断已完成页面时同时参考任务已保存的图片记录，避免重复渲染和重复保存。
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PageLedger {
+
+    public static final String STATUS_PENDING = "PENDING";
+    public static final String STATUS_COMPLETED = "COMPLETED";
+    public static final String STATUS_FAILED = "FAILED";
+
+    /**
+     * 单条多行SQL包含的最多页数
+     */
+    private static final int BATCH_SIZE = 500;
+
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    private final PdfConversionPageRepository pageRepository;
+    private final PdfPageImageRepository pageImageRepository;
+
+    /**
+     * 登记本次执行要处理的页面，已完成的页面保持不变
+     */
+    public void plan(String taskId, Collection<Integer> pageNumbers) {
+        try {
+            for (List<Integer> batch : batches(pageNumbers)) {
+                pageRepository.upsertPending(taskId, batch);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Failed to record planned pages for taskId: {}", taskId, e);
+        }
+    }
+
+    /**
+     * 标记页面已完成，调用前图片记录应已保存
+     */
+    public void markCompleted(String taskId, Collection<Integer> pageNumbers) {
+        try {
+            for (List<Integer> batch : batches(pageNumbers)) {
+                pageRepository.markCompleted(taskId, batch);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Failed to record completed pages for taskId: {}", taskId, e);
+        }
+    }
+
+    /**
+     * 标记页面失败
+     */
+    public void markFailed(String taskId, int pageNumber, String errorMessage) {
+        String message = errorMessage != null && errorMessage.length() > MAX_ERROR_LENGTH
+            ? errorMessage.substring(0, MAX_ERROR_LENGTH) : errorMessage;
+        try {
+            pageRepository.markFailed(taskId, pageNumber, message);
+        } catch (RuntimeException e) {
+            log.warn("Failed to record failed page {} for taskId: {}", pageNumber, taskId, e);
+        }
+    }
+
+    /**
+     * 任务是否登记过页面（开始渲染前失败的任务没有台账）
+     */
+    public boolean hasEntries(String taskId) {
+        return pageRepository.countByTaskId(taskId) > 0;
+    }
+
+    /**
+     * 已完成的页码：台账中COMPLETED的页面，以及已保存图片记录的页面
+     */
+    public Set<Integer> completedPages(String taskId) {
+        Set<Integer> completed = new TreeSet<>(pageRepository.findCompletedPageNumbers(taskId));
+        completed.addAll(pageImageRepository.findRenderedPageNumbers(taskId));
+        return completed;
+    }
+
+    /**
+     * 尚未完成的页码（PENDING或FAILED，且没有已保存的图片记录），按页码排序
+     */
+    public List<Integer> unfinishedPages(String taskId) {
+        Set<Integer> rendered = new TreeSet<>(pageImageRepository.findRenderedPageNumbers(taskId));
+        List<Integer> unfinished = new ArrayList<>();
+        for (Integer pageNumber : pageRepository.findUnfinishedPageNumbers(taskId)) {
+            if (!rendered.contains(pageNumber)) {
+                unfinished.add(pageNumber);
+            }
+        }
+        return unfinished;
+    }
+
+    /**
+     * 删除任务的台账（任务输出被回收时调用）
+     */
+    public void clear(String taskId) {
+        try {
+            pageRepository.deleteByTaskId(taskId);
+        } catch (RuntimeException e) {
+            log.warn("Failed to clear page ledger for taskId: {}", taskId, e);
+        }
+    }
+
+    private static List<List<Integer>> batches(Collection<Integer> pageNumbers) {
+        List<Integer> pages = new ArrayList<>(new TreeSet<>(pageNumbers));
+        List<List<Integer>> batches = new ArrayList<>();
+        for (int i = 0; i < pages.size(); i += BATCH_SIZE) {
+            batches.add(pages.subList(i, Math.min(pages.size(), i + BATCH_SIZE)));
+        }
+        return batches;
+    }
+}
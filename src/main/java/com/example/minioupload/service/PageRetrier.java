@@ -0,0 +1,95 @@
+package com.example.minioupload.service;
+
+import com.example.minioupload.config.PdfConversionProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+
+/**
+ * 单页操作的重试
+ *
+ * 单页渲染和每个对象的上传失败后按指数退避重试（等待时间 initial-backoff-millis 起，
+ * 每次乘以 backoff-multiplier，不超过 max-backoff-millis），重试用尽时抛出 {@link PageConversionException}。
+ *
+ * 不重试的情况：
+ * - 任务已被取消或超时（{@link ConversionAbortedException}，或终止时中断线程导致的失败）
+ * - Error（如内存溢出）
+ *
+ * 上传的对象键由任务ID和页码确定，重试覆盖同一对象，不会产生重复对象。
+ *
+ * 配置：pdf.conversion.retry
+ */
+@Slf4j
+@Component
+public class PageRetrier {
+
+    private final PdfConversionProperties.RetryConfig config;
+    private final PdfConversionMetrics metrics;
+
+    public PageRetrier(PdfConversionProperties properties, PdfConversionMetrics metrics) {
+        this.config = properties.getRetry();
+        this.metrics = metrics;
+    }
+
+    /**
+     * 可重试的操作
+     */
+    @FunctionalInterface
+    public interface RetryableCall<T> {
+        T call() throws IOException;
+    }
+
+    /**
+     * 执行操作，失败时按配置重试
+     *
+     * @param pageNumber 页码
+     * @param operation 操作类型：render或upload（{@link PdfConversionMetrics#STAGE_RENDER}、{@link PdfConversionMetrics#STAGE_UPLOAD}）
+     * @param control 取消控制，终止后不再重试
+     * @param call 操作
+     * @return 操作结果
+     * @throws IOException 重试用尽时抛出 {@link PageConversionException}
+     * @throws ConversionAbortedException 任务已被取消或超时
+     */
+    public <T> T call(int pageNumber, String operation, ConversionControl control, RetryableCall<T> call) throws IOException {
+        int maxAttempts = Math.max(1, config.getMaxAttempts());
+        long backoffMillis = Math.max(0L, config.getInitialBackoffMillis());
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return call.call();
+            } catch (ConversionAbortedException e) {
+                throw e;
+            } catch (IOException | RuntimeException e) {
+                control.throwIfAborted();
+                if (e instanceof InterruptedIOException || Thread.currentThread().isInterrupted()) {
+                    throw e;
+                }
+                if (attempt >= maxAttempts) {
+                    metrics.recordRetryExhausted();
+                    throw new PageConversionException(pageNumber, attempt, e);
+                }
+                log.warn("Page {} {} failed (attempt {}/{}), retrying in {}ms: {}",
+                    pageNumber, operation, attempt, maxAttempts, backoffMillis, e.getMessage());
+                metrics.recordRetry(operation);
+                sleep(backoffMillis, control);
+                backoffMillis = Math.min(Math.max(0L, config.getMaxBackoffMillis()),
+                    (long) (backoffMillis * Math.max(1.0, config.getBackoffMultiplier())));
+            }
+        }
+    }
+
+    /**
+     * 退避等待；终止时看门狗中断线程，等待立即结束
+     */
+    private static void sleep(long millis, ConversionControl control) throws IOException {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            control.throwIfAborted();
+            throw new InterruptedIOException("Interrupted while waiting to retry");
+        }
+        control.checkpoint();
+    }
+}
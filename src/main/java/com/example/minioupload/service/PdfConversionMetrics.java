@@ -0,0 +1,557 @@
+package com.example.minioupload.service;
+
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * PDF转换运行指标
+ *
+ * 汇总进程内所有转换任务的运行指标，供 /api/pdf/metrics 查询，
+ * 用于评估和调整各阶段的线程数、队列容量等参数。
+ *
+ * 流水线各阶段指标：
+ * - queueDepth/maxQueueDepth：该阶段输入队列的当前深度与历史最大深度
+ * - stallTimeMs：该阶段向下游队列投递时因队列已满而阻塞的累计时间（背压）
+ * - idleTimeMs：该阶段等待上游数据的累计时间
+ * - busyTimeMs：该阶段实际处理页面的累计时间
+ *
+ * 内存编码指标：完全在内存中完成的页数与超过阈值转存到临时文件的页数
+ *
+ * 渲染内存预算指标：
+ * - usedBytes/peakUsedBytes：当前及历史最高已预留的位图内存
+ * - waitingBytes/waitingRenders：正在等待预算的内存量与渲染数
+ * - downgradedPages：因超出预算被降低DPI的页数
+ *
+ * 按需渲染指标：实际渲染的页数、被合并到进行中渲染的请求数、从MinIO下载PDF的次数
+ *
+ * 字体缓存指标：共享字体命中/未命中次数、归还和淘汰的字体数、当前缓存的字体数、启动预热耗时
+ *
+ * 看门狗指标：被取消的任务数、超时终止的任务数、超时终止的按需渲染数
+ *
+ * 渲染成本指标：记录了预估的页数、预估与实际渲染耗时合计、平均绝对误差占实际耗时的比例、
+ * 实际/预估比值（整体校准系数），以及最近若干页的成本特征与耗时（用于拟合 cost-model 各项系数）
+ *
+ * 子进程渲染指标：启动、回收、异常退出和被强制结束的子进程数，当前存活的子进程数，
+ * 子进程渲染的次数和传回的位图字节数
+ *
+ * 重试指标：单页渲染重试次数、对象上传重试次数、重试用尽后失败的页数，通过接口重新执行的失败任务数，
+ * 以及节点重启后恢复执行的任务数
+ *
+ * 编码器指标（按图片格式分组）：编码的图片数、输出总字节数、平均每张字节数、平均编码耗时，
+ * 用于比较PNG/JPEG/WebP的体积与速度
+ */
+@Component
+public class PdfConversionMetrics {
+
+    public static final String STAGE_RENDER = "render";
+    public static final String STAGE_ENCODE = "encode";
+    public static final String STAGE_UPLOAD = "upload";
+
+    private final Map<String, StageStats> pipelineStages = new LinkedHashMap<>();
+
+    private final AtomicLong inMemoryEncodedPages = new AtomicLong();
+    private final AtomicLong spilledEncodedPages = new AtomicLong();
+
+    private final RenderMemoryStats renderMemory = new RenderMemoryStats();
+
+    private final AtomicLong lazyRenderedPages = new AtomicLong();
+    private final AtomicLong lazyCoalescedRequests = new AtomicLong();
+    private final AtomicLong lazySourceDownloads = new AtomicLong();
+
+    private final FontCacheStats fontCache = new FontCacheStats();
+
+    private final RenderWorkerStats renderWorker = new RenderWorkerStats();
+
+    private final RenderCostStats renderCost = new RenderCostStats();
+
+    private final AtomicLong cancelledTasks = new AtomicLong();
+    private final AtomicLong timedOutTasks = new AtomicLong();
+    private final AtomicLong timedOutLazyRenders = new AtomicLong();
+
+    private final AtomicLong renderRetries = new AtomicLong();
+    private final AtomicLong uploadRetries = new AtomicLong();
+    private final AtomicLong exhaustedRetries = new AtomicLong();
+    private final AtomicLong retriedTasks = new AtomicLong();
+    private final AtomicLong recoveredTasks = new AtomicLong();
+
+    private final Map<String, EncoderStats> encoders = new ConcurrentHashMap<>();
+
+    public PdfConversionMetrics() {
+        pipelineStages.put(STAGE_RENDER, new StageStats());
+        pipelineStages.put(STAGE_ENCODE, new StageStats());
+        pipelineStages.put(STAGE_UPLOAD, new StageStats());
+    }
+
+    /**
+     * 获取流水线阶段的统计对象
+     *
+     * @param stage 阶段名称（render、encode、upload）
+     * @return 阶段统计
+     */
+    public StageStats pipelineStage(String stage) {
+        StageStats stats = pipelineStages.get(stage);
+        if (stats == null) {
+            throw new IllegalArgumentException("Unknown pipeline stage: " + stage);
+        }
+        return stats;
+    }
+
+    /**
+     * 获取渲染内存预算统计
+     *
+     * @return 渲染内存统计
+     */
+    public RenderMemoryStats renderMemory() {
+        return renderMemory;
+    }
+
+    /**
+     * 获取字体缓存统计
+     *
+     * @return 字体缓存统计
+     */
+    public FontCacheStats fontCache() {
+        return fontCache;
+    }
+
+    /**
+     * 获取子进程渲染统计
+     *
+     * @return 子进程渲染统计
+     */
+    public RenderWorkerStats renderWorker() {
+        return renderWorker;
+    }
+
+    /**
+     * 获取渲染成本统计
+     *
+     * @return 渲染成本统计
+     */
+    public RenderCostStats renderCost() {
+        return renderCost;
+    }
+
+    /**
+     * 记录一次内存编码结果
+     *
+     * @param spilled 是否因超过阈值转存到临时文件
+     */
+    public void recordEncodeOutput(boolean spilled) {
+        if (spilled) {
+            spilledEncodedPages.incrementAndGet();
+        } else {
+            inMemoryEncodedPages.incrementAndGet();
+        }
+    }
+
+    /**
+     * 获取图片格式对应的编码统计
+     *
+     * @param format 图片格式（小写）
+     * @return 编码统计
+     */
+    public EncoderStats encoder(String format) {
+        return encoders.computeIfAbsent(format, k -> new EncoderStats());
+    }
+
+    public void recordLazyRender() {
+        lazyRenderedPages.incrementAndGet();
+    }
+
+    public void recordLazyCoalesced() {
+        lazyCoalescedRequests.incrementAndGet();
+    }
+
+    public void recordLazySourceDownload() {
+        lazySourceDownloads.incrementAndGet();
+    }
+
+    /**
+     * 记录一个被终止的转换任务
+     *
+     * @param status CANCELLED或TIMEOUT
+     */
+    public void recordTaskAborted(String status) {
+        if (ConversionControl.STATUS_CANCELLED.equals(status)) {
+            cancelledTasks.incrementAndGet();
+        } else {
+            timedOutTasks.incrementAndGet();
+        }
+    }
+
+    public void recordLazyRenderTimedOut() {
+        timedOutLazyRenders.incrementAndGet();
+    }
+
+    /**
+     * 记录一次重试
+     *
+     * @param operation 重试的操作：render或upload
+     */
+    public void recordRetry(String operation) {
+        if (STAGE_RENDER.equals(operation)) {
+            renderRetries.incrementAndGet();
+        } else {
+            uploadRetries.incrementAndGet();
+        }
+    }
+
+    public void recordRetryExhausted() {
+        exhaustedRetries.incrementAndGet();
+    }
+
+    public void recordTaskRetried() {
+        retriedTasks.incrementAndGet();
+    }
+
+    public void recordTaskRecovered() {
+        recoveredTasks.incrementAndGet();
+    }
+
+    /**
+     * 生成当前指标快照
+     *
+     * @return 按分组组织的指标数据
+     */
+    public Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+
+        Map<String, Object> pipeline = new LinkedHashMap<>();
+        pipelineStages.forEach((name, stats) -> pipeline.put(name, stats.toMap()));
+        snapshot.put("pipeline", pipeline);
+
+        Map<String, Object> encodeOutput = new LinkedHashMap<>();
+        encodeOutput.put("inMemoryPages", inMemoryEncodedPages.get());
+        encodeOutput.put("spilledPages", spilledEncodedPages.get());
+        snapshot.put("inMemoryEncoding", encodeOutput);
+
+        snapshot.put("renderMemory", renderMemory.toMap());
+
+        Map<String, Object> lazy = new LinkedHashMap<>();
+        lazy.put("renderedPages", lazyRenderedPages.get());
+        lazy.put("coalescedRequests", lazyCoalescedRequests.get());
+        lazy.put("sourceDownloads", lazySourceDownloads.get());
+        snapshot.put("lazyRendering", lazy);
+
+        snapshot.put("fontCache", fontCache.toMap());
+
+        snapshot.put("renderWorker", renderWorker.toMap());
+
+        snapshot.put("renderCost", renderCost.toMap());
+
+        Map<String, Object> watchdog = new LinkedHashMap<>();
+        watchdog.put("cancelledTasks", cancelledTasks.get());
+        watchdog.put("timedOutTasks", timedOutTasks.get());
+        watchdog.put("timedOutLazyRenders", timedOutLazyRenders.get());
+        snapshot.put("watchdog", watchdog);
+
+        Map<String, Object> retry = new LinkedHashMap<>();
+        retry.put("renderRetries", renderRetries.get());
+        retry.put("uploadRetries", uploadRetries.get());
+        retry.put("exhaustedPages", exhaustedRetries.get());
+        retry.put("retriedTasks", retriedTasks.get());
+        retry.put("recoveredTasks", recoveredTasks.get());
+        snapshot.put("retry", retry);
+
+        Map<String, Object> encoderStats = new LinkedHashMap<>();
+        encoders.forEach((format, stats) -> encoderStats.put(format, stats.toMap()));
+        snapshot.put("encoders", encoderStats);
+
+        return snapshot;
+    }
+
+    /**
+     * 流水线单个阶段的统计
+     */
+    public static class StageStats {
+        private final AtomicLong processedPages = new AtomicLong();
+        private final AtomicLong busyNanos = new AtomicLong();
+        private final AtomicLong stallNanos = new AtomicLong();
+        private final AtomicLong idleNanos = new AtomicLong();
+        private final AtomicInteger queueDepth = new AtomicInteger();
+        private final AtomicInteger maxQueueDepth = new AtomicInteger();
+
+        public void recordProcessed(long nanos) {
+            processedPages.incrementAndGet();
+            busyNanos.addAndGet(nanos);
+        }
+
+        public void recordStall(long nanos) {
+            stallNanos.addAndGet(nanos);
+        }
+
+        public void recordIdle(long nanos) {
+            idleNanos.addAndGet(nanos);
+        }
+
+        public void queueIncremented() {
+            int depth = queueDepth.incrementAndGet();
+            maxQueueDepth.accumulateAndGet(depth, Math::max);
+        }
+
+        public void queueDecremented() {
+            queueDepth.decrementAndGet();
+        }
+
+        Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("processedPages", processedPages.get());
+            map.put("queueDepth", queueDepth.get());
+            map.put("maxQueueDepth", maxQueueDepth.get());
+            map.put("busyTimeMs", TimeUnit.NANOSECONDS.toMillis(busyNanos.get()));
+            map.put("stallTimeMs", TimeUnit.NANOSECONDS.toMillis(stallNanos.get()));
+            map.put("idleTimeMs", TimeUnit.NANOSECONDS.toMillis(idleNanos.get()));
+            return map;
+        }
+    }
+
+    /**
+     * 渲染内存预算统计
+     */
+    public static class RenderMemoryStats {
+        private final AtomicLong budgetBytes = new AtomicLong();
+        private final AtomicLong usedBytes = new AtomicLong();
+        private final AtomicLong peakUsedBytes = new AtomicLong();
+        private final AtomicLong waitingBytes = new AtomicLong();
+        private final AtomicInteger waitingRenders = new AtomicInteger();
+        private final AtomicLong waitNanos = new AtomicLong();
+        private final AtomicLong downgradedPages = new AtomicLong();
+
+        public void setBudgetBytes(long bytes) {
+            budgetBytes.set(bytes);
+        }
+
+        public void setUsedBytes(long bytes) {
+            usedBytes.set(bytes);
+            peakUsedBytes.accumulateAndGet(bytes, Math::max);
+        }
+
+        public void waitingStarted(long bytes) {
+            waitingBytes.addAndGet(bytes);
+            waitingRenders.incrementAndGet();
+        }
+
+        public void waitingFinished(long bytes, long nanos) {
+            waitingBytes.addAndGet(-bytes);
+            waitingRenders.decrementAndGet();
+            waitNanos.addAndGet(nanos);
+        }
+
+        public void recordDowngrade() {
+            downgradedPages.incrementAndGet();
+        }
+
+        Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("budgetBytes", budgetBytes.get());
+            map.put("usedBytes", usedBytes.get());
+            map.put("peakUsedBytes", peakUsedBytes.get());
+            map.put("waitingBytes", waitingBytes.get());
+            map.put("waitingRenders", waitingRenders.get());
+            map.put("waitTimeMs", TimeUnit.NANOSECONDS.toMillis(waitNanos.get()));
+            map.put("downgradedPages", downgradedPages.get());
+            return map;
+        }
+    }
+
+    /**
+     * 字体缓存统计
+     */
+    public static class FontCacheStats {
+        private final AtomicLong hits = new AtomicLong();
+        private final AtomicLong misses = new AtomicLong();
+        private final AtomicLong returned = new AtomicLong();
+        private final AtomicLong evicted = new AtomicLong();
+        private final AtomicInteger cachedFonts = new AtomicInteger();
+        private final AtomicLong warmUpMs = new AtomicLong(-1);
+
+        public void recordHit() {
+            hits.incrementAndGet();
+        }
+
+        public void recordMiss() {
+            misses.incrementAndGet();
+        }
+
+        public void recordReturned() {
+            returned.incrementAndGet();
+        }
+
+        public void recordEvicted() {
+            evicted.incrementAndGet();
+        }
+
+        public void setCachedFonts(int count) {
+            cachedFonts.set(count);
+        }
+
+        public void setWarmUpMs(long millis) {
+            warmUpMs.set(millis);
+        }
+
+        Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("hits", hits.get());
+            map.put("misses", misses.get());
+            map.put("returned", returned.get());
+            map.put("evicted", evicted.get());
+            map.put("cachedFonts", cachedFonts.get());
+            map.put("warmUpMs", warmUpMs.get());
+            return map;
+        }
+    }
+
+    /**
+     * 渲染成本预估与实际耗时统计
+     */
+    public static class RenderCostStats {
+        private final Deque<Map<String, Object>> recentSamples = new ArrayDeque<>();
+        private int historySize = 100;
+        private long samples;
+        private double predictedMs;
+        private double actualMs;
+        private double absErrorMs;
+
+        /**
+         * 设置保留的最近样本数
+         */
+        public synchronized void setHistorySize(int historySize) {
+            this.historySize = Math.max(0, historySize);
+            while (recentSamples.size() > this.historySize) {
+                recentSamples.removeFirst();
+            }
+        }
+
+        public synchronized void record(int pageNumber, double outputMegapixels, double imageMegapixels,
+                                        double contentKilobytes, double predicted, double actual) {
+            samples++;
+            predictedMs += predicted;
+            actualMs += actual;
+            absErrorMs += Math.abs(actual - predicted);
+            if (historySize == 0) {
+                return;
+            }
+            Map<String, Object> sample = new LinkedHashMap<>();
+            sample.put("pageNumber", pageNumber);
+            sample.put("outputMegapixels", round(outputMegapixels));
+            sample.put("imageMegapixels", round(imageMegapixels));
+            sample.put("contentKilobytes", round(contentKilobytes));
+            sample.put("predictedMs", round(predicted));
+            sample.put("actualMs", round(actual));
+            if (recentSamples.size() >= historySize) {
+                recentSamples.removeFirst();
+            }
+            recentSamples.addLast(sample);
+        }
+
+        private static double round(double value) {
+            return Math.round(value * 100) / 100.0;
+        }
+
+        synchronized Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("samples", samples);
+            map.put("predictedMs", Math.round(predictedMs));
+            map.put("actualMs", Math.round(actualMs));
+            map.put("meanAbsErrorRatio", actualMs > 0 ? round(absErrorMs / actualMs) : 0);
+            map.put("actualToPredicted", predictedMs > 0 ? round(actualMs / predictedMs) : 0);
+            map.put("recentSamples", new ArrayList<>(recentSamples));
+            return map;
+        }
+    }
+
+    /**
+     * 子进程渲染统计
+     */
+    public static class RenderWorkerStats {
+        private final AtomicLong started = new AtomicLong();
+        private final AtomicLong recycled = new AtomicLong();
+        private final AtomicLong crashed = new AtomicLong();
+        private final AtomicLong killed = new AtomicLong();
+        private final AtomicInteger alive = new AtomicInteger();
+        private final AtomicLong renders = new AtomicLong();
+        private final AtomicLong transferredBytes = new AtomicLong();
+
+        public void recordStarted() {
+            started.incrementAndGet();
+            alive.incrementAndGet();
+        }
+
+        /**
+         * 子进程达到回收次数或应用关闭时正常退出
+         */
+        public void recordRecycled() {
+            alive.decrementAndGet();
+            recycled.incrementAndGet();
+        }
+
+        /**
+         * 子进程异常退出（内存溢出、崩溃）或通信失败
+         */
+        public void recordCrashed() {
+            alive.decrementAndGet();
+            crashed.incrementAndGet();
+        }
+
+        /**
+         * 子进程因任务取消或渲染超时被强制结束
+         */
+        public void recordKilled() {
+            alive.decrementAndGet();
+            killed.incrementAndGet();
+        }
+
+        public void recordRender(long bytes) {
+            renders.incrementAndGet();
+            transferredBytes.addAndGet(bytes);
+        }
+
+        Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("started", started.get());
+            map.put("recycled", recycled.get());
+            map.put("crashed", crashed.get());
+            map.put("killed", killed.get());
+            map.put("alive", alive.get());
+            map.put("renders", renders.get());
+            map.put("transferredBytes", transferredBytes.get());
+            return map;
+        }
+    }
+
+    /**
+     * 单个图片格式的编码统计
+     */
+    public static class EncoderStats {
+        private final AtomicLong images = new AtomicLong();
+        private final AtomicLong outputBytes = new AtomicLong();
+        private final AtomicLong encodeNanos = new AtomicLong();
+
+        public void record(long bytes, long nanos) {
+            images.incrementAndGet();
+            outputBytes.addAndGet(bytes);
+            encodeNanos.addAndGet(nanos);
+        }
+
+        Map<String, Object> toMap() {
+            long count = images.get();
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("images", count);
+            map.put("outputBytes", outputBytes.get());
+            map.put("avgBytesPerImage", count > 0 ? outputBytes.get() / count : 0);
+            map.put("encodeTimeMs", TimeUnit.NANOSECONDS.toMillis(encodeNanos.get()));
+            map.put("avgEncodeTimeMs", count > 0 ? TimeUnit.NANOSECONDS.toMillis(encodeNanos.get()) / (double) count : 0);
+            return map;
+        }
+    }
+}
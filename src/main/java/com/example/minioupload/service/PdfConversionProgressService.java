@@ -0,0 +1,317 @@
+package com.example.minioupload.service;
+
+import com.example.minioupload.config.PdfConversionProperties;
+import com.example.minioupload.dto.PdfConversionProgress;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RMap;
+import org.redisson.api.RTopic;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PDF转换实时进度服务
+ *
+ * 转换过程中的状态变化和每页完成事件写入Redis哈希 pdf:progress:{taskId}，
+ * 同时发布到Redisson主题 pdf:progress:events。每个节点订阅该主题，
+ * 把事件推送给连接在本节点上的SSE客户端，因此客户端无论连到哪个节点都能收到进度。
+ *
+ * 进度查询直接读取Redis哈希，不再访问数据库；哈希在最后一次更新后保留 ttl-minutes。
+ * 未配置Redis时退化为本节点内存存储，仅本节点的转换进度可见。
+ * Redis读写失败只记录日志，不影响转换本身。
+ */
+@Slf4j
+@Service
+public class PdfConversionProgressService {
+
+    private static final String KEY_PREFIX = "pdf:progress:";
+    private static final String TOPIC = "pdf:progress:events";
+    private static final String SSE_EVENT_NAME = "progress";
+
+    private static final String FIELD_STATUS = "status";
+    private static final String FIELD_TOTAL_PAGES = "totalPages";
+    private static final String FIELD_PROCESSED_PAGES = "processedPages";
+    private static final String FIELD_MESSAGE = "message";
+    private static final String FIELD_START_TIME = "startTime";
+    private static final String FIELD_END_TIME = "endTime";
+
+    private final PdfConversionProperties.ProgressConfig config;
+    private final ObjectMapper objectMapper;
+    private final RedissonClient redissonClient;
+
+    private final Map<String, Map<String, String>> localProgress = new ConcurrentHashMap<>();
+    private final Map<String, List<SseEmitter>> emitters = new ConcurrentHashMap<>();
+
+    public PdfConversionProgressService(PdfConversionProperties properties, ObjectMapper objectMapper,
+                                        ObjectProvider<RedissonClient> redissonClientProvider) {
+        this.config = properties.getProgress();
+        this.objectMapper = objectMapper;
+        this.redissonClient = redissonClientProvider.getIfAvailable();
+    }
+
+    @PostConstruct
+    public void subscribe() {
+        if (redissonClient == null) {
+            log.warn("RedissonClient未配置，转换进度仅保存在本节点内存中");
+            return;
+        }
+        try {
+            RTopic topic = redissonClient.getTopic(TOPIC, StringCodec.INSTANCE);
+            topic.addListener(String.class, (channel, message) -> dispatch(message));
+            log.info("Subscribed to conversion progress topic: {}", TOPIC);
+        } catch (Exception e) {
+            log.error("Failed to subscribe conversion progress topic: {}", TOPIC, e);
+        }
+    }
+
+    /**
+     * 转换开始渲染页面时调用，记录需要处理的页数并清零已处理页数
+     *
+     * @param taskId 任务ID
+     * @param totalPages 本次需要转换的页数
+     */
+    public void start(String taskId, int totalPages) {
+        Map<String, String> fields = new HashMap<>();
+        fields.put(FIELD_STATUS, "PROCESSING");
+        fields.put(FIELD_TOTAL_PAGES, String.valueOf(totalPages));
+        fields.put(FIELD_PROCESSED_PAGES, "0");
+        update(taskId, fields, 0);
+    }
+
+    /**
+     * 单页转换完成时调用
+     *
+     * @param taskId 任务ID
+     */
+    public void pageCompleted(String taskId) {
+        update(taskId, new HashMap<>(), 1);
+    }
+
+    /**
+     * 任务状态变化时调用
+     *
+     * @param taskId 任务ID
+     * @param status 新状态
+     * @param message 附加信息（可选）
+     */
+    public void statusChanged(String taskId, String status, String message) {
+        Map<String, String> fields = new HashMap<>();
+        fields.put(FIELD_STATUS, status);
+        if (message != null) {
+            fields.put(FIELD_MESSAGE, message);
+        }
+        if (isTerminal(status)) {
+            fields.put(FIELD_END_TIME, String.valueOf(System.currentTimeMillis()));
+        }
+        update(taskId, fields, 0);
+    }
+
+    /**
+     * 查询实时进度
+     *
+     * @param taskId 任务ID
+     * @return 进度信息，Redis中没有记录（未开始或已过期）时返回null
+     */
+    public PdfConversionProgress getProgress(String taskId) {
+        Map<String, String> fields;
+        try {
+            fields = redissonClient != null
+                ? redissonClient.<String, String>getMap(KEY_PREFIX + taskId, StringCodec.INSTANCE).readAllMap()
+                : localProgress.get(taskId);
+        } catch (Exception e) {
+            log.warn("Failed to read conversion progress from Redis for taskId: {}", taskId, e);
+            return null;
+        }
+        if (fields == null || fields.isEmpty()) {
+            return null;
+        }
+        return toProgress(taskId, fields);
+    }
+
+    /**
+     * 注册SSE客户端
+     *
+     * 立即推送一次当前进度；任务已结束时推送后直接关闭连接。
+     *
+     * @param taskId 任务ID
+     * @param current 当前进度
+     * @return SSE连接
+     */
+    public SseEmitter register(String taskId, PdfConversionProgress current) {
+        SseEmitter emitter = new SseEmitter(TimeUnit.MINUTES.toMillis(config.getSseTimeoutMinutes()));
+        if (current == null || isTerminal(current.getStatus()) || "NOT_FOUND".equals(current.getStatus())) {
+            send(emitter, current);
+            emitter.complete();
+            return emitter;
+        }
+
+        List<SseEmitter> taskEmitters = emitters.computeIfAbsent(taskId, k -> new CopyOnWriteArrayList<>());
+        taskEmitters.add(emitter);
+        Runnable remove = () -> removeEmitter(taskId, emitter);
+        emitter.onCompletion(remove);
+        emitter.onTimeout(remove);
+        emitter.onError(e -> remove.run());
+
+        send(emitter, current);
+        return emitter;
+    }
+
+    private void update(String taskId, Map<String, String> fields, int processedDelta) {
+        Map<String, String> snapshot;
+        try {
+            snapshot = redissonClient != null
+                ? updateRedis(taskId, fields, processedDelta)
+                : updateLocal(taskId, fields, processedDelta);
+        } catch (Exception e) {
+            log.warn("Failed to update conversion progress for taskId: {}", taskId, e);
+            return;
+        }
+        publish(toProgress(taskId, snapshot));
+    }
+
+    private Map<String, String> updateRedis(String taskId, Map<String, String> fields, int processedDelta) {
+        RMap<String, String> map = redissonClient.getMap(KEY_PREFIX + taskId, StringCodec.INSTANCE);
+        map.fastPutIfAbsent(FIELD_START_TIME, String.valueOf(System.currentTimeMillis()));
+        if (!fields.isEmpty()) {
+            map.putAll(fields);
+        }
+        if (processedDelta != 0) {
+            map.addAndGet(FIELD_PROCESSED_PAGES, processedDelta);
+        }
+        map.expire(Duration.ofMinutes(config.getTtlMinutes()));
+        return map.readAllMap();
+    }
+
+    private Map<String, String> updateLocal(String taskId, Map<String, String> fields, int processedDelta) {
+        Map<String, String> map = localProgress.computeIfAbsent(taskId, k -> new ConcurrentHashMap<>());
+        synchronized (map) {
+            map.putIfAbsent(FIELD_START_TIME, String.valueOf(System.currentTimeMillis()));
+            map.putAll(fields);
+            if (processedDelta != 0) {
+                long processed = parseLong(map.get(FIELD_PROCESSED_PAGES)) + processedDelta;
+                map.put(FIELD_PROCESSED_PAGES, String.valueOf(processed));
+            }
+            if (isTerminal(map.get(FIELD_STATUS))) {
+                // 本地模式没有过期机制，任务结束后只保留给当前连接推送最终状态
+                localProgress.remove(taskId);
+            }
+            return new HashMap<>(map);
+        }
+    }
+
+    private void publish(PdfConversionProgress progress) {
+        if (redissonClient == null) {
+            deliver(progress);
+            return;
+        }
+        try {
+            String message = objectMapper.writeValueAsString(progress);
+            redissonClient.getTopic(TOPIC, StringCodec.INSTANCE).publish(message);
+        } catch (Exception e) {
+            log.warn("Failed to publish conversion progress for taskId: {}", progress.getJobId(), e);
+        }
+    }
+
+    private void dispatch(String message) {
+        try {
+            deliver(objectMapper.readValue(message, PdfConversionProgress.class));
+        } catch (JsonProcessingException e) {
+            log.warn("Ignoring malformed conversion progress event: {}", message, e);
+        }
+    }
+
+    /**
+     * 推送给本节点上订阅该任务的SSE客户端，任务结束时关闭连接
+     */
+    private void deliver(PdfConversionProgress progress) {
+        List<SseEmitter> taskEmitters = emitters.get(progress.getJobId());
+        if (taskEmitters == null) {
+            return;
+        }
+        boolean terminal = isTerminal(progress.getStatus());
+        for (SseEmitter emitter : taskEmitters) {
+            send(emitter, progress);
+            if (terminal) {
+                emitter.complete();
+            }
+        }
+    }
+
+    private void send(SseEmitter emitter, PdfConversionProgress progress) {
+        try {
+            emitter.send(SseEmitter.event().name(SSE_EVENT_NAME).data(progress));
+        } catch (IOException | IllegalStateException e) {
+            // 客户端已断开
+            emitter.completeWithError(e);
+        }
+    }
+
+    private void removeEmitter(String taskId, SseEmitter emitter) {
+        emitters.computeIfPresent(taskId, (k, list) -> {
+            list.remove(emitter);
+            return list.isEmpty() ? null : list;
+        });
+    }
+
+    private PdfConversionProgress toProgress(String taskId, Map<String, String> fields) {
+        String status = fields.get(FIELD_STATUS);
+        Integer totalPages = fields.containsKey(FIELD_TOTAL_PAGES) ? (int) parseLong(fields.get(FIELD_TOTAL_PAGES)) : null;
+        int processedPages = (int) parseLong(fields.get(FIELD_PROCESSED_PAGES));
+        long startTime = parseLong(fields.get(FIELD_START_TIME));
+        long endTime = fields.containsKey(FIELD_END_TIME) ? parseLong(fields.get(FIELD_END_TIME)) : System.currentTimeMillis();
+
+        int progressPercentage;
+        if ("COMPLETED".equals(status) || "READY".equals(status)) {
+            progressPercentage = 100;
+        } else if (totalPages != null && totalPages > 0) {
+            progressPercentage = Math.min(99, processedPages * 100 / totalPages);
+        } else {
+            progressPercentage = 0;
+        }
+
+        return PdfConversionProgress.builder()
+            .jobId(taskId)
+            .status(status)
+            .currentPhase(status)
+            .totalPages(totalPages)
+            .processedPages(processedPages)
+            .progressPercentage(progressPercentage)
+            .message(fields.get(FIELD_MESSAGE))
+            .errorMessage("FAILED".equals(status) || ConversionControl.STATUS_TIMEOUT.equals(status)
+                ? fields.get(FIELD_MESSAGE) : null)
+            .startTime(startTime > 0 ? startTime : null)
+            .elapsedTimeMs(startTime > 0 ? endTime - startTime : null)
+            .build();
+    }
+
+    private static boolean isTerminal(String status) {
+        return "COMPLETED".equals(status) || "FAILED".equals(status) || "READY".equals(status)
+            || ConversionControl.STATUS_CANCELLED.equals(status) || ConversionControl.STATUS_TIMEOUT.equals(status);
+    }
+
+    private static long parseLong(String value) {
+        if (value == null || value.isEmpty()) {
+            return 0L;
+        }
+        try {
+            // HINCRBYFLOAT的结果可能带小数部分
+            return (long) Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            return 0L;
+        }
+    }
+}
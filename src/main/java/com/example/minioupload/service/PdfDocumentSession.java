@@ -0,0 +1,232 @@
+package com.example.minioupload.service;
+
+import com.example.minioupload.config.PdfConversionProperties;
+import com.example.minioupload.dto.PdfPageDimension;
+import com.example.minioupload.model.enums.StreamCachePolicy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.io.RandomAccessRead;
+import org.apache.pdfbox.io.RandomAccessReadBuffer;
+import org.apache.pdfbox.io.RandomAccessReadBufferedFile;
+import org.apache.pdfbox.io.RandomAccessReadMemoryMappedFile;
+import org.apache.pdfbox.io.RandomAccessStreamCache;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * PDF文档会话
+ *
+ * 一次转换任务只加载一次PDF：页数、页面尺寸、内容哈希、页面指纹和顺序渲染共用同一个PDDocument，
+ * 解析出的页面树、字体和图片资源只加载一次。
+ * 并行/流水线渲染时第一个渲染线程使用会话文档，其余线程通过 {@link #openWorkerSession()} 各自加载一份。
+ *
+ * 加载使用 document-session 配置的流缓存策略（见 {@link StreamCachePolicy}），
+ * 默认按文件大小自适应，大文件不会把整份数据和流缓存放在堆上。
+ * 文档使用 {@link SessionResourceCache}：嵌入字体从 {@link SharedFontCache} 借用，会话关闭时归还。
+ *
+ * 会话文档非线程安全，同一时刻只能由一个线程使用。
+ */
+@Slf4j
+public final class PdfDocumentSession implements AutoCloseable {
+
+    private static volatile SharedFontCache sharedFontCache;
+
+    private final File file;
+    private final PdfConversionProperties properties;
+
+    private final PDDocument document;
+    private final SessionResourceCache resourceCache;
+    private final Map<String, PageFingerprinter> fingerprinters = new HashMap<>();
+    private List<PdfPageDimension> pageDimensions;
+
+    private PdfDocumentSession(File file, PdfConversionProperties properties, PDDocument document,
+                               SessionResourceCache resourceCache) {
+        this.file = file;
+        this.properties = properties;
+        this.document = document;
+        this.resourceCache = resourceCache;
+    }
+
+    /**
+     * 设置跨文档共享的字体缓存，为null时各文档独立解析字体
+     */
+    public static void setSharedFontCache(SharedFontCache fontCache) {
+        sharedFontCache = fontCache;
+    }
+
+    /**
+     * 打开文档会话
+     *
+     * @param pdfFile PDF文件
+     * @param properties 转换配置
+     * @return 文档会话，由调用方关闭
+     * @throws IOException 加载失败时抛出
+     */
+    public static PdfDocumentSession open(File pdfFile, PdfConversionProperties properties) throws IOException {
+        long start = System.currentTimeMillis();
+        PDDocument document = load(pdfFile, properties);
+        boolean cacheImages = !isLargeAdaptive(pdfFile.length(), properties.getDocumentSession());
+        SessionResourceCache resourceCache = new SessionResourceCache(document, sharedFontCache, cacheImages);
+        document.setResourceCache(resourceCache);
+        log.debug("Opened document session for {} ({} pages) in {}ms", pdfFile.getName(),
+            document.getNumberOfPages(), System.currentTimeMillis() - start);
+        return new PdfDocumentSession(pdfFile, properties, document, resourceCache);
+    }
+
+    /**
+     * 按配置的流缓存策略加载PDF
+     *
+     * ADAPTIVE策略下按文件大小选择读取方式和流缓存：
+     * - 不超过 memory-only-max-file-bytes：整体读入堆内存，流缓存仅用内存
+     * - 更大的文件：内存映射读取（可配置），流缓存不小于 temp-file-min-file-bytes 时仅用临时文件，否则使用MIXED；
+     *   通过会话打开时资源缓存不保留图片XObject，已解码的整页扫描图不会在文档关闭前一直占用堆内存
+     *
+     * @param pdfFile PDF文件
+     * @param properties 转换配置
+     * @return 文档，由调用方关闭
+     * @throws IOException 加载失败时抛出
+     */
+    private static PDDocument load(File pdfFile, PdfConversionProperties properties) throws IOException {
+        PdfConversionProperties.DocumentSessionConfig config = properties.getDocumentSession();
+        long fileSize = pdfFile.length();
+        RandomAccessStreamCache.StreamCacheCreateFunction streamCache = streamCache(fileSize, properties);
+        if (StreamCachePolicy.fromCode(config.getStreamCache()) != StreamCachePolicy.ADAPTIVE) {
+            return Loader.loadPDF(pdfFile, streamCache);
+        }
+
+        RandomAccessRead source;
+        if (fileSize <= config.getMemoryOnlyMaxFileBytes()) {
+            source = new RandomAccessReadBuffer(Files.readAllBytes(pdfFile.toPath()));
+        } else if (config.isMemoryMappedSource()) {
+            source = new RandomAccessReadMemoryMappedFile(pdfFile);
+        } else {
+            source = new RandomAccessReadBufferedFile(pdfFile);
+        }
+        try {
+            // 文档关闭时一并关闭source
+            return Loader.loadPDF(source, streamCache);
+        } catch (IOException | RuntimeException e) {
+            source.close();
+            throw e;
+        }
+    }
+
+    private static boolean isLargeAdaptive(long fileSize, PdfConversionProperties.DocumentSessionConfig config) {
+        return StreamCachePolicy.fromCode(config.getStreamCache()) == StreamCachePolicy.ADAPTIVE
+            && fileSize > config.getMemoryOnlyMaxFileBytes();
+    }
+
+    /**
+     * 按配置和数据大小选择流缓存
+     *
+     * @param dataSize PDF数据大小（字节）
+     * @param properties 转换配置
+     * @return 流缓存创建函数
+     */
+    public static RandomAccessStreamCache.StreamCacheCreateFunction streamCache(long dataSize,
+                                                                                PdfConversionProperties properties) {
+        PdfConversionProperties.DocumentSessionConfig config = properties.getDocumentSession();
+        StreamCachePolicy policy = StreamCachePolicy.fromCode(config.getStreamCache());
+        if (policy == StreamCachePolicy.ADAPTIVE) {
+            if (dataSize <= config.getMemoryOnlyMaxFileBytes()) {
+                policy = StreamCachePolicy.MEMORY;
+            } else if (dataSize >= config.getTempFileMinFileBytes()) {
+                policy = StreamCachePolicy.TEMP_FILE;
+            } else {
+                policy = StreamCachePolicy.MIXED;
+            }
+        }
+
+        MemoryUsageSetting setting;
+        switch (policy) {
+            case MEMORY:
+                return MemoryUsageSetting.setupMainMemoryOnly().streamCache;
+            case TEMP_FILE:
+                setting = MemoryUsageSetting.setupTempFileOnly();
+                break;
+            default:
+                setting = MemoryUsageSetting.setupMixed(Math.max(0L, config.getMaxMainMemoryBytes()));
+                break;
+        }
+        File tempDir = new File(properties.getTempDirectory());
+        if (tempDir.isDirectory()) {
+            setting.setTempDir(tempDir);
+        }
+        return setting.streamCache;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * 会话文档（非线程安全）
+     */
+    public PDDocument getDocument() {
+        return document;
+    }
+
+    public int getPageCount() {
+        return document.getNumberOfPages();
+    }
+
+    /**
+     * 各页尺寸（不渲染页面），结果在会话内缓存
+     *
+     * @return 按页码排列的页面尺寸（PDF点）
+     */
+    public List<PdfPageDimension> getPageDimensions() {
+        if (pageDimensions == null) {
+            List<PdfPageDimension> dimensions = new ArrayList<>(document.getNumberOfPages());
+            int pageNumber = 1;
+            for (PDPage page : document.getPages()) {
+                PDRectangle mediaBox = page.getMediaBox();
+                dimensions.add(PdfPageDimension.builder()
+                    .pageNumber(pageNumber++)
+                    .width((double) mediaBox.getWidth())
+                    .height((double) mediaBox.getHeight())
+                    .build());
+            }
+            pageDimensions = Collections.unmodifiableList(dimensions);
+        }
+        return pageDimensions;
+    }
+
+    /**
+     * 获取指定签名的页面指纹计算器，同一签名在会话内复用（共享流摘要缓存）
+     */
+    PageFingerprinter fingerprinter(String renderSignature) {
+        return fingerprinters.computeIfAbsent(renderSignature, signature -> new PageFingerprinter(document, signature));
+    }
+
+    /**
+     * 以相同的流缓存策略另行打开一个会话，供其余渲染线程使用
+     *
+     * @return 独立的会话，由调用方关闭
+     * @throws IOException 加载失败时抛出
+     */
+    public PdfDocumentSession openWorkerSession() throws IOException {
+        return open(file, properties);
+    }
+
+    @Override
+    public void close() throws IOException {
+        fingerprinters.clear();
+        try {
+            resourceCache.release();
+        } finally {
+            document.close();
+        }
+    }
+}
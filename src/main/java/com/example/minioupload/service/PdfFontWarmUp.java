@@ -0,0 +1,124 @@
+package com.example.minioupload.service;
+
+import com.example.minioupload.config.PdfConversionProperties;
+import com.example.minioupload.utils.PdfUtils;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.font.FontMappers;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.pdmodel.font.Standard14Fonts;
+import org.apache.pdfbox.rendering.ImageType;
+import org.apache.pdfbox.rendering.PDFRenderer;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.util.Base64;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * PDFBox字体系统预热
+ *
+ * 重启后的第一次渲染需要扫描系统字体目录（FontMapper）、加载标准14字体的替代字体、
+ * 初始化Java2D渲染和图片编码管线，注解填充还要读取并嵌入十几MB的中文字体，
+ * 这些开销会落在第一个请求上。应用就绪后在后台执行一次：
+ * - 触发FontMapper的系统字体扫描
+ * - 用标准字体生成一页文档，按注解填充的方式写入中文（读取并子集嵌入中文字体），
+ *   重新加载后渲染并编码为PNG
+ *
+ * 同时把 {@link SharedFontCache} 注册到 {@link PdfDocumentSession}，在文档之间共享已解析的嵌入字体。
+ *
+ * 配置：pdf.conversion.font-cache
+ */
+@Slf4j
+@Component
+public class PdfFontWarmUp {
+
+    private final PdfConversionProperties.FontCacheConfig config;
+    private final SharedFontCache sharedFontCache;
+    private final PdfConversionMetrics.FontCacheStats stats;
+    private final Executor executor;
+
+    public PdfFontWarmUp(PdfConversionProperties properties, SharedFontCache sharedFontCache,
+                         PdfConversionMetrics metrics,
+                         @Qualifier("pdfPipelineExecutor") Executor executor) {
+        this.config = properties.getFontCache();
+        this.sharedFontCache = sharedFontCache;
+        this.stats = metrics.fontCache();
+        this.executor = executor;
+    }
+
+    @PostConstruct
+    public void registerSharedFontCache() {
+        PdfDocumentSession.setSharedFontCache(config.isSharedCacheEnabled() ? sharedFontCache : null);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (!config.isWarmUpOnStartup()) {
+            return;
+        }
+        CompletableFuture.runAsync(this::warmUp, executor);
+    }
+
+    /**
+     * 执行预热，失败只记录日志
+     */
+    public void warmUp() {
+        long start = System.currentTimeMillis();
+        try {
+            // 查找不存在的字体会触发系统字体扫描（结果缓存在用户目录的.pdfbox.cache中）
+            FontMappers.instance().getFontBoxFont("PdfFontWarmUp", null);
+            renderSamplePage();
+
+            long elapsed = System.currentTimeMillis() - start;
+            stats.setWarmUpMs(elapsed);
+            log.info("PDF font system warmed up in {}ms", elapsed);
+        } catch (Exception | LinkageError e) {
+            log.warn("PDF font warm-up failed after {}ms", System.currentTimeMillis() - start, e);
+        }
+    }
+
+    private void renderSamplePage() throws Exception {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (PDDocument document = new PDDocument()) {
+            PDPage page = new PDPage(PDRectangle.A6);
+            document.addPage(page);
+            try (PDPageContentStream content = new PDPageContentStream(document, page)) {
+                float y = 380;
+                for (Standard14Fonts.FontName fontName : new Standard14Fonts.FontName[] {
+                        Standard14Fonts.FontName.HELVETICA, Standard14Fonts.FontName.TIMES_ROMAN,
+                        Standard14Fonts.FontName.COURIER, Standard14Fonts.FontName.SYMBOL}) {
+                    content.beginText();
+                    content.setFont(new PDType1Font(fontName), 10);
+                    content.newLineAtOffset(20, y);
+                    content.showText(fontName == Standard14Fonts.FontName.SYMBOL ? "\u03b1\u03b2\u03b3" : "Warm up 0123");
+                    content.endText();
+                    y -= 20;
+                }
+                content.addRect(20, 20, 100, 100);
+                content.fill();
+            }
+            document.save(output);
+        }
+
+        String annotated = PdfUtils.writeTextToPdf(Base64.getEncoder().encodeToString(output.toByteArray()),
+            0, 20, 200, 120, 24, "预热文字");
+        byte[] pdfBytes = annotated != null ? Base64.getDecoder().decode(annotated) : output.toByteArray();
+        try (PDDocument document = Loader.loadPDF(pdfBytes)) {
+            PDFRenderer renderer = new PDFRenderer(document);
+            BufferedImage image = renderer.renderImageWithDPI(0, 72, ImageType.RGB);
+            ImageIO.write(image, "png", new ByteArrayOutputStream());
+        }
+    }
+}
@@ -1,29 +1,47 @@
 package com.example.minioupload.service;
 
 import com.example.minioupload.config.PdfConversionProperties;
+import com.example.minioupload.dto.PdfPageDimension;
+import com.example.minioupload.model.enums.ColorMode;
+import com.example.minioupload.model.enums.ImageVariant;
+import com.example.minioupload.model.enums.RenderProfile;
+import com.example.minioupload.utils.PdfUtils;
+import jakarta.annotation.PostConstruct;
 import lombok.Builder;
 import lombok.Data;
-import lombok.RequiredArgsConstructor;
+import lombok.ToString;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.pdfbox.Loader;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.pdmodel.PDPage;
 import org.apache.pdfbox.pdmodel.common.PDRectangle;
 import org.apache.pdfbox.rendering.PDFRenderer;
 import org.apache.pdfbox.rendering.ImageType;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
 
-import javax.imageio.ImageIO;
 import java.awt.image.BufferedImage;
+import java.io.BufferedOutputStream;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * PDF转图片服务
@@ -41,14 +59,64 @@ import java.util.Map;
  * - 支持多种图片格式（PNG、JPG等）
  * - RGB色彩模式
  * - 自动上传图片到MinIO存储
+ * - 可选的多线程并行渲染（每个工作线程独立的PDDocument/PDFRenderer）
+ * - 可选的 渲染 -> 编码 -> 上传 流水线模式（有界队列背压）
+ * - 可选的内存编码模式：图片编码到复用缓冲区后直接上传，超大页面才落盘
+ * - 可选的全局渲染内存预算：渲染前按页面尺寸和DPI预留内存，超大页面自动降低DPI
+ * - 可选的深度缩放瓦片金字塔（DZI）输出，与整页图片存放在同一目录
+ * - 可选的多规格输出（缩略图、预览图），由同一张整页位图缩小生成
+ * - 多个渲染线程时按预估渲染成本从高到低调度页面（见 {@link PageCostModel}）
+ * - 可选的子进程渲染：页面在独立堆的子JVM中渲染（见 {@link RenderWorkerPool}），本进程只负责编码和上传
+ * - 单页渲染和每个对象的上传失败后按退避策略重试（见 {@link PageRetrier}），对象键由任务ID和页码确定
  */
 @Slf4j
 @Service
-@RequiredArgsConstructor
 public class PdfToImageService {
     
     private final PdfConversionProperties properties;
     private final MinioStorageService minioStorageService;
+    private final Executor pdfRenderExecutor;
+    private final Executor pdfPipelineExecutor;
+    private final PdfConversionMetrics metrics;
+    private final ImageBufferPool imageBufferPool;
+    private final RenderMemoryBudget renderMemoryBudget;
+    private final PageImageEncoders pageImageEncoders;
+    private final RenderWorkerPool renderWorkerPool;
+    private final PageCostModel pageCostModel;
+    private final PageRetrier pageRetrier;
+    
+    public PdfToImageService(
+            PdfConversionProperties properties,
+            MinioStorageService minioStorageService,
+            @Qualifier("pdfRenderExecutor") Executor pdfRenderExecutor,
+            @Qualifier("pdfPipelineExecutor") Executor pdfPipelineExecutor,
+            PdfConversionMetrics metrics,
+            ImageBufferPool imageBufferPool,
+            RenderMemoryBudget renderMemoryBudget,
+            PageImageEncoders pageImageEncoders,
+            RenderWorkerPool renderWorkerPool,
+            PageCostModel pageCostModel,
+            PageRetrier pageRetrier) {
+        this.properties = properties;
+        this.minioStorageService = minioStorageService;
+        this.pdfRenderExecutor = pdfRenderExecutor;
+        this.pdfPipelineExecutor = pdfPipelineExecutor;
+        this.metrics = metrics;
+        this.imageBufferPool = imageBufferPool;
+        this.renderMemoryBudget = renderMemoryBudget;
+        this.pageImageEncoders = pageImageEncoders;
+        this.renderWorkerPool = renderWorkerPool;
+        this.pageCostModel = pageCostModel;
+        this.pageRetrier = pageRetrier;
+    }
+    
+    /**
+     * 让PdfUtils（注解填充等）加载PDF时使用相同的流缓存策略
+     */
+    @PostConstruct
+    public void configurePdfUtils() {
+        PdfUtils.setStreamCacheResolver(size -> PdfDocumentSession.streamCache(size, properties));
+    }
     
     /**
      * 转换PDF为图片（使用默认配置）
@@ -88,8 +156,9 @@ public class PdfToImageService {
         Path imageDir = Paths.get(properties.getTempDirectory(), jobId, "images");
         Files.createDirectories(imageDir);
         
-        try (PDDocument document = Loader.loadPDF(pdfFile)) {
-            PDFRenderer pdfRenderer = new PDFRenderer(document);
+        try (PdfDocumentSession session = openSession(pdfFile)) {
+            PDDocument document = session.getDocument();
+            PDFRenderer pdfRenderer = createRenderer(session, null, null);
             int pageCount = document.getNumberOfPages();
             
             log.info("PDF has {} pages, starting rendering...", pageCount);
@@ -97,16 +166,18 @@ public class PdfToImageService {
             for (int pageIndex = 0; pageIndex < pageCount; pageIndex++) {
                 long pageStartTime = System.currentTimeMillis();
                 
-                BufferedImage image = pdfRenderer.renderImageWithDPI(
-                    pageIndex, 
-                    dpi, 
-                    ImageType.RGB
-                );
+                RenderedPage renderedPage = renderPage(document, pdfRenderer, pageIndex + 1, dpi);
                 
-                String imageFileName = String.format("page_%04d.%s", pageIndex + 1, format.toLowerCase());
+                BufferedImage image = renderedPage.getImage();
+                String pageFormat = pageImageEncoders.formatFor(format, image.getWidth(), image.getHeight());
+                String imageFileName = String.format("page_%04d.%s", pageIndex + 1, pageFormat.toLowerCase());
                 File imageFile = imageDir.resolve(imageFileName).toFile();
                 
-                ImageIO.write(image, format, imageFile);
+                try {
+                    writeImageFile(image, pageFormat, imageFile);
+                } finally {
+                    renderedPage.releaseMemory();
+                }
                 imageFiles.add(imageFile.getAbsolutePath());
                 
                 long pageTime = System.currentTimeMillis() - pageStartTime;
@@ -154,8 +225,9 @@ public class PdfToImageService {
         Path imageDir = Paths.get(properties.getTempDirectory(), jobId, "images");
         Files.createDirectories(imageDir);
         
-        try (PDDocument document = Loader.loadPDF(pdfFile)) {
-            PDFRenderer pdfRenderer = new PDFRenderer(document);
+        try (PdfDocumentSession session = openSession(pdfFile)) {
+            PDDocument document = session.getDocument();
+            PDFRenderer pdfRenderer = createRenderer(session, null, null);
             int pageCount = document.getNumberOfPages();
             
             log.info("PDF has {} pages, converting {} specific pages...", pageCount, pageNumbers.size());
@@ -166,19 +238,20 @@ public class PdfToImageService {
                     continue;
                 }
                 
-                int pageIndex = pageNumber - 1;
                 long pageStartTime = System.currentTimeMillis();
                 
-                BufferedImage image = pdfRenderer.renderImageWithDPI(
-                    pageIndex, 
-                    dpi, 
-                    ImageType.RGB
-                );
+                RenderedPage renderedPage = renderPage(document, pdfRenderer, pageNumber, dpi);
                 
-                String imageFileName = String.format("page_%04d.%s", pageNumber, format.toLowerCase());
+                BufferedImage image = renderedPage.getImage();
+                String pageFormat = pageImageEncoders.formatFor(format, image.getWidth(), image.getHeight());
+                String imageFileName = String.format("page_%04d.%s", pageNumber, pageFormat.toLowerCase());
                 File imageFile = imageDir.resolve(imageFileName).toFile();
                 
-                ImageIO.write(image, format, imageFile);
+                try {
+                    writeImageFile(image, pageFormat, imageFile);
+                } finally {
+                    renderedPage.releaseMemory();
+                }
                 imageFiles.put(pageNumber, imageFile.getAbsolutePath());
                 
                 long pageTime = System.currentTimeMillis() - pageStartTime;
@@ -229,8 +302,9 @@ public class PdfToImageService {
         Path imageDir = Paths.get(properties.getTempDirectory(), jobId, "images");
         Files.createDirectories(imageDir);
         
-        try (PDDocument document = Loader.loadPDF(pdfFile)) {
-            PDFRenderer pdfRenderer = new PDFRenderer(document);
+        try (PdfDocumentSession session = openSession(pdfFile)) {
+            PDDocument document = session.getDocument();
+            PDFRenderer pdfRenderer = createRenderer(session, null, null);
             int pageCount = document.getNumberOfPages();
             
             log.info("PDF has {} pages, converting and uploading {} specific pages...", pageCount, pageNumbers.size());
@@ -241,19 +315,20 @@ public class PdfToImageService {
                     continue;
                 }
                 
-                int pageIndex = pageNumber - 1;
                 long pageStartTime = System.currentTimeMillis();
                 
-                BufferedImage image = pdfRenderer.renderImageWithDPI(
-                    pageIndex, 
-                    dpi, 
-                    ImageType.RGB
-                );
+                RenderedPage renderedPage = renderPage(document, pdfRenderer, pageNumber, dpi);
                 
-                String imageFileName = String.format("page_%04d.%s", pageNumber, format.toLowerCase());
+                BufferedImage image = renderedPage.getImage();
+                String pageFormat = pageImageEncoders.formatFor(format, image.getWidth(), image.getHeight());
+                String imageFileName = String.format("page_%04d.%s", pageNumber, pageFormat.toLowerCase());
                 File imageFile = imageDir.resolve(imageFileName).toFile();
                 
-                ImageIO.write(image, format, imageFile);
+                try {
+                    writeImageFile(image, pageFormat, imageFile);
+                } finally {
+                    renderedPage.releaseMemory();
+                }
                 
                 String minioObjectKey = String.format("pdf-images/%s/%s/%s/%s", 
                     userId, businessId, jobId, imageFileName);
@@ -294,8 +369,85 @@ public class PdfToImageService {
      * @throws IOException 读取失败时抛出
      */
     public int getPageCount(File pdfFile) throws IOException {
-        try (PDDocument document = Loader.loadPDF(pdfFile)) {
-            return document.getNumberOfPages();
+        try (PdfDocumentSession session = openSession(pdfFile)) {
+            return session.getPageCount();
+        }
+    }
+    
+    /**
+     * 获取PDF文档各页尺寸（不渲染页面）
+     * 
+     * @param pdfFile PDF文件
+     * @return 按页码排列的页面尺寸（PDF点）
+     * @throws IOException 读取失败时抛出
+     */
+    public List<PdfPageDimension> getPageDimensions(File pdfFile) throws IOException {
+        try (PdfDocumentSession session = openSession(pdfFile)) {
+            return session.getPageDimensions();
+        }
+    }
+    
+    /**
+     * 打开文档会话，转换任务内的页数、尺寸、哈希和渲染共用一次加载
+     * 
+     * @param pdfFile PDF文件
+     * @return 文档会话，由调用方关闭
+     * @throws IOException 加载失败时抛出
+     */
+    public PdfDocumentSession openSession(File pdfFile) throws IOException {
+        return PdfDocumentSession.open(pdfFile, properties);
+    }
+    
+    /**
+     * 渲染单个页面并上传到MinIO（按需渲染模式使用）
+     * 
+     * 对象键与批量转换一致（pdf-images/{userId}/{businessId}/{jobId}/page_XXXX.ext），
+     * 每页使用独立的临时目录，同一任务的多个页面可以并发渲染。
+     * 
+     * @param pdfFile PDF文件
+     * @param userId 用户ID
+     * @param businessId 业务ID
+     * @param jobId 任务ID
+     * @param pageNumber 页码（从1开始）
+     * @param dpi 图片分辨率
+     * @param format 图片格式
+     * @param options 附加输出选项
+     * @return 页面渲染信息
+     * @throws IOException 渲染或上传失败时抛出
+     */
+    public PageRenderInfo renderSinglePageAndUpload(File pdfFile, String userId, String businessId, String jobId,
+                                                    int pageNumber, int dpi, String format,
+                                                    OutputOptions options) throws IOException {
+        try (PdfDocumentSession session = openSession(pdfFile)) {
+            return renderSinglePageAndUpload(session, userId, businessId, jobId, pageNumber, dpi, format, options);
+        }
+    }
+    
+    /**
+     * 使用已打开的文档会话渲染单个页面并上传到MinIO，会话由调用方关闭
+     */
+    public PageRenderInfo renderSinglePageAndUpload(PdfDocumentSession session, String userId, String businessId,
+                                                    String jobId, int pageNumber, int dpi, String format,
+                                                    OutputOptions options) throws IOException {
+        Path imageDir = Paths.get(properties.getTempDirectory(), jobId, "pages", String.valueOf(pageNumber));
+        Files.createDirectories(imageDir);
+        
+        try {
+            PDDocument document = session.getDocument();
+            if (pageNumber < 1 || pageNumber > document.getNumberOfPages()) {
+                throw new IllegalArgumentException("Invalid page number: " + pageNumber);
+            }
+            PDFRenderer pdfRenderer = createRenderer(session, options.getRenderProfile(), options.getControl());
+            try (ConversionControl.PageScope scope = options.getControl().enterPage(pageNumber)) {
+                return renderAndUploadPage(document, pdfRenderer, pageNumber,
+                    userId, businessId, jobId, dpi, format, options, imageDir, null);
+            }
+        } finally {
+            try {
+                Files.deleteIfExists(imageDir);
+            } catch (IOException e) {
+                log.warn("Failed to delete temp image directory: {}", imageDir, e);
+            }
         }
     }
     
@@ -312,11 +464,124 @@ public class PdfToImageService {
         private Double pdfWidth;
         private Double pdfHeight;
         private Long fileSize;
+        /**
+         * 实际渲染DPI，受渲染内存预算限制时可能低于请求值
+         */
+        private Integer renderingDpi;
+        /**
+         * 渲染颜色模式
+         */
+        private ColorMode colorMode;
+        /**
+         * 瓦片金字塔信息，未生成瓦片时为null
+         */
+        private TileInfo tileInfo;
+        /**
+         * 页面内容指纹，启用页面去重时由调用方设置，保存时登记到指纹索引
+         */
+        private String contentFingerprint;
+        /**
+         * 原图之外的其他规格图片，未请求时为空
+         */
+        @Builder.Default
+        private List<VariantInfo> variants = new ArrayList<>();
+    }
+    
+    /**
+     * 其他规格图片信息
+     */
+    @Data
+    @Builder
+    public static class VariantInfo {
+        private ImageVariant variant;
+        private String minioObjectKey;
+        private Integer imageWidth;
+        private Integer imageHeight;
+        private Long fileSize;
+    }
+    
+    /**
+     * 页面瓦片金字塔信息
+     */
+    @Data
+    @Builder
+    public static class TileInfo {
+        /**
+         * DZI描述文件对象键，瓦片位于同名的 _files/ 目录下
+         */
+        private String manifestKey;
+        private Integer tileSize;
+        private Integer maxLevel;
+        private String format;
+        private Integer tileCount;
+    }
+    
+    /**
+     * 单页完成回调
+     * 
+     * 页面按传入的页码列表顺序领取，调用方可以把需要优先可见的页面排在前面，
+     * 并在回调中立即持久化这些页面，无需等待整个转换结束。
+     * 回调抛出的异常会使整个转换失败。
+     */
+    @FunctionalInterface
+    public interface PageCompletionListener {
+        void onPageCompleted(PageRenderInfo pageInfo);
+    }
+    
+    /**
+     * 页面输出选项（整页图片之外的附加输出）
+     */
+    @Data
+    @Builder
+    public static class OutputOptions {
+        /**
+         * 是否生成深度缩放瓦片金字塔
+         */
+        private boolean generateTiles;
+        
+        /**
+         * 原图之外需要输出的规格
+         */
+        @Builder.Default
+        private Set<ImageVariant> variants = EnumSet.noneOf(ImageVariant.class);
+        
+        /**
+         * 单页上传完成回调（可选），在处理该页的工作线程中调用
+         */
+        @ToString.Exclude
+        private PageCompletionListener completionListener;
+        
+        /**
+         * 渲染档位，为空时使用 image-rendering.profile
+         */
+        private RenderProfile renderProfile;
+        
+        /**
+         * 取消与截止时间控制，每页处理前和渲染过程中检查，默认不限制
+         */
+        @Builder.Default
+        @ToString.Exclude
+        private ConversionControl control = ConversionControl.unbounded();
+        
+        /**
+         * 页码列表中前N页保持传入顺序（优先渲染的页面），按渲染成本调度时只重排其余页面
+         */
+        private int fixedOrderPages;
+        
+        public static OutputOptions defaults() {
+            return OutputOptions.builder().build();
+        }
     }
     
     /**
      * 转换PDF页面为图片并上传到MinIO（返回详细信息）
      * 
+     * 执行模式（按优先级）：
+     * 1. 流水线模式（pdf.conversion.pipeline.enabled）：渲染、编码、上传分阶段重叠执行
+     * 2. 并行模式（pdf.conversion.parallel-rendering.enabled且页数达到阈值）：页面分发到多个渲染工作线程
+     * 3. 顺序模式：在当前线程逐页处理
+     * 各模式返回的映射内容一致。流水线和并行模式有多个渲染线程时按预估渲染成本从高到低领取页面。
+     * 
      * @param pdfFile PDF文件
      * @param userId 用户ID
      * @param businessId 业务ID
@@ -331,76 +596,89 @@ public class PdfToImageService {
             File pdfFile, String userId, String businessId, 
             String jobId, List<Integer> pageNumbers, 
             int dpi, String format) throws IOException {
+        return convertPagesToImagesAndUploadWithInfo(pdfFile, userId, businessId, jobId, pageNumbers,
+            dpi, format, OutputOptions.defaults());
+    }
+    
+    /**
+     * 转换PDF页面为图片并上传到MinIO（返回详细信息，支持附加输出）
+     * 
+     * @param pdfFile PDF文件
+     * @param userId 用户ID
+     * @param businessId 业务ID
+     * @param jobId 任务ID
+     * @param pageNumbers 需要转换的页码列表（从1开始）
+     * @param dpi 图片分辨率
+     * @param format 图片格式
+     * @param options 附加输出选项
+     * @return 页码到页面渲染信息的映射
+     * @throws IOException 转换或上传失败时抛出
+     */
+    public Map<Integer, PageRenderInfo> convertPagesToImagesAndUploadWithInfo(
+            File pdfFile, String userId, String businessId, 
+            String jobId, List<Integer> pageNumbers, 
+            int dpi, String format, OutputOptions options) throws IOException {
+        try (PdfDocumentSession session = openSession(pdfFile)) {
+            return convertPagesToImagesAndUploadWithInfo(session, userId, businessId, jobId, pageNumbers,
+                dpi, format, options);
+        }
+    }
+    
+    /**
+     * 使用已打开的文档会话转换页面并上传到MinIO（返回详细信息，支持附加输出）
+     * 
+     * 顺序渲染直接使用会话文档；并行/流水线渲染时第一个渲染线程使用会话文档，其余线程各自加载一份。
+     * 会话由调用方关闭。
+     * 
+     * @param session 文档会话
+     * @param userId 用户ID
+     * @param businessId 业务ID
+     * @param jobId 任务ID
+     * @param pageNumbers 需要转换的页码列表（从1开始）
+     * @param dpi 图片分辨率
+     * @param format 图片格式
+     * @param options 附加输出选项
+     * @return 页码到页面渲染信息的映射
+     * @throws IOException 转换或上传失败时抛出
+     */
+    public Map<Integer, PageRenderInfo> convertPagesToImagesAndUploadWithInfo(
+            PdfDocumentSession session, String userId, String businessId, 
+            String jobId, List<Integer> pageNumbers, 
+            int dpi, String format, OutputOptions options) throws IOException {
         if (format == null || format.trim().isEmpty()) {
             format = properties.getImageRendering().getFormat();
             log.warn("Format is null or empty, using default: {}", format);
         }
         
-        log.info("Starting PDF to images conversion with info for jobId: {}, Pages: {}, DPI: {}, Format: {}", 
-            jobId, pageNumbers, dpi, format);
+        log.info("Starting PDF to images conversion with info for jobId: {}, Pages: {}, DPI: {}, Format: {}, Options: {}", 
+            jobId, pageNumbers, dpi, format, options);
         
-        Map<Integer, PageRenderInfo> pageInfoMap = new HashMap<>();
+        Map<Integer, PageRenderInfo> pageInfoMap;
         long startTime = System.currentTimeMillis();
         
         Path imageDir = Paths.get(properties.getTempDirectory(), jobId, "images");
         Files.createDirectories(imageDir);
         
-        try (PDDocument document = Loader.loadPDF(pdfFile)) {
-            PDFRenderer pdfRenderer = new PDFRenderer(document);
-            int pageCount = document.getNumberOfPages();
+        try {
+            boolean pipeline = properties.getPipeline().isEnabled();
+            boolean parallel = !pipeline && shouldRenderInParallel(pageNumbers);
+            int renderThreads = pipeline ? properties.getPipeline().getRenderThreads()
+                : parallel ? properties.getParallelRendering().resolveWorkerThreads() : 1;
             
-            log.info("PDF has {} pages, converting and uploading {} specific pages...", pageCount, pageNumbers.size());
+            // 多个渲染线程时按预估成本从高到低领取页面，避免大页面最后才开始渲染
+            PageCostModel.Plan costPlan = null;
+            if (pageCostModel.isEnabled()) {
+                costPlan = pageCostModel.plan(session.getDocument(), pageNumbers, options.getFixedOrderPages(), dpi,
+                    renderThreads > 1 && pageNumbers.size() > 1);
+                pageNumbers = costPlan.getOrder();
+            }
             
-            for (Integer pageNumber : pageNumbers) {
-                if (pageNumber < 1 || pageNumber > pageCount) {
-                    log.warn("Invalid page number: {}, skipping", pageNumber);
-                    continue;
-                }
-                
-                int pageIndex = pageNumber - 1;
-                long pageStartTime = System.currentTimeMillis();
-                
-                // 获取PDF页面尺寸
-                PDPage page = document.getPage(pageIndex);
-                PDRectangle mediaBox = page.getMediaBox();
-                double pdfWidth = mediaBox.getWidth();
-                double pdfHeight = mediaBox.getHeight();
-                
-                // 渲染图片
-                BufferedImage image = pdfRenderer.renderImageWithDPI(
-                    pageIndex, 
-                    dpi, 
-                    ImageType.RGB
-                );
-                
-                String imageFileName = String.format("page_%04d.%s", pageNumber, format.toLowerCase());
-                File imageFile = imageDir.resolve(imageFileName).toFile();
-                
-                ImageIO.write(image, format, imageFile);
-                
-                String minioObjectKey = String.format("pdf-images/%s/%s/%s/%s", 
-                    userId, businessId, jobId, imageFileName);
-                
-                minioStorageService.uploadFile(imageFile, minioObjectKey);
-                
-                // 构建页面信息
-                PageRenderInfo pageInfo = PageRenderInfo.builder()
-                    .pageNumber(pageNumber)
-                    .minioObjectKey(minioObjectKey)
-                    .imageWidth(image.getWidth())
-                    .imageHeight(image.getHeight())
-                    .pdfWidth(pdfWidth)
-                    .pdfHeight(pdfHeight)
-                    .fileSize(imageFile.length())
-                    .build();
-                
-                pageInfoMap.put(pageNumber, pageInfo);
-                
-                Files.deleteIfExists(imageFile.toPath());
-                
-                long pageTime = System.currentTimeMillis() - pageStartTime;
-                log.debug("Page {} rendered and uploaded in {}ms, PDF size: {}x{}, image size: {}x{}, key: {}", 
-                    pageNumber, pageTime, pdfWidth, pdfHeight, image.getWidth(), image.getHeight(), minioObjectKey);
+            if (pipeline) {
+                pageInfoMap = renderPagesInPipeline(session, userId, businessId, jobId, pageNumbers, dpi, format, options, imageDir, costPlan);
+            } else if (parallel) {
+                pageInfoMap = renderPagesInParallel(session, userId, businessId, jobId, pageNumbers, dpi, format, options, imageDir, costPlan);
+            } else {
+                pageInfoMap = renderPagesSequentially(session, userId, businessId, jobId, pageNumbers, dpi, format, options, imageDir, costPlan);
             }
             
             long totalTime = System.currentTimeMillis() - startTime;
@@ -420,4 +698,685 @@ public class PdfToImageService {
         
         return pageInfoMap;
     }
+    
+    private boolean shouldRenderInParallel(List<Integer> pageNumbers) {
+        PdfConversionProperties.ParallelRenderingConfig parallel = properties.getParallelRendering();
+        return parallel.isEnabled()
+            && parallel.resolveWorkerThreads() > 1
+            && pageNumbers.size() >= Math.max(2, parallel.getMinPages());
+    }
+    
+    private static void closeQuietly(PdfDocumentSession session) {
+        try {
+            session.close();
+        } catch (IOException e) {
+            log.warn("Failed to close worker document", e);
+        }
+    }
+    
+    /**
+     * 在当前线程中顺序渲染并上传页面
+     */
+    private Map<Integer, PageRenderInfo> renderPagesSequentially(
+            PdfDocumentSession session, String userId, String businessId, String jobId,
+            List<Integer> pageNumbers, int dpi, String format, OutputOptions options, Path imageDir,
+            PageCostModel.Plan costPlan) throws IOException {
+        Map<Integer, PageRenderInfo> pageInfoMap = new HashMap<>();
+        
+        PDDocument document = session.getDocument();
+        PDFRenderer pdfRenderer = createRenderer(session, options.getRenderProfile(), options.getControl());
+        int pageCount = document.getNumberOfPages();
+        
+        log.info("PDF has {} pages, converting and uploading {} specific pages...", pageCount, pageNumbers.size());
+        
+        for (Integer pageNumber : pageNumbers) {
+            if (pageNumber < 1 || pageNumber > pageCount) {
+                log.warn("Invalid page number: {}, skipping", pageNumber);
+                continue;
+            }
+            
+            try (ConversionControl.PageScope scope = options.getControl().enterPage(pageNumber)) {
+                PageRenderInfo pageInfo = renderAndUploadPage(document, pdfRenderer, pageNumber,
+                    userId, businessId, jobId, dpi, format, options, imageDir, costPlan);
+                pageInfoMap.put(pageNumber, pageInfo);
+            }
+        }
+        
+        return pageInfoMap;
+    }
+    
+    /**
+     * 多线程并行渲染并上传页面
+     * 
+     * 第一个工作线程使用会话文档，其余工作线程各自加载一份PDDocument，每个线程创建自己的PDFRenderer，
+     * 通过共享游标按页码顺序领取下一页，直到所有页面处理完毕。
+     * 任一页面失败时其余工作线程停止领取新页面，异常向上抛出。
+     * 返回结果按页码排序。
+     */
+    private Map<Integer, PageRenderInfo> renderPagesInParallel(
+            PdfDocumentSession session, String userId, String businessId, String jobId,
+            List<Integer> pageNumbers, int dpi, String format, OutputOptions options, Path imageDir,
+            PageCostModel.Plan costPlan) throws IOException {
+        int workerCount = Math.min(properties.getParallelRendering().resolveWorkerThreads(), pageNumbers.size());
+        
+        log.info("Rendering {} pages in parallel with {} workers for jobId: {}", pageNumbers.size(), workerCount, jobId);
+        
+        Map<Integer, PageRenderInfo> pageInfoMap = new ConcurrentHashMap<>();
+        AtomicInteger cursor = new AtomicInteger();
+        AtomicBoolean failed = new AtomicBoolean(false);
+        
+        List<CompletableFuture<Void>> workers = new ArrayList<>(workerCount);
+        for (int i = 0; i < workerCount; i++) {
+            final boolean useSessionDocument = i == 0;
+            workers.add(CompletableFuture.runAsync(() -> {
+                PdfDocumentSession workerSession = null;
+                try {
+                    workerSession = useSessionDocument ? session : session.openWorkerSession();
+                    PDDocument document = workerSession.getDocument();
+                    PDFRenderer pdfRenderer = createRenderer(workerSession, options.getRenderProfile(), options.getControl());
+                    int pageCount = document.getNumberOfPages();
+                    
+                    int index;
+                    while (!failed.get() && (index = cursor.getAndIncrement()) < pageNumbers.size()) {
+                        Integer pageNumber = pageNumbers.get(index);
+                        if (pageNumber < 1 || pageNumber > pageCount) {
+                            log.warn("Invalid page number: {}, skipping", pageNumber);
+                            continue;
+                        }
+                        
+                        try (ConversionControl.PageScope scope = options.getControl().enterPage(pageNumber)) {
+                            PageRenderInfo pageInfo = renderAndUploadPage(document, pdfRenderer, pageNumber,
+                                userId, businessId, jobId, dpi, format, options, imageDir, costPlan);
+                            pageInfoMap.put(pageNumber, pageInfo);
+                        }
+                    }
+                } catch (IOException e) {
+                    failed.set(true);
+                    throw new UncheckedIOException(e);
+                } catch (RuntimeException e) {
+                    failed.set(true);
+                    throw e;
+                } finally {
+                    if (!useSessionDocument && workerSession != null) {
+                        closeQuietly(workerSession);
+                    }
+                }
+            }, pdfRenderExecutor));
+        }
+        
+        try {
+            CompletableFuture.allOf(workers.toArray(new CompletableFuture[0])).join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) cause).getCause();
+            }
+            throw new IOException("Parallel rendering failed: " + cause.getMessage(), cause);
+        }
+        
+        return new TreeMap<>(pageInfoMap);
+    }
+    
+    /**
+     * 以 渲染 -> 编码 -> 上传 流水线方式处理页面
+     */
+    private Map<Integer, PageRenderInfo> renderPagesInPipeline(
+            PdfDocumentSession session, String userId, String businessId, String jobId,
+            List<Integer> pageNumbers, int dpi, String format, OutputOptions options, Path imageDir,
+            PageCostModel.Plan costPlan) throws IOException {
+        PdfConversionProperties.PipelineConfig pipelineConfig = properties.getPipeline();
+        log.info("Rendering {} pages in pipeline mode for jobId: {}, render/encode/upload threads: {}/{}/{}", 
+            pageNumbers.size(), jobId, pipelineConfig.getRenderThreads(), 
+            pipelineConfig.getEncodeThreads(), pipelineConfig.getUploadThreads());
+        
+        final String imageFormat = format;
+        ConversionControl control = options.getControl();
+        PageConversionPipeline pipeline = new PageConversionPipeline(pipelineConfig, pdfPipelineExecutor, metrics);
+        return pipeline.run(session, pageNumbers,
+            workerSession -> createRenderer(workerSession, options.getRenderProfile(), control),
+            (document, pdfRenderer, pageNumber) -> {
+                try (ConversionControl.PageScope scope = control.enterPage(pageNumber)) {
+                    RenderedPage renderedPage = pageRetrier.call(pageNumber, PdfConversionMetrics.STAGE_RENDER, control,
+                        () -> renderPage(document, pdfRenderer, pageNumber, dpi));
+                    if (costPlan != null) {
+                        costPlan.recordActual(pageNumber, renderedPage.getRenderNanos());
+                    }
+                    return renderedPage;
+                }
+            },
+            renderedPage -> {
+                try (ConversionControl.PageScope scope = control.enterPage(renderedPage.getPageNumber())) {
+                    return encodePage(renderedPage, imageFormat, options, imageDir);
+                }
+            },
+            encodedPage -> {
+                try (ConversionControl.PageScope scope = control.enterPage(encodedPage.getPageNumber())) {
+                    return notifyPageCompleted(uploadPage(encodedPage, userId, businessId, jobId, control), options);
+                }
+            });
+    }
+    
+    /**
+     * 渲染单个页面、写入临时文件、上传到MinIO并返回页面信息
+     */
+    private PageRenderInfo renderAndUploadPage(PDDocument document, PDFRenderer pdfRenderer, int pageNumber,
+                                               String userId, String businessId, String jobId,
+                                               int dpi, String format, OutputOptions options,
+                                               Path imageDir, PageCostModel.Plan costPlan) throws IOException {
+        long pageStartTime = System.currentTimeMillis();
+        
+        RenderedPage renderedPage = pageRetrier.call(pageNumber, PdfConversionMetrics.STAGE_RENDER, options.getControl(),
+            () -> renderPage(document, pdfRenderer, pageNumber, dpi));
+        if (costPlan != null) {
+            costPlan.recordActual(pageNumber, renderedPage.getRenderNanos());
+        }
+        EncodedPage encodedPage = encodePage(renderedPage, format, options, imageDir);
+        PageRenderInfo pageInfo = notifyPageCompleted(
+            uploadPage(encodedPage, userId, businessId, jobId, options.getControl()), options);
+        
+        long pageTime = System.currentTimeMillis() - pageStartTime;
+        log.debug("Page {} rendered and uploaded in {}ms, PDF size: {}x{}, image size: {}x{}, key: {}", 
+            pageNumber, pageTime, pageInfo.getPdfWidth(), pageInfo.getPdfHeight(),
+            pageInfo.getImageWidth(), pageInfo.getImageHeight(), pageInfo.getMinioObjectKey());
+        
+        return pageInfo;
+    }
+    
+    private static PageRenderInfo notifyPageCompleted(PageRenderInfo pageInfo, OutputOptions options) {
+        if (options.getCompletionListener() != null) {
+            options.getCompletionListener().onPageCompleted(pageInfo);
+        }
+        return pageInfo;
+    }
+    
+    /**
+     * 渲染单个页面为位图
+     * 
+     * 渲染前向渲染内存预算预留位图内存（预算不足时阻塞，超出预算时降低DPI），
+     * 预留在位图编码完成后通过 {@link RenderedPage#releaseMemory()} 归还。
+     */
+    RenderedPage renderPage(PDDocument document, PDFRenderer pdfRenderer, int pageNumber, int dpi) throws IOException {
+        int pageIndex = pageNumber - 1;
+        
+        // 获取PDF页面尺寸
+        PDPage page = document.getPage(pageIndex);
+        PDRectangle mediaBox = page.getMediaBox();
+        
+        long renderStart = System.nanoTime();
+        ColorMode colorMode = detectColorMode(pdfRenderer, pageIndex);
+        long renderNanos = System.nanoTime() - renderStart;
+        
+        // 灰度位图每像素1字节，转换黑白时额外需要1/8字节
+        double bytesPerPixel = colorMode == ColorMode.COLOR ? RenderMemoryBudget.RGB_BYTES_PER_PIXEL : 1.125;
+        RenderMemoryBudget.Reservation reservation = renderMemoryBudget.reserve(page, pageNumber, dpi, bytesPerPixel);
+        BufferedImage image;
+        try {
+            // 渲染图片（不计入等待渲染内存预算的时间）
+            renderStart = System.nanoTime();
+            image = pdfRenderer.renderImageWithDPI(
+                pageIndex, 
+                reservation.getDpi(), 
+                colorMode == ColorMode.COLOR ? ImageType.RGB : ImageType.GRAY
+            );
+            renderNanos += System.nanoTime() - renderStart;
+            
+            PdfConversionProperties.ColorModeConfig colorConfig = properties.getColorMode();
+            if (colorMode == ColorMode.GRAY && colorConfig.isBilevelEnabled()
+                    && PageColorAnalyzer.isBilevel(image, colorConfig.getBilevelMaxMidtoneRatio())) {
+                image = PageColorAnalyzer.toBilevel(image, colorConfig.getBilevelThreshold());
+                colorMode = ColorMode.BILEVEL;
+            }
+        } catch (IOException | RuntimeException | Error e) {
+            reservation.close();
+            throw e;
+        }
+        
+        if (colorMode != ColorMode.COLOR) {
+            log.debug("Page {} rendered in {} mode", pageNumber, colorMode);
+        }
+        
+        return RenderedPage.builder()
+            .pageNumber(pageNumber)
+            .image(image)
+            .colorMode(colorMode)
+            .renderingDpi(reservation.getDpi())
+            .memoryReservation(reservation)
+            .renderNanos(renderNanos)
+            .pdfWidth((double) mediaBox.getWidth())
+            .pdfHeight((double) mediaBox.getHeight())
+            .build();
+    }
+    
+    /**
+     * 创建按渲染档位配置的渲染器
+     * 
+     * 开启子进程渲染（pdf.conversion.render-worker.enabled）时返回把渲染转交给子进程的渲染器，
+     * 会话文档只用于读取页数和页面尺寸。
+     * 
+     * @param session 文档会话
+     * @param profile 渲染档位，为空时使用 image-rendering.profile
+     * @param control 取消控制，为空时渲染不可中途停止
+     */
+    private PDFRenderer createRenderer(PdfDocumentSession session, RenderProfile profile, ConversionControl control) {
+        PdfConversionProperties.ImageRenderingConfig renderingConfig = properties.getImageRendering();
+        RenderProfile effectiveProfile = profile != null ? profile : RenderProfile.fromCode(renderingConfig.getProfile());
+        if (renderWorkerPool.isEnabled()) {
+            return new RenderWorkerPdfRenderer(session.getDocument(), session.getFile(), renderWorkerPool,
+                effectiveProfile, renderingConfig, control);
+        }
+        return new ProfiledPdfRenderer(session.getDocument(), effectiveProfile, renderingConfig, control);
+    }
+    
+    /**
+     * 以低分辨率采样渲染判断页面是否包含彩色内容，未启用颜色模式检测时固定为彩色
+     */
+    private ColorMode detectColorMode(PDFRenderer pdfRenderer, int pageIndex) throws IOException {
+        PdfConversionProperties.ColorModeConfig colorConfig = properties.getColorMode();
+        if (!colorConfig.isEnabled()) {
+            return ColorMode.COLOR;
+        }
+        BufferedImage sample = pdfRenderer.renderImageWithDPI(pageIndex, colorConfig.getSampleDpi(), ImageType.RGB);
+        return PageColorAnalyzer.detect(sample, colorConfig);
+    }
+    
+    /**
+     * 将渲染结果编码为图片
+     * 
+     * 开启内存编码（pdf.conversion.in-memory-encoding.enabled）时编码到复用缓冲区，
+     * 编码结果超过阈值时才转存到临时文件；否则直接写入临时文件。
+     * 需要瓦片时在释放位图前同时生成瓦片金字塔。
+     * 编码结束后归还位图占用的渲染内存预算。
+     * 超出WebP尺寸上限的页面及其各规格改用其他格式（见 {@link PageImageEncoders#formatFor}）。
+     */
+    EncodedPage encodePage(RenderedPage renderedPage, String format, OutputOptions options, Path imageDir) throws IOException {
+        try {
+            BufferedImage image = renderedPage.getImage();
+            String pageFormat = pageImageEncoders.formatFor(format, image.getWidth(), image.getHeight());
+            EncodedPage encodedPage = doEncodePage(renderedPage, pageFormat, imageDir);
+            try {
+                if (options.isGenerateTiles()) {
+                    encodedPage.setTilePyramid(generateTiles(renderedPage));
+                }
+                encodedPage.setVariants(encodeVariants(renderedPage, pageFormat, options.getVariants()));
+            } catch (IOException | RuntimeException e) {
+                encodedPage.discard();
+                throw e;
+            }
+            return encodedPage;
+        } finally {
+            renderedPage.releaseMemory();
+        }
+    }
+    
+    /**
+     * 由整页位图缩小生成其他规格图片并在内存中编码
+     * 
+     * 按尺寸从大到小依次生成，较小规格从上一个较大规格缩小，减少缩放计算量。
+     */
+    private List<EncodedVariant> encodeVariants(RenderedPage renderedPage, String format, Set<ImageVariant> variants) throws IOException {
+        List<EncodedVariant> encodedVariants = new ArrayList<>();
+        if (variants == null || variants.isEmpty()) {
+            return encodedVariants;
+        }
+        
+        PdfConversionProperties.VariantConfig variantConfig = properties.getVariants();
+        PageImageEncoder encoder = pageImageEncoders.forFormat(format);
+        BufferedImage source = renderedPage.getImage();
+        for (ImageVariant variant : new ImageVariant[] {ImageVariant.PREVIEW, ImageVariant.THUMBNAIL}) {
+            if (!variants.contains(variant)) {
+                continue;
+            }
+            int maxSize = variant == ImageVariant.PREVIEW 
+                ? variantConfig.getPreviewMaxSize() : variantConfig.getThumbnailMaxSize();
+            source = ImageScaler.fitWithin(source, maxSize);
+            encodedVariants.add(EncodedVariant.builder()
+                .variant(variant)
+                .data(pageImageEncoders.encodeToBytes(encoder, source))
+                .imageWidth(source.getWidth())
+                .imageHeight(source.getHeight())
+                .build());
+        }
+        return encodedVariants;
+    }
+    
+    /**
+     * 按格式对应的编码器把位图写入文件
+     */
+    private void writeImageFile(BufferedImage image, String format, File imageFile) throws IOException {
+        PageImageEncoder encoder = pageImageEncoders.forFormat(format);
+        try (OutputStream output = new BufferedOutputStream(new FileOutputStream(imageFile))) {
+            pageImageEncoders.encode(encoder, image, output);
+        }
+    }
+    
+    private TilePyramidGenerator.TilePyramid generateTiles(RenderedPage renderedPage) throws IOException {
+        PdfConversionProperties.TileConfig tileConfig = properties.getTiles();
+        long start = System.currentTimeMillis();
+        TilePyramidGenerator.TilePyramid pyramid = new TilePyramidGenerator(tileConfig.getTileSize(), pageImageEncoders.forFormat(tileConfig.getFormat()))
+            .generate(renderedPage.getImage());
+        log.debug("Page {} tile pyramid generated in {}ms: {} levels, {} tiles", 
+            renderedPage.getPageNumber(), System.currentTimeMillis() - start, 
+            pyramid.getMaxLevel() + 1, pyramid.getTiles().size());
+        return pyramid;
+    }
+    
+    private EncodedPage doEncodePage(RenderedPage renderedPage, String format, Path imageDir) throws IOException {
+        String imageFileName = String.format("page_%04d.%s", renderedPage.getPageNumber(), format.toLowerCase());
+        File imageFile = imageDir.resolve(imageFileName).toFile();
+        BufferedImage image = renderedPage.getImage();
+        PageImageEncoder encoder = pageImageEncoders.forFormat(format);
+        
+        EncodedPage.EncodedPageBuilder builder = EncodedPage.builder()
+            .pageNumber(renderedPage.getPageNumber())
+            .imageFileName(imageFileName)
+            .contentType(encoder.getContentType())
+            .imageWidth(image.getWidth())
+            .imageHeight(image.getHeight())
+            .renderingDpi(renderedPage.getRenderingDpi())
+            .colorMode(renderedPage.getColorMode())
+            .pdfWidth(renderedPage.getPdfWidth())
+            .pdfHeight(renderedPage.getPdfHeight());
+        
+        PdfConversionProperties.InMemoryEncodingConfig inMemory = properties.getInMemoryEncoding();
+        if (!inMemory.isEnabled()) {
+            writeImageFile(image, format, imageFile);
+            return builder.imageFile(imageFile).fileSize(imageFile.length()).build();
+        }
+        
+        SpillingOutputStream output = new SpillingOutputStream(
+            imageBufferPool.acquire(), inMemory.getSpillThresholdBytes(), imageFile);
+        try {
+            pageImageEncoders.encode(encoder, image, output);
+            output.close();
+        } catch (IOException | RuntimeException e) {
+            output.discard();
+            throw e;
+        }
+        
+        if (output.isSpilled()) {
+            log.debug("Page {} exceeded in-memory threshold ({} bytes), spilled to {}", 
+                renderedPage.getPageNumber(), inMemory.getSpillThresholdBytes(), imageFile);
+            metrics.recordEncodeOutput(true);
+            return builder.imageFile(imageFile).fileSize(imageFile.length()).build();
+        }
+        
+        metrics.recordEncodeOutput(false);
+        PooledImageBuffer buffer = output.getBuffer();
+        return builder.imageBuffer(buffer).fileSize((long) buffer.size()).build();
+    }
+    
+    /**
+     * 上传编码后的图片到MinIO，并释放缓冲区或删除临时文件
+     * 
+     * 对象键只由任务ID和页码确定（pdf-images/{userId}/{businessId}/{jobId}/page_0001.png，规格图和瓦片在此基础上加后缀），
+     * 每个对象的上传失败后单独重试，重试和重新执行任务时覆盖同一对象。
+     */
+    PageRenderInfo uploadPage(EncodedPage encodedPage, String userId, String businessId, String jobId,
+                              ConversionControl control) throws IOException {
+        String minioObjectKey = String.format("pdf-images/%s/%s/%s/%s", 
+            userId, businessId, jobId, encodedPage.getImageFileName());
+        int pageNumber = encodedPage.getPageNumber();
+        
+        TileInfo tileInfo = null;
+        List<VariantInfo> variantInfos = new ArrayList<>();
+        try {
+            PooledImageBuffer buffer = encodedPage.getImageBuffer();
+            if (buffer != null) {
+                upload(pageNumber, control, () -> minioStorageService.uploadBytes(
+                    buffer.array(), buffer.size(), minioObjectKey, encodedPage.getContentType()));
+            } else {
+                upload(pageNumber, control, () -> minioStorageService.uploadFile(encodedPage.getImageFile(), minioObjectKey));
+            }
+            if (encodedPage.getTilePyramid() != null) {
+                tileInfo = uploadTiles(encodedPage.getTilePyramid(), minioObjectKey, pageNumber, control);
+            }
+            for (EncodedVariant encodedVariant : encodedPage.getVariants()) {
+                variantInfos.add(uploadVariant(encodedVariant, minioObjectKey, encodedPage.getContentType(), pageNumber, control));
+            }
+        } finally {
+            encodedPage.discard();
+        }
+        
+        // 构建页面信息
+        return PageRenderInfo.builder()
+            .pageNumber(encodedPage.getPageNumber())
+            .minioObjectKey(minioObjectKey)
+            .imageWidth(encodedPage.getImageWidth())
+            .imageHeight(encodedPage.getImageHeight())
+            .renderingDpi(encodedPage.getRenderingDpi())
+            .colorMode(encodedPage.getColorMode())
+            .pdfWidth(encodedPage.getPdfWidth())
+            .pdfHeight(encodedPage.getPdfHeight())
+            .fileSize(encodedPage.getFileSize())
+            .tileInfo(tileInfo)
+            .variants(variantInfos)
+            .build();
+    }
+    
+    /**
+     * 上传其他规格图片，对象键为原图键加规格后缀，如 page_0001_thumbnail.png
+     */
+    private VariantInfo uploadVariant(EncodedVariant encodedVariant, String imageObjectKey, String contentType,
+                                      int pageNumber, ConversionControl control) throws IOException {
+        int extensionIndex = imageObjectKey.lastIndexOf('.');
+        String variantKey = imageObjectKey.substring(0, extensionIndex) 
+            + "_" + encodedVariant.getVariant().getCode().toLowerCase() 
+            + imageObjectKey.substring(extensionIndex);
+        byte[] data = encodedVariant.getData();
+        upload(pageNumber, control, () -> minioStorageService.uploadBytes(data, data.length, variantKey, contentType));
+        
+        return VariantInfo.builder()
+            .variant(encodedVariant.getVariant())
+            .minioObjectKey(variantKey)
+            .imageWidth(encodedVariant.getImageWidth())
+            .imageHeight(encodedVariant.getImageHeight())
+            .fileSize((long) data.length)
+            .build();
+    }
+    
+    /**
+     * 上传瓦片金字塔：瓦片位于 {图片键去扩展名}_files/ 下，DZI描述文件为 {图片键去扩展名}.dzi
+     */
+    private TileInfo uploadTiles(TilePyramidGenerator.TilePyramid pyramid, String imageObjectKey,
+                                 int pageNumber, ConversionControl control) throws IOException {
+        String baseKey = imageObjectKey.substring(0, imageObjectKey.lastIndexOf('.'));
+        String tileContentType = contentTypeFor(pyramid.getFormat());
+        
+        for (TilePyramidGenerator.Tile tile : pyramid.getTiles()) {
+            byte[] data = tile.getData();
+            String tileKey = baseKey + "_files/" + tile.getPath();
+            upload(pageNumber, control, () -> minioStorageService.uploadBytes(data, data.length, tileKey, tileContentType));
+        }
+        
+        String manifestKey = baseKey + ".dzi";
+        byte[] manifest = pyramid.toDzi();
+        upload(pageNumber, control, () -> minioStorageService.uploadBytes(manifest, manifest.length, manifestKey, "application/xml"));
+        
+        return TileInfo.builder()
+            .manifestKey(manifestKey)
+            .tileSize(pyramid.getTileSize())
+            .maxLevel(pyramid.getMaxLevel())
+            .format(pyramid.getFormat())
+            .tileCount(pyramid.getTiles().size())
+            .build();
+    }
+    
+    /**
+     * 上传单个对象，失败时按 pdf.conversion.retry 重试
+     */
+    private void upload(int pageNumber, ConversionControl control, PageRetrier.RetryableCall<String> call) throws IOException {
+        pageRetrier.call(pageNumber, PdfConversionMetrics.STAGE_UPLOAD, control, call);
+    }
+    
+    private static String contentTypeFor(String format) {
+        String lower = format.toLowerCase();
+        if ("jpg".equals(lower) || "jpeg".equals(lower)) {
+            return "image/jpeg";
+        }
+        if ("png".equals(lower)) {
+            return "image/png";
+        }
+        return "image/" + lower;
+    }
+    
+    /**
+     * 已渲染页面（位图尚未编码）
+     */
+    @Data
+    @Builder
+    static class RenderedPage {
+        private Integer pageNumber;
+        private BufferedImage image;
+        private ColorMode colorMode;
+        private Integer renderingDpi;
+        private RenderMemoryBudget.Reservation memoryReservation;
+        
+        /**
+         * 颜色采样和整页渲染的耗时（纳秒）
+         */
+        private long renderNanos;
+        private Double pdfWidth;
+        private Double pdfHeight;
+        
+        /**
+         * 释放位图并归还渲染内存预算
+         */
+        void releaseMemory() {
+            image = null;
+            if (memoryReservation != null) {
+                memoryReservation.close();
+            }
+        }
+    }
+    
+    /**
+     * 已编码页面（图片文件尚未上传）
+     */
+    @Data
+    @Builder
+    static class EncodedPage {
+        private Integer pageNumber;
+        private String imageFileName;
+        private String contentType;
+        /**
+         * 内存编码结果，与imageFile二选一
+         */
+        private PooledImageBuffer imageBuffer;
+        private File imageFile;
+        private Long fileSize;
+        private Integer imageWidth;
+        private Integer imageHeight;
+        private Integer renderingDpi;
+        private ColorMode colorMode;
+        private Double pdfWidth;
+        private Double pdfHeight;
+        /**
+         * 已编码的瓦片金字塔，未生成瓦片时为null
+         */
+        private TilePyramidGenerator.TilePyramid tilePyramid;
+        /**
+         * 已编码的其他规格图片
+         */
+        @Builder.Default
+        private List<EncodedVariant> variants = new ArrayList<>();
+        
+        /**
+         * 释放内存缓冲区、瓦片数据并删除临时文件
+         */
+        void discard() {
+            tilePyramid = null;
+            variants = new ArrayList<>();
+            if (imageBuffer != null) {
+                imageBuffer.release();
+                imageBuffer = null;
+            }
+            if (imageFile != null) {
+                try {
+                    Files.deleteIfExists(imageFile.toPath());
+                } catch (IOException e) {
+                    log.warn("Failed to delete temp image file: {}", imageFile, e);
+                }
+            }
+        }
+    }
+    
+    /**
+     * 已编码的其他规格图片
+     */
+    @Data
+    @Builder
+    static class EncodedVariant {
+        private ImageVariant variant;
+        private byte[] data;
+        private Integer imageWidth;
+        private Integer imageHeight;
+    }
+    
+    /**
+     * 先写入内存缓冲区，超过阈值后把已写内容转存到文件并继续写文件的输出流
+     */
+    private static class SpillingOutputStream extends OutputStream {
+        private PooledImageBuffer buffer;
+        private final long threshold;
+        private final File spillFile;
+        private OutputStream fileOutput;
+        
+        SpillingOutputStream(PooledImageBuffer buffer, long threshold, File spillFile) {
+            this.buffer = buffer;
+            this.threshold = threshold;
+            this.spillFile = spillFile;
+        }
+        
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] {(byte) b}, 0, 1);
+        }
+        
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (fileOutput == null && (long) buffer.size() + len > threshold) {
+                spill();
+            }
+            if (fileOutput != null) {
+                fileOutput.write(b, off, len);
+            } else {
+                buffer.write(b, off, len);
+            }
+        }
+        
+        private void spill() throws IOException {
+            fileOutput = new BufferedOutputStream(new FileOutputStream(spillFile));
+            buffer.writeTo(fileOutput);
+            buffer.release();
+            buffer = null;
+        }
+        
+        boolean isSpilled() {
+            return fileOutput != null;
+        }
+        
+        PooledImageBuffer getBuffer() {
+            return buffer;
+        }
+        
+        @Override
+        public void close() throws IOException {
+            if (fileOutput != null) {
+                fileOutput.close();
+            }
+        }
+        
+        void discard() {
+            if (buffer != null) {
+                buffer.release();
+                buffer = null;
+            }
+            try {
+                close();
+                Files.deleteIfExists(spillFile.toPath());
+            } catch (IOException e) {
+                log.warn("Failed to delete spilled image file: {}", spillFile, e);
+            }
+        }
+    }
 }
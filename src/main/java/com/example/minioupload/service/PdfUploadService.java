@@ -5,8 +5,13 @@ import cn.hutool.json.JSONUtil;
 import com.example.minioupload.config.PdfConversionProperties;
 import com.example.minioupload.config.S3ConfigProperties;
 import com.example.minioupload.dto.*;
+import com.example.minioupload.model.PdfConversionOptions;
 import com.example.minioupload.model.PdfConversionTask;
+import com.example.minioupload.model.PdfDocument;
 import com.example.minioupload.model.PdfPageImage;
+import com.example.minioupload.model.enums.ImageVariant;
+import com.example.minioupload.model.enums.IncrementalMode;
+import com.example.minioupload.model.enums.RenderProfile;
 import com.example.minioupload.model.enums.PresetSignatureTypeEnum;
 import com.example.minioupload.repository.PdfConversionTaskRepository;
 import com.example.minioupload.repository.PdfPageImageRepository;
@@ -21,6 +26,7 @@ import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import javax.imageio.ImageIO;
 import java.awt.image.BufferedImage;
@@ -36,7 +42,10 @@ import java.nio.file.StandardCopyOption;
 import java.util.*;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 /**
@@ -58,6 +67,7 @@ import java.util.stream.Collectors;
  * - 异步处理：使用CompletableFuture进行后台转换
  * - 事务管理：确保数据一致性
  * - 进度跟踪：实时查询转换进度
+ * - 分批入库：页面上传完成后按批次保存图片记录，转换过程中即可查询
  * - 分页支持：支持大量页面的分页查询
  */
 @Slf4j
@@ -68,9 +78,20 @@ public class PdfUploadService {
     private final PdfToImageService pdfToImageService;
     private final MinioStorageService minioStorageService;
     private final Executor videoCompressionExecutor;
+    private final Executor pdfPipelineExecutor;
     private final PdfConversionTaskRepository taskRepository;
     private final PdfPageImageRepository pageImageRepository;
     private final ObjectMapper objectMapper;
+    private final PageImagePersister pageImagePersister;
+    private final LazyPageRenderService lazyPageRenderService;
+    private final PdfConversionProgressService progressService;
+    private final PageDedupeService pageDedupeService;
+    private final DocumentDedupeService documentDedupeService;
+    private final ConversionWatchdog conversionWatchdog;
+    private final PdfConversionMetrics metrics;
+    private final PageLedger pageLedger;
+    private final PageImageBatchWriter pageImageBatchWriter;
+    private final String nodeId;
 
     @Autowired
     private S3ConfigProperties miniOConfig;
@@ -80,16 +101,37 @@ public class PdfUploadService {
             PdfToImageService pdfToImageService,
             MinioStorageService minioStorageService,
             @Qualifier("videoCompressionExecutor") Executor videoCompressionExecutor,
+            @Qualifier("pdfPipelineExecutor") Executor pdfPipelineExecutor,
             PdfConversionTaskRepository taskRepository,
             PdfPageImageRepository pageImageRepository,
-            ObjectMapper objectMapper) {
+            ObjectMapper objectMapper,
+            PageImagePersister pageImagePersister,
+            LazyPageRenderService lazyPageRenderService,
+            PdfConversionProgressService progressService,
+            PageDedupeService pageDedupeService,
+            DocumentDedupeService documentDedupeService,
+            ConversionWatchdog conversionWatchdog,
+            PdfConversionMetrics metrics,
+            PageLedger pageLedger,
+            PageImageBatchWriter pageImageBatchWriter) {
         this.properties = properties;
         this.pdfToImageService = pdfToImageService;
         this.minioStorageService = minioStorageService;
         this.videoCompressionExecutor = videoCompressionExecutor;
+        this.pdfPipelineExecutor = pdfPipelineExecutor;
         this.taskRepository = taskRepository;
         this.pageImageRepository = pageImageRepository;
         this.objectMapper = objectMapper;
+        this.pageImagePersister = pageImagePersister;
+        this.lazyPageRenderService = lazyPageRenderService;
+        this.progressService = progressService;
+        this.pageDedupeService = pageDedupeService;
+        this.documentDedupeService = documentDedupeService;
+        this.conversionWatchdog = conversionWatchdog;
+        this.metrics = metrics;
+        this.pageLedger = pageLedger;
+        this.pageImageBatchWriter = pageImageBatchWriter;
+        this.nodeId = properties.getRecovery().resolveNodeId();
     }
     
     /**
@@ -161,7 +203,27 @@ public class PdfUploadService {
                 .build();
         }
         
-        boolean isIncrementalConversion = request.getPages() != null && !request.getPages().isEmpty();
+        IncrementalMode incrementalMode;
+        try {
+            parseVariants(request.getVariants());
+            parseRenderProfile(request.getRenderProfile());
+            incrementalMode = parseIncrementalMode(request.getIncrementalMode());
+        } catch (IllegalArgumentException e) {
+            return PdfUploadResponse.builder()
+                .status("ERROR")
+                .message(e.getMessage())
+                .build();
+        }
+        
+        boolean hasPages = request.getPages() != null && !request.getPages().isEmpty();
+        if (incrementalMode == IncrementalMode.AUTO && hasPages) {
+            return PdfUploadResponse.builder()
+                .status("ERROR")
+                .message("Pages must not be specified when incrementalMode is AUTO, changed pages are detected automatically")
+                .build();
+        }
+        
+        boolean isIncrementalConversion = hasPages || incrementalMode == IncrementalMode.AUTO;
         
         if (isIncrementalConversion) {
             PdfConversionTask baseTask = taskRepository.findByBusinessIdAndTenantIdAndIsBaseTrue(
@@ -184,10 +246,11 @@ public class PdfUploadService {
             .filename(originalFilename)
             .totalPages(0)
             .status("SUBMITTED")
+            .ownerNode(nodeId)
             .isBase(!isIncrementalConversion)
             .build();
         
-        if (isIncrementalConversion) {
+        if (hasPages) {
             try {
                 task.setConvertedPages(objectMapper.writeValueAsString(request.getPages()));
             } catch (JsonProcessingException e) {
@@ -199,6 +262,8 @@ public class PdfUploadService {
             }
         }
         
+        PdfConversionOptions conversionOptions = buildConversionOptions(request, !isIncrementalConversion);
+        task.setConversionOptions(serializeConversionOptions(conversionOptions));
         taskRepository.insert(task);
         
         Path taskDir = null;
@@ -208,8 +273,11 @@ public class PdfUploadService {
             Files.createDirectories(taskDir);
             
             tempPdfFile = taskDir.resolve(originalFilename).toFile();
-            file.transferTo(tempPdfFile);
-            log.debug("Saved MultipartFile to temp file: {}", tempPdfFile.getAbsolutePath());
+            try (InputStream inputStream = file.getInputStream()) {
+                task.setContentHash(DocumentDedupeService.copyWithHash(inputStream, tempPdfFile.toPath()));
+            }
+            taskRepository.updateById(task);
+            log.debug("Saved MultipartFile to temp file: {}, sha256: {}", tempPdfFile.getAbsolutePath(), task.getContentHash());
         } catch (IOException e) {
             log.error("Failed to save uploaded file to temp directory", e);
             updateTaskStatus(taskId, "FAILED", "Failed to save uploaded file: " + e.getMessage());
@@ -220,11 +288,17 @@ public class PdfUploadService {
                 .build();
         }
         
+        PdfUploadResponse reusedResponse = completeFromConvertedDocument(task, conversionOptions, tempPdfFile, taskDir);
+        if (reusedResponse != null) {
+            return reusedResponse;
+        }
+        
         final PdfConversionTaskRequest finalRequest = request;
         final File finalTempPdfFile = tempPdfFile;
         final Path finalTaskDir = taskDir;
+        final ConversionControl control = conversionWatchdog.register(taskId);
         CompletableFuture.runAsync(() -> 
-            executePdfToImageConversion(finalTempPdfFile, finalTaskDir, finalRequest, taskId), videoCompressionExecutor);
+            executePdfToImageConversion(finalTempPdfFile, finalTaskDir, finalRequest, taskId, control, false), videoCompressionExecutor);
         
         return PdfUploadResponse.builder()
             .taskId(taskId)
@@ -285,7 +359,27 @@ public class PdfUploadService {
                 .build();
         }
         
-        boolean isIncrementalConversion = request.getPages() != null && !request.getPages().isEmpty();
+        IncrementalMode incrementalMode;
+        try {
+            parseVariants(request.getVariants());
+            parseRenderProfile(request.getRenderProfile());
+            incrementalMode = parseIncrementalMode(request.getIncrementalMode());
+        } catch (IllegalArgumentException e) {
+            return PdfUploadResponse.builder()
+                .status("ERROR")
+                .message(e.getMessage())
+                .build();
+        }
+        
+        boolean hasPages = request.getPages() != null && !request.getPages().isEmpty();
+        if (incrementalMode == IncrementalMode.AUTO && hasPages) {
+            return PdfUploadResponse.builder()
+                .status("ERROR")
+                .message("Pages must not be specified when incrementalMode is AUTO, changed pages are detected automatically")
+                .build();
+        }
+        
+        boolean isIncrementalConversion = hasPages || incrementalMode == IncrementalMode.AUTO;
         
         if (isIncrementalConversion) {
             PdfConversionTask baseTask = taskRepository.findByBusinessIdAndTenantIdAndIsBaseTrue(
@@ -302,6 +396,7 @@ public class PdfUploadService {
         Path taskDir = null;
         File tempPdfFile = null;
         String filename = null;
+        String contentHash = null;
         
         try {
             URL url = new URL(request.getFileUrl());
@@ -346,9 +441,9 @@ public class PdfUploadService {
             tempPdfFile = taskDir.resolve(filename).toFile();
             
             try (InputStream inputStream = connection.getInputStream()) {
-                Files.copy(inputStream, tempPdfFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
-                log.info("Downloaded PDF from URL to temp file: {}, size: {} bytes", 
-                    tempPdfFile.getAbsolutePath(), tempPdfFile.length());
+                contentHash = DocumentDedupeService.copyWithHash(inputStream, tempPdfFile.toPath());
+                log.info("Downloaded PDF from URL to temp file: {}, size: {} bytes, sha256: {}", 
+                    tempPdfFile.getAbsolutePath(), tempPdfFile.length(), contentHash);
             }
             
             if (tempPdfFile.length() > properties.getMaxFileSize()) {
@@ -382,12 +477,14 @@ public class PdfUploadService {
             .userId(request.getUserId())
             .tenantId(request.getTenantId())
             .filename(filename)
+            .contentHash(contentHash)
             .totalPages(0)
             .status("SUBMITTED")
+            .ownerNode(nodeId)
             .isBase(!isIncrementalConversion)
             .build();
         
-        if (isIncrementalConversion) {
+        if (hasPages) {
             try {
                 task.setConvertedPages(objectMapper.writeValueAsString(request.getPages()));
             } catch (JsonProcessingException e) {
@@ -400,8 +497,6 @@ public class PdfUploadService {
             }
         }
         
-        taskRepository.insert(task);
-        
         PdfConversionTaskRequest conversionRequest = PdfConversionTaskRequest.builder()
             .businessId(request.getBusinessId())
             .userId(request.getUserId())
@@ -409,12 +504,28 @@ public class PdfUploadService {
             .pages(request.getPages())
             .imageDpi(request.getImageDpi())
             .imageFormat(request.getImageFormat())
+            .generateTiles(request.getGenerateTiles())
+            .variants(request.getVariants())
+            .lazy(request.getLazy())
+            .priorityPages(request.getPriorityPages())
+            .renderProfile(request.getRenderProfile())
+            .incrementalMode(request.getIncrementalMode())
             .build();
         
+        PdfConversionOptions conversionOptions = buildConversionOptions(conversionRequest, !isIncrementalConversion);
+        task.setConversionOptions(serializeConversionOptions(conversionOptions));
+        taskRepository.insert(task);
+        
+        PdfUploadResponse reusedResponse = completeFromConvertedDocument(task, conversionOptions, tempPdfFile, taskDir);
+        if (reusedResponse != null) {
+            return reusedResponse;
+        }
+        
         final File finalTempPdfFile = tempPdfFile;
         final Path finalTaskDir = taskDir;
+        final ConversionControl control = conversionWatchdog.register(taskId);
         CompletableFuture.runAsync(() -> 
-            executePdfToImageConversion(finalTempPdfFile, finalTaskDir, conversionRequest, taskId), 
+            executePdfToImageConversion(finalTempPdfFile, finalTaskDir, conversionRequest, taskId, control, false), 
             videoCompressionExecutor);
         
         return PdfUploadResponse.builder()
@@ -514,82 +625,86 @@ public class PdfUploadService {
             * 执行PDF转图片转换（异步执行）
             *
             * 转换流程：
-            * 1. 上传PDF到MinIO
-            * 2. 获取PDF总页数
+            * 1. 上传PDF到MinIO（与后续步骤并发执行，任务完成前等待上传结束）
+            * 2. 打开文档会话获取PDF总页数，之后的哈希、指纹和渲染共用该会话
             * 3. 确定需要转换的页面（全量或增量）
             * 4. 调用PdfToImageService进行页面渲染并上传到MinIO
             * 5. 保存图片元数据到数据库
             * 6. 更新任务状态
             * 7. 清理临时文件
             *
-            * @param pdfFile PDF临时文件（已保存到磁盘）
+            * 截止时间从开始执行时计算；被取消或超时时任务进入CANCELLED/TIMEOUT状态，
+            * 已保存的图片记录和已上传的对象在退出前回收。
+            *
+            * 重新执行失败的任务或重启后恢复任务时（resume为true）只处理页面台账中未完成的页面；
+            * 本地没有PDF时（pdfFile为null）从任务记录的PDF对象下载，不再上传。
+            * 恢复PARTIAL状态的任务时保持PARTIAL，已可用的优先页面在执行期间仍可查询。
+            *
+            * @param pdfFile PDF临时文件（已保存到磁盘），为null时从MinIO下载
             * @param taskDir 任务临时目录
             * @param request 转换请求
             * @param taskId 任务ID
+            * @param control 任务控制（提交时登记到看门狗）
+            * @param resume 是否为重新执行
             */
-            private void executePdfToImageConversion(File pdfFile, Path taskDir, PdfConversionTaskRequest request, String taskId) {
+            private void executePdfToImageConversion(File pdfFile, Path taskDir, PdfConversionTaskRequest request, String taskId,
+                                                     ConversionControl control, boolean resume) {
         long startTime = System.currentTimeMillis();
         
+        CompletableFuture<Void> pdfUpload = null;
         try {
-            updateTaskStatus(taskId, "PROCESSING", null);
-            
-            String pdfObjectKey = String.format("pdf/%s/%s/%s/%s", 
-                request.getUserId(), request.getBusinessId(), taskId, pdfFile.getName());
-            minioStorageService.uploadFile(pdfFile, pdfObjectKey);
-            log.info("PDF uploaded to MinIO: {}", pdfObjectKey);
+            control.start();
+            // 排队期间可能已被取消
+            control.checkpoint();
             
             PdfConversionTask task = taskRepository.findByTaskId(taskId);
             if (task == null) {
                 throw new RuntimeException("Task not found: " + taskId);
             }
-            task.setPdfObjectKey(pdfObjectKey);
-            taskRepository.updateById(task);
-            
-            int pageCount = pdfToImageService.getPageCount(pdfFile);
-            
-            task.setTotalPages(pageCount);
-            taskRepository.updateById(task);
-            
-            int dpi = request.getImageDpi() != null ? request.getImageDpi() : 
-                properties.getImageRendering().getDpi();
-            String format = (request.getImageFormat() != null && !request.getImageFormat().trim().isEmpty()) 
-                ? request.getImageFormat() : properties.getImageRendering().getFormat();
-            
-            List<Integer> pagesToConvert = request.getPages();
-            if (pagesToConvert == null || pagesToConvert.isEmpty()) {
-                pagesToConvert = new ArrayList<>();
-                for (int i = 1; i <= pageCount; i++) {
-                    pagesToConvert.add(i);
-                }
+            if (!resume || !"PARTIAL".equals(task.getStatus())) {
+                updateTaskStatus(taskId, "PROCESSING", null);
+                task.setStatus("PROCESSING");
             }
             
-            pagesToConvert = pagesToConvert.stream()
-                .filter(p -> p >= 1 && p <= pageCount)
-                .sorted()
-                .collect(Collectors.toList());
-            
-            if (pagesToConvert.isEmpty()) {
-                throw new IllegalArgumentException("No valid pages to convert");
+            String pdfObjectKey;
+            if (pdfFile == null) {
+                pdfObjectKey = task.getPdfObjectKey();
+                pdfFile = downloadSourcePdf(task, taskDir);
+                pdfUpload = CompletableFuture.completedFuture(null);
+            } else {
+                File sourceFile = pdfFile;
+                pdfObjectKey = String.format("pdf/%s/%s/%s/%s", 
+                    request.getUserId(), request.getBusinessId(), taskId, pdfFile.getName());
+                pdfUpload = CompletableFuture.runAsync(() -> {
+                    try {
+                        minioStorageService.uploadFile(sourceFile, pdfObjectKey);
+                    } catch (Exception e) {
+                        throw new CompletionException(e);
+                    }
+                    // 任务失败时也保留对象键，重新执行时从MinIO下载PDF
+                    taskRepository.updatePdfObjectKey(taskId, pdfObjectKey);
+                    log.info("PDF uploaded to MinIO: {}", pdfObjectKey);
+                }, pdfPipelineExecutor);
             }
             
-            Map<Integer, PdfToImageService.PageRenderInfo> pageRenderInfoMap = 
-                pdfToImageService.convertPagesToImagesAndUploadWithInfo(
-                    pdfFile, request.getUserId(), request.getBusinessId(), taskId, pagesToConvert, dpi, format);
-            
-            savePageImagesWithInfo(taskId, request.getBusinessId(), request.getUserId(), request.getTenantId(),
-                pageRenderInfoMap, task.getIsBase(), dpi);
-            
-            long processingTime = System.currentTimeMillis() - startTime;
-            
-            updateTaskStatus(taskId, "COMPLETED", null);
-            
-//            log.info("PDF to images conversion completed for taskId: {} in {}ms, pages: {}, images: {}",
-//                taskId, processingTime, pagesToConvert.size(), minioObjectKeys.size());
+            try (PdfDocumentSession session = pdfToImageService.openSession(pdfFile)) {
+                convertWithSession(session, pdfUpload, pdfObjectKey, task, request, startTime, control, resume);
+            }
             
         } catch (Exception e) {
-            log.error("PDF to images conversion failed for taskId: {}", taskId, e);
-            updateTaskStatus(taskId, "FAILED", "Conversion failed: " + e.getMessage());
+            if (conversionWatchdog.tryFinish(control)) {
+                log.error("PDF to images conversion failed for taskId: {}", taskId, e);
+                updateTaskStatus(taskId, "FAILED", "Conversion failed: " + e.getMessage());
+            }
         } finally {
+            if (pdfUpload != null) {
+                // 删除临时文件前确保上传已结束（失败已在上面处理）
+                pdfUpload.exceptionally(e -> null).join();
+            }
+            if (control.isAborted()) {
+                finishAbortedConversion(taskId, control);
+            }
+            conversionWatchdog.unregister(control);
             if (pdfFile != null && pdfFile.exists()) {
                 try {
                     Files.deleteIfExists(pdfFile.toPath());
@@ -678,33 +793,560 @@ public class PdfUploadService {
     protected void savePageImagesWithInfo(String taskId, String businessId, String userId, String tenantId,
                                           Map<Integer, PdfToImageService.PageRenderInfo> pageRenderInfoMap, 
                                           boolean isBase, int dpi) {
-        for (Map.Entry<Integer, PdfToImageService.PageRenderInfo> entry : pageRenderInfoMap.entrySet()) {
-            int pageNumber = entry.getKey();
-            PdfToImageService.PageRenderInfo renderInfo = entry.getValue();
-            
-            PdfPageImage pageImage = PdfPageImage.builder()
-                .taskId(taskId)
-                .businessId(businessId)
-                .userId(userId)
-                .tenantId(tenantId)
-                .pageNumber(pageNumber)
-                .imageObjectKey(renderInfo.getMinioObjectKey())
-                .isBase(isBase)
-                .width(renderInfo.getImageWidth())
-                .height(renderInfo.getImageHeight())
-                .pdfWidth(renderInfo.getPdfWidth())
-                .pdfHeight(renderInfo.getPdfHeight())
-                .renderingDpi(dpi)
-                .fileSize(renderInfo.getFileSize())
-                .build();
-            
-            pageImageRepository.insert(pageImage);
+        pageImagePersister.savePageImages(taskId, businessId, userId, tenantId, pageRenderInfoMap, isBase, dpi);
+    }
+    
+    /**
+     * 计算需要优先渲染的页面：请求指定的页面在前，其次是前N页
+     * 
+     * @param pagesToConvert 本次转换的页码（已排序）
+     * @param requestedPages 请求指定的优先页码，可为空
+     * @return 按渲染顺序排列的优先页码，未启用优先渲染时为空集合
+     */
+    private Set<Integer> resolvePriorityPages(List<Integer> pagesToConvert, List<Integer> requestedPages) {
+        PdfConversionProperties.PriorityRenderingConfig priority = properties.getPriorityRendering();
+        Set<Integer> priorityPages = new LinkedHashSet<>();
+        if (!priority.isEnabled()) {
+            return priorityPages;
+        }
+        
+        Set<Integer> convertible = new HashSet<>(pagesToConvert);
+        if (requestedPages != null) {
+            requestedPages.stream()
+                .filter(convertible::contains)
+                .forEach(priorityPages::add);
+        }
+        pagesToConvert.stream()
+            .limit(Math.max(0, priority.getFirstPages()))
+            .forEach(priorityPages::add);
+        return priorityPages;
+    }
+    
+    /**
+     * 创建优先页面完成回调：优先页面渲染完成后立即入库，
+     * 全部优先页面入库后如果还有其他页面未完成，任务状态更新为PARTIAL
+     */
+    private PdfToImageService.PageCompletionListener createPriorityListener(
+            PdfConversionTask task, Set<Integer> priorityPages, Set<Integer> persistedPages,
+            boolean hasRemainingPages, int dpi) {
+        AtomicInteger remainingPriorityPages = new AtomicInteger(priorityPages.size());
+        return pageInfo -> {
+            if (!priorityPages.contains(pageInfo.getPageNumber())) {
+                return;
+            }
+            pageImagePersister.savePageImages(task.getTaskId(), task.getBusinessId(), task.getUserId(),
+                task.getTenantId(), Collections.singletonMap(pageInfo.getPageNumber(), pageInfo),
+                Boolean.TRUE.equals(task.getIsBase()), dpi);
+            persistedPages.add(pageInfo.getPageNumber());
+            pageLedger.markCompleted(task.getTaskId(), Collections.singleton(pageInfo.getPageNumber()));
             
-            log.debug("Saved page image metadata with info: taskId={}, page={}, objectKey={}, pdfSize={}x{}, imageSize={}x{}, dpi={}", 
-                taskId, pageNumber, renderInfo.getMinioObjectKey(), 
-                renderInfo.getPdfWidth(), renderInfo.getPdfHeight(),
-                renderInfo.getImageWidth(), renderInfo.getImageHeight(), dpi);
+            if (remainingPriorityPages.decrementAndGet() == 0 && hasRemainingPages) {
+                updateTaskStatus(task.getTaskId(), "PARTIAL", null);
+                log.info("Priority pages {} available for taskId: {}, remaining pages continue in background", 
+                    priorityPages, task.getTaskId());
+            }
+        };
+    }
+    
+    /**
+     * 使用文档会话完成转换：页数、内容哈希、页面尺寸、指纹和渲染共用同一次加载
+     * 
+     * PDF上传与渲染并发执行，任务进入READY/COMPLETED前等待上传完成并记录对象键。
+     * 
+     * @param session 文档会话
+     * @param pdfUpload PDF上传任务
+     * @param pdfObjectKey PDF对象键
+     * @param task 任务
+     * @param request 转换请求
+     * @param startTime 任务开始时间
+     * @param control 任务控制，各阶段之间和每页处理前检查，进入READY/COMPLETED前标记完成
+     * @param resume 是否为重新执行：跳过页面台账中已完成的页面
+     */
+    private void convertWithSession(PdfDocumentSession session, CompletableFuture<Void> pdfUpload, String pdfObjectKey,
+                                    PdfConversionTask task, PdfConversionTaskRequest request, long startTime,
+                                    ConversionControl control, boolean resume) throws IOException {
+        String taskId = task.getTaskId();
+        int pageCount = session.getPageCount();
+        
+        task.setTotalPages(pageCount);
+        taskRepository.updateById(task);
+        
+        if (Boolean.TRUE.equals(task.getIsBase()) && lazyPageRenderService.isLazy(task)) {
+            task.setPageDimensions(objectMapper.writeValueAsString(session.getPageDimensions()));
+            taskRepository.updateById(task);
+            awaitPdfUpload(pdfUpload, task, pdfObjectKey);
+            lazyPageRenderService.cacheLocalSource(taskId, session.getFile());
+            conversionWatchdog.finish(control);
+            updateTaskStatus(taskId, "READY", null);
+            log.info("Lazy conversion ready for taskId: {}, pages: {}, pages will be rendered on first access", 
+                taskId, pageCount);
+            return;
+        }
+        
+        int dpi = request.getImageDpi() != null ? request.getImageDpi() : 
+            properties.getImageRendering().getDpi();
+        String format = (request.getImageFormat() != null && !request.getImageFormat().trim().isEmpty()) 
+            ? request.getImageFormat() : properties.getImageRendering().getFormat();
+        
+        List<Integer> pagesToConvert = request.getPages();
+        if (resume && pageLedger.hasEntries(taskId)) {
+            // 重新执行：只处理台账中未完成的页面
+            pagesToConvert = pageLedger.unfinishedPages(taskId);
+        } else if (!Boolean.TRUE.equals(task.getIsBase()) && parseIncrementalMode(request.getIncrementalMode()) == IncrementalMode.AUTO) {
+            if (resume && task.getPageDiff() != null && task.getConvertedPages() != null) {
+                // 上次执行已完成变更检测并复制了未变化页面的图片记录，只渲染检测出的页面
+                pagesToConvert = objectMapper.readValue(task.getConvertedPages(), new TypeReference<List<Integer>>() {});
+            } else {
+                pagesToConvert = detectChangedPages(task, session, pageCount);
+            }
+            if (pagesToConvert.isEmpty()) {
+                awaitPdfUpload(pdfUpload, task, pdfObjectKey);
+                conversionWatchdog.finish(control);
+                updateTaskStatus(taskId, "COMPLETED", null);
+                log.info("No changed pages detected for taskId: {}, all {} pages inherit base images", taskId, pageCount);
+                return;
+            }
+        } else if (pagesToConvert == null || pagesToConvert.isEmpty()) {
+            pagesToConvert = new ArrayList<>();
+            for (int i = 1; i <= pageCount; i++) {
+                pagesToConvert.add(i);
+            }
         }
+        
+        pagesToConvert = pagesToConvert.stream()
+            .filter(p -> p >= 1 && p <= pageCount)
+            .sorted()
+            .collect(Collectors.toList());
+        
+        if (resume) {
+            Set<Integer> completedPages = pageLedger.completedPages(taskId);
+            pagesToConvert.removeIf(completedPages::contains);
+            if (pagesToConvert.isEmpty()) {
+                awaitPdfUpload(pdfUpload, task, pdfObjectKey);
+                conversionWatchdog.finish(control);
+                updateTaskStatus(taskId, "COMPLETED", null);
+                log.info("All pages of taskId: {} were completed by the previous attempt", taskId);
+                return;
+            }
+            log.info("Resuming taskId: {}, {} pages already completed, {} pages remaining",
+                taskId, completedPages.size(), pagesToConvert.size());
+        }
+        
+        if (pagesToConvert.isEmpty()) {
+            throw new IllegalArgumentException("No valid pages to convert");
+        }
+        
+        boolean generateTiles = request.getGenerateTiles() != null ? request.getGenerateTiles() :
+            properties.getTiles().isEnabled();
+        Set<ImageVariant> variants = parseVariants(request.getVariants());
+        RenderProfile renderProfile = parseRenderProfile(request.getRenderProfile());
+        int totalPagesToConvert = pagesToConvert.size();
+        
+        control.checkpoint();
+        
+        // 登记本次要处理的页面，失败后重新执行时只处理未完成的页面
+        pageLedger.plan(taskId, pagesToConvert);
+        
+        // 页面去重：内容和渲染参数都相同的页面直接引用已有图片，只渲染其余页面
+        Map<Integer, String> fingerprints = new HashMap<>();
+        int reusedPages = 0;
+        if (pageDedupeService.isEnabled()) {
+            fingerprints = pageDedupeService.fingerprintPages(session, pagesToConvert,
+                pageDedupeService.renderSignature(dpi, format, generateTiles, variants, renderProfile));
+            List<Integer> pagesToRender = new ArrayList<>();
+            List<Integer> reusedPageNumbers = new ArrayList<>();
+            for (Integer pageNumber : pagesToConvert) {
+                String fingerprint = fingerprints.get(pageNumber);
+                if (fingerprint != null && pageDedupeService.reuse(fingerprint, taskId, request.getBusinessId(),
+                        request.getUserId(), request.getTenantId(), pageNumber, Boolean.TRUE.equals(task.getIsBase()))) {
+                    reusedPageNumbers.add(pageNumber);
+                } else {
+                    pagesToRender.add(pageNumber);
+                }
+            }
+            reusedPages = reusedPageNumbers.size();
+            pageLedger.markCompleted(taskId, reusedPageNumbers);
+            pagesToConvert = pagesToRender;
+            log.info("Page dedupe for taskId: {} reused {} of {} pages", taskId, reusedPages, totalPagesToConvert);
+        }
+        
+        // 优先渲染：优先页面排在最前并在完成后立即入库，全部完成后任务进入PARTIAL状态
+        Set<Integer> priorityPages = resolvePriorityPages(pagesToConvert, request.getPriorityPages());
+        Set<Integer> persistedPages = ConcurrentHashMap.newKeySet();
+        PdfToImageService.PageCompletionListener priorityListener = null;
+        if (!priorityPages.isEmpty()) {
+            List<Integer> orderedPages = new ArrayList<>(priorityPages);
+            pagesToConvert.stream()
+                .filter(p -> !priorityPages.contains(p))
+                .forEach(orderedPages::add);
+            pagesToConvert = orderedPages;
+            priorityListener = createPriorityListener(task, priorityPages, persistedPages,
+                pagesToConvert.size() > priorityPages.size(), dpi);
+        }
+        
+        final PdfToImageService.PageCompletionListener finalPriorityListener = priorityListener;
+        final Map<Integer, String> finalFingerprints = fingerprints;
+        // 已上传的页面，转换失败时为这些页面保存图片记录，重新执行时不再渲染
+        Map<Integer, PdfToImageService.PageRenderInfo> uploadedPages = new ConcurrentHashMap<>();
+        // 其余页面完成后分批保存，转换过程中即可查询
+        final PageImageBatchWriter.Batch pageBatch = pageImageBatchWriter.isEnabled()
+            ? pageImageBatchWriter.open(task, dpi, persistedPages) : null;
+        progressService.start(taskId, totalPagesToConvert);
+        for (int i = 0; i < reusedPages; i++) {
+            progressService.pageCompleted(taskId);
+        }
+        PdfToImageService.OutputOptions outputOptions = PdfToImageService.OutputOptions.builder()
+            .generateTiles(generateTiles)
+            .variants(variants)
+            .renderProfile(renderProfile)
+            .control(control)
+            .fixedOrderPages(priorityPages.size())
+            .completionListener(pageInfo -> {
+                pageInfo.setContentFingerprint(finalFingerprints.get(pageInfo.getPageNumber()));
+                uploadedPages.put(pageInfo.getPageNumber(), pageInfo);
+                if (finalPriorityListener != null && priorityPages.contains(pageInfo.getPageNumber())) {
+                    finalPriorityListener.onPageCompleted(pageInfo);
+                } else if (pageBatch != null) {
+                    pageBatch.add(pageInfo);
+                }
+                progressService.pageCompleted(taskId);
+            })
+            .build();
+        
+        Map<Integer, PdfToImageService.PageRenderInfo> pageRenderInfoMap;
+        try {
+            pageRenderInfoMap = pagesToConvert.isEmpty()
+                ? new TreeMap<>()
+                : pdfToImageService.convertPagesToImagesAndUploadWithInfo(
+                    session, request.getUserId(), request.getBusinessId(), taskId, pagesToConvert, dpi, format,
+                    outputOptions);
+            if (pageBatch != null) {
+                pageBatch.flush();
+            }
+        } catch (IOException | RuntimeException e) {
+            if (pageBatch != null) {
+                // 关闭后不再有批次保存，下面的保存和取消时的回收不会与之交错
+                pageBatch.close();
+            }
+            if (!control.isAborted()) {
+                recordPartialProgress(task, uploadedPages, persistedPages, dpi, e);
+            }
+            throw e;
+        } finally {
+            if (pageBatch != null) {
+                pageBatch.close();
+            }
+        }
+        
+        Map<Integer, PdfToImageService.PageRenderInfo> remainingPages = new TreeMap<>(pageRenderInfoMap);
+        remainingPages.keySet().removeAll(persistedPages);
+        savePageImagesWithInfo(taskId, request.getBusinessId(), request.getUserId(), request.getTenantId(),
+            remainingPages, task.getIsBase(), dpi);
+        pageLedger.markCompleted(taskId, remainingPages.keySet());
+        
+        awaitPdfUpload(pdfUpload, task, pdfObjectKey);
+        
+        long processingTime = System.currentTimeMillis() - startTime;
+        
+        conversionWatchdog.finish(control);
+        updateTaskStatus(taskId, "COMPLETED", null);
+        
+        if (documentDedupeService.isEnabled() && Boolean.TRUE.equals(task.getIsBase())
+                && (request.getPages() == null || request.getPages().isEmpty())) {
+            documentDedupeService.record(task, lazyPageRenderService.readOptions(task), session.getFile().length());
+        }
+        
+//            log.info("PDF to images conversion completed for taskId: {} in {}ms, pages: {}, images: {}",
+//                taskId, processingTime, pagesToConvert.size(), minioObjectKeys.size());
+    }
+    
+    /**
+     * 转换失败（非取消或超时）时保存已上传页面的图片记录并更新页面台账，
+     * 重试用尽的页面标记为FAILED；重新执行任务时只处理未完成的页面
+     */
+    private void recordPartialProgress(PdfConversionTask task, Map<Integer, PdfToImageService.PageRenderInfo> uploadedPages,
+                                       Set<Integer> persistedPages, int dpi, Exception failure) {
+        String taskId = task.getTaskId();
+        Map<Integer, PdfToImageService.PageRenderInfo> unsavedPages = new TreeMap<>(uploadedPages);
+        unsavedPages.keySet().removeAll(persistedPages);
+        try {
+            savePageImagesWithInfo(taskId, task.getBusinessId(), task.getUserId(), task.getTenantId(),
+                unsavedPages, task.getIsBase(), dpi);
+            pageLedger.markCompleted(taskId, unsavedPages.keySet());
+        } catch (RuntimeException e) {
+            log.warn("Failed to save completed pages of failed taskId: {}", taskId, e);
+        }
+        
+        PageConversionException pageFailure = PageConversionException.find(failure);
+        if (pageFailure != null) {
+            pageLedger.markFailed(taskId, pageFailure.getPageNumber(), pageFailure.getMessage());
+        }
+        log.info("Conversion of taskId: {} failed with {} pages completed, retry converts only the remaining pages",
+            taskId, uploadedPages.size());
+    }
+    
+    /**
+     * 等待PDF上传完成并把对象键写入任务
+     */
+    private void awaitPdfUpload(CompletableFuture<Void> pdfUpload, PdfConversionTask task, String pdfObjectKey) throws IOException {
+        try {
+            pdfUpload.join();
+        } catch (CompletionException e) {
+            throw new IOException("PDF upload failed: " + e.getCause().getMessage(), e.getCause());
+        }
+        task.setPdfObjectKey(pdfObjectKey);
+        taskRepository.updateById(task);
+    }
+    
+    /**
+     * 被取消或超时的转换退出时调用：更新任务状态并回收已保存的图片记录和已上传的对象
+     */
+    private void finishAbortedConversion(String taskId, ConversionControl control) {
+        // 清除终止时可能残留的中断标记，避免影响下面的数据库和MinIO调用
+        Thread.interrupted();
+        String status = control.getAbortStatus();
+        log.warn("PDF to images conversion {} for taskId: {}: {}", status, taskId, control.getAbortMessage());
+        updateTaskStatus(taskId, status, control.getAbortMessage());
+        metrics.recordTaskAborted(status);
+        
+        PdfConversionTask task = taskRepository.findByTaskId(taskId);
+        if (task != null) {
+            discardTaskOutput(task);
+        }
+    }
+    
+    /**
+     * 回收任务的转换结果：删除图片记录（释放共享引用），删除该任务上传的图片和PDF对象
+     * 
+     * 本任务渲染后登记到页面指纹索引、仍被其他任务引用的图片对象保留。
+     * 可重复调用，多个节点同时回收同一任务时不会重复释放引用。
+     * 
+     * @param task 任务
+     */
+    private void discardTaskOutput(PdfConversionTask task) {
+        Set<String> retained = pageDedupeService.discardTaskImages(task.getTaskId());
+        pageLedger.clear(task.getTaskId());
+        // 保留的对象键逐个精确匹配，瓦片目录（以/结尾）按前缀匹配；前缀只有切分了瓦片的页面才有，数量很少
+        Set<String> retainedKeys = new HashSet<>();
+        List<String> retainedPrefixes = new ArrayList<>();
+        for (String retainedKey : retained) {
+            if (retainedKey.endsWith("/")) {
+                retainedPrefixes.add(retainedKey);
+            } else {
+                retainedKeys.add(retainedKey);
+            }
+        }
+        List<String> prefixes = Arrays.asList(
+            String.format("pdf-images/%s/%s/%s/", task.getUserId(), task.getBusinessId(), task.getTaskId()),
+            String.format("pdf/%s/%s/%s/", task.getUserId(), task.getBusinessId(), task.getTaskId()));
+        for (String prefix : prefixes) {
+            try {
+                List<String> keys = minioStorageService.listObjectKeys(prefix).stream()
+                    .filter(key -> !retainedKeys.contains(key)
+                        && retainedPrefixes.stream().noneMatch(key::startsWith))
+                    .collect(Collectors.toList());
+                // 单次批量删除最多1000个对象
+                for (int i = 0; i < keys.size(); i += 1000) {
+                    minioStorageService.deleteFiles(keys.subList(i, Math.min(keys.size(), i + 1000)));
+                }
+                log.info("Discarded {} objects under {} for taskId: {}", keys.size(), prefix, task.getTaskId());
+            } catch (IOException e) {
+                log.error("Failed to discard objects under {} for taskId: {}", prefix, task.getTaskId(), e);
+            }
+        }
+    }
+    
+    /**
+     * 自动增量转换：逐页比较新文档与基础版本的内容哈希
+     * 
+     * 内容未变化的页面复制基础版本的图片记录（共享同一组对象），使该任务的页面集合完整，
+     * 不会被该用户之前增量转换的旧页面覆盖；检测结果保存到任务的page_diff。
+     * 
+     * @param task 增量任务
+     * @param session 新提交PDF的文档会话
+     * @param pageCount 新PDF页数
+     * @return 需要渲染的页码（变更页和新增页），按页码排序
+     * @throws IOException 计算哈希失败时抛出
+     */
+    private List<Integer> detectChangedPages(PdfConversionTask task, PdfDocumentSession session, int pageCount) throws IOException {
+        PdfConversionTask baseTask = taskRepository.findByBusinessIdAndTenantIdAndIsBaseTrue(
+            task.getBusinessId(), task.getTenantId());
+        if (baseTask == null) {
+            throw new IllegalStateException("Base conversion not found for businessId: " + task.getBusinessId());
+        }
+        
+        List<String> hashes = pageDedupeService.contentHashes(session);
+        List<String> baseHashes = loadBaseContentHashes(baseTask);
+        int basePageCount = baseHashes != null ? baseHashes.size()
+            : (baseTask.getTotalPages() != null ? baseTask.getTotalPages() : 0);
+        
+        PdfPageDiff diff = PdfPageDiff.builder()
+            .baseTaskId(baseTask.getTaskId())
+            .baseHashesAvailable(baseHashes != null)
+            .build();
+        List<Integer> unchangedPages = new ArrayList<>();
+        for (int pageNumber = 1; pageNumber <= pageCount; pageNumber++) {
+            if (pageNumber > basePageCount) {
+                diff.getAddedPages().add(pageNumber);
+            } else if (baseHashes == null || !baseHashes.get(pageNumber - 1).equals(hashes.get(pageNumber - 1))) {
+                diff.getChangedPages().add(pageNumber);
+            } else {
+                unchangedPages.add(pageNumber);
+            }
+        }
+        for (int pageNumber = pageCount + 1; pageNumber <= basePageCount; pageNumber++) {
+            diff.getRemovedPages().add(pageNumber);
+        }
+        
+        List<Integer> pagesToRender = new ArrayList<>(diff.getChangedPages());
+        pagesToRender.addAll(diff.getAddedPages());
+        
+        if (!unchangedPages.isEmpty()) {
+            Set<Integer> unchanged = new HashSet<>(unchangedPages);
+            List<PdfPageImage> baseImages = pageImageRepository.findByTaskId(baseTask.getTaskId()).stream()
+                .filter(image -> unchanged.contains(image.getPageNumber()))
+                .collect(Collectors.toList());
+            if (!baseImages.isEmpty() && !pageDedupeService.sharePageImages(baseImages, task.getTaskId(),
+                    task.getBusinessId(), task.getUserId(), task.getTenantId(), false)) {
+                // 基础版本图片正在回收，未变化的页面也重新渲染
+                pagesToRender.addAll(unchangedPages);
+                unchangedPages.clear();
+            }
+        }
+        diff.setUnchangedPageCount(unchangedPages.size());
+        Collections.sort(pagesToRender);
+        
+        task.setPageHashes(objectMapper.writeValueAsString(hashes));
+        task.setPageDiff(objectMapper.writeValueAsString(diff));
+        task.setConvertedPages(objectMapper.writeValueAsString(pagesToRender));
+        taskRepository.updateById(task);
+        
+        log.info("Detected page diff for taskId: {} against base {}: changed={}, added={}, removed={}, unchanged={}",
+            task.getTaskId(), baseTask.getTaskId(), diff.getChangedPages(), diff.getAddedPages(),
+            diff.getRemovedPages(), diff.getUnchangedPageCount());
+        return pagesToRender;
+    }
+    
+    /**
+     * 相同内容的PDF已按相同参数完成过全量转换时，直接复制转换结果并完成任务
+     * 
+     * @param task 新任务（需包含内容哈希）
+     * @param options 已解析的转换参数
+     * @param tempPdfFile 本地PDF临时文件，复用成功时删除
+     * @param taskDir 任务临时目录，复用成功时删除
+     * @return 完成响应；不满足复用条件或复制失败时返回null，调用方继续正常转换
+     */
+    private PdfUploadResponse completeFromConvertedDocument(PdfConversionTask task, PdfConversionOptions options,
+                                                           File tempPdfFile, Path taskDir) {
+        if (!documentDedupeService.isEnabled() || !Boolean.TRUE.equals(task.getIsBase()) || task.getContentHash() == null) {
+            return null;
+        }
+        PdfDocument document = documentDedupeService.find(task.getTenantId(), task.getContentHash(), options);
+        if (document == null || !documentDedupeService.cloneConversion(document, task)) {
+            return null;
+        }
+        
+        updateTaskStatus(task.getTaskId(), "COMPLETED", null);
+        cleanupTempFiles(tempPdfFile, taskDir);
+        log.info("Identical PDF already converted by taskId: {}, completed taskId: {} without conversion",
+            document.getTaskId(), task.getTaskId());
+        return PdfUploadResponse.builder()
+            .taskId(task.getTaskId())
+            .status("COMPLETED")
+            .totalPages(task.getTotalPages())
+            .message("Identical PDF was already converted with the same options. Images reused without conversion.")
+            .build();
+    }
+    
+    /**
+     * 序列化任务的转换参数
+     * 
+     * @param options 转换参数
+     * @return 转换参数JSON，序列化失败时返回null
+     */
+    private String serializeConversionOptions(PdfConversionOptions options) {
+        try {
+            return objectMapper.writeValueAsString(options);
+        } catch (JsonProcessingException e) {
+            log.error("Failed to serialize conversion options", e);
+            return null;
+        }
+    }
+    
+    /**
+     * 构建任务的转换参数，DPI和格式按当前配置解析为确定值
+     * 
+     * @param request 转换请求
+     * @param isBase 是否为基础转换（按需渲染只对基础转换生效）
+     * @return 转换参数
+     */
+    private PdfConversionOptions buildConversionOptions(PdfConversionTaskRequest request, boolean isBase) {
+        boolean lazy = isBase && (request.getLazy() != null 
+            ? request.getLazy() : properties.getLazyRendering().isEnabled());
+        return PdfConversionOptions.builder()
+            .imageDpi(request.getImageDpi() != null ? request.getImageDpi() : properties.getImageRendering().getDpi())
+            .imageFormat(request.getImageFormat() != null && !request.getImageFormat().trim().isEmpty()
+                ? request.getImageFormat() : properties.getImageRendering().getFormat())
+            .generateTiles(request.getGenerateTiles() != null 
+                ? request.getGenerateTiles() : properties.getTiles().isEnabled())
+            .variants(request.getVariants())
+            .lazy(lazy)
+            .renderProfile(request.getRenderProfile() != null && !request.getRenderProfile().trim().isEmpty()
+                ? parseRenderProfile(request.getRenderProfile()).name() : properties.getImageRendering().getProfile())
+            .incrementalMode(isBase ? null : parseIncrementalMode(request.getIncrementalMode()).getCode())
+            .build();
+    }
+    
+    /**
+     * 解析请求的图片规格，FULL始终生成因此不包含在结果中
+     * 
+     * @param variants 规格代码列表
+     * @return 原图之外的规格集合
+     * @throws IllegalArgumentException 存在不支持的规格时抛出
+     */
+    private Set<ImageVariant> parseVariants(List<String> variants) {
+        Set<ImageVariant> result = EnumSet.noneOf(ImageVariant.class);
+        if (variants == null) {
+            return result;
+        }
+        for (String code : variants) {
+            if (code == null || code.trim().isEmpty()) {
+                continue;
+            }
+            ImageVariant variant = ImageVariant.fromCode(code.trim());
+            if (variant != ImageVariant.FULL) {
+                result.add(variant);
+            }
+        }
+        return result;
+    }
+    
+    /**
+     * 解析请求的渲染档位
+     * 
+     * @param code 档位代码
+     * @return 渲染档位，未指定时返回null（使用配置的默认档位）
+     * @throws IllegalArgumentException 不支持的档位时抛出
+     */
+    private RenderProfile parseRenderProfile(String code) {
+        if (code == null || code.trim().isEmpty()) {
+            return null;
+        }
+        return RenderProfile.fromCode(code.trim());
+    }
+    
+    /**
+     * 解析请求的增量转换模式
+     * 
+     * @param code 模式代码
+     * @return 增量转换模式，未指定时为EXPLICIT
+     * @throws IllegalArgumentException 不支持的模式时抛出
+     */
+    private IncrementalMode parseIncrementalMode(String code) {
+        if (code == null || code.trim().isEmpty()) {
+            return IncrementalMode.EXPLICIT;
+        }
+        return IncrementalMode.fromCode(code.trim());
     }
     
     /**
@@ -724,6 +1366,7 @@ public class PdfUploadService {
             }
             taskRepository.updateById(task);
         }
+        progressService.statusChanged(taskId, status, errorMessage);
     }
     
     /**
@@ -733,6 +1376,12 @@ public class PdfUploadService {
      * @return 进度信息
      */
     public PdfConversionProgress getProgress(String taskId) {
+        // 优先读取Redis中的实时进度，过期或未开始时再查询数据库
+        PdfConversionProgress liveProgress = progressService.getProgress(taskId);
+        if (liveProgress != null) {
+            return liveProgress;
+        }
+        
         PdfConversionTask task = taskRepository.findByTaskId(taskId);
         if (task == null) {
             return PdfConversionProgress.builder()
@@ -743,8 +1392,12 @@ public class PdfUploadService {
         }
         
         int progressPercentage = 0;
-        if ("COMPLETED".equals(task.getStatus())) {
+        if ("COMPLETED".equals(task.getStatus()) || "READY".equals(task.getStatus())) {
             progressPercentage = 100;
+        } else if ("PARTIAL".equals(task.getStatus())) {
+            int renderedPages = pageImageRepository.countRenderedPages(taskId);
+            int totalPages = task.getTotalPages() != null ? task.getTotalPages() : 0;
+            progressPercentage = totalPages > 0 ? Math.min(99, Math.max(50, renderedPages * 100 / totalPages)) : 50;
         } else if ("PROCESSING".equals(task.getStatus())) {
             progressPercentage = 50;
         }
@@ -759,6 +1412,279 @@ public class PdfUploadService {
             .build();
             }
 
+    /**
+     * 订阅转换进度推送
+     * 
+     * @param taskId 任务ID
+     * @return SSE连接，先推送当前进度，之后随转换推送更新
+     */
+    public SseEmitter streamProgress(String taskId) {
+        return progressService.register(taskId, getProgress(taskId));
+    }
+
+    /**
+     * 取消转换任务
+     * 
+     * 只能取消排队或执行中（SUBMITTED、PROCESSING、PARTIAL）的任务：
+     * - 任务在本节点上：终止转换，执行线程退出时把状态更新为CANCELLED并回收已上传的对象，返回CANCELLING
+     * - 任务不在本节点上：用一条条件更新记录取消请求并把状态更新为CANCELLED，执行节点在下一次同步时停止；
+     *   更新成功后回收已有结果（执行节点已退出时任务也能结束），返回CANCELLED。
+     *   任务在检查之后已被执行节点完成时不修改，返回ERROR
+     * 
+     * @param taskId 任务ID
+     * @return 取消结果；任务不存在时状态为NOT_FOUND，任务已结束时状态为ERROR
+     */
+    public PdfUploadResponse cancelTask(String taskId) {
+        PdfConversionTask task = taskRepository.findByTaskId(taskId);
+        if (task == null) {
+            return PdfUploadResponse.builder()
+                .taskId(taskId)
+                .status("NOT_FOUND")
+                .message("Task not found")
+                .build();
+        }
+        if (!"SUBMITTED".equals(task.getStatus()) && !"PROCESSING".equals(task.getStatus())
+                && !"PARTIAL".equals(task.getStatus())) {
+            return PdfUploadResponse.builder()
+                .taskId(taskId)
+                .status("ERROR")
+                .message("Task cannot be cancelled in status " + task.getStatus())
+                .build();
+        }
+        
+        if (conversionWatchdog.cancel(taskId)) {
+            taskRepository.requestCancel(taskId);
+            log.info("Cancellation requested for running taskId: {}", taskId);
+            return PdfUploadResponse.builder()
+                .taskId(taskId)
+                .status("CANCELLING")
+                .totalPages(task.getTotalPages())
+                .message("Cancellation requested. Conversion stops after the current operation and uploaded images are removed.")
+                .build();
+        }
+        
+        // 任务可能正在其他节点执行并在上面的检查之后结束，只有条件更新成功时才回收输出；
+        // 执行节点轮询到取消请求后终止转换
+        if (taskRepository.cancelUnfinished(taskId, "Cancelled by user") == 0) {
+            PdfConversionTask current = taskRepository.findByTaskId(taskId);
+            return PdfUploadResponse.builder()
+                .taskId(taskId)
+                .status("ERROR")
+                .message("Task cannot be cancelled in status " + (current != null ? current.getStatus() : task.getStatus()))
+                .build();
+        }
+        progressService.statusChanged(taskId, ConversionControl.STATUS_CANCELLED, "Cancelled by user");
+        metrics.recordTaskAborted(ConversionControl.STATUS_CANCELLED);
+        discardTaskOutput(task);
+        log.info("Cancelled taskId: {} not running on this node", taskId);
+        return PdfUploadResponse.builder()
+            .taskId(taskId)
+            .status(ConversionControl.STATUS_CANCELLED)
+            .totalPages(task.getTotalPages())
+            .message("Task cancelled")
+            .build();
+    }
+
+    /**
+     * 重新执行失败的转换任务
+     * 
+     * 从任务记录的PDF对象下载PDF，按任务保存的转换参数重新执行，页面台账中已完成的页面
+     * （图片已上传且记录已保存）不再渲染，只处理失败和未开始的页面。对象键由任务ID和页码确定，
+     * 重新上传覆盖上次执行中可能已部分上传的对象。
+     *
+     * @param taskId 任务ID
+     * @return 执行结果（PROCESSING表示已开始重新执行）；任务不是FAILED状态或PDF未保存时返回ERROR
+     */
+    public PdfUploadResponse retryTask(String taskId) {
+        PdfConversionTask task = taskRepository.findByTaskId(taskId);
+        if (task == null) {
+            return PdfUploadResponse.builder()
+                .taskId(taskId)
+                .status("NOT_FOUND")
+                .message("Task not found")
+                .build();
+        }
+        if (!"FAILED".equals(task.getStatus())) {
+            return PdfUploadResponse.builder()
+                .taskId(taskId)
+                .status("ERROR")
+                .message("Only failed tasks can be retried, current status: " + task.getStatus())
+                .build();
+        }
+        if (task.getPdfObjectKey() == null || task.getPdfObjectKey().isEmpty()) {
+            return PdfUploadResponse.builder()
+                .taskId(taskId)
+                .status("ERROR")
+                .message("PDF of this task was not stored, please upload the file again")
+                .build();
+        }
+        if (!resumeConversion(task, "FAILED", null)) {
+            return PdfUploadResponse.builder()
+                .taskId(taskId)
+                .status("ERROR")
+                .message("Task is already being retried")
+                .build();
+        }
+        
+        metrics.recordTaskRetried();
+        return PdfUploadResponse.builder()
+            .taskId(taskId)
+            .status("PROCESSING")
+            .totalPages(task.getTotalPages())
+            .message("Task resubmitted. Only pages not completed by the previous attempt are converted.")
+            .build();
+    }
+    
+    /**
+     * 恢复节点重启前未完成的任务（由 {@link ConversionRecovery} 在启动时调用）
+     * 
+     * - 重启前已请求取消：直接取消并回收已上传的对象
+     * - 本地临时PDF仍在：使用本地文件（重新上传PDF，对象键不变）
+     * - 否则从任务记录的PDF对象下载；PDF未保存时任务标记为失败
+     * 
+     * 页面台账中已完成的页面不再渲染；PARTIAL状态的任务在恢复期间保持PARTIAL。
+     *
+     * @param task 本节点上处于SUBMITTED、PROCESSING或PARTIAL状态的任务
+     */
+    public void recoverTask(PdfConversionTask task) {
+        String taskId = task.getTaskId();
+        Path taskDir = Paths.get(properties.getTempDirectory(), taskId);
+        if (task.getCancelRequestedAt() != null) {
+            updateTaskStatus(taskId, ConversionControl.STATUS_CANCELLED, "Cancelled by user");
+            metrics.recordTaskAborted(ConversionControl.STATUS_CANCELLED);
+            discardTaskOutput(task);
+            cleanupTempFiles(null, taskDir);
+            log.info("Cancelled interrupted taskId: {} that was cancelled before restart", taskId);
+            return;
+        }
+        
+        File localPdf = task.getFilename() != null ? taskDir.resolve(task.getFilename()).toFile() : null;
+        if (localPdf == null || !localPdf.isFile()) {
+            localPdf = null;
+            if (task.getPdfObjectKey() == null || task.getPdfObjectKey().isEmpty()) {
+                updateTaskStatus(taskId, "FAILED", "Node restarted before the PDF was stored, please upload the file again");
+                cleanupTempFiles(null, taskDir);
+                log.warn("Cannot recover taskId: {}, neither local nor stored PDF is available", taskId);
+                return;
+            }
+        }
+        if (resumeConversion(task, task.getStatus(), localPdf)) {
+            metrics.recordTaskRecovered();
+        }
+    }
+    
+    /**
+     * 把任务重置为SUBMITTED（PARTIAL状态的任务保持PARTIAL）并在后台重新执行，跳过页面台账中已完成的页面
+     *
+     * @param task 任务
+     * @param expectedStatus 任务当前应处于的状态，状态已被其他请求修改时不执行
+     * @param localPdf 本地PDF文件，为null时从任务记录的PDF对象下载
+     * @return 是否已提交重新执行
+     */
+    private boolean resumeConversion(PdfConversionTask task, String expectedStatus, File localPdf) {
+        String taskId = task.getTaskId();
+        if (taskRepository.resetForRetry(taskId, expectedStatus, nodeId) == 0) {
+            return false;
+        }
+        progressService.statusChanged(taskId, "PARTIAL".equals(expectedStatus) ? "PARTIAL" : "SUBMITTED", null);
+        
+        PdfConversionTaskRequest request = buildResumeRequest(task);
+        Path taskDir = Paths.get(properties.getTempDirectory(), taskId);
+        ConversionControl control = conversionWatchdog.register(taskId);
+        CompletableFuture.runAsync(() ->
+            executePdfToImageConversion(localPdf, taskDir, request, taskId, control, true), videoCompressionExecutor);
+        log.info("Resubmitted taskId: {} from status {}", taskId, expectedStatus);
+        return true;
+    }
+    
+    /**
+     * 按任务保存的转换参数重建转换请求
+     */
+    private PdfConversionTaskRequest buildResumeRequest(PdfConversionTask task) {
+        PdfConversionOptions options = lazyPageRenderService.readOptions(task);
+        boolean autoIncremental = !Boolean.TRUE.equals(task.getIsBase())
+            && IncrementalMode.AUTO.getCode().equals(options.getIncrementalMode());
+        List<Integer> pages = null;
+        if (!Boolean.TRUE.equals(task.getIsBase()) && !autoIncremental && task.getConvertedPages() != null) {
+            try {
+                pages = objectMapper.readValue(task.getConvertedPages(), new TypeReference<List<Integer>>() {});
+            } catch (JsonProcessingException e) {
+                log.error("Failed to deserialize converted pages for taskId: {}", task.getTaskId(), e);
+            }
+        }
+        return PdfConversionTaskRequest.builder()
+            .businessId(task.getBusinessId())
+            .userId(task.getUserId())
+            .tenantId(task.getTenantId())
+            .pages(pages)
+            .imageDpi(options.getImageDpi())
+            .imageFormat(options.getImageFormat())
+            .generateTiles(options.getGenerateTiles())
+            .variants(options.getVariants())
+            .lazy(options.getLazy())
+            .renderProfile(options.getRenderProfile())
+            .incrementalMode(options.getIncrementalMode())
+            .build();
+    }
+    
+    /**
+     * 基础版本的各页内容哈希
+     * 
+     * 基础转换时不计算（大文档需要再读一遍全部内容流），第一个引用该基础版本的自动增量转换
+     * 下载基础PDF计算并保存到基础任务，之后的增量转换直接读取。
+     * 
+     * @param baseTask 基础任务
+     * @return 按页码顺序排列的哈希列表；基础PDF不可用时返回null，所有页面按变更处理
+     */
+    private List<String> loadBaseContentHashes(PdfConversionTask baseTask) throws IOException {
+        if (baseTask.getPageHashes() != null) {
+            return objectMapper.readValue(baseTask.getPageHashes(), new TypeReference<List<String>>() {});
+        }
+        String objectKey = baseTask.getPdfObjectKey();
+        if (objectKey == null || objectKey.isEmpty()) {
+            log.warn("PDF of base taskId: {} not recorded, all pages are treated as changed", baseTask.getTaskId());
+            return null;
+        }
+        
+        Path tempDir = Paths.get(properties.getTempDirectory());
+        Files.createDirectories(tempDir);
+        Path pdfFile = Files.createTempFile(tempDir, "base-" + baseTask.getTaskId() + "-", ".pdf");
+        List<String> baseHashes;
+        try {
+            try (InputStream inputStream = minioStorageService.downloadFile(objectKey)) {
+                Files.copy(inputStream, pdfFile, StandardCopyOption.REPLACE_EXISTING);
+            }
+            baseHashes = pageDedupeService.contentHashes(pdfFile.toFile());
+        } catch (IOException e) {
+            log.warn("Failed to compute page content hashes of base taskId: {}, all pages are treated as changed",
+                baseTask.getTaskId(), e);
+            return null;
+        } finally {
+            Files.deleteIfExists(pdfFile);
+        }
+        
+        taskRepository.updatePageHashes(baseTask.getTaskId(), objectMapper.writeValueAsString(baseHashes));
+        log.info("Computed page content hashes of base taskId: {}, pages: {}", baseTask.getTaskId(), baseHashes.size());
+        return baseHashes;
+    }
+    
+    /**
+     * 从MinIO下载任务的PDF到任务临时目录
+     */
+    private File downloadSourcePdf(PdfConversionTask task, Path taskDir) throws IOException {
+        String objectKey = task.getPdfObjectKey();
+        if (objectKey == null || objectKey.isEmpty()) {
+            throw new IOException("PDF object key not recorded for taskId: " + task.getTaskId());
+        }
+        Files.createDirectories(taskDir);
+        Path pdfFile = taskDir.resolve(objectKey.substring(objectKey.lastIndexOf('/') + 1));
+        try (InputStream inputStream = minioStorageService.downloadFile(objectKey)) {
+            Files.copy(inputStream, pdfFile, StandardCopyOption.REPLACE_EXISTING);
+        }
+        log.info("Downloaded PDF for taskId: {} from {}, size: {} bytes", task.getTaskId(), objectKey, Files.size(pdfFile));
+        return pdfFile.toFile();
+    }
+
     /**
      * 获取任务详情
      *
@@ -789,6 +1715,24 @@ public class PdfUploadService {
             }
         }
         
+        List<PdfPageDimension> pageDimensions = null;
+        if (task.getPageDimensions() != null) {
+            try {
+                pageDimensions = objectMapper.readValue(task.getPageDimensions(), new TypeReference<List<PdfPageDimension>>() {});
+            } catch (JsonProcessingException e) {
+                log.error("Failed to deserialize page dimensions", e);
+            }
+        }
+        
+        PdfPageDiff pageDiff = null;
+        if (task.getPageDiff() != null) {
+            try {
+                pageDiff = objectMapper.readValue(task.getPageDiff(), PdfPageDiff.class);
+            } catch (JsonProcessingException e) {
+                log.error("Failed to deserialize page diff", e);
+            }
+        }
+        
         return PdfConversionTaskResponse.builder()
             .taskId(task.getTaskId())
             .businessId(task.getBusinessId())
@@ -800,6 +1744,8 @@ public class PdfUploadService {
             .pdfUrl(pdfUrl)
             .status(task.getStatus())
             .isBase(task.getIsBase())
+            .pageDimensions(pageDimensions)
+            .pageDiff(pageDiff)
             .errorMessage(task.getErrorMessage())
             .createdAt(task.getCreatedAt())
             .updatedAt(task.getUpdatedAt())
@@ -833,7 +1779,7 @@ public class PdfUploadService {
      * 分页查询PDF页面图片
      * 
      * 查询逻辑：
-     * 1. 如果提供userId，则合并全量和增量转换的图片（增量覆盖全量）
+     * 1. 如果提供userId，则合并全量和增量转换的图片（最新的增量覆盖全量，自动增量转换删除的页面不再返回）
      * 2. 如果只提供businessId和tenantId，只返回基础转换的图片
      * 3. 支持分页查询，默认每页10条
      * 
@@ -845,6 +1791,22 @@ public class PdfUploadService {
      * @return 图片响应，包含分页信息和图片列表
      */
     public PdfImageResponse getImages(String businessId, String tenantId, String userId, Integer startPage, Integer pageSize) {
+        return getImages(businessId, tenantId, userId, startPage, pageSize, ImageVariant.FULL.getCode());
+    }
+    
+    /**
+     * 分页查询指定规格的PDF页面图片
+     * 
+     * @param businessId 业务ID（必填）
+     * @param tenantId 租户ID（必填）
+     * @param userId 用户ID（可选）
+     * @param startPage 起始页码（从1开始）
+     * @param pageSize 每页大小
+     * @param variant 图片规格（FULL、PREVIEW、THUMBNAIL），为空时返回原图
+     * @return 图片响应，包含分页信息和图片列表
+     */
+    public PdfImageResponse getImages(String businessId, String tenantId, String userId, Integer startPage, Integer pageSize,
+                                      String variant) {
         if (businessId == null || businessId.trim().isEmpty()) {
             return PdfImageResponse.builder()
                 .status("ERROR")
@@ -859,22 +1821,71 @@ public class PdfUploadService {
                 .build();
         }
         
+        ImageVariant imageVariant;
+        try {
+            imageVariant = variant == null || variant.trim().isEmpty() 
+                ? ImageVariant.FULL : ImageVariant.fromCode(variant.trim());
+        } catch (IllegalArgumentException e) {
+            return PdfImageResponse.builder()
+                .status("ERROR")
+                .message(e.getMessage())
+                .build();
+        }
+        
+        int effectiveStartPage = startPage != null && startPage > 0 ? startPage : 1;
+        int effectivePageSize = pageSize != null && pageSize > 0 ? pageSize : 10;
+        
+        // 按需渲染模式：先渲染本次请求范围内尚未渲染的页面，分页按页码而不是按已渲染记录的下标
+        PdfConversionTask lazyBaseTask = findLazyBaseTask(businessId, tenantId);
+        if (lazyBaseTask != null) {
+            int lastPage = Math.min(effectiveStartPage + effectivePageSize - 1, lazyBaseTask.getTotalPages());
+            List<Integer> requestedPages = new ArrayList<>();
+            for (int page = effectiveStartPage; page <= lastPage; page++) {
+                requestedPages.add(page);
+            }
+            try {
+                lazyPageRenderService.ensurePagesRendered(lazyBaseTask, requestedPages);
+            } catch (IOException e) {
+                log.error("On-demand rendering failed for businessId: {}, pages: {}", businessId, requestedPages, e);
+                return PdfImageResponse.builder()
+                    .businessId(businessId)
+                    .userId(userId)
+                    .status("ERROR")
+                    .message("Failed to render pages: " + e.getMessage())
+                    .build();
+            }
+        }
+        
+        // 优先渲染或仍在转换中的基础任务：只有部分页面已入库，同样按页码分页
+        PdfConversionTask partialBaseTask = lazyBaseTask == null ? findPartialBaseTask(businessId, tenantId) : null;
+        PdfConversionTask pageIndexedTask = lazyBaseTask != null ? lazyBaseTask : partialBaseTask;
+        
         List<PdfPageImage> allImages;
+        Integer mergedPageLimit = null;
         
         if (userId != null && !userId.trim().isEmpty()) {
-            allImages = pageImageRepository.findMergedImages(businessId, tenantId, userId);
+            allImages = pageImageRepository.findMergedImagesByVariant(businessId, tenantId, userId, imageVariant.getCode());
             
+            // 同一页面按创建时间倒序返回：取最新的增量图片，没有增量图片时取基础图片
             Map<Integer, PdfPageImage> mergedMap = new HashMap<>();
             for (PdfPageImage image : allImages) {
-                int pageNum = image.getPageNumber();
-                if (!mergedMap.containsKey(pageNum) || !image.getIsBase()) {
-                    mergedMap.put(pageNum, image);
+                PdfPageImage current = mergedMap.get(image.getPageNumber());
+                if (current == null || (current.getIsBase() && !image.getIsBase())) {
+                    mergedMap.put(image.getPageNumber(), image);
                 }
             }
             allImages = new ArrayList<>(mergedMap.values());
             allImages.sort(Comparator.comparing(PdfPageImage::getPageNumber));
+            
+            // 自动增量转换可能删除了末尾页面：页数以该用户最近一次完成的自动增量转换为准，不再返回已删除页面的基础图片
+            PdfConversionTask autoTask = taskRepository.findLatestCompletedAutoIncrementalTask(businessId, tenantId, userId);
+            if (autoTask != null && autoTask.getTotalPages() != null) {
+                int pageLimit = autoTask.getTotalPages();
+                allImages.removeIf(image -> image.getPageNumber() > pageLimit);
+                mergedPageLimit = pageLimit;
+            }
         } else {
-            allImages = pageImageRepository.findByBusinessIdAndTenantIdAndIsBaseTrueOrderByPageNumberAsc(businessId, tenantId);
+            allImages = pageImageRepository.findBaseImagesByVariant(businessId, tenantId, imageVariant.getCode());
         }
         
         if (allImages.isEmpty()) {
@@ -886,9 +1897,10 @@ public class PdfUploadService {
                 .build();
         }
         
-        int totalPages = allImages.size();
-        int effectiveStartPage = startPage != null && startPage > 0 ? startPage : 1;
-        int effectivePageSize = pageSize != null && pageSize > 0 ? pageSize : 10;
+        int totalPages = pageIndexedTask != null ? pageIndexedTask.getTotalPages() : allImages.size();
+        if (mergedPageLimit != null) {
+            totalPages = Math.min(totalPages, mergedPageLimit);
+        }
         
         if (effectiveStartPage > totalPages) {
             return PdfImageResponse.builder()
@@ -904,14 +1916,26 @@ public class PdfUploadService {
                 .build();
         }
         
-        int startIndex = effectiveStartPage - 1;
-        int endIndex = Math.min(startIndex + effectivePageSize, totalPages);
+        List<PdfPageImage> pageSlice;
+        if (pageIndexedTask != null) {
+            int lastPage = effectiveStartPage + effectivePageSize - 1;
+            pageSlice = allImages.stream()
+                .filter(img -> img.getPageNumber() >= effectiveStartPage && img.getPageNumber() <= lastPage)
+                .collect(Collectors.toList());
+        } else {
+            int startIndex = effectiveStartPage - 1;
+            int endIndex = Math.min(startIndex + effectivePageSize, totalPages);
+            pageSlice = allImages.subList(startIndex, endIndex);
+        }
         
-        List<PdfPageImageInfo> pageImages = allImages.subList(startIndex, endIndex).stream()
+        List<PdfPageImageInfo> pageImages = pageSlice.stream()
             .map(img -> {
                 String presignedUrl = minioStorageService.getPresignedUrl(img.getImageObjectKey(), 60);
+                String tileManifestUrl = img.getTileManifestKey() != null
+                    ? minioStorageService.getPresignedUrl(img.getTileManifestKey(), 60) : null;
                 return PdfPageImageInfo.builder()
                     .pageNumber(img.getPageNumber())
+                    .variant(img.getVariant())
                     .imageObjectKey(img.getImageObjectKey())
                     .imageUrl(presignedUrl)
                     .isBase(img.getIsBase())
@@ -919,6 +1943,12 @@ public class PdfUploadService {
                     .width(img.getWidth())
                     .height(img.getHeight())
                     .fileSize(img.getFileSize())
+                    .colorMode(img.getColorMode())
+                    .tileManifestKey(img.getTileManifestKey())
+                    .tileManifestUrl(tileManifestUrl)
+                    .tileSize(img.getTileSize())
+                    .tileMaxLevel(img.getTileMaxLevel())
+                    .tileFormat(img.getTileFormat())
                     .build();
             })
             .collect(Collectors.toList());
@@ -931,11 +1961,63 @@ public class PdfUploadService {
             .pageSize(effectivePageSize)
             .returnedPages(pageImages.size())
             .images(pageImages)
-            .status("SUCCESS")
-            .message("Successfully retrieved page images")
+            .status(partialBaseTask != null ? "PARTIAL" : "SUCCESS")
+            .message(partialBaseTask != null 
+                ? "Conversion in progress, pages not yet rendered are omitted" 
+                : "Successfully retrieved page images")
             .build();
             }
 
+    /**
+     * 查询单个页面的图片
+     * 
+     * 按需渲染模式下页面未渲染时立即渲染（同一页面的并发请求只渲染一次）。
+     * 
+     * @param businessId 业务ID（必填）
+     * @param tenantId 租户ID（必填）
+     * @param userId 用户ID（可选，提供时优先返回该用户的增量图片）
+     * @param pageNumber 页码（从1开始）
+     * @param variant 图片规格（FULL、PREVIEW、THUMBNAIL），为空时返回原图
+     * @return 图片响应，images中最多包含一页
+     */
+    public PdfImageResponse getPageImage(String businessId, String tenantId, String userId, Integer pageNumber, String variant) {
+        if (pageNumber == null || pageNumber < 1) {
+            return PdfImageResponse.builder()
+                .status("ERROR")
+                .message("Page number must be greater than 0")
+                .build();
+        }
+        return getImages(businessId, tenantId, userId, pageNumber, 1, variant);
+    }
+    
+    /**
+     * 查找处于按需渲染就绪状态的基础任务
+     * 
+     * @return 基础任务，不存在或不是按需渲染模式时返回null
+     */
+    private PdfConversionTask findLazyBaseTask(String businessId, String tenantId) {
+        PdfConversionTask baseTask = taskRepository.findByBusinessIdAndTenantIdAndIsBaseTrue(businessId, tenantId);
+        if (baseTask == null || !"READY".equals(baseTask.getStatus()) || !lazyPageRenderService.isLazy(baseTask)) {
+            return null;
+        }
+        return baseTask;
+    }
+    
+    /**
+     * 查找只有部分页面可用的基础任务：优先渲染完成（PARTIAL），或仍在排队/执行中
+     * （分批写入时已完成的页面在任务结束前就已入库）
+     * 
+     * @return 基础任务，不存在、已结束或页数未知时返回null
+     */
+    private PdfConversionTask findPartialBaseTask(String businessId, String tenantId) {
+        PdfConversionTask baseTask = taskRepository.findByBusinessIdAndTenantIdAndIsBaseTrue(businessId, tenantId);
+        if (baseTask == null || baseTask.getTotalPages() == null) {
+            return null;
+        }
+        String status = baseTask.getStatus();
+        return "PARTIAL".equals(status) || "PROCESSING".equals(status) || "SUBMITTED".equals(status) ? baseTask : null;
+    }
+
             /**
             * 将任务实体转换为响应DTO
             *
@@ -961,6 +2043,24 @@ public class PdfUploadService {
             }
         }
         
+        List<PdfPageDimension> pageDimensions = null;
+        if (task.getPageDimensions() != null) {
+            try {
+                pageDimensions = objectMapper.readValue(task.getPageDimensions(), new TypeReference<List<PdfPageDimension>>() {});
+            } catch (JsonProcessingException e) {
+                log.error("Failed to deserialize page dimensions", e);
+            }
+        }
+        
+        PdfPageDiff pageDiff = null;
+        if (task.getPageDiff() != null) {
+            try {
+                pageDiff = objectMapper.readValue(task.getPageDiff(), PdfPageDiff.class);
+            } catch (JsonProcessingException e) {
+                log.error("Failed to deserialize page diff", e);
+            }
+        }
+        
         return PdfConversionTaskResponse.builder()
             .taskId(task.getTaskId())
             .businessId(task.getBusinessId())
@@ -972,6 +2072,8 @@ public class PdfUploadService {
             .pdfUrl(pdfUrl)
             .status(task.getStatus())
             .isBase(task.getIsBase())
+            .pageDimensions(pageDimensions)
+            .pageDiff(pageDiff)
             .errorMessage(task.getErrorMessage())
             .createdAt(task.getCreatedAt())
             .updatedAt(task.getUpdatedAt())
@@ -1022,6 +2124,25 @@ public class PdfUploadService {
                 .build();
         }
         
+        if ("READY".equals(baseTask.getStatus()) && lazyPageRenderService.isLazy(baseTask)) {
+            // 预览需要返回所有页面，按需渲染模式下先补齐未渲染的页面
+            List<Integer> allPages = new ArrayList<>();
+            for (int page = 1; page <= baseTask.getTotalPages(); page++) {
+                allPages.add(page);
+            }
+            try {
+                lazyPageRenderService.ensurePagesRendered(baseTask, allPages);
+            } catch (IOException e) {
+                log.error("On-demand rendering failed for preview, businessId: {}", request.getBusinessId(), e);
+                return PdfAnnotationPreviewResponse.builder()
+                    .status("ERROR")
+                    .message("Failed to render base pages: " + e.getMessage())
+                    .businessId(request.getBusinessId())
+                    .tenantId(request.getTenantId())
+                    .build();
+            }
+        }
+        
         List<PdfPageImage> baseImages = pageImageRepository.findByBusinessIdAndTenantIdAndIsBaseTrueOrderByPageNumberAsc(
             request.getBusinessId(), request.getTenantId());
         
@@ -0,0 +1,55 @@
+package com.example.minioupload.service;
+
+import java.io.ByteArrayOutputStream;
+
+/**
+ * 可复用的图片编码缓冲区
+ *
+ * 在ByteArrayOutputStream基础上暴露内部数组，上传时直接读取已写入的数据，避免toByteArray()的整块复制。
+ * 使用完毕后必须调用{@link #release()}归还到缓冲池。
+ */
+public class PooledImageBuffer extends ByteArrayOutputStream {
+
+    private final ImageBufferPool pool;
+
+    private boolean released;
+
+    PooledImageBuffer(ImageBufferPool pool, int initialCapacity) {
+        super(initialCapacity);
+        this.pool = pool;
+    }
+
+    /**
+     * 获取内部数组（有效数据长度为{@link #size()}）
+     *
+     * @return 内部数组
+     */
+    public byte[] array() {
+        return buf;
+    }
+
+    /**
+     * 当前内部数组容量
+     *
+     * @return 容量（字节）
+     */
+    public int capacity() {
+        return buf.length;
+    }
+
+    /**
+     * 归还到缓冲池，归还后不可再使用
+     */
+    public void release() {
+        if (released) {
+            return;
+        }
+        released = true;
+        pool.release(this);
+    }
+
+    void markAcquired() {
+        released = false;
+        reset();
+    }
+}
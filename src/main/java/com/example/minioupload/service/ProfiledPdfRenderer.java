@@ -0,0 +1,150 @@
+package com.example.minioupload.service;
+
+import com.example.minioupload.config.PdfConversionProperties;
+import com.example.minioupload.model.enums.RenderProfile;
+import org.apache.pdfbox.contentstream.operator.Operator;
+import org.apache.pdfbox.cos.COSBase;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.font.PDFont;
+import org.apache.pdfbox.pdmodel.font.PDType3Font;
+import org.apache.pdfbox.pdmodel.graphics.image.PDImage;
+import org.apache.pdfbox.rendering.PDFRenderer;
+import org.apache.pdfbox.rendering.PageDrawer;
+import org.apache.pdfbox.rendering.PageDrawerParameters;
+import org.apache.pdfbox.util.Matrix;
+import org.apache.pdfbox.util.Vector;
+
+import java.awt.RenderingHints;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * 按渲染档位配置的PDFRenderer
+ *
+ * - DRAFT：关闭抗锯齿、速度优先、最近邻插值，允许PDFBox对大图片子采样；draft-skip-images 时跳过图片
+ * - STANDARD：按 image-rendering 的 antialiasing、render-text、render-images 渲染；
+ *   三项均为默认值时不设置渲染提示，输出与PDFBox默认渲染一致
+ * - ARCHIVAL：质量优先、双三次插值、精确描边和小数字形度量，不做子采样，始终渲染全部内容
+ *
+ * 跳过图片/文字通过自定义PageDrawer实现：图片XObject和内联图片不解码，文字字形不绘制
+ * （文字仍按原样推进位置，不影响其他内容）。
+ * 同一个PageDrawer在每个内容流操作符之前检查 {@link ConversionControl}，转换被取消或超时时在页面中途停止渲染。
+ */
+class ProfiledPdfRenderer extends PDFRenderer {
+
+    private final boolean skipImages;
+    private final boolean skipText;
+    private final ConversionControl control;
+
+    ProfiledPdfRenderer(PDDocument document, RenderProfile profile, PdfConversionProperties.ImageRenderingConfig config,
+                        ConversionControl control) {
+        super(document);
+        this.control = control;
+        switch (profile) {
+            case DRAFT:
+                setSubsamplingAllowed(true);
+                setRenderingHints(draftHints());
+                skipImages = config.isDraftSkipImages() || !config.isRenderImages();
+                skipText = !config.isRenderText();
+                break;
+            case ARCHIVAL:
+                setSubsamplingAllowed(false);
+                setRenderingHints(archivalHints());
+                skipImages = false;
+                skipText = false;
+                break;
+            default:
+                if (!config.isAntialiasing()) {
+                    setRenderingHints(standardHintsWithoutAntialiasing());
+                }
+                skipImages = !config.isRenderImages();
+                skipText = !config.isRenderText();
+                break;
+        }
+    }
+
+    @Override
+    protected PageDrawer createPageDrawer(PageDrawerParameters parameters) throws IOException {
+        if (!skipImages && !skipText && control == null) {
+            return super.createPageDrawer(parameters);
+        }
+        return new ProfiledPageDrawer(parameters, skipImages, skipText, control);
+    }
+
+    private static RenderingHints draftHints() {
+        RenderingHints hints = new RenderingHints(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_OFF);
+        hints.put(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_OFF);
+        hints.put(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_SPEED);
+        hints.put(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
+        hints.put(RenderingHints.KEY_COLOR_RENDERING, RenderingHints.VALUE_COLOR_RENDER_SPEED);
+        hints.put(RenderingHints.KEY_ALPHA_INTERPOLATION, RenderingHints.VALUE_ALPHA_INTERPOLATION_SPEED);
+        return hints;
+    }
+
+    private static RenderingHints standardHintsWithoutAntialiasing() {
+        RenderingHints hints = new RenderingHints(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_OFF);
+        hints.put(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_OFF);
+        hints.put(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+        hints.put(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        return hints;
+    }
+
+    private static RenderingHints archivalHints() {
+        RenderingHints hints = new RenderingHints(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        hints.put(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        hints.put(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+        hints.put(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+        hints.put(RenderingHints.KEY_COLOR_RENDERING, RenderingHints.VALUE_COLOR_RENDER_QUALITY);
+        hints.put(RenderingHints.KEY_ALPHA_INTERPOLATION, RenderingHints.VALUE_ALPHA_INTERPOLATION_QUALITY);
+        hints.put(RenderingHints.KEY_STROKE_CONTROL, RenderingHints.VALUE_STROKE_PURE);
+        hints.put(RenderingHints.KEY_FRACTIONALMETRICS, RenderingHints.VALUE_FRACTIONALMETRICS_ON);
+        return hints;
+    }
+
+    /**
+     * 跳过图片或文字绘制、可中途停止的PageDrawer
+     */
+    private static class ProfiledPageDrawer extends PageDrawer {
+
+        private final boolean skipImages;
+        private final boolean skipText;
+        private final ConversionControl control;
+
+        ProfiledPageDrawer(PageDrawerParameters parameters, boolean skipImages, boolean skipText,
+                           ConversionControl control) throws IOException {
+            super(parameters);
+            this.skipImages = skipImages;
+            this.skipText = skipText;
+            this.control = control;
+        }
+
+        @Override
+        protected void processOperator(Operator operator, List<COSBase> operands) throws IOException {
+            if (control != null) {
+                control.throwIfAborted();
+            }
+            super.processOperator(operator, operands);
+        }
+
+        @Override
+        public void drawImage(PDImage pdImage) throws IOException {
+            if (!skipImages) {
+                super.drawImage(pdImage);
+            }
+        }
+
+        @Override
+        protected void showFontGlyph(Matrix textRenderingMatrix, PDFont font, int code, Vector displacement) throws IOException {
+            if (!skipText) {
+                super.showFontGlyph(textRenderingMatrix, font, code, displacement);
+            }
+        }
+
+        @Override
+        protected void showType3Glyph(Matrix textRenderingMatrix, PDType3Font font, int code, Vector displacement) throws IOException {
+            if (!skipText) {
+                super.showType3Glyph(textRenderingMatrix, font, code, displacement);
+            }
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package com.example.minioupload.service;
+
+import com.example.minioupload.config.PdfConversionProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.springframework.stereotype.Component;
+
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 渲染内存预算（全局准入控制）
+ *
+ * 渲染前根据页面裁剪框尺寸和DPI估算位图大小（宽×高×每像素字节数，ImageType.RGB的INT_RGB位图为4字节，
+ * 灰度位图为1字节），
+ * 在进程级预算内预留内存，位图编码完成后归还。预算不足时渲染线程按到达顺序阻塞等待。
+ *
+ * 单页估算超过整个预算时（例如300 DPI的A0图纸），自动降低该页DPI直到能放入预算，
+ * 最低降到 min-dpi；降到最低DPI仍放不下时，等待其他渲染全部结束后独占整个预算执行，
+ * 不会因多个超大页面同时渲染导致OOM。
+ *
+ * 配置：pdf.conversion.render-memory，未启用时不做任何限制。
+ */
+@Slf4j
+@Component
+public class RenderMemoryBudget {
+
+    /**
+     * ImageType.RGB渲染得到的INT_RGB位图每像素字节数
+     */
+    public static final double RGB_BYTES_PER_PIXEL = 4;
+    private static final float POINTS_PER_INCH = 72f;
+
+    private final PdfConversionProperties.RenderMemoryConfig config;
+    private final PdfConversionMetrics.RenderMemoryStats stats;
+    private final long budgetBytes;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    private final Deque<Thread> waiters = new ArrayDeque<>();
+    private long usedBytes;
+
+    public RenderMemoryBudget(PdfConversionProperties properties, PdfConversionMetrics metrics) {
+        this.config = properties.getRenderMemory();
+        this.budgetBytes = Math.max(1L, config.resolveBudgetBytes());
+        this.stats = metrics.renderMemory();
+        if (config.isEnabled()) {
+            stats.setBudgetBytes(budgetBytes);
+            log.info("Render memory budget enabled: {} bytes, min DPI: {}", budgetBytes, config.getMinDpi());
+        }
+    }
+
+    /**
+     * 估算页面按指定DPI渲染后的位图大小
+     *
+     * @param page PDF页面
+     * @param dpi 渲染DPI
+     * @return 估算字节数
+     */
+    public static long estimateBytes(PDPage page, int dpi) {
+        return estimateBytes(page, dpi, RGB_BYTES_PER_PIXEL);
+    }
+
+    /**
+     * 估算页面按指定DPI和每像素字节数渲染后的位图大小
+     *
+     * @param page PDF页面
+     * @param dpi 渲染DPI
+     * @param bytesPerPixel 每像素字节数
+     * @return 估算字节数
+     */
+    public static long estimateBytes(PDPage page, int dpi, double bytesPerPixel) {
+        PDRectangle cropBox = page.getCropBox();
+        float scale = dpi / POINTS_PER_INCH;
+        long width = Math.max(1, (int) Math.ceil(cropBox.getWidth() * scale));
+        long height = Math.max(1, (int) Math.ceil(cropBox.getHeight() * scale));
+        return (long) Math.ceil(width * height * bytesPerPixel);
+    }
+
+    /**
+     * 为页面渲染预留内存，预算不足时阻塞
+     *
+     * @param page PDF页面
+     * @param pageNumber 页码（用于日志）
+     * @param dpi 请求的DPI
+     * @return 预留结果，包含实际使用的DPI；位图释放后必须调用 {@link Reservation#close()}
+     * @throws InterruptedIOException 等待期间线程被中断
+     */
+    public Reservation reserve(PDPage page, int pageNumber, int dpi) throws InterruptedIOException {
+        return reserve(page, pageNumber, dpi, RGB_BYTES_PER_PIXEL);
+    }
+
+    /**
+     * 按指定每像素字节数为页面渲染预留内存（灰度渲染等），预算不足时阻塞
+     *
+     * @param page PDF页面
+     * @param pageNumber 页码（用于日志）
+     * @param dpi 请求的DPI
+     * @param bytesPerPixel 每像素字节数
+     * @return 预留结果
+     * @throws InterruptedIOException 等待期间线程被中断
+     */
+    public Reservation reserve(PDPage page, int pageNumber, int dpi, double bytesPerPixel) throws InterruptedIOException {
+        if (!config.isEnabled()) {
+            return new Reservation(this, 0L, dpi);
+        }
+
+        int effectiveDpi = dpi;
+        long bytes = estimateBytes(page, dpi, bytesPerPixel);
+        if (bytes > budgetBytes) {
+            effectiveDpi = downgradeDpi(page, dpi, bytesPerPixel);
+            bytes = estimateBytes(page, effectiveDpi, bytesPerPixel);
+            stats.recordDowngrade();
+            log.warn("Page {} needs {} bytes at {} DPI which exceeds render budget {} bytes, downgraded to {} DPI",
+                pageNumber, estimateBytes(page, dpi, bytesPerPixel), dpi, budgetBytes, effectiveDpi);
+        }
+
+        // 降到最低DPI仍超出预算时独占整个预算
+        long admitted = Math.min(bytes, budgetBytes);
+        acquire(admitted);
+        return new Reservation(this, admitted, effectiveDpi);
+    }
+
+    private int downgradeDpi(PDPage page, int dpi, double bytesPerPixel) {
+        int minDpi = Math.max(1, Math.min(config.getMinDpi(), dpi));
+        double ratio = Math.sqrt((double) budgetBytes / estimateBytes(page, dpi, bytesPerPixel));
+        int candidate = Math.max(minDpi, (int) Math.floor(dpi * ratio));
+        while (candidate > minDpi && estimateBytes(page, candidate, bytesPerPixel) > budgetBytes) {
+            candidate--;
+        }
+        return candidate;
+    }
+
+    private void acquire(long bytes) throws InterruptedIOException {
+        Thread current = Thread.currentThread();
+        long waitStart = System.nanoTime();
+        boolean waited = false;
+
+        lock.lock();
+        try {
+            waiters.addLast(current);
+            try {
+                while (waiters.peekFirst() != current || usedBytes + bytes > budgetBytes) {
+                    if (!waited) {
+                        waited = true;
+                        stats.waitingStarted(bytes);
+                    }
+                    changed.await();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for render memory budget");
+            } finally {
+                waiters.remove(current);
+                if (waited) {
+                    stats.waitingFinished(bytes, System.nanoTime() - waitStart);
+                }
+                changed.signalAll();
+            }
+
+            usedBytes += bytes;
+            stats.setUsedBytes(usedBytes);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void release(long bytes) {
+        if (bytes <= 0) {
+            return;
+        }
+        lock.lock();
+        try {
+            usedBytes -= bytes;
+            stats.setUsedBytes(usedBytes);
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 一次内存预留，位图不再使用后关闭以归还预算；重复关闭无副作用
+     */
+    public static class Reservation implements AutoCloseable {
+        private final RenderMemoryBudget budget;
+        private final long bytes;
+        private final int dpi;
+        private boolean released;
+
+        Reservation(RenderMemoryBudget budget, long bytes, int dpi) {
+            this.budget = budget;
+            this.bytes = bytes;
+            this.dpi = dpi;
+        }
+
+        /**
+         * 实际渲染使用的DPI（可能低于请求值）
+         */
+        public int getDpi() {
+            return dpi;
+        }
+
+        @Override
+        public synchronized void close() {
+            if (!released) {
+                released = true;
+                budget.release(bytes);
+            }
+        }
+    }
+}
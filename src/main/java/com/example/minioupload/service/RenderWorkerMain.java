@@ -0,0 +1,128 @@
+package com.example.minioupload.service;
+
+import com.example.minioupload.config.PdfConversionProperties;
+import com.example.minioupload.model.enums.RenderProfile;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.pdfbox.rendering.ImageType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.awt.image.BufferedImage;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+
+/**
+ * 渲染子进程入口，由 {@link RenderWorkerPool} 启动
+ *
+ * 参数：父进程监听端口、令牌、临时目录。连接父进程并发送令牌后逐个处理渲染请求，
+ * 最近一次使用的文档保持打开，同一文档的后续页面不再重新加载。
+ * 父进程断开连接或发送关闭指令时退出；内存溢出时由 -XX:+ExitOnOutOfMemoryError 直接结束进程。
+ */
+@Slf4j
+public final class RenderWorkerMain {
+
+    private final PdfConversionProperties properties;
+    private PdfDocumentSession session;
+    private String sessionKey;
+
+    private RenderWorkerMain(PdfConversionProperties properties) {
+        this.properties = properties;
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 3) {
+            System.err.println("Usage: RenderWorkerMain <port> <token> <temp-directory>");
+            System.exit(2);
+        }
+        quietLogging();
+
+        PdfConversionProperties properties = new PdfConversionProperties();
+        properties.setTempDirectory(args[2]);
+
+        int exitCode = 0;
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), Integer.parseInt(args[0]))) {
+            socket.setTcpNoDelay(true);
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream(), 64 * 1024));
+            out.writeLong(Long.parseLong(args[1]));
+            out.flush();
+            new RenderWorkerMain(properties).serve(in, out);
+        } catch (IOException e) {
+            log.warn("Render worker connection failed", e);
+            exitCode = 1;
+        }
+        // 字体、图片解码等库可能留有非守护线程
+        System.exit(exitCode);
+    }
+
+    private void serve(DataInputStream in, DataOutputStream out) throws IOException {
+        try {
+            // 读到关闭指令或连接断开时退出
+            while (in.read() == RenderWorkerProtocol.OP_RENDER) {
+                RenderWorkerProtocol.RenderRequest request = RenderWorkerProtocol.RenderRequest.read(in);
+                BufferedImage image;
+                try {
+                    image = render(request);
+                } catch (IOException | RuntimeException e) {
+                    out.writeByte(RenderWorkerProtocol.STATUS_ERROR);
+                    out.writeUTF(String.valueOf(e.getMessage()));
+                    out.flush();
+                    continue;
+                }
+                out.writeByte(RenderWorkerProtocol.STATUS_OK);
+                RenderWorkerProtocol.writeImage(out, image);
+                out.flush();
+            }
+        } finally {
+            closeSession();
+        }
+    }
+
+    private BufferedImage render(RenderWorkerProtocol.RenderRequest request) throws IOException {
+        String key = request.getPath() + "|" + request.getFileLength() + "|" + request.getLastModified();
+        if (!key.equals(sessionKey)) {
+            closeSession();
+            session = PdfDocumentSession.open(new File(request.getPath()), properties);
+            sessionKey = key;
+        }
+
+        PdfConversionProperties.ImageRenderingConfig config = new PdfConversionProperties.ImageRenderingConfig();
+        config.setAntialiasing(request.isAntialiasing());
+        config.setRenderText(request.isRenderText());
+        config.setRenderImages(request.isRenderImages());
+        config.setDraftSkipImages(request.isDraftSkipImages());
+        ProfiledPdfRenderer renderer = new ProfiledPdfRenderer(session.getDocument(),
+            RenderProfile.fromCode(request.getProfile()), config, null);
+        return renderer.renderImage(request.getPageIndex(), request.getScale(),
+            ImageType.values()[request.getImageType()]);
+    }
+
+    private void closeSession() {
+        if (session == null) {
+            return;
+        }
+        try {
+            session.close();
+        } catch (IOException e) {
+            log.warn("Failed to close document {}", session.getFile(), e);
+        }
+        session = null;
+        sessionKey = null;
+    }
+
+    /**
+     * 子进程没有Spring Boot的日志配置，默认会输出PDFBox的DEBUG日志
+     */
+    private static void quietLogging() {
+        Logger root = LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME);
+        if (root instanceof ch.qos.logback.classic.Logger) {
+            ((ch.qos.logback.classic.Logger) root).setLevel(ch.qos.logback.classic.Level.WARN);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.minioupload.service;
+
+import com.example.minioupload.config.PdfConversionProperties;
+import com.example.minioupload.model.enums.RenderProfile;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.rendering.ImageType;
+import org.apache.pdfbox.rendering.PDFRenderer;
+import org.apache.pdfbox.rendering.RenderDestination;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * 把页面渲染转交给 {@link RenderWorkerPool} 的PDFRenderer
+ *
+ * 所有 renderImage/renderImageWithDPI 重载最终都经过 {@link #renderImage(int, float, ImageType, RenderDestination)}，
+ * 调用方（颜色模式采样、整页渲染）无需区分进程内渲染和子进程渲染。
+ * 子进程按相同的渲染档位和 image-rendering 配置创建 {@link ProfiledPdfRenderer}，输出与进程内渲染一致；
+ * 渲染目标固定为PDFBox默认的EXPORT。
+ */
+class RenderWorkerPdfRenderer extends PDFRenderer {
+
+    private final RenderWorkerPool pool;
+    private final File file;
+    private final RenderProfile profile;
+    private final PdfConversionProperties.ImageRenderingConfig config;
+    private final ConversionControl control;
+
+    RenderWorkerPdfRenderer(PDDocument document, File file, RenderWorkerPool pool, RenderProfile profile,
+                            PdfConversionProperties.ImageRenderingConfig config, ConversionControl control) {
+        super(document);
+        this.pool = pool;
+        this.file = file;
+        this.profile = profile;
+        this.config = config;
+        this.control = control;
+    }
+
+    @Override
+    public BufferedImage renderImage(int pageIndex, float scale, ImageType imageType, RenderDestination destination)
+            throws IOException {
+        if (control != null) {
+            control.throwIfAborted();
+        }
+        RenderWorkerProtocol.RenderRequest request = RenderWorkerProtocol.RenderRequest.builder()
+            .path(file.getAbsolutePath())
+            .fileLength(file.length())
+            .lastModified(file.lastModified())
+            .pageIndex(pageIndex)
+            .scale(scale)
+            .imageType(imageType.ordinal())
+            .profile(profile.name())
+            .antialiasing(config.isAntialiasing())
+            .renderText(config.isRenderText())
+            .renderImages(config.isRenderImages())
+            .draftSkipImages(config.isDraftSkipImages())
+            .build();
+        return pool.render(request, control);
+    }
+}
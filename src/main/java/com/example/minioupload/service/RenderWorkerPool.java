@@ -0,0 +1,437 @@
+package com.example.minioupload.service;
+
+import com.example.minioupload.config.PdfConversionProperties;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.file.Paths;
+import java.security.SecureRandom;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.jar.JarFile;
+
+/**
+ * 渲染子进程池
+ *
+ * 开启 render-worker 后页面不在Web进程内渲染，而是交给子JVM（{@link RenderWorkerMain}）：
+ * - 每个子进程有自己的 -Xmx，PDF解析、图片解码和光栅化占用的内存不计入Web进程的堆，
+ *   子进程内存溢出（-XX:+ExitOnOutOfMemoryError）或崩溃时只有当前页面失败
+ * - 子进程通过回环地址上的socket与父进程通信，一问一答，位图以原始像素传回
+ * - 等待渲染结果时定期检查 {@link ConversionControl}，任务取消、超时或单次渲染超过 render-timeout-seconds 时
+ *   直接结束子进程，不依赖渲染代码配合
+ * - 子进程按需启动，最多 pool-size 个；渲染 max-jobs-per-worker 次后退出，由新进程替换，避免长期运行的内存碎片和泄漏
+ * - 空闲时优先选用最近渲染过同一文件的子进程，复用其中已打开的文档
+ *
+ * 配置：pdf.conversion.render-worker
+ */
+@Slf4j
+@Component
+public class RenderWorkerPool {
+
+    private static final long POLL_MILLIS = 200L;
+    private static final long RESPONSE_BODY_TIMEOUT_MILLIS = 60_000L;
+    private static final String BOOT_LAUNCHER = "org.springframework.boot.loader.launch.PropertiesLauncher";
+
+    private final PdfConversionProperties properties;
+    private final PdfConversionProperties.RenderWorkerConfig config;
+    private final PdfConversionMetrics.RenderWorkerStats stats;
+    private final Semaphore permits;
+    private final Deque<RenderWorker> idleWorkers = new ArrayDeque<>();
+    private final Set<RenderWorker> workers = ConcurrentHashMap.newKeySet();
+    private final SecureRandom random = new SecureRandom();
+    private volatile List<String> launchArguments;
+    private volatile boolean closed;
+
+    public RenderWorkerPool(PdfConversionProperties properties, PdfConversionMetrics metrics) {
+        this.properties = properties;
+        this.config = properties.getRenderWorker();
+        this.stats = metrics.renderWorker();
+        this.permits = new Semaphore(Math.max(1, config.getPoolSize()), true);
+    }
+
+    public boolean isEnabled() {
+        return config.isEnabled();
+    }
+
+    /**
+     * 在子进程中渲染一页，没有空闲子进程时等待
+     *
+     * @param request 渲染请求
+     * @param control 取消控制，为空时只受 render-timeout-seconds 限制
+     * @return 渲染结果
+     * @throws IOException 子进程渲染失败、退出或超时时抛出
+     * @throws ConversionAbortedException 等待期间任务被取消或超时
+     */
+    BufferedImage render(RenderWorkerProtocol.RenderRequest request, ConversionControl control) throws IOException {
+        acquirePermit(control);
+        RenderWorker worker = null;
+        try {
+            worker = takeIdleWorker(request.getPath());
+            if (worker == null) {
+                worker = startWorker(control);
+            }
+            return worker.render(request, control);
+        } finally {
+            if (worker != null) {
+                releaseWorker(worker);
+            }
+            permits.release();
+        }
+    }
+
+    private void acquirePermit(ConversionControl control) throws IOException {
+        try {
+            while (!permits.tryAcquire(POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+                if (control != null) {
+                    control.throwIfAborted();
+                }
+            }
+        } catch (InterruptedException e) {
+            if (control != null) {
+                control.throwIfAborted();
+            }
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a render worker");
+        }
+    }
+
+    private synchronized RenderWorker takeIdleWorker(String path) {
+        for (Iterator<RenderWorker> it = idleWorkers.iterator(); it.hasNext(); ) {
+            RenderWorker worker = it.next();
+            if (path.equals(worker.lastPath)) {
+                it.remove();
+                return worker;
+            }
+        }
+        return idleWorkers.pollFirst();
+    }
+
+    private void releaseWorker(RenderWorker worker) {
+        if (worker.stopped) {
+            return;
+        }
+        int maxJobs = config.getMaxJobsPerWorker();
+        if (closed || (maxJobs > 0 && worker.jobs >= maxJobs)) {
+            worker.shutdown();
+            return;
+        }
+        synchronized (this) {
+            idleWorkers.addFirst(worker);
+        }
+    }
+
+    private RenderWorker startWorker(ConversionControl control) throws IOException {
+        if (closed) {
+            throw new IOException("Render worker pool is closed");
+        }
+        long token = random.nextLong();
+        long startNanos = System.nanoTime();
+        try (ServerSocket server = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            server.setSoTimeout((int) POLL_MILLIS);
+            List<String> command = new ArrayList<>(launchArguments());
+            command.add(String.valueOf(server.getLocalPort()));
+            command.add(String.valueOf(token));
+            command.add(properties.getTempDirectory());
+            Process process = new ProcessBuilder(command)
+                .redirectOutput(ProcessBuilder.Redirect.INHERIT)
+                .redirectError(ProcessBuilder.Redirect.INHERIT)
+                .start();
+            try {
+                Socket socket = accept(server, process, token, startNanos, control);
+                RenderWorker worker = new RenderWorker(process, socket);
+                workers.add(worker);
+                stats.recordStarted();
+                log.info("Started render worker pid {} in {}ms", process.pid(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+                return worker;
+            } catch (IOException | RuntimeException e) {
+                process.destroyForcibly();
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * 等待子进程连接并校验令牌，其他本地进程的连接直接关闭；启动期间任务被取消或超时时放弃启动
+     */
+    private Socket accept(ServerSocket server, Process process, long token, long startNanos,
+                          ConversionControl control) throws IOException {
+        long timeoutNanos = TimeUnit.SECONDS.toNanos(Math.max(1, config.getStartTimeoutSeconds()));
+        while (true) {
+            if (control != null) {
+                control.throwIfAborted();
+            }
+            if (!process.isAlive()) {
+                throw new IOException("Render worker exited during startup with code " + process.exitValue());
+            }
+            if (System.nanoTime() - startNanos > timeoutNanos) {
+                throw new IOException("Render worker did not connect within " + config.getStartTimeoutSeconds() + " seconds");
+            }
+            Socket socket;
+            try {
+                socket = server.accept();
+            } catch (SocketTimeoutException e) {
+                continue;
+            }
+            try {
+                socket.setSoTimeout((int) POLL_MILLIS * 5);
+                socket.setTcpNoDelay(true);
+                if (new DataInputStream(socket.getInputStream()).readLong() == token) {
+                    return socket;
+                }
+            } catch (IOException e) {
+                log.debug("Rejected render worker connection from {}", socket.getRemoteSocketAddress(), e);
+            }
+            socket.close();
+        }
+    }
+
+    /**
+     * 子进程启动命令（不含端口、令牌和临时目录参数）
+     *
+     * 以Spring Boot可执行jar运行时类和依赖都在jar内，通过PropertiesLauncher的loader.main启动子进程入口；
+     * 否则（IDE、mvn spring-boot:run）直接使用当前类路径。
+     */
+    private List<String> launchArguments() throws IOException {
+        List<String> arguments = launchArguments;
+        if (arguments != null) {
+            return arguments;
+        }
+        arguments = new ArrayList<>();
+        String javaCommand = config.getJavaCommand();
+        arguments.add(javaCommand == null || javaCommand.isBlank()
+            ? Paths.get(System.getProperty("java.home"), "bin", "java").toString() : javaCommand);
+        arguments.add("-Xmx" + config.getMaxHeap());
+        arguments.add("-XX:+ExitOnOutOfMemoryError");
+        arguments.add("-Djava.awt.headless=true");
+        String jvmOptions = config.getJvmOptions();
+        if (jvmOptions != null && !jvmOptions.isBlank()) {
+            arguments.addAll(List.of(jvmOptions.trim().split("\\s+")));
+        }
+
+        String classPath = System.getProperty("java.class.path");
+        arguments.add("-cp");
+        arguments.add(classPath);
+        if (isBootJar(classPath)) {
+            arguments.add("-Dloader.main=" + RenderWorkerMain.class.getName());
+            arguments.add(BOOT_LAUNCHER);
+        } else {
+            arguments.add(RenderWorkerMain.class.getName());
+        }
+        launchArguments = List.copyOf(arguments);
+        return launchArguments;
+    }
+
+    private static boolean isBootJar(String classPath) throws IOException {
+        if (classPath.contains(File.pathSeparator) || !classPath.endsWith(".jar")) {
+            return false;
+        }
+        try (JarFile jar = new JarFile(classPath)) {
+            return jar.getEntry("BOOT-INF/classes/") != null;
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        closed = true;
+        List<RenderWorker> idle;
+        synchronized (this) {
+            idle = new ArrayList<>(idleWorkers);
+            idleWorkers.clear();
+        }
+        idle.forEach(RenderWorker::shutdown);
+        // 仍在渲染的子进程直接结束
+        for (RenderWorker worker : workers) {
+            worker.process.destroyForcibly();
+        }
+    }
+
+    /**
+     * 单个子进程，同一时刻只由一个渲染线程使用
+     */
+    private class RenderWorker {
+
+        private final Process process;
+        private final Socket socket;
+        private final DataInputStream in;
+        private final DataOutputStream out;
+        private int jobs;
+        private String lastPath;
+        private volatile boolean stopped;
+
+        RenderWorker(Process process, Socket socket) throws IOException {
+            this.process = process;
+            this.socket = socket;
+            this.in = new DataInputStream(new BufferedInputStream(socket.getInputStream(), 64 * 1024));
+            this.out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        }
+
+        BufferedImage render(RenderWorkerProtocol.RenderRequest request, ConversionControl control) throws IOException {
+            jobs++;
+            lastPath = request.getPath();
+            int pageNumber = request.getPageIndex() + 1;
+            try {
+                socket.setSoTimeout((int) POLL_MILLIS);
+                request.write(out);
+                out.flush();
+            } catch (IOException e) {
+                throw crashed("Failed to send page " + pageNumber + " to render worker", e);
+            }
+
+            int status = awaitResponse(pageNumber, control);
+            if (status == RenderWorkerProtocol.STATUS_ERROR) {
+                String message;
+                try {
+                    message = in.readUTF();
+                } catch (IOException e) {
+                    throw crashed("Failed to receive page " + pageNumber + " from render worker", e);
+                }
+                // 页面本身渲染失败，子进程仍可继续使用
+                throw new IOException("Render worker failed to render page " + pageNumber + ": " + message);
+            }
+            try {
+                // 结果在子进程渲染完成后一次写出，读取位图时不再轮询
+                socket.setSoTimeout((int) RESPONSE_BODY_TIMEOUT_MILLIS);
+                BufferedImage image = RenderWorkerProtocol.readImage(in);
+                DataBuffer buffer = image.getRaster().getDataBuffer();
+                stats.recordRender((long) buffer.getSize() * DataBuffer.getDataTypeSize(buffer.getDataType()) / 8);
+                return image;
+            } catch (IOException e) {
+                throw crashed("Failed to receive page " + pageNumber + " from render worker", e);
+            }
+        }
+
+        /**
+         * 等待响应的第一个字节，期间检查取消、线程中断和渲染超时
+         */
+        private int awaitResponse(int pageNumber, ConversionControl control) throws IOException {
+            long timeoutNanos = TimeUnit.SECONDS.toNanos(Math.max(0, config.getRenderTimeoutSeconds()));
+            long startNanos = System.nanoTime();
+            while (true) {
+                int status;
+                try {
+                    status = in.read();
+                } catch (SocketTimeoutException e) {
+                    if (control != null && control.isAborted()) {
+                        kill("page " + pageNumber + " aborted: " + control.getAbortMessage());
+                        control.throwIfAborted();
+                    }
+                    if (Thread.interrupted()) {
+                        kill("page " + pageNumber + " interrupted");
+                        throw new InterruptedIOException("Interrupted while rendering page " + pageNumber);
+                    }
+                    if (timeoutNanos > 0 && System.nanoTime() - startNanos > timeoutNanos) {
+                        kill("page " + pageNumber + " exceeded " + config.getRenderTimeoutSeconds() + " seconds");
+                        throw new IOException("Render worker timed out on page " + pageNumber + " after "
+                            + config.getRenderTimeoutSeconds() + " seconds");
+                    }
+                    continue;
+                } catch (IOException e) {
+                    throw crashed("Lost connection to render worker on page " + pageNumber, e);
+                }
+                if (status == -1) {
+                    throw crashed("Render worker exited while rendering page " + pageNumber, null);
+                }
+                return status;
+            }
+        }
+
+        /**
+         * 取消或超时：强制结束子进程
+         */
+        private void kill(String reason) {
+            if (stop()) {
+                process.destroyForcibly();
+                closeSocket();
+                stats.recordKilled();
+                log.warn("Killed render worker pid {}: {}", process.pid(), reason);
+            }
+        }
+
+        /**
+         * 通信失败或子进程退出：结束子进程，返回带退出码的异常
+         */
+        private IOException crashed(String message, IOException cause) {
+            if (stop()) {
+                process.destroyForcibly();
+                closeSocket();
+                stats.recordCrashed();
+            }
+            String exit = "";
+            try {
+                if (process.waitFor(2, TimeUnit.SECONDS)) {
+                    // ExitOnOutOfMemoryError 的退出码为3
+                    exit = " (exit code " + process.exitValue() + (process.exitValue() == 3 ? ", out of memory" : "") + ")";
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            log.warn("{}{}, pid {}", message, exit, process.pid());
+            return new IOException(message + exit, cause);
+        }
+
+        /**
+         * 达到回收次数或应用关闭：通知子进程退出，未按时退出时强制结束
+         */
+        void shutdown() {
+            if (!stop()) {
+                return;
+            }
+            try {
+                out.writeByte(RenderWorkerProtocol.OP_SHUTDOWN);
+                out.flush();
+            } catch (IOException e) {
+                log.debug("Failed to send shutdown to render worker pid {}", process.pid(), e);
+            }
+            closeSocket();
+            process.onExit()
+                .orTimeout(10, TimeUnit.SECONDS)
+                .exceptionally(e -> {
+                    process.destroyForcibly();
+                    return null;
+                });
+            stats.recordRecycled();
+            log.debug("Recycled render worker pid {} after {} renders", process.pid(), jobs);
+        }
+
+        private boolean stop() {
+            synchronized (this) {
+                if (stopped) {
+                    return false;
+                }
+                stopped = true;
+            }
+            workers.remove(this);
+            return true;
+        }
+
+        private void closeSocket() {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                log.debug("Failed to close render worker socket", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.example.minioupload.service;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * 渲染子进程与Web进程之间的通信协议
+ *
+ * 子进程启动后连接父进程在回环地址上监听的端口，先发送启动参数中的令牌，之后一问一答：
+ * - 请求：1字节操作码，渲染请求随后为 {@link RenderRequest} 各字段
+ * - 响应：1字节状态，成功时随后为位图（宽、高、BufferedImage类型、数据长度、像素数据），失败时为错误信息
+ *
+ * 位图按原始像素传输，不做编码，父进程重建为同类型的BufferedImage后走原有的编码和上传流程。
+ */
+final class RenderWorkerProtocol {
+
+    static final int OP_RENDER = 1;
+    static final int OP_SHUTDOWN = 2;
+
+    static final int STATUS_OK = 0;
+    static final int STATUS_ERROR = 1;
+
+    private static final int CHUNK_BYTES = 64 * 1024;
+
+    private RenderWorkerProtocol() {
+    }
+
+    /**
+     * 单页渲染请求
+     */
+    @Data
+    @Builder
+    static class RenderRequest {
+        /**
+         * PDF文件绝对路径，子进程直接读取本机文件
+         */
+        private String path;
+
+        /**
+         * 文件大小和修改时间，与路径一起判断子进程中已打开的文档能否复用
+         */
+        private long fileLength;
+        private long lastModified;
+
+        private int pageIndex;
+        private float scale;
+        private int imageType;
+
+        private String profile;
+        private boolean antialiasing;
+        private boolean renderText;
+        private boolean renderImages;
+        private boolean draftSkipImages;
+
+        void write(DataOutputStream out) throws IOException {
+            out.writeByte(OP_RENDER);
+            out.writeUTF(path);
+            out.writeLong(fileLength);
+            out.writeLong(lastModified);
+            out.writeInt(pageIndex);
+            out.writeFloat(scale);
+            out.writeByte(imageType);
+            out.writeUTF(profile);
+            out.writeBoolean(antialiasing);
+            out.writeBoolean(renderText);
+            out.writeBoolean(renderImages);
+            out.writeBoolean(draftSkipImages);
+        }
+
+        /**
+         * 读取操作码之后的请求内容
+         */
+        static RenderRequest read(DataInputStream in) throws IOException {
+            return RenderRequest.builder()
+                .path(in.readUTF())
+                .fileLength(in.readLong())
+                .lastModified(in.readLong())
+                .pageIndex(in.readInt())
+                .scale(in.readFloat())
+                .imageType(in.readUnsignedByte())
+                .profile(in.readUTF())
+                .antialiasing(in.readBoolean())
+                .renderText(in.readBoolean())
+                .renderImages(in.readBoolean())
+                .draftSkipImages(in.readBoolean())
+                .build();
+        }
+    }
+
+    /**
+     * 写出位图，支持PDFBox渲染产生的 TYPE_INT_RGB、TYPE_INT_ARGB、TYPE_BYTE_GRAY、TYPE_BYTE_BINARY
+     */
+    static void writeImage(DataOutputStream out, BufferedImage image) throws IOException {
+        DataBuffer buffer = image.getRaster().getDataBuffer();
+        out.writeInt(image.getWidth());
+        out.writeInt(image.getHeight());
+        out.writeInt(image.getType());
+        if (buffer instanceof DataBufferInt) {
+            int[] data = ((DataBufferInt) buffer).getData();
+            out.writeInt(data.length * 4);
+            ByteBuffer chunk = ByteBuffer.allocate(CHUNK_BYTES);
+            for (int offset = 0; offset < data.length; ) {
+                int count = Math.min(CHUNK_BYTES / 4, data.length - offset);
+                chunk.clear();
+                chunk.asIntBuffer().put(data, offset, count);
+                out.write(chunk.array(), 0, count * 4);
+                offset += count;
+            }
+        } else if (buffer instanceof DataBufferByte) {
+            byte[] data = ((DataBufferByte) buffer).getData();
+            out.writeInt(data.length);
+            out.write(data);
+        } else {
+            throw new IOException("Unsupported image buffer: " + buffer.getClass().getSimpleName());
+        }
+    }
+
+    /**
+     * 读取位图
+     *
+     * @return 位图，数据长度与重建的位图不一致时抛出IOException
+     */
+    static BufferedImage readImage(DataInputStream in) throws IOException {
+        int width = in.readInt();
+        int height = in.readInt();
+        int type = in.readInt();
+        int length = in.readInt();
+        if (width <= 0 || height <= 0 || (long) width * height > Integer.MAX_VALUE
+                || (type != BufferedImage.TYPE_INT_RGB && type != BufferedImage.TYPE_INT_ARGB
+                    && type != BufferedImage.TYPE_BYTE_GRAY && type != BufferedImage.TYPE_BYTE_BINARY)) {
+            throw new IOException("Invalid image header: " + width + "x" + height + ", type " + type);
+        }
+
+        BufferedImage image = new BufferedImage(width, height, type);
+        DataBuffer buffer = image.getRaster().getDataBuffer();
+        if (buffer instanceof DataBufferInt) {
+            int[] data = ((DataBufferInt) buffer).getData();
+            if (length != data.length * 4) {
+                throw new IOException("Image data length mismatch: " + length);
+            }
+            byte[] chunk = new byte[CHUNK_BYTES];
+            for (int offset = 0; offset < data.length; ) {
+                int count = Math.min(CHUNK_BYTES / 4, data.length - offset);
+                in.readFully(chunk, 0, count * 4);
+                ByteBuffer.wrap(chunk, 0, count * 4).asIntBuffer().get(data, offset, count);
+                offset += count;
+            }
+        } else {
+            byte[] data = ((DataBufferByte) buffer).getData();
+            if (length != data.length) {
+                throw new IOException("Image data length mismatch: " + length);
+            }
+            in.readFully(data);
+        }
+        return image;
+    }
+}
@@ -0,0 +1,160 @@
+package com.example.minioupload.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.pdfbox.cos.COSArray;
+import org.apache.pdfbox.cos.COSBase;
+import org.apache.pdfbox.cos.COSDictionary;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.cos.COSObject;
+import org.apache.pdfbox.pdmodel.DefaultResourceCache;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.font.PDFont;
+import org.apache.pdfbox.pdmodel.font.PDType3Font;
+import org.apache.pdfbox.pdmodel.graphics.PDXObject;
+import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 文档会话的资源缓存
+ *
+ * 在PDFBox默认资源缓存的基础上：
+ * - 字体先按内容哈希向 {@link SharedFontCache} 借用，本文档解析的嵌入字体在会话关闭时归还，供其他文档复用；
+ *   Type3字体的字形是引用本文档的内容流，不参与共享
+ * - 可选地不缓存图片XObject（大文档避免已解码的整页扫描图一直占用堆内存）
+ *
+ * 每个文档一个实例，非线程安全。
+ */
+@Slf4j
+final class SessionResourceCache extends DefaultResourceCache {
+
+    private static final String FONT_SIGNATURE = "font";
+
+    private final SharedFontCache sharedFonts;
+    private final boolean cacheImages;
+    private final PageFingerprinter fingerprinter;
+    private final Map<COSObject, String> fontKeys = new IdentityHashMap<>();
+    private final Map<String, PDFont> ownedFonts = new HashMap<>();
+
+    SessionResourceCache(PDDocument document, SharedFontCache sharedFonts, boolean cacheImages) {
+        this.sharedFonts = sharedFonts;
+        this.cacheImages = cacheImages;
+        this.fingerprinter = sharedFonts != null ? new PageFingerprinter(document, FONT_SIGNATURE) : null;
+    }
+
+    @Override
+    public PDFont getFont(COSObject indirect) {
+        PDFont font = super.getFont(indirect);
+        if (font != null || sharedFonts == null) {
+            return font;
+        }
+        String key = fontKey(indirect);
+        if (key == null) {
+            return null;
+        }
+        font = ownedFonts.get(key);
+        if (font == null) {
+            font = sharedFonts.checkout(key);
+            if (font == null) {
+                return null;
+            }
+            ownedFonts.put(key, font);
+        }
+        super.put(indirect, font);
+        return font;
+    }
+
+    @Override
+    public void put(COSObject indirect, PDFont font) {
+        super.put(indirect, font);
+        if (sharedFonts != null && isShareable(font)) {
+            String key = fontKey(indirect);
+            if (key != null) {
+                ownedFonts.putIfAbsent(key, font);
+            }
+        }
+    }
+
+    @Override
+    public void put(COSObject indirect, PDXObject xobject) {
+        if (cacheImages || !(xobject instanceof PDImageXObject)) {
+            super.put(indirect, xobject);
+        }
+    }
+
+    /**
+     * 把本文档持有的共享字体归还到共享缓存，需在文档关闭前调用
+     *
+     * 归还前解析字体对象引用的全部间接对象，文档关闭后字体仍可在其他文档中使用。
+     */
+    void release() {
+        if (sharedFonts == null) {
+            return;
+        }
+        for (Map.Entry<String, PDFont> entry : ownedFonts.entrySet()) {
+            try {
+                resolve(entry.getValue().getCOSObject());
+                sharedFonts.giveBack(entry.getKey(), entry.getValue());
+            } catch (RuntimeException e) {
+                log.debug("Font {} not returned to shared cache", entry.getValue().getName(), e);
+            }
+        }
+        ownedFonts.clear();
+        fontKeys.clear();
+    }
+
+    private String fontKey(COSObject indirect) {
+        if (fontKeys.containsKey(indirect)) {
+            return fontKeys.get(indirect);
+        }
+        String key = null;
+        COSBase base = indirect.getObject();
+        if (base instanceof COSDictionary && !COSName.TYPE3.equals(((COSDictionary) base).getCOSName(COSName.SUBTYPE))) {
+            try {
+                key = fingerprinter.digest(base);
+            } catch (IOException | RuntimeException e) {
+                log.debug("Failed to hash font object {}", indirect, e);
+            }
+        }
+        fontKeys.put(indirect, key);
+        return key;
+    }
+
+    private static boolean isShareable(PDFont font) {
+        return !(font instanceof PDType3Font) && font.isEmbedded();
+    }
+
+    /**
+     * 解析对象树中的全部间接引用（不读取流数据）
+     */
+    private static void resolve(COSBase root) {
+        Set<COSBase> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+        Deque<COSBase> pending = new ArrayDeque<>();
+        pending.push(root);
+        while (!pending.isEmpty()) {
+            COSBase base = pending.pop();
+            if (base instanceof COSObject) {
+                base = ((COSObject) base).getObject();
+            }
+            if (base == null || !visited.add(base)) {
+                continue;
+            }
+            if (base instanceof COSDictionary) {
+                for (COSBase value : ((COSDictionary) base).getValues()) {
+                    pending.push(value);
+                }
+            } else if (base instanceof COSArray) {
+                for (COSBase value : (COSArray) base) {
+                    pending.push(value);
+                }
+            }
+        }
+    }
+}
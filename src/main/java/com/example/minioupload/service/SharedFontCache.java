@@ -0,0 +1,80 @@
+package com.example.minioupload.service;
+
+import com.example.minioupload.config.PdfConversionProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.pdfbox.pdmodel.font.PDFont;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 跨文档共享的已解析字体缓存
+ *
+ * 以字体对象内容（字体字典、字体描述符和字体程序原始字节）的SHA-256为键保存PDFont。
+ * 嵌入字体的解析（Type1/CFF/TrueType字体程序、ToUnicode、CIDToGIDMap）在构造PDFont时完成，
+ * 同一字体出现在多个文档中（模板生成的文档、同一文档的多个渲染线程）时只需解析一次。
+ *
+ * PDFont内部有非线程安全的缓存，因此字体以借出/归还方式使用：文档借出后由该文档独占，
+ * 文档关闭时归还；同一字体被多个文档同时需要时，后来的文档自行解析，归还时只保留一份。
+ * 缓存按最近使用顺序淘汰，最多保留 font-cache.max-fonts 个字体。
+ */
+@Slf4j
+@Component
+public class SharedFontCache {
+
+    private final int maxFonts;
+    private final PdfConversionMetrics.FontCacheStats stats;
+    private final LinkedHashMap<String, PDFont> fonts = new LinkedHashMap<>(16, 0.75f, true);
+
+    public SharedFontCache(PdfConversionProperties properties, PdfConversionMetrics metrics) {
+        this.maxFonts = Math.max(0, properties.getFontCache().getMaxFonts());
+        this.stats = metrics.fontCache();
+    }
+
+    /**
+     * 借出字体，借出期间其他文档取不到该字体
+     *
+     * @param key 字体内容哈希
+     * @return 已解析的字体，不存在时返回null
+     */
+    public synchronized PDFont checkout(String key) {
+        PDFont font = fonts.remove(key);
+        if (font != null) {
+            stats.recordHit();
+        } else {
+            stats.recordMiss();
+        }
+        stats.setCachedFonts(fonts.size());
+        return font;
+    }
+
+    /**
+     * 归还字体；已有相同字体时丢弃，超出容量时淘汰最久未使用的字体
+     *
+     * @param key 字体内容哈希
+     * @param font 字体
+     */
+    public synchronized void giveBack(String key, PDFont font) {
+        if (maxFonts == 0 || fonts.containsKey(key)) {
+            return;
+        }
+        fonts.put(key, font);
+        stats.recordReturned();
+        Iterator<Map.Entry<String, PDFont>> iterator = fonts.entrySet().iterator();
+        while (fonts.size() > maxFonts && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+            stats.recordEvicted();
+        }
+        stats.setCachedFonts(fonts.size());
+    }
+
+    /**
+     * 当前缓存的字体数
+     */
+    public synchronized int size() {
+        return fonts.size();
+    }
+}
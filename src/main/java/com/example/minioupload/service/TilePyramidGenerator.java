@@ -0,0 +1,133 @@
+package com.example.minioupload.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 深度缩放（Deep Zoom）瓦片金字塔生成器
+ *
+ * 按DZI规范把整页位图切分为多级瓦片：
+ * - 最高级 maxLevel = ceil(log2(max(宽, 高)))，对应原始分辨率
+ * - 每降一级宽高减半（逐级由上一级双线性缩小得到），第0级为1×1像素
+ * - 每级按 tileSize 切分，文件名为 {level}/{col}_{row}.{format}
+ *
+ * 生成结果全部在内存中编码，不写临时文件。
+ * level与XYZ瓦片的z一一对应（z = level），col/row即x/y。
+ */
+class TilePyramidGenerator {
+
+    private final int tileSize;
+    private final PageImageEncoder encoder;
+    private final String format;
+
+    TilePyramidGenerator(int tileSize, PageImageEncoder encoder) {
+        this.tileSize = Math.max(16, tileSize);
+        this.encoder = encoder;
+        this.format = encoder.getFormat();
+    }
+
+    /**
+     * 计算金字塔最高级别
+     */
+    static int maxLevel(int width, int height) {
+        int maxDimension = Math.max(1, Math.max(width, height));
+        return 32 - Integer.numberOfLeadingZeros(maxDimension - 1);
+    }
+
+    /**
+     * 生成瓦片金字塔
+     *
+     * @param image 整页位图（最高级别）
+     * @return 金字塔描述和已编码的瓦片
+     * @throws IOException 编码失败时抛出
+     */
+    TilePyramid generate(BufferedImage image) throws IOException {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        int maxLevel = maxLevel(width, height);
+
+        List<Tile> tiles = new ArrayList<>();
+        BufferedImage levelImage = image;
+        for (int level = maxLevel; level >= 0; level--) {
+            if (level < maxLevel) {
+                int scale = maxLevel - level;
+                int levelWidth = (int) Math.max(1, (width + (1L << scale) - 1) >> scale);
+                int levelHeight = (int) Math.max(1, (height + (1L << scale) - 1) >> scale);
+                levelImage = ImageScaler.scale(levelImage, levelWidth, levelHeight);
+            }
+            cutLevel(levelImage, level, tiles);
+        }
+
+        return new TilePyramid(width, height, tileSize, maxLevel, format, tiles);
+    }
+
+    private void cutLevel(BufferedImage levelImage, int level, List<Tile> tiles) throws IOException {
+        int levelWidth = levelImage.getWidth();
+        int levelHeight = levelImage.getHeight();
+        int columns = (levelWidth + tileSize - 1) / tileSize;
+        int rows = (levelHeight + tileSize - 1) / tileSize;
+
+        for (int col = 0; col < columns; col++) {
+            for (int row = 0; row < rows; row++) {
+                int x = col * tileSize;
+                int y = row * tileSize;
+                BufferedImage tileImage = levelImage.getSubimage(x, y,
+                    Math.min(tileSize, levelWidth - x), Math.min(tileSize, levelHeight - y));
+                String path = String.format("%d/%d_%d.%s", level, col, row, format);
+                tiles.add(new Tile(path, encode(tileImage)));
+            }
+        }
+    }
+
+    private byte[] encode(BufferedImage tileImage) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream(16 * 1024);
+        encoder.encode(tileImage, output);
+        return output.toByteArray();
+    }
+
+    /**
+     * 单页瓦片金字塔
+     */
+    @Getter
+    @AllArgsConstructor
+    static class TilePyramid {
+        private final int width;
+        private final int height;
+        private final int tileSize;
+        private final int maxLevel;
+        private final String format;
+        private final List<Tile> tiles;
+
+        /**
+         * 生成DZI描述文件内容
+         */
+        byte[] toDzi() {
+            String xml = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+                + "<Image xmlns=\"http://schemas.microsoft.com/deepzoom/2008\" "
+                + "TileSize=\"" + tileSize + "\" Overlap=\"0\" Format=\"" + format + "\">\n"
+                + "  <Size Width=\"" + width + "\" Height=\"" + height + "\"/>\n"
+                + "</Image>\n";
+            return xml.getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * 已编码的瓦片
+     */
+    @Getter
+    @AllArgsConstructor
+    static class Tile {
+        /**
+         * 相对 {page}_files/ 目录的路径：{level}/{col}_{row}.{format}
+         */
+        private final String path;
+        private final byte[] data;
+    }
+}
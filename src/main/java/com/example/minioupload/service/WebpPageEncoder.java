@@ -0,0 +1,180 @@
+package com.example.minioupload.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.bytedeco.ffmpeg.avcodec.AVCodec;
+import org.bytedeco.ffmpeg.avcodec.AVCodecContext;
+import org.bytedeco.ffmpeg.avcodec.AVPacket;
+import org.bytedeco.ffmpeg.avutil.AVDictionary;
+import org.bytedeco.ffmpeg.avutil.AVFrame;
+import org.bytedeco.javacpp.BytePointer;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+
+import static org.bytedeco.ffmpeg.global.avcodec.*;
+import static org.bytedeco.ffmpeg.global.avutil.*;
+
+/**
+ * 通过FFmpeg的libwebp编码器编码WebP
+ *
+ * 直接调用javacv附带的FFmpeg库（avcodec），不经过容器封装：libwebp编码器输出的数据包
+ * 本身就是完整的WebP文件（RIFF头 + VP8/VP8L数据）。
+ *
+ * 像素以 AV_PIX_FMT_RGB32（本机字节序的0xAARRGGBB整数）传入，与BufferedImage.getRGB
+ * 的返回值一致，不需要额外的像素格式转换；有损模式下由libwebp内部转换为YUV420。
+ * - 有损模式：quality 对应libwebp的0-100质量
+ * - 无损模式：quality 对应压缩力度，越大体积越小、编码越慢
+ *
+ * 每次编码创建独立的编码器上下文，可被多个线程同时使用。
+ * WebP单边最多 {@value #MAX_DIMENSION} 像素，超出时由 {@link PageImageEncoders#formatFor} 改用其他格式。
+ */
+@Slf4j
+class WebpPageEncoder implements PageImageEncoder {
+
+    private static final String CODEC_NAME = "libwebp";
+
+    /**
+     * WebP图片单边最大像素数
+     */
+    static final int MAX_DIMENSION = 16383;
+
+    private final float quality;
+    private final boolean lossless;
+
+    WebpPageEncoder(float quality, boolean lossless) {
+        this.quality = Math.max(0f, Math.min(1.0f, quality));
+        this.lossless = lossless;
+    }
+
+    /**
+     * 位图尺寸是否在WebP上限内
+     */
+    static boolean fits(int width, int height) {
+        return width <= MAX_DIMENSION && height <= MAX_DIMENSION;
+    }
+
+    /**
+     * 检查FFmpeg库中是否包含libwebp编码器
+     */
+    static boolean isAvailable() {
+        try {
+            // libwebp对RGB输入的有损编码每页都会输出一条RGB转YUV的提示，FFmpeg日志只保留错误
+            if (av_log_get_level() > AV_LOG_ERROR) {
+                av_log_set_level(AV_LOG_ERROR);
+            }
+            AVCodec codec = avcodec_find_encoder_by_name(CODEC_NAME);
+            return codec != null && !codec.isNull();
+        } catch (Throwable e) {
+            log.warn("FFmpeg native libraries unavailable, WebP encoding disabled: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    @Override
+    public String getFormat() {
+        return "webp";
+    }
+
+    @Override
+    public String getContentType() {
+        return "image/webp";
+    }
+
+    @Override
+    public void encode(BufferedImage image, OutputStream output) throws IOException {
+        AVCodec codec = avcodec_find_encoder_by_name(CODEC_NAME);
+        if (codec == null || codec.isNull()) {
+            throw new IOException("FFmpeg encoder not available: " + CODEC_NAME);
+        }
+
+        int width = image.getWidth();
+        int height = image.getHeight();
+        if (!fits(width, height)) {
+            throw new IOException("Image " + width + "x" + height + " exceeds the WebP size limit of " + MAX_DIMENSION + " pixels");
+        }
+        AVCodecContext context = null;
+        AVFrame frame = null;
+        AVPacket packet = null;
+        AVDictionary options = new AVDictionary(null);
+        try {
+            context = avcodec_alloc_context3(codec);
+            context.width(width);
+            context.height(height);
+            context.pix_fmt(AV_PIX_FMT_RGB32);
+            context.time_base(av_make_q(1, 1));
+
+            av_dict_set(options, "lossless", lossless ? "1" : "0", 0);
+            av_dict_set(options, "quality", String.valueOf(Math.round(quality * 100)), 0);
+            check(avcodec_open2(context, codec, options), "open encoder");
+
+            frame = av_frame_alloc();
+            frame.format(AV_PIX_FMT_RGB32);
+            frame.width(width);
+            frame.height(height);
+            check(av_frame_get_buffer(frame, 32), "allocate frame");
+            copyPixels(image, frame);
+
+            packet = av_packet_alloc();
+            check(avcodec_send_frame(context, frame), "send frame");
+            check(avcodec_send_frame(context, null), "flush encoder");
+
+            byte[] chunk = new byte[0];
+            int ret;
+            while ((ret = avcodec_receive_packet(context, packet)) >= 0) {
+                int size = packet.size();
+                if (chunk.length < size) {
+                    chunk = new byte[size];
+                }
+                packet.data().get(chunk, 0, size);
+                output.write(chunk, 0, size);
+                av_packet_unref(packet);
+            }
+            if (ret != AVERROR_EOF() && ret != AVERROR_EAGAIN()) {
+                check(ret, "receive packet");
+            }
+        } finally {
+            av_dict_free(options);
+            if (packet != null) {
+                av_packet_free(packet);
+            }
+            if (frame != null) {
+                av_frame_free(frame);
+            }
+            if (context != null) {
+                avcodec_free_context(context);
+            }
+        }
+    }
+
+    /**
+     * 逐行把ARGB像素写入帧缓冲区（帧的行跨度可能大于宽度×4）
+     */
+    private static void copyPixels(BufferedImage image, AVFrame frame) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        int stride = frame.linesize(0) / 4;
+        IntBuffer pixels = new BytePointer(frame.data(0))
+            .capacity((long) frame.linesize(0) * height)
+            .asByteBuffer()
+            .order(ByteOrder.nativeOrder())
+            .asIntBuffer();
+
+        int[] row = new int[width];
+        for (int y = 0; y < height; y++) {
+            image.getRGB(0, y, width, 1, row, 0, width);
+            pixels.position(y * stride);
+            pixels.put(row);
+        }
+    }
+
+    private static void check(int ret, String action) throws IOException {
+        if (ret < 0) {
+            BytePointer message = new BytePointer(AV_ERROR_MAX_STRING_SIZE);
+            av_strerror(ret, message, message.capacity());
+            throw new IOException("WebP encoding failed to " + action + ": " + message.getString());
+        }
+    }
+}
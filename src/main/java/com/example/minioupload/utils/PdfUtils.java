@@ -2,7 +2,12 @@ package com.example.minioupload.utils;
 
 import com.example.minioupload.model.enums.BasePointEnum;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.fontbox.ttf.TTFParser;
+import org.apache.fontbox.ttf.TrueTypeFont;
 import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.io.IOUtils;
+import org.apache.pdfbox.io.RandomAccessReadBuffer;
+import org.apache.pdfbox.io.RandomAccessStreamCache;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.pdmodel.PDPage;
 import org.apache.pdfbox.pdmodel.PDPageContentStream;
@@ -18,6 +23,7 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.Base64;
+import java.util.function.LongFunction;
 
 /**
  * @Description pdf工具类
@@ -28,6 +34,27 @@ import java.util.Base64;
 @Slf4j
 public class PdfUtils {
 
+    private static final String CHINESE_FONT_RESOURCE = "/fonts/NotoSansSC-VariableFont_wght.ttf";
+
+    /**
+     * 按PDF数据大小选择流缓存，默认仅使用内存；应用启动时替换为 document-session 配置的策略
+     */
+    private static volatile LongFunction<RandomAccessStreamCache.StreamCacheCreateFunction> streamCacheResolver =
+        size -> IOUtils.createMemoryOnlyStreamCache();
+
+    /**
+     * 设置加载PDF时使用的流缓存选择函数
+     *
+     * @param resolver 参数为PDF数据大小（字节）
+     */
+    public static void setStreamCacheResolver(LongFunction<RandomAccessStreamCache.StreamCacheCreateFunction> resolver) {
+        streamCacheResolver = resolver;
+    }
+
+    private static PDDocument loadPdf(byte[] pdfBytes) throws IOException {
+        return Loader.loadPDF(pdfBytes, "", null, null, streamCacheResolver.apply(pdfBytes.length));
+    }
+
     /**
      * 在PDF中写入文字
      *
@@ -64,7 +91,7 @@ public class PdfUtils {
             byte[] pdfBytes = Base64.getDecoder().decode(pdfData);
 
             // 加载PDF文档
-            try (PDDocument document = Loader.loadPDF(pdfBytes)) {
+            try (PDDocument document = loadPdf(pdfBytes)) {
 
                 // 获取指定页面
                 PDPage page = document.getPage(pageIndex);
@@ -133,7 +160,7 @@ public class PdfUtils {
             byte[] pdfBytes = Base64.getDecoder().decode(pdfData);
 
             // 加载PDF文档
-            try (PDDocument document = Loader.loadPDF(pdfBytes)) {
+            try (PDDocument document = loadPdf(pdfBytes)) {
 
                 // 获取指定页面
                 PDPage page = document.getPage(pageIndex);
@@ -202,21 +229,45 @@ public class PdfUtils {
         return Math.max(8, Math.min(maxFontSize, 72)); // 限制在8-72之间
     }
 
+    /**
+     * 中文字体文件内容，首次使用时从资源目录读取一次
+     */
+    private static volatile byte[] chineseFontBytes;
+
+    private static byte[] chineseFontBytes() {
+        byte[] bytes = chineseFontBytes;
+        if (bytes == null) {
+            synchronized (PdfUtils.class) {
+                bytes = chineseFontBytes;
+                if (bytes == null) {
+                    try (InputStream fontStream = PdfUtils.class.getResourceAsStream(CHINESE_FONT_RESOURCE)) {
+                        if (fontStream == null) {
+                            throw new RuntimeException("字体文件不存在：" + CHINESE_FONT_RESOURCE + "，请确保字体文件存在于 resources/fonts/ 目录");
+                        }
+                        bytes = fontStream.readAllBytes();
+                    } catch (IOException e) {
+                        throw new RuntimeException("无法读取字体文件：" + CHINESE_FONT_RESOURCE + "，错误：" + e.getMessage(), e);
+                    }
+                    chineseFontBytes = bytes;
+                    log.info("成功加载字体：{}，大小：{} bytes", CHINESE_FONT_RESOURCE, bytes.length);
+                }
+            }
+        }
+        return bytes;
+    }
+
     /**
      * 加载字体（从项目资源目录）
+     *
+     * 字体文件内容只读取一次；每个文档直接在缓存的字节上解析（不复制），保存时按使用到的字形嵌入子集
      */
     private static PDFont loadChineseFont(PDDocument document) {
-        String resourcePath = "/fonts/NotoSansSC-VariableFont_wght.ttf";
         try {
-            InputStream fontStream = PdfUtils.class.getResourceAsStream(resourcePath);
-            if (fontStream == null) {
-                throw new RuntimeException("字体文件不存在：" + resourcePath + "，请确保字体文件存在于 resources/fonts/ 目录");
-            }
-            log.info("成功加载字体：{}", resourcePath);
-            return PDType0Font.load(document, fontStream);
+            TrueTypeFont ttf = new TTFParser().parse(new RandomAccessReadBuffer(chineseFontBytes()));
+            return PDType0Font.load(document, ttf, true);
         } catch (Exception e) {
             log.error("字体加载失败：{}", e.getMessage(), e);
-            throw new RuntimeException("无法加载字体文件：" + resourcePath + "，错误：" + e.getMessage(), e);
+            throw new RuntimeException("无法加载字体文件：" + CHINESE_FONT_RESOURCE + "，错误：" + e.getMessage(), e);
         }
     }
     public static Double pxToPt(Double px) {
@@ -254,7 +305,7 @@ public class PdfUtils {
             byte[] pdfBytes = Base64.getDecoder().decode(pdfBase64);
 
             // 2. 加载PDF文档
-            try (PDDocument document = Loader.loadPDF(pdfBytes)) {
+            try (PDDocument document = loadPdf(pdfBytes)) {
                 
                 // 验证页码
                 if (pageIndex < 0 || pageIndex >= document.getNumberOfPages()) {
@@ -0,0 +1,6 @@
+-- V10: 添加颜色模式字段到pdf_page_image表
+-- 启用自动颜色模式检测后，黑白/灰度页面以二值或灰度位图渲染和编码
+-- 已有记录均按RGB渲染
+
+ALTER TABLE pdf_page_image
+ADD COLUMN color_mode VARCHAR(20) NOT NULL DEFAULT 'COLOR' COMMENT '颜色模式：COLOR、GRAY、BILEVEL' AFTER rendering_dpi;
@@ -0,0 +1,22 @@
+-- V11: 页面内容指纹索引
+-- 相同内容（内容流、资源、页面框、渲染参数均相同）的页面只渲染和存储一次，
+-- 之后的上传直接引用已有图片对象；ref_count记录引用该对象的页面数，降为0时对象才可删除
+
+SET NAMES utf8mb4;
+
+CREATE TABLE IF NOT EXISTS `pdf_page_fingerprint` (
+  `id` BIGINT NOT NULL AUTO_INCREMENT COMMENT '主键',
+  `tenant_id` VARCHAR(100) NOT NULL COMMENT '租户ID，指纹索引按租户隔离',
+  `fingerprint` CHAR(64) NOT NULL COMMENT '页面内容指纹（SHA-256十六进制）',
+  `page_images` MEDIUMTEXT NOT NULL COMMENT '首次渲染生成的图片记录模板（JSON数组，含各规格和瓦片信息）',
+  `ref_count` INT NOT NULL DEFAULT 0 COMMENT '引用该组图片对象的页面数',
+  `created_at` DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+  `updated_at` DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+  PRIMARY KEY (`id`),
+  UNIQUE KEY `uk_tenant_fingerprint` (`tenant_id`, `fingerprint`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='页面内容指纹索引';
+
+ALTER TABLE pdf_page_image
+ADD COLUMN content_fingerprint CHAR(64) NULL COMMENT '页面内容指纹，引用pdf_page_fingerprint时非空' AFTER color_mode;
+
+CREATE INDEX idx_tenant_fingerprint ON pdf_page_image(tenant_id, content_fingerprint);
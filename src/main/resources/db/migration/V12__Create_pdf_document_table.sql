@@ -0,0 +1,24 @@
+-- V12: 文档级去重
+-- 同一租户以相同参数再次提交字节完全相同的PDF时，直接复制之前任务的图片记录，不再上传和转换
+-- content_hash: 上传保存时流式计算的PDF内容SHA-256
+
+SET NAMES utf8mb4;
+
+CREATE TABLE IF NOT EXISTS `pdf_document` (
+  `id` BIGINT NOT NULL AUTO_INCREMENT COMMENT '主键',
+  `tenant_id` VARCHAR(100) NOT NULL COMMENT '租户ID',
+  `content_hash` CHAR(64) NOT NULL COMMENT 'PDF内容SHA-256',
+  `image_dpi` INT NOT NULL COMMENT '渲染DPI',
+  `image_format` VARCHAR(20) NOT NULL COMMENT '图片格式',
+  `options_hash` CHAR(64) NOT NULL COMMENT '其余影响输出的转换参数（规格、瓦片、渲染档位、渲染配置）的SHA-256',
+  `task_id` VARCHAR(36) NOT NULL COMMENT '完成转换的任务ID，命中时从该任务复制图片记录',
+  `total_pages` INT NOT NULL COMMENT 'PDF总页数',
+  `file_size` BIGINT NULL COMMENT 'PDF文件大小（字节）',
+  `created_at` DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+  PRIMARY KEY (`id`),
+  UNIQUE KEY `uk_tenant_hash_options` (`tenant_id`, `content_hash`, `image_dpi`, `image_format`, `options_hash`),
+  KEY `idx_task_id` (`task_id`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='已转换PDF文档索引';
+
+ALTER TABLE pdf_conversion_task
+ADD COLUMN content_hash CHAR(64) NULL COMMENT 'PDF内容SHA-256' AFTER pdf_object_key;
@@ -0,0 +1,7 @@
+-- V13: 添加页面内容哈希和页面差异字段到pdf_conversion_task表
+-- page_hashes: 各页内容哈希（JSON数组，下标为页码-1），自动增量转换据此比较基础版本与新文档
+-- page_diff: 自动增量转换检测到的页面差异（JSON，对应PdfPageDiff）
+
+ALTER TABLE pdf_conversion_task
+ADD COLUMN page_hashes MEDIUMTEXT NULL COMMENT '各页内容哈希（JSON数组）' AFTER page_dimensions,
+ADD COLUMN page_diff TEXT NULL COMMENT '自动增量转换检测到的页面差异（JSON）' AFTER page_hashes;
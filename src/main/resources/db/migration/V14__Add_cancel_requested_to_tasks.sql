@@ -0,0 +1,6 @@
+-- V14: 添加取消请求时间字段到pdf_conversion_task表
+-- cancel_requested_at: 通过 DELETE /api/pdf/task/{taskId} 请求取消的时间，执行任务的节点定期检查该字段并停止转换
+-- 任务状态新增 CANCELLED（已取消）、TIMEOUT（超过截止时间被终止）
+
+ALTER TABLE pdf_conversion_task
+ADD COLUMN cancel_requested_at DATETIME NULL COMMENT '请求取消的时间' AFTER error_message;
@@ -0,0 +1,19 @@
+-- V15: 页面转换台账
+-- 记录转换任务每一页的处理状态，单页渲染或上传重试用尽导致任务失败后，
+-- 通过 POST /api/pdf/task/{taskId}/retry 重新执行时只处理未完成（PENDING/FAILED）的页面；
+-- COMPLETED表示该页图片已上传且pdf_page_image记录已保存（含页面去重复用的页面）
+
+SET NAMES utf8mb4;
+
+CREATE TABLE IF NOT EXISTS `pdf_conversion_page` (
+  `id` BIGINT NOT NULL AUTO_INCREMENT COMMENT '主键',
+  `task_id` VARCHAR(36) NOT NULL COMMENT '关联的任务ID',
+  `page_number` INT NOT NULL COMMENT '页码（从1开始）',
+  `status` VARCHAR(20) NOT NULL DEFAULT 'PENDING' COMMENT '页面状态：PENDING（待处理）、COMPLETED（已完成）、FAILED（重试用尽后失败）',
+  `attempts` INT NOT NULL DEFAULT 0 COMMENT '处理该页的执行次数（任务首次执行和每次重新执行各计一次）',
+  `error_message` VARCHAR(1000) NULL COMMENT '最近一次失败的错误信息',
+  `created_at` DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+  `updated_at` DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+  PRIMARY KEY (`id`),
+  UNIQUE KEY `uk_task_page` (`task_id`, `page_number`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='页面转换台账';
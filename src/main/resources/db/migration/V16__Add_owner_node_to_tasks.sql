@@ -0,0 +1,8 @@
+-- V16: 添加执行节点字段到pdf_conversion_task表
+-- owner_node: 提交（或重新执行）任务的节点标识（pdf.conversion.recovery.node-id，默认为主机名），
+-- 节点重启后找出本节点处于SUBMITTED/PROCESSING/PARTIAL状态的任务，按页面台账跳过已完成的页面继续转换
+
+ALTER TABLE pdf_conversion_task
+ADD COLUMN owner_node VARCHAR(100) NULL COMMENT '执行任务的节点标识' AFTER status;
+
+CREATE INDEX idx_owner_node_status ON pdf_conversion_task(owner_node, status);
@@ -0,0 +1,14 @@
+-- V17: pdf_page_image 添加 (task_id, page_number, variant) 唯一键
+-- 按需渲染的请求合并只在单个节点内生效，多个节点同时渲染同一页面时会各自插入一组记录；
+-- 唯一键保证每个任务的每页每种规格只有一条记录，重复写入由 PageImagePersister 忽略。
+-- 添加唯一键前删除已有的重复记录（保留id最小的一条，对象键相同，图片对象不受影响）
+
+DELETE duplicate FROM pdf_page_image duplicate
+JOIN pdf_page_image kept
+  ON duplicate.task_id = kept.task_id
+ AND duplicate.page_number = kept.page_number
+ AND duplicate.variant = kept.variant
+ AND duplicate.id > kept.id;
+
+ALTER TABLE pdf_page_image
+ADD UNIQUE KEY uk_task_page_variant (task_id, page_number, variant);
@@ -0,0 +1,9 @@
+-- V7: 添加深度缩放瓦片金字塔字段到pdf_page_image表
+-- 瓦片与整页图片位于同一目录：{图片键去扩展名}.dzi 为DZI描述文件，{图片键去扩展名}_files/{level}/{col}_{row}.{format} 为瓦片
+-- 未生成瓦片的页面这些字段为NULL
+
+ALTER TABLE pdf_page_image
+ADD COLUMN tile_manifest_key VARCHAR(1000) DEFAULT NULL COMMENT 'DZI描述文件在MinIO的对象键' AFTER file_size,
+ADD COLUMN tile_size INT DEFAULT NULL COMMENT '瓦片边长（像素）' AFTER tile_manifest_key,
+ADD COLUMN tile_max_level INT DEFAULT NULL COMMENT '瓦片金字塔最高级别（原始分辨率）' AFTER tile_size,
+ADD COLUMN tile_format VARCHAR(10) DEFAULT NULL COMMENT '瓦片图片格式' AFTER tile_max_level;
@@ -0,0 +1,8 @@
+-- V8: 添加图片规格字段到pdf_page_image表
+-- 同一页可同时存储原图（FULL）、预览图（PREVIEW）和缩略图（THUMBNAIL），各规格为独立记录
+-- 已有记录均为原图
+
+ALTER TABLE pdf_page_image
+ADD COLUMN variant VARCHAR(20) NOT NULL DEFAULT 'FULL' COMMENT '图片规格：FULL、PREVIEW、THUMBNAIL' AFTER page_number;
+
+CREATE INDEX idx_tenant_business_variant_page ON pdf_page_image(tenant_id, business_id, variant, page_number);
@@ -0,0 +1,7 @@
+-- V9: 添加转换参数和页面尺寸字段到pdf_conversion_task表
+-- conversion_options: 提交时的转换参数（DPI、格式、瓦片、规格、是否按需渲染），用于之后按原参数渲染页面
+-- page_dimensions: 各页PDF尺寸，按需渲染模式下上传时记录
+
+ALTER TABLE pdf_conversion_task
+ADD COLUMN conversion_options TEXT NULL COMMENT '转换参数（JSON）' AFTER error_message,
+ADD COLUMN page_dimensions MEDIUMTEXT NULL COMMENT '各页PDF尺寸（JSON数组）' AFTER conversion_options;
@@ -0,0 +1,167 @@
+package com.example.minioupload.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ConversionControl 截止时间、单页超时、取消和完成竞争的单元测试
+ */
+class ConversionControlTest {
+
+    @Test
+    void testCheckpoint_DeadlineStartsAtStart() throws InterruptedException {
+        ConversionControl control = new ConversionControl("t1", true, 1, 0);
+        // 排队时间不计入截止时间
+        Thread.sleep(1100);
+        control.checkpoint();
+        assertFalse(control.checkTimeouts());
+
+        control.start();
+        control.checkpoint();
+        Thread.sleep(1100);
+
+        ConversionAbortedException exception = assertThrows(ConversionAbortedException.class, control::checkpoint);
+        assertEquals(ConversionControl.STATUS_TIMEOUT, exception.getStatus());
+        assertEquals(ConversionControl.STATUS_TIMEOUT, control.getAbortStatus());
+        assertTrue(control.getAbortMessage().contains("1 seconds"));
+    }
+
+    @Test
+    void testCheckTimeouts_Deadline() throws InterruptedException {
+        ConversionControl control = new ConversionControl("t1", true, 1, 0);
+        control.start();
+        assertFalse(control.checkTimeouts());
+
+        Thread.sleep(1100);
+
+        assertTrue(control.checkTimeouts());
+        assertEquals(ConversionControl.STATUS_TIMEOUT, control.getAbortStatus());
+        // 已终止后不重复终止
+        assertFalse(control.checkTimeouts());
+    }
+
+    @Test
+    void testCheckTimeouts_PageTimeoutInterruptsPageThread() throws Exception {
+        ConversionControl control = new ConversionControl("t1", true, 0, 1);
+        control.start();
+        CountDownLatch entered = new CountDownLatch(1);
+        AtomicBoolean interrupted = new AtomicBoolean();
+        AtomicBoolean flagClearedOnClose = new AtomicBoolean();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> page = executor.submit(() -> {
+                try (ConversionControl.PageScope scope = control.enterPage(7)) {
+                    entered.countDown();
+                    try {
+                        Thread.sleep(10_000);
+                    } catch (InterruptedException e) {
+                        interrupted.set(true);
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                flagClearedOnClose.set(!Thread.currentThread().isInterrupted());
+                return null;
+            });
+            assertTrue(entered.await(5, TimeUnit.SECONDS));
+            assertFalse(control.checkTimeouts());
+
+            Thread.sleep(1100);
+
+            assertTrue(control.checkTimeouts());
+            page.get(5, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertTrue(interrupted.get());
+        assertTrue(flagClearedOnClose.get());
+        assertEquals(ConversionControl.STATUS_TIMEOUT, control.getAbortStatus());
+        assertTrue(control.getAbortMessage().startsWith("Page 7"));
+    }
+
+    @Test
+    void testCheckTimeouts_CompletedPagesNotCounted() throws InterruptedException {
+        ConversionControl control = new ConversionControl("t1", true, 0, 1);
+        control.start();
+        try (ConversionControl.PageScope scope = control.enterPage(1)) {
+            assertFalse(control.isAborted());
+        }
+
+        Thread.sleep(1100);
+
+        assertFalse(control.checkTimeouts());
+    }
+
+    @Test
+    void testAbort_BeforeStartStopsFirstPage() {
+        ConversionControl control = new ConversionControl("t1", true, 300, 120);
+
+        assertTrue(control.abort(ConversionControl.STATUS_CANCELLED, "Cancelled by user"));
+        assertFalse(control.abort(ConversionControl.STATUS_TIMEOUT, "late"));
+
+        control.start();
+        ConversionAbortedException exception = assertThrows(ConversionAbortedException.class, () -> control.enterPage(1));
+        assertEquals(ConversionControl.STATUS_CANCELLED, exception.getStatus());
+        assertEquals("Cancelled by user", exception.getMessage());
+        assertFalse(control.tryFinish());
+        assertThrows(ConversionAbortedException.class, control::finish);
+    }
+
+    @Test
+    void testAbort_AfterFinishIgnored() {
+        ConversionControl control = new ConversionControl("t1", true, 300, 120);
+        control.start();
+        control.finish();
+
+        assertFalse(control.abort(ConversionControl.STATUS_CANCELLED, "Cancelled by user"));
+        assertFalse(control.isAborted());
+        assertNull(control.getAbortStatus());
+    }
+
+    @Test
+    void testTryFinish_RacingAbortHasSingleWinner() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            for (int i = 0; i < 500; i++) {
+                ConversionControl control = new ConversionControl("t" + i, true, 300, 120);
+                control.start();
+                CyclicBarrier barrier = new CyclicBarrier(2);
+                Future<Boolean> finish = executor.submit(() -> {
+                    barrier.await();
+                    return control.tryFinish();
+                });
+                Future<Boolean> abort = executor.submit(() -> {
+                    barrier.await();
+                    return control.abort(ConversionControl.STATUS_CANCELLED, "Cancelled by user");
+                });
+
+                boolean finished = finish.get(5, TimeUnit.SECONDS);
+                boolean aborted = abort.get(5, TimeUnit.SECONDS);
+                // 完成与取消只有一方生效
+                assertNotEquals(finished, aborted);
+                assertEquals(aborted, control.isAborted());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testUnbounded_NeverTimesOut() {
+        ConversionControl control = ConversionControl.unbounded();
+        control.start();
+
+        control.checkpoint();
+        assertFalse(control.checkTimeouts());
+        assertFalse(control.isTask());
+    }
+}
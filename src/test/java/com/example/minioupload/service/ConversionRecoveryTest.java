@@ -0,0 +1,151 @@
+package com.example.minioupload.service;
+
+import com.example.minioupload.config.PdfConversionProperties;
+import com.example.minioupload.model.PdfConversionTask;
+import com.example.minioupload.repository.PdfConversionTaskRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * ConversionRecovery 任务恢复和遗留临时目录清理的单元测试
+ */
+@ExtendWith(MockitoExtension.class)
+class ConversionRecoveryTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Mock
+    private PdfConversionTaskRepository taskRepository;
+
+    @Mock
+    private PdfUploadService pdfUploadService;
+
+    private ConversionRecovery recovery;
+
+    @BeforeEach
+    void setUp() {
+        PdfConversionProperties properties = new PdfConversionProperties();
+        properties.setTempDirectory(tempDir.toString());
+        properties.getRecovery().setNodeId("node-1");
+        recovery = new ConversionRecovery(properties, taskRepository, pdfUploadService);
+    }
+
+    @Test
+    void testRecoverTasks_ContinuesAfterFailure() {
+        PdfConversionTask first = task("t1", "PROCESSING");
+        PdfConversionTask second = task("t2", "PARTIAL");
+        when(taskRepository.findUnfinishedByOwnerNode("node-1")).thenReturn(List.of(first, second));
+        doThrow(new IllegalStateException("MinIO unavailable")).when(pdfUploadService).recoverTask(first);
+
+        Set<String> recovered = recovery.recoverTasks();
+
+        assertEquals(Set.of("t1", "t2"), recovered);
+        verify(pdfUploadService).recoverTask(second);
+    }
+
+    @Test
+    void testCleanup_DeletesFinishedAndUnknownTasks() throws IOException {
+        Path finished = staleTaskDir(UUID.randomUUID().toString());
+        Path unknown = staleTaskDir(UUID.randomUUID().toString());
+        when(taskRepository.findByTaskId(finished.getFileName().toString())).thenReturn(task("t", "SUCCESS"));
+        when(taskRepository.findByTaskId(unknown.getFileName().toString())).thenReturn(null);
+
+        recovery.cleanupOrphanedTaskDirectories(Set.of());
+
+        assertFalse(Files.exists(finished));
+        assertFalse(Files.exists(unknown));
+    }
+
+    @Test
+    void testCleanup_KeepsRecoveredAndUnfinishedTasks() throws IOException {
+        String recoveredId = UUID.randomUUID().toString();
+        Path recoveredDir = staleTaskDir(recoveredId);
+        Path queued = staleTaskDir(UUID.randomUUID().toString());
+        Path processing = staleTaskDir(UUID.randomUUID().toString());
+        when(taskRepository.findByTaskId(queued.getFileName().toString())).thenReturn(task("t", "SUBMITTED"));
+        when(taskRepository.findByTaskId(processing.getFileName().toString())).thenReturn(task("t", "PROCESSING"));
+
+        recovery.cleanupOrphanedTaskDirectories(Set.of(recoveredId));
+
+        assertTrue(Files.exists(recoveredDir.resolve("images").resolve("page_0001.png")));
+        assertTrue(Files.exists(queued));
+        assertTrue(Files.exists(processing));
+        verify(taskRepository, never()).findByTaskId(recoveredId);
+    }
+
+    @Test
+    void testCleanup_KeepsDirectoriesModifiedAfterStartup() throws IOException {
+        // 启动后新提交的任务目录，即使任务查询不到也不删除
+        Path fresh = Files.createDirectories(tempDir.resolve(UUID.randomUUID().toString()));
+
+        recovery.cleanupOrphanedTaskDirectories(Set.of());
+
+        assertTrue(Files.exists(fresh));
+        verify(taskRepository, never()).findByTaskId(anyString());
+    }
+
+    @Test
+    void testCleanup_IgnoresOtherEntries() throws IOException {
+        Path notTaskId = staleTaskDir("fonts");
+        Path upperCase = staleTaskDir(UUID.randomUUID().toString().toUpperCase());
+        Path file = tempDir.resolve(UUID.randomUUID().toString());
+        Files.write(file, new byte[] {1});
+        Files.setLastModifiedTime(file, FileTime.fromMillis(0));
+
+        recovery.cleanupOrphanedTaskDirectories(Set.of());
+
+        assertTrue(Files.exists(notTaskId));
+        assertTrue(Files.exists(upperCase));
+        assertTrue(Files.exists(file));
+        verify(taskRepository, never()).findByTaskId(anyString());
+    }
+
+    @Test
+    void testCleanup_RepositoryFailureKeepsDirectory() throws IOException {
+        Path dir = staleTaskDir(UUID.randomUUID().toString());
+        when(taskRepository.findByTaskId(anyString())).thenThrow(new IllegalStateException("database unavailable"));
+
+        recovery.cleanupOrphanedTaskDirectories(Set.of());
+
+        assertTrue(Files.exists(dir));
+    }
+
+    /**
+     * 创建重启前遗留的任务目录（修改时间早于JVM启动时间）
+     */
+    private Path staleTaskDir(String name) throws IOException {
+        Path dir = Files.createDirectories(tempDir.resolve(name).resolve("images")).getParent();
+        Files.write(dir.resolve("images").resolve("page_0001.png"), new byte[] {1});
+        long beforeStartup = ManagementFactory.getRuntimeMXBean().getStartTime() - 60_000L;
+        Files.setLastModifiedTime(dir, FileTime.fromMillis(beforeStartup));
+        return dir;
+    }
+
+    private static PdfConversionTask task(String taskId, String status) {
+        return PdfConversionTask.builder()
+            .taskId(taskId)
+            .status(status)
+            .build();
+    }
+}
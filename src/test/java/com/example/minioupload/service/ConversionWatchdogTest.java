@@ -0,0 +1,128 @@
+package com.example.minioupload.service;
+
+import com.example.minioupload.config.PdfConversionProperties;
+import com.example.minioupload.repository.PdfConversionTaskRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * ConversionWatchdog 登记、取消和跨节点取消同步的单元测试
+ */
+@ExtendWith(MockitoExtension.class)
+class ConversionWatchdogTest {
+
+    @Mock
+    private PdfConversionTaskRepository taskRepository;
+
+    private PdfConversionProperties properties;
+    private ConversionWatchdog watchdog;
+
+    @BeforeEach
+    void setUp() {
+        properties = new PdfConversionProperties();
+        properties.setTimeoutSeconds(1);
+        properties.getWatchdog().setCancelPollIntervalMillis(0);
+        watchdog = new ConversionWatchdog(properties, taskRepository);
+    }
+
+    @Test
+    void testCancel_WhileQueued() {
+        ConversionControl control = watchdog.register("t1");
+
+        assertTrue(watchdog.cancel("t1"));
+        assertFalse(watchdog.cancel("t1"));
+
+        // 开始执行后第一页即停止
+        control.start();
+        ConversionAbortedException exception = assertThrows(ConversionAbortedException.class, () -> control.enterPage(1));
+        assertEquals(ConversionControl.STATUS_CANCELLED, exception.getStatus());
+    }
+
+    @Test
+    void testCancel_UnknownOrUnregisteredTask() {
+        ConversionControl control = watchdog.register("t1");
+        watchdog.unregister(control);
+
+        assertFalse(watchdog.cancel("t1"));
+        assertFalse(watchdog.cancel("missing"));
+        assertFalse(control.isAborted());
+    }
+
+    @Test
+    void testCancel_RenderNotCancellable() {
+        ConversionControl control = watchdog.registerRender("t1", 3);
+
+        assertEquals("t1:3", control.getKey());
+        assertFalse(watchdog.cancel("t1:3"));
+        assertFalse(control.isAborted());
+    }
+
+    @Test
+    void testCheck_QueuedTaskNotTimedOut() throws InterruptedException {
+        ConversionControl control = watchdog.register("t1");
+
+        Thread.sleep(1100);
+        watchdog.check();
+
+        assertFalse(control.isAborted());
+    }
+
+    @Test
+    void testCheck_TimesOutStartedTask() throws InterruptedException {
+        ConversionControl control = watchdog.register("t1");
+        control.start();
+
+        Thread.sleep(1100);
+        watchdog.check();
+
+        assertEquals(ConversionControl.STATUS_TIMEOUT, control.getAbortStatus());
+    }
+
+    @Test
+    void testCheck_PollsCancellationFromOtherNode() {
+        ConversionControl control = watchdog.register("t1");
+        when(taskRepository.countCancelRequested("t1")).thenReturn(1);
+
+        watchdog.check();
+
+        assertEquals(ConversionControl.STATUS_CANCELLED, control.getAbortStatus());
+    }
+
+    @Test
+    void testFinish_SyncsCancellationBeforeFinishing() {
+        ConversionControl control = watchdog.register("t1");
+        control.start();
+        when(taskRepository.countCancelRequested("t1")).thenReturn(1);
+
+        assertFalse(watchdog.tryFinish(control));
+        assertThrows(ConversionAbortedException.class, () -> watchdog.finish(control));
+    }
+
+    @Test
+    void testFinish_CancelAfterFinishIgnored() {
+        ConversionControl control = watchdog.register("t1");
+        control.start();
+        when(taskRepository.countCancelRequested("t1")).thenReturn(0);
+
+        watchdog.finish(control);
+
+        assertFalse(watchdog.cancel("t1"));
+        assertFalse(control.isAborted());
+    }
+
+    @Test
+    void testFinish_RenderDoesNotPollDatabase() {
+        ConversionControl control = watchdog.registerRender("t1", 1);
+
+        assertTrue(watchdog.tryFinish(control));
+        verify(taskRepository, never()).countCancelRequested("t1");
+    }
+}
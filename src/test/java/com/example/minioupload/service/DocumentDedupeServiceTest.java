@@ -0,0 +1,209 @@
+package com.example.minioupload.service;
+
+import com.example.minioupload.config.PdfConversionProperties;
+import com.example.minioupload.model.PdfConversionTask;
+import com.example.minioupload.model.PdfDocument;
+import com.example.minioupload.model.PdfPageFingerprint;
+import com.example.minioupload.model.PdfPageImage;
+import com.example.minioupload.model.enums.ImageVariant;
+import com.example.minioupload.repository.PdfConversionTaskRepository;
+import com.example.minioupload.repository.PdfDocumentRepository;
+import com.example.minioupload.repository.PdfPageFingerprintRepository;
+import com.example.minioupload.repository.PdfPageImageRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * DocumentDedupeService 复制转换结果及共享引用释放的单元测试
+ */
+@ExtendWith(MockitoExtension.class)
+class DocumentDedupeServiceTest {
+
+    private static final String TENANT = "tenant-1";
+
+    @Mock
+    private PdfDocumentRepository documentRepository;
+
+    @Mock
+    private PdfConversionTaskRepository taskRepository;
+
+    @Mock
+    private PdfPageImageRepository pageImageRepository;
+
+    @Mock
+    private PdfPageFingerprintRepository fingerprintRepository;
+
+    @Mock
+    private MinioStorageService minioStorageService;
+
+    private PageDedupeService pageDedupeService;
+    private DocumentDedupeService documentDedupeService;
+
+    @TempDir
+    Path tempDir;
+
+    @BeforeEach
+    void setUp() {
+        PdfConversionProperties properties = new PdfConversionProperties();
+        pageDedupeService = new PageDedupeService(properties, fingerprintRepository,
+            pageImageRepository, minioStorageService, new ObjectMapper());
+        documentDedupeService = new DocumentDedupeService(properties, documentRepository, taskRepository,
+            pageImageRepository, pageDedupeService);
+    }
+
+    @Test
+    void testCopyWithHash_HashesWrittenContent() throws Exception {
+        Path target = tempDir.resolve("doc.pdf");
+
+        String hash = DocumentDedupeService.copyWithHash(
+            new ByteArrayInputStream("abc".getBytes(StandardCharsets.UTF_8)), target);
+
+        assertEquals("ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad", hash);
+        assertEquals("abc", Files.readString(target));
+    }
+
+    @Test
+    void testCloneConversion_SharesImagesAndCountsReferencesPerPage() {
+        PdfConversionTask source = sourceTask();
+        when(taskRepository.findByTaskId("source")).thenReturn(source);
+        when(pageImageRepository.findByTaskId("source")).thenReturn(sourceImages());
+        when(fingerprintRepository.incrementRefCount(anyString(), anyString())).thenReturn(1);
+        PdfConversionTask task = newTask();
+
+        assertTrue(documentDedupeService.cloneConversion(document(), task));
+
+        // 每页（原图）一次引用，未登记指纹的页面不计数
+        verify(fingerprintRepository).incrementRefCount(TENANT, "fp-1");
+        verify(fingerprintRepository).incrementRefCount(TENANT, "fp-2");
+        verify(fingerprintRepository, times(2)).incrementRefCount(anyString(), anyString());
+        verify(pageImageRepository, times(4)).insert(any(PdfPageImage.class));
+        assertEquals("pdf/source.pdf", task.getPdfObjectKey());
+        assertEquals(3, task.getTotalPages());
+        verify(taskRepository).updateById(task);
+    }
+
+    @Test
+    void testCloneConversion_ReleasingSharedPageFallsBackToConversion() {
+        when(taskRepository.findByTaskId("source")).thenReturn(sourceTask());
+        when(pageImageRepository.findByTaskId("source")).thenReturn(sourceImages());
+        when(fingerprintRepository.incrementRefCount(TENANT, "fp-1")).thenReturn(1);
+        when(fingerprintRepository.incrementRefCount(TENANT, "fp-2")).thenReturn(0);
+
+        assertFalse(documentDedupeService.cloneConversion(document(), newTask()));
+
+        verify(fingerprintRepository).decrementRefCount(TENANT, "fp-1");
+        verify(pageImageRepository, never()).insert(any(PdfPageImage.class));
+        verify(taskRepository, never()).updateById(any(PdfConversionTask.class));
+    }
+
+    @Test
+    void testCloneConversion_MissingSourceRemovesIndexEntry() {
+        when(taskRepository.findByTaskId("source")).thenReturn(null);
+
+        assertFalse(documentDedupeService.cloneConversion(document(), newTask()));
+
+        verify(documentRepository).deleteById(10L);
+        verifyNoInteractions(fingerprintRepository);
+    }
+
+    @Test
+    void testCloneThenDiscard_ReleasesOnlyClonedReferences() throws Exception {
+        // 来源任务仍持有引用：副本回收后计数大于0，不删除共享对象
+        when(taskRepository.findByTaskId("source")).thenReturn(sourceTask());
+        when(pageImageRepository.findByTaskId("source")).thenReturn(sourceImages());
+        when(fingerprintRepository.incrementRefCount(anyString(), anyString())).thenReturn(1);
+        List<PdfPageImage> cloned = new ArrayList<>();
+        doAnswer(invocation -> {
+            PdfPageImage image = invocation.getArgument(0);
+            image.setId((long) (100 + cloned.size()));
+            cloned.add(image);
+            return 1;
+        }).when(pageImageRepository).insert(any(PdfPageImage.class));
+        assertTrue(documentDedupeService.cloneConversion(document(), newTask()));
+
+        when(pageImageRepository.findByTaskId("clone")).thenReturn(cloned);
+        when(pageImageRepository.deleteById(any(Long.class))).thenReturn(1);
+        when(fingerprintRepository.decrementRefCount(anyString(), anyString())).thenReturn(1);
+        when(fingerprintRepository.findByTenantIdAndFingerprint(anyString(), anyString())).thenAnswer(invocation ->
+            PdfPageFingerprint.builder()
+                .tenantId(TENANT)
+                .fingerprint(invocation.getArgument(1))
+                .pageImages("[]")
+                .refCount(1)
+                .build());
+
+        Set<String> retained = pageDedupeService.discardTaskImages("clone");
+
+        verify(fingerprintRepository).decrementRefCount(TENANT, "fp-1");
+        verify(fingerprintRepository).decrementRefCount(TENANT, "fp-2");
+        verify(fingerprintRepository, never()).deleteUnreferenced(anyString(), anyString());
+        verifyNoInteractions(minioStorageService);
+        assertTrue(retained.isEmpty());
+    }
+
+    private static PdfDocument document() {
+        return PdfDocument.builder()
+            .id(10L)
+            .tenantId(TENANT)
+            .contentHash("hash")
+            .taskId("source")
+            .build();
+    }
+
+    private static PdfConversionTask sourceTask() {
+        return PdfConversionTask.builder()
+            .taskId("source")
+            .tenantId(TENANT)
+            .status("COMPLETED")
+            .pdfObjectKey("pdf/source.pdf")
+            .totalPages(3)
+            .build();
+    }
+
+    private static PdfConversionTask newTask() {
+        return PdfConversionTask.builder()
+            .taskId("clone")
+            .tenantId(TENANT)
+            .businessId("biz")
+            .userId("user")
+            .build();
+    }
+
+    private static List<PdfPageImage> sourceImages() {
+        List<PdfPageImage> images = new ArrayList<>();
+        images.add(image(1, "fp-1", ImageVariant.FULL));
+        images.add(image(1, "fp-1", ImageVariant.THUMBNAIL));
+        images.add(image(2, "fp-2", ImageVariant.FULL));
+        images.add(image(3, null, ImageVariant.FULL));
+        return images;
+    }
+
+    private static PdfPageImage image(int pageNumber, String fingerprint, ImageVariant variant) {
+        return PdfPageImage.builder()
+            .taskId("source")
+            .tenantId(TENANT)
+            .pageNumber(pageNumber)
+            .variant(variant.getCode())
+            .imageObjectKey("pdf/source/page_" + pageNumber + "_" + variant.getCode() + ".png")
+            .contentFingerprint(fingerprint)
+            .build();
+    }
+}
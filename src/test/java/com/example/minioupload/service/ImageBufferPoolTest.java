@@ -0,0 +1,91 @@
+package com.example.minioupload.service;
+
+import com.example.minioupload.config.PdfConversionProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ImageBufferPool 缓冲区复用和超大缓冲区丢弃的单元测试
+ */
+class ImageBufferPoolTest {
+
+    private PdfConversionProperties properties;
+
+    @BeforeEach
+    void setUp() {
+        properties = new PdfConversionProperties();
+        PdfConversionProperties.InMemoryEncodingConfig config = properties.getInMemoryEncoding();
+        config.setBufferPoolSize(1);
+        config.setInitialBufferBytes(4096);
+        config.setMaxPooledBufferBytes(16 * 1024);
+    }
+
+    @Test
+    void testAcquire_ReusesReleasedBuffer() {
+        ImageBufferPool pool = new ImageBufferPool(properties);
+        PooledImageBuffer buffer = pool.acquire();
+        buffer.write(new byte[100], 0, 100);
+
+        buffer.release();
+        PooledImageBuffer reused = pool.acquire();
+
+        assertSame(buffer, reused);
+        // 复用前已清空
+        assertEquals(0, reused.size());
+        assertEquals(4096, reused.capacity());
+    }
+
+    @Test
+    void testRelease_IsIdempotent() {
+        ImageBufferPool pool = new ImageBufferPool(properties);
+        PooledImageBuffer buffer = pool.acquire();
+
+        buffer.release();
+        buffer.release();
+
+        assertSame(buffer, pool.acquire());
+        // 重复归还不会让同一缓冲区在池中出现两次
+        assertNotSame(buffer, pool.acquire());
+    }
+
+    @Test
+    void testRelease_DiscardsOversizedBuffer() {
+        ImageBufferPool pool = new ImageBufferPool(properties);
+        PooledImageBuffer buffer = pool.acquire();
+        buffer.write(new byte[32 * 1024], 0, 32 * 1024);
+
+        buffer.release();
+
+        assertNotSame(buffer, pool.acquire());
+    }
+
+    @Test
+    void testRelease_KeepsAtMostPoolSize() {
+        ImageBufferPool pool = new ImageBufferPool(properties);
+        PooledImageBuffer first = pool.acquire();
+        PooledImageBuffer second = pool.acquire();
+
+        first.release();
+        second.release();
+
+        assertSame(first, pool.acquire());
+        assertNotSame(second, pool.acquire());
+    }
+
+    @Test
+    void testArray_ExposesWrittenBytesWithoutCopy() {
+        properties.getInMemoryEncoding().setInitialBufferBytes(10);
+        ImageBufferPool pool = new ImageBufferPool(properties);
+        PooledImageBuffer buffer = pool.acquire();
+
+        buffer.write(new byte[] {1, 2, 3}, 0, 3);
+
+        // 初始容量至少1KB
+        assertEquals(1024, buffer.capacity());
+        assertSame(buffer.array(), buffer.array());
+        assertEquals(3, buffer.size());
+        assertEquals(3, buffer.array()[2]);
+    }
+}
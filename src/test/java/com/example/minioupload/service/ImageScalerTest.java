@@ -0,0 +1,75 @@
+package com.example.minioupload.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ImageScaler 缩小尺寸和位图类型的单元测试
+ */
+class ImageScalerTest {
+
+    @Test
+    void testFitWithin_KeepsImageWithinLimit() {
+        BufferedImage source = new BufferedImage(800, 600, BufferedImage.TYPE_INT_RGB);
+
+        assertSame(source, ImageScaler.fitWithin(source, 800));
+        assertSame(source, ImageScaler.fitWithin(source, 0));
+    }
+
+    @Test
+    void testFitWithin_ScalesLongEdge() {
+        BufferedImage landscape = ImageScaler.fitWithin(new BufferedImage(4000, 1000, BufferedImage.TYPE_INT_RGB), 1000);
+        BufferedImage portrait = ImageScaler.fitWithin(new BufferedImage(1000, 3000, BufferedImage.TYPE_INT_RGB), 300);
+        BufferedImage thin = ImageScaler.fitWithin(new BufferedImage(5000, 2, BufferedImage.TYPE_INT_RGB), 100);
+
+        assertEquals(1000, landscape.getWidth());
+        assertEquals(250, landscape.getHeight());
+        assertEquals(100, portrait.getWidth());
+        assertEquals(300, portrait.getHeight());
+        // 短边至少1像素
+        assertEquals(100, thin.getWidth());
+        assertEquals(1, thin.getHeight());
+    }
+
+    @Test
+    void testScale_OutputTypes() {
+        assertEquals(BufferedImage.TYPE_BYTE_GRAY,
+            ImageScaler.scale(new BufferedImage(400, 400, BufferedImage.TYPE_BYTE_GRAY), 100, 100).getType());
+        // 黑白位图缩小后用灰度表示抗锯齿
+        assertEquals(BufferedImage.TYPE_BYTE_GRAY,
+            ImageScaler.scale(new BufferedImage(400, 400, BufferedImage.TYPE_BYTE_BINARY), 100, 100).getType());
+        assertEquals(BufferedImage.TYPE_INT_RGB,
+            ImageScaler.scale(new BufferedImage(400, 400, BufferedImage.TYPE_INT_ARGB), 100, 100).getType());
+    }
+
+    @Test
+    void testScale_SameSizeReturnsCopy() {
+        BufferedImage source = new BufferedImage(100, 100, BufferedImage.TYPE_INT_RGB);
+
+        BufferedImage scaled = ImageScaler.scale(source, 100, 100);
+
+        assertNotSame(source, scaled);
+        assertEquals(100, scaled.getWidth());
+        assertEquals(100, scaled.getHeight());
+    }
+
+    @Test
+    void testScale_PreservesUniformColor() {
+        BufferedImage source = new BufferedImage(1024, 768, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = source.createGraphics();
+        graphics.setColor(new Color(200, 40, 90));
+        graphics.fillRect(0, 0, 1024, 768);
+        graphics.dispose();
+
+        BufferedImage scaled = ImageScaler.scale(source, 100, 75);
+
+        assertEquals(100, scaled.getWidth());
+        assertEquals(75, scaled.getHeight());
+        assertEquals(new Color(200, 40, 90).getRGB(), scaled.getRGB(50, 37));
+    }
+}
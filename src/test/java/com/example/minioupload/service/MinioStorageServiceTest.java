@@ -0,0 +1,79 @@
+package com.example.minioupload.service;
+
+import com.example.minioupload.config.S3ConfigProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.PutObjectResponse;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * MinioStorageService 内存数据上传的单元测试
+ */
+@ExtendWith(MockitoExtension.class)
+class MinioStorageServiceTest {
+
+    @Mock
+    private S3Client s3Client;
+
+    @Mock
+    private S3Presigner s3Presigner;
+
+    private MinioStorageService minioStorageService;
+
+    @BeforeEach
+    void setUp() {
+        S3ConfigProperties s3ConfigProperties = new S3ConfigProperties();
+        s3ConfigProperties.setBucket("pdf-bucket");
+        minioStorageService = new MinioStorageService(s3Client, s3Presigner, s3ConfigProperties);
+    }
+
+    @Test
+    void testUploadBytes_SendsOnlyValidLength() throws IOException {
+        when(s3Client.putObject(any(PutObjectRequest.class), any(RequestBody.class)))
+            .thenReturn(PutObjectResponse.builder().build());
+        // 缓冲区内部数组比有效数据长
+        byte[] data = {1, 2, 3, 4, 5, 6, 0, 0, 0, 0};
+
+        String key = minioStorageService.uploadBytes(data, 6, "pdf-images/u/b/j/page_0001.png", "image/png");
+
+        ArgumentCaptor<PutObjectRequest> request = ArgumentCaptor.forClass(PutObjectRequest.class);
+        ArgumentCaptor<RequestBody> body = ArgumentCaptor.forClass(RequestBody.class);
+        verify(s3Client).putObject(request.capture(), body.capture());
+        assertEquals("pdf-images/u/b/j/page_0001.png", key);
+        assertEquals("pdf-bucket", request.getValue().bucket());
+        assertEquals(6L, request.getValue().contentLength());
+        assertEquals("image/png", request.getValue().contentType());
+        assertEquals(6L, body.getValue().optionalContentLength().orElse(-1L));
+        try (InputStream stream = body.getValue().contentStreamProvider().newStream()) {
+            assertArrayEquals(new byte[] {1, 2, 3, 4, 5, 6}, stream.readAllBytes());
+        }
+    }
+
+    @Test
+    void testUploadBytes_WrapsS3Exception() {
+        when(s3Client.putObject(any(PutObjectRequest.class), any(RequestBody.class)))
+            .thenThrow(S3Exception.builder().message("slow down").build());
+
+        IOException exception = assertThrows(IOException.class, () ->
+            minioStorageService.uploadBytes(new byte[4], 4, "key", "image/png"));
+
+        assertTrue(exception.getMessage().contains("slow down"));
+        assertTrue(exception.getCause() instanceof S3Exception);
+    }
+}
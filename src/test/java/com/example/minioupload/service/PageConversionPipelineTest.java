@@ -0,0 +1,201 @@
+package com.example.minioupload.service;
+
+import com.example.minioupload.config.PdfConversionProperties;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.rendering.PDFRenderer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * PageConversionPipeline 正常完成、失败传播和队列清理的单元测试
+ */
+class PageConversionPipelineTest {
+
+    private static final int PAGE_COUNT = 12;
+    private static final int DPI = 10;
+    private static final int BUDGET_PAGES = 4;
+
+    @TempDir
+    Path tempDir;
+
+    private ExecutorService executor;
+    private PdfConversionProperties properties;
+    private PdfDocumentSession session;
+    private RenderMemoryBudget budget;
+    private final Set<Integer> renderedPages = ConcurrentHashMap.newKeySet();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        executor = Executors.newCachedThreadPool();
+        properties = new PdfConversionProperties();
+        PdfConversionProperties.PipelineConfig pipeline = properties.getPipeline();
+        pipeline.setRenderThreads(2);
+        pipeline.setEncodeThreads(2);
+        pipeline.setUploadThreads(2);
+        pipeline.setEncodeQueueCapacity(1);
+        pipeline.setUploadQueueCapacity(1);
+
+        File pdf = tempDir.resolve("doc.pdf").toFile();
+        try (PDDocument document = new PDDocument()) {
+            for (int i = 0; i < PAGE_COUNT; i++) {
+                document.addPage(new PDPage());
+            }
+            document.save(pdf);
+        }
+        session = PdfDocumentSession.open(pdf, properties);
+
+        long pageBytes = RenderMemoryBudget.estimateBytes(new PDPage(), DPI);
+        properties.getRenderMemory().setEnabled(true);
+        properties.getRenderMemory().setBudgetBytes(pageBytes * BUDGET_PAGES);
+        budget = new RenderMemoryBudget(properties, new PdfConversionMetrics());
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        session.close();
+        executor.shutdownNow();
+    }
+
+    @Test
+    void testRun_ConvertsAllPagesInOrder() throws IOException {
+        List<Integer> pageNumbers = new ArrayList<>();
+        for (int page = PAGE_COUNT; page >= 1; page--) {
+            pageNumbers.add(page);
+        }
+        // 无效页码跳过
+        pageNumbers.add(0);
+        pageNumbers.add(PAGE_COUNT + 1);
+
+        Map<Integer, PdfToImageService.PageRenderInfo> results = run(pageNumbers, -1, -1);
+
+        assertEquals(PAGE_COUNT, results.size());
+        assertEquals(List.of(1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12), new ArrayList<>(results.keySet()));
+        assertEquals(PAGE_COUNT, renderedPages.size());
+        assertBudgetReturned();
+        assertNoTempFiles();
+    }
+
+    @Test
+    void testRun_UploadFailureIsRethrownAndQueuesDrained() {
+        IOException exception = assertTimeoutPreemptively(Duration.ofSeconds(20), () ->
+            assertThrows(IOException.class, () -> run(allPages(), -1, 1)));
+
+        assertEquals("upload failed: page 1", exception.getMessage());
+        // 失败后不再领取新页面
+        assertTrue(renderedPages.size() < PAGE_COUNT);
+        assertBudgetReturned();
+        assertNoTempFiles();
+    }
+
+    @Test
+    void testRun_RenderFailureIsWrapped() {
+        IOException exception = assertTimeoutPreemptively(Duration.ofSeconds(20), () ->
+            assertThrows(IOException.class, () -> run(allPages(), 5, -1)));
+
+        assertTrue(exception.getCause() instanceof IllegalStateException);
+        assertTrue(exception.getMessage().contains("render failed: page 5"));
+        assertBudgetReturned();
+        assertNoTempFiles();
+    }
+
+    private Map<Integer, PdfToImageService.PageRenderInfo> run(List<Integer> pageNumbers, int failRenderPage,
+                                                               int failUploadPage) throws IOException {
+        PageConversionPipeline pipeline = new PageConversionPipeline(properties.getPipeline(), executor,
+            new PdfConversionMetrics());
+        return pipeline.run(session, pageNumbers,
+            workerSession -> new PDFRenderer(workerSession.getDocument()),
+            (document, renderer, pageNumber) -> {
+                if (pageNumber == failRenderPage) {
+                    throw new IllegalStateException("render failed: page " + pageNumber);
+                }
+                renderedPages.add(pageNumber);
+                RenderMemoryBudget.Reservation reservation = budget.reserve(document.getPage(pageNumber - 1), pageNumber, DPI);
+                return PdfToImageService.RenderedPage.builder()
+                    .pageNumber(pageNumber)
+                    .memoryReservation(reservation)
+                    .build();
+            },
+            renderedPage -> {
+                renderedPage.releaseMemory();
+                File imageFile = Files.createTempFile(tempDir, "page_" + renderedPage.getPageNumber() + "_", ".png").toFile();
+                return PdfToImageService.EncodedPage.builder()
+                    .pageNumber(renderedPage.getPageNumber())
+                    .imageFile(imageFile)
+                    .build();
+            },
+            encodedPage -> {
+                // 与实际上传一致：无论成功与否都删除临时文件
+                Files.deleteIfExists(encodedPage.getImageFile().toPath());
+                if (encodedPage.getPageNumber() == failUploadPage) {
+                    throw new IOException("upload failed: page " + encodedPage.getPageNumber());
+                }
+                if (failUploadPage > 0) {
+                    // 失败场景中放慢上传，使队列在失败时仍有积压
+                    pause(50);
+                }
+                return PdfToImageService.PageRenderInfo.builder()
+                    .pageNumber(encodedPage.getPageNumber())
+                    .build();
+            });
+    }
+
+    private static void pause(long millis) throws InterruptedIOException {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while uploading");
+        }
+    }
+
+    private static List<Integer> allPages() {
+        List<Integer> pageNumbers = new ArrayList<>();
+        for (int page = 1; page <= PAGE_COUNT; page++) {
+            pageNumbers.add(page);
+        }
+        return pageNumbers;
+    }
+
+    /**
+     * 渲染内存预算已全部归还：能一次预留满整个预算
+     */
+    private void assertBudgetReturned() {
+        PDPage page = new PDPage();
+        Future<?> reserveAll = executor.submit(() -> {
+            List<RenderMemoryBudget.Reservation> reservations = new ArrayList<>();
+            for (int i = 0; i < BUDGET_PAGES; i++) {
+                reservations.add(budget.reserve(page, i + 1, DPI));
+            }
+            reservations.forEach(RenderMemoryBudget.Reservation::close);
+            return null;
+        });
+        assertDoesNotThrow(() -> reserveAll.get(5, TimeUnit.SECONDS));
+    }
+
+    private void assertNoTempFiles() {
+        File[] leftovers = tempDir.toFile().listFiles((dir, name) -> name.endsWith(".png"));
+        assertNotNull(leftovers);
+        assertEquals(0, leftovers.length);
+    }
+}
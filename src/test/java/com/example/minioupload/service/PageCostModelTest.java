@@ -0,0 +1,118 @@
+package com.example.minioupload.service;
+
+import com.example.minioupload.config.PdfConversionProperties;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.PDResources;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.graphics.image.LosslessFactory;
+import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
+import org.apache.pdfbox.pdmodel.interactive.annotation.PDAppearanceStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * PageCostModel 成本估算和渲染顺序的单元测试
+ */
+class PageCostModelTest {
+
+    private static final int DPI = 150;
+
+    private PageCostModel costModel;
+    private PDDocument document;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        costModel = new PageCostModel(new PdfConversionProperties(), new PdfConversionMetrics());
+
+        // 第1页：A4空白；第2页：A4+2000x2000图片；第3页：A3空白；第4页：A4+表单XObject中引用同一图片两次
+        document = new PDDocument();
+        PDImageXObject image = LosslessFactory.createFromImage(document,
+            new BufferedImage(2000, 2000, BufferedImage.TYPE_BYTE_GRAY));
+        document.addPage(new PDPage(PDRectangle.A4));
+
+        PDPage imagePage = new PDPage(PDRectangle.A4);
+        document.addPage(imagePage);
+        try (PDPageContentStream content = new PDPageContentStream(document, imagePage)) {
+            content.drawImage(image, 0, 0, 100, 100);
+        }
+
+        document.addPage(new PDPage(PDRectangle.A3));
+
+        PDAppearanceStream form = new PDAppearanceStream(document);
+        form.setBBox(PDRectangle.A4);
+        form.setResources(new PDResources());
+        try (PDPageContentStream content = new PDPageContentStream(document, form)) {
+            content.drawImage(image, 0, 0, 100, 100);
+            content.drawImage(image, 100, 0, 100, 100);
+        }
+        PDPage formPage = new PDPage(PDRectangle.A4);
+        document.addPage(formPage);
+        try (PDPageContentStream content = new PDPageContentStream(document, formPage)) {
+            content.drawForm(form);
+        }
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        document.close();
+    }
+
+    @Test
+    void testEstimate_CountsOutputAndImagePixels() {
+        PageCostModel.PageCost blank = costModel.estimate(document.getPage(0), DPI);
+        PageCostModel.PageCost withImage = costModel.estimate(document.getPage(1), DPI);
+        PageCostModel.PageCost large = costModel.estimate(document.getPage(2), DPI);
+        PageCostModel.PageCost viaForm = costModel.estimate(document.getPage(3), DPI);
+
+        assertEquals(0.0, blank.getImageMegapixels());
+        assertEquals(4.0, withImage.getImageMegapixels(), 1e-9);
+        // 表单中重复引用的图片只计一次
+        assertEquals(4.0, viaForm.getImageMegapixels(), 1e-9);
+        assertTrue(viaForm.getContentKilobytes() > withImage.getContentKilobytes());
+        assertEquals(2.0, large.getOutputMegapixels() / blank.getOutputMegapixels(), 0.01);
+        assertTrue(withImage.getPredictedMs() > large.getPredictedMs());
+        assertTrue(large.getPredictedMs() > blank.getPredictedMs());
+    }
+
+    @Test
+    void testPlan_OrdersLongestFirst() {
+        PageCostModel.Plan plan = costModel.plan(document, List.of(1, 2, 3), 0, DPI, true);
+
+        assertEquals(List.of(2, 3, 1), plan.getOrder());
+        assertNotNull(plan.getCost(1));
+    }
+
+    @Test
+    void testPlan_KeepsFixedOrderPrefix() {
+        PageCostModel.Plan plan = costModel.plan(document, List.of(1, 3, 2), 1, DPI, true);
+
+        assertEquals(List.of(1, 2, 3), plan.getOrder());
+    }
+
+    @Test
+    void testPlan_WithoutReorderKeepsRequestedOrder() {
+        PageCostModel.Plan plan = costModel.plan(document, List.of(1, 3, 2), 0, DPI, false);
+
+        assertEquals(List.of(1, 3, 2), plan.getOrder());
+        assertNotNull(plan.getCost(2));
+    }
+
+    @Test
+    void testPlan_IgnoresPagesOutOfRange() {
+        PageCostModel.Plan plan = costModel.plan(document, List.of(9, 1), 0, DPI, true);
+
+        assertNull(plan.getCost(9));
+        assertEquals(List.of(1, 9), plan.getOrder());
+        // 没有预估的页面不记录实际耗时
+        plan.recordActual(9, 1_000_000L);
+    }
+}
@@ -0,0 +1,169 @@
+package com.example.minioupload.service;
+
+import com.example.minioupload.config.PdfConversionProperties;
+import com.example.minioupload.model.PdfPageFingerprint;
+import com.example.minioupload.model.PdfPageImage;
+import com.example.minioupload.model.enums.ImageVariant;
+import com.example.minioupload.repository.PdfPageFingerprintRepository;
+import com.example.minioupload.repository.PdfPageImageRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * PageDedupeService 共享引用计数和释放的单元测试
+ */
+@ExtendWith(MockitoExtension.class)
+class PageDedupeServiceTest {
+
+    private static final String TENANT = "tenant-1";
+    private static final String FINGERPRINT = "fp-1";
+
+    @Mock
+    private PdfPageFingerprintRepository fingerprintRepository;
+
+    @Mock
+    private PdfPageImageRepository pageImageRepository;
+
+    @Mock
+    private MinioStorageService minioStorageService;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private PageDedupeService pageDedupeService;
+
+    @BeforeEach
+    void setUp() {
+        pageDedupeService = new PageDedupeService(new PdfConversionProperties(), fingerprintRepository,
+            pageImageRepository, minioStorageService, objectMapper);
+    }
+
+    @Test
+    void testRelease_LastReferenceDeletesObjects() throws Exception {
+        when(fingerprintRepository.decrementRefCount(TENANT, FINGERPRINT)).thenReturn(1);
+        when(fingerprintRepository.findByTenantIdAndFingerprint(TENANT, FINGERPRINT)).thenReturn(entry(0));
+        when(fingerprintRepository.deleteUnreferenced(TENANT, FINGERPRINT)).thenReturn(1);
+
+        pageDedupeService.release(TENANT, FINGERPRINT);
+
+        verify(minioStorageService).deleteFiles(List.of("pdf/t1/page_1.png", "pdf/t1/page_1.dzi",
+            "pdf/t1/page_1_thumb.png"));
+        verify(minioStorageService).deleteByPrefix("pdf/t1/page_1_files/");
+    }
+
+    @Test
+    void testRelease_StillReferencedKeepsObjects() throws Exception {
+        when(fingerprintRepository.decrementRefCount(TENANT, FINGERPRINT)).thenReturn(1);
+        when(fingerprintRepository.findByTenantIdAndFingerprint(TENANT, FINGERPRINT)).thenReturn(entry(2));
+
+        pageDedupeService.release(TENANT, FINGERPRINT);
+
+        verify(fingerprintRepository, never()).deleteUnreferenced(anyString(), anyString());
+        verifyNoInteractions(minioStorageService);
+    }
+
+    @Test
+    void testRelease_ConcurrentReuseKeepsObjects() throws Exception {
+        // 计数降为0后被其他任务重新引用，删除索引失败
+        when(fingerprintRepository.decrementRefCount(TENANT, FINGERPRINT)).thenReturn(1);
+        when(fingerprintRepository.findByTenantIdAndFingerprint(TENANT, FINGERPRINT)).thenReturn(entry(0));
+        when(fingerprintRepository.deleteUnreferenced(TENANT, FINGERPRINT)).thenReturn(0);
+
+        pageDedupeService.release(TENANT, FINGERPRINT);
+
+        verifyNoInteractions(minioStorageService);
+    }
+
+    @Test
+    void testRelease_AlreadyReleasedDoesNothing() {
+        when(fingerprintRepository.decrementRefCount(TENANT, FINGERPRINT)).thenReturn(0);
+
+        pageDedupeService.release(TENANT, FINGERPRINT);
+
+        verify(fingerprintRepository, never()).findByTenantIdAndFingerprint(anyString(), anyString());
+        verifyNoInteractions(minioStorageService);
+    }
+
+    @Test
+    void testSharePageImages_ReleasingFingerprintUndoesAcquired() {
+        List<PdfPageImage> sources = List.of(
+            sourceImage(1L, "fp-a", ImageVariant.FULL),
+            sourceImage(2L, "fp-a", ImageVariant.THUMBNAIL),
+            sourceImage(3L, "fp-b", ImageVariant.FULL));
+        when(fingerprintRepository.incrementRefCount(TENANT, "fp-a")).thenReturn(1);
+        when(fingerprintRepository.incrementRefCount(TENANT, "fp-b")).thenReturn(0);
+
+        assertFalse(pageDedupeService.sharePageImages(sources, "task-2", "biz", "user", TENANT, false));
+
+        // 规格图片不单独计数，只撤销原图增加的一次
+        verify(fingerprintRepository, times(1)).incrementRefCount(TENANT, "fp-a");
+        verify(fingerprintRepository).decrementRefCount(TENANT, "fp-a");
+        verify(fingerprintRepository, never()).decrementRefCount(TENANT, "fp-b");
+        verify(pageImageRepository, never()).insert(any(PdfPageImage.class));
+    }
+
+    @Test
+    void testDiscardTaskImages_ReleasesOncePerPageAndReturnsRetainedKeys() throws Exception {
+        when(pageImageRepository.findByTaskId("task-1")).thenReturn(List.of(
+            sourceImage(1L, FINGERPRINT, ImageVariant.FULL),
+            sourceImage(2L, FINGERPRINT, ImageVariant.THUMBNAIL),
+            sourceImage(3L, null, ImageVariant.FULL),
+            sourceImage(4L, "fp-gone", ImageVariant.FULL)));
+        when(pageImageRepository.deleteById(1L)).thenReturn(1);
+        when(pageImageRepository.deleteById(2L)).thenReturn(1);
+        when(pageImageRepository.deleteById(3L)).thenReturn(1);
+        // 其他节点已删除该记录，不再释放
+        when(pageImageRepository.deleteById(4L)).thenReturn(0);
+        when(fingerprintRepository.decrementRefCount(TENANT, FINGERPRINT)).thenReturn(1);
+        when(fingerprintRepository.findByTenantIdAndFingerprint(TENANT, FINGERPRINT)).thenReturn(entry(1));
+
+        Set<String> retained = pageDedupeService.discardTaskImages("task-1");
+
+        verify(fingerprintRepository, times(1)).decrementRefCount(TENANT, FINGERPRINT);
+        verify(fingerprintRepository, never()).decrementRefCount(TENANT, "fp-gone");
+        verifyNoInteractions(minioStorageService);
+        assertEquals(Set.of("pdf/t1/page_1.png", "pdf/t1/page_1_thumb.png", "pdf/t1/page_1.dzi",
+            "pdf/t1/page_1_files/"), retained);
+    }
+
+    private PdfPageFingerprint entry(int refCount) throws Exception {
+        List<PdfPageImage> templates = List.of(
+            PdfPageImage.builder()
+                .variant(ImageVariant.FULL.getCode())
+                .imageObjectKey("pdf/t1/page_1.png")
+                .tileManifestKey("pdf/t1/page_1.dzi")
+                .build(),
+            PdfPageImage.builder()
+                .variant(ImageVariant.THUMBNAIL.getCode())
+                .imageObjectKey("pdf/t1/page_1_thumb.png")
+                .build());
+        return PdfPageFingerprint.builder()
+            .tenantId(TENANT)
+            .fingerprint(FINGERPRINT)
+            .pageImages(objectMapper.writeValueAsString(templates))
+            .refCount(refCount)
+            .build();
+    }
+
+    private static PdfPageImage sourceImage(Long id, String fingerprint, ImageVariant variant) {
+        return PdfPageImage.builder()
+            .id(id)
+            .taskId("task-1")
+            .tenantId(TENANT)
+            .pageNumber(1)
+            .variant(variant.getCode())
+            .imageObjectKey("pdf/task-1/page_1_" + variant.getCode() + ".png")
+            .contentFingerprint(fingerprint)
+            .build();
+    }
+}
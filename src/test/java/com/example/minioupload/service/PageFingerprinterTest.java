@@ -0,0 +1,111 @@
+package com.example.minioupload.service;
+
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.pdmodel.font.Standard14Fonts;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * PageFingerprinter 指纹稳定性和变化检测的单元测试
+ */
+class PageFingerprinterTest {
+
+    private static final String SIGNATURE = "v1|dpi=150|format=PNG";
+
+    @Test
+    void testFingerprint_StableAcrossResave() throws IOException {
+        byte[] original = createDocument("Page one", "Page two", "Page three");
+
+        byte[] resaved;
+        try (PDDocument document = Loader.loadPDF(original)) {
+            // 修改文档信息不影响页面内容
+            document.getDocumentInformation().setTitle("Re-saved");
+            resaved = save(document);
+        }
+
+        assertEquals(fingerprints(original, SIGNATURE), fingerprints(resaved, SIGNATURE));
+    }
+
+    @Test
+    void testFingerprint_OnlyChangedPageDiffers() throws IOException {
+        List<String> before = fingerprints(createDocument("Page one", "Page two", "Page three"), SIGNATURE);
+        List<String> after = fingerprints(createDocument("Page one", "Page two (edited)", "Page three"), SIGNATURE);
+
+        assertEquals(before.get(0), after.get(0));
+        assertNotEquals(before.get(1), after.get(1));
+        assertEquals(before.get(2), after.get(2));
+    }
+
+    @Test
+    void testFingerprint_IdenticalPagesMatch() throws IOException {
+        List<String> hashes = fingerprints(createDocument("Same", "Other", "Same"), SIGNATURE);
+
+        assertEquals(hashes.get(0), hashes.get(2));
+        assertNotEquals(hashes.get(0), hashes.get(1));
+    }
+
+    @Test
+    void testFingerprint_RenderSignatureChangesFingerprint() throws IOException {
+        byte[] document = createDocument("Page one");
+
+        assertNotEquals(fingerprints(document, SIGNATURE), fingerprints(document, "v1|dpi=300|format=PNG"));
+    }
+
+    @Test
+    void testFingerprint_RotationChangesFingerprint() throws IOException {
+        byte[] original = createDocument("Page one");
+        byte[] rotated;
+        try (PDDocument document = Loader.loadPDF(original)) {
+            document.getPage(0).setRotation(90);
+            rotated = save(document);
+        }
+
+        assertNotEquals(fingerprints(original, SIGNATURE), fingerprints(rotated, SIGNATURE));
+    }
+
+    private static List<String> fingerprints(byte[] pdf, String signature) throws IOException {
+        try (PDDocument document = Loader.loadPDF(pdf)) {
+            PageFingerprinter fingerprinter = new PageFingerprinter(document, signature);
+            List<String> hashes = new ArrayList<>();
+            for (PDPage page : document.getPages()) {
+                hashes.add(fingerprinter.fingerprint(page));
+            }
+            return hashes;
+        }
+    }
+
+    private static byte[] createDocument(String... pageTexts) throws IOException {
+        try (PDDocument document = new PDDocument()) {
+            PDType1Font font = new PDType1Font(Standard14Fonts.FontName.HELVETICA);
+            for (String text : pageTexts) {
+                PDPage page = new PDPage(PDRectangle.A4);
+                document.addPage(page);
+                try (PDPageContentStream content = new PDPageContentStream(document, page)) {
+                    content.beginText();
+                    content.setFont(font, 12);
+                    content.newLineAtOffset(72, 720);
+                    content.showText(text);
+                    content.endText();
+                }
+            }
+            return save(document);
+        }
+    }
+
+    private static byte[] save(PDDocument document) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        document.save(out);
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,219 @@
+package com.example.minioupload.service;
+
+import com.example.minioupload.config.PdfConversionProperties;
+import com.example.minioupload.model.PdfConversionTask;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+/**
+ * PageImageBatchWriter 触发条件、失败重试和关闭的单元测试
+ */
+@ExtendWith(MockitoExtension.class)
+class PageImageBatchWriterTest {
+
+    private static final int DPI = 150;
+
+    @Mock
+    private PageImagePersister pageImagePersister;
+
+    @Mock
+    private PageLedger pageLedger;
+
+    private PdfConversionProperties properties;
+    private PdfConversionTask task;
+    private final Set<Integer> persistedPages = ConcurrentHashMap.newKeySet();
+
+    @BeforeEach
+    void setUp() {
+        properties = new PdfConversionProperties();
+        properties.getPagePersistence().setEnabled(true);
+        properties.getPagePersistence().setBatchSize(2);
+        properties.getPagePersistence().setFlushIntervalMillis(60_000L);
+        task = PdfConversionTask.builder()
+            .taskId("t1")
+            .businessId("b1")
+            .userId("u1")
+            .tenantId("tenant")
+            .isBase(true)
+            .build();
+    }
+
+    @Test
+    void testFlushDue_BatchSizeTrigger() {
+        PageImageBatchWriter writer = new PageImageBatchWriter(properties, pageImagePersister, pageLedger);
+        PageImageBatchWriter.Batch batch = writer.open(task, DPI, persistedPages);
+
+        batch.add(page(2));
+        writer.flushDue();
+        verifyNoInteractions(pageImagePersister, pageLedger);
+
+        batch.add(page(1));
+        writer.flushDue();
+
+        Map<Integer, PdfToImageService.PageRenderInfo> saved = captureSaved(1);
+        assertEquals(List.of(1, 2), List.copyOf(saved.keySet()));
+        verify(pageLedger).markCompleted(eq("t1"), eq(Set.of(1, 2)));
+        assertEquals(Set.of(1, 2), persistedPages);
+
+        // 已保存的页面不再重复保存
+        writer.flushDue();
+        verify(pageImagePersister, times(1)).savePageImages(anyString(), anyString(), anyString(), anyString(),
+            anyMap(), anyBoolean(), anyInt());
+    }
+
+    @Test
+    void testFlushDue_FlushIntervalTrigger() throws InterruptedException {
+        properties.getPagePersistence().setBatchSize(100);
+        properties.getPagePersistence().setFlushIntervalMillis(50L);
+        PageImageBatchWriter writer = new PageImageBatchWriter(properties, pageImagePersister, pageLedger);
+        PageImageBatchWriter.Batch batch = writer.open(task, DPI, persistedPages);
+
+        batch.add(page(1));
+        writer.flushDue();
+        verifyNoInteractions(pageImagePersister);
+
+        Thread.sleep(80);
+        writer.flushDue();
+
+        assertEquals(Set.of(1), captureSaved(1).keySet());
+        assertEquals(Set.of(1), persistedPages);
+    }
+
+    @Test
+    void testFlushDue_FailureBacksOffAndKeepsPages() throws InterruptedException {
+        properties.getPagePersistence().setBatchSize(1);
+        properties.getPagePersistence().setFlushIntervalMillis(1000L);
+        doThrow(new IllegalStateException("database unavailable"))
+            .doNothing()
+            .when(pageImagePersister).savePageImages(anyString(), anyString(), anyString(), anyString(),
+                anyMap(), anyBoolean(), anyInt());
+        PageImageBatchWriter writer = new PageImageBatchWriter(properties, pageImagePersister, pageLedger);
+        PageImageBatchWriter.Batch batch = writer.open(task, DPI, persistedPages);
+
+        batch.add(page(1));
+        writer.flushDue();
+        verify(pageLedger, never()).markCompleted(anyString(), any());
+        assertTrue(persistedPages.isEmpty());
+
+        // 失败后的等待期内不重试，新页面与放回的页面合并
+        batch.add(page(2));
+        writer.flushDue();
+        verify(pageImagePersister, times(1)).savePageImages(anyString(), anyString(), anyString(), anyString(),
+            anyMap(), anyBoolean(), anyInt());
+
+        Thread.sleep(1100);
+        writer.flushDue();
+
+        assertEquals(Set.of(1, 2), captureSaved(2).keySet());
+        verify(pageLedger).markCompleted(eq("t1"), eq(Set.of(1, 2)));
+        assertEquals(Set.of(1, 2), persistedPages);
+    }
+
+    @Test
+    void testFlush_FailurePutsPagesBackAndRethrows() {
+        doThrow(new IllegalStateException("database unavailable"))
+            .doNothing()
+            .when(pageImagePersister).savePageImages(anyString(), anyString(), anyString(), anyString(),
+                anyMap(), anyBoolean(), anyInt());
+        PageImageBatchWriter writer = new PageImageBatchWriter(properties, pageImagePersister, pageLedger);
+        PageImageBatchWriter.Batch batch = writer.open(task, DPI, persistedPages);
+        batch.add(page(1));
+
+        assertThrows(IllegalStateException.class, batch::flush);
+        batch.flush();
+
+        assertEquals(Set.of(1), captureSaved(2).keySet());
+        assertEquals(Set.of(1), persistedPages);
+    }
+
+    @Test
+    void testClose_WaitsForInFlightFlush() throws Exception {
+        CountDownLatch saving = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            saving.countDown();
+            assertTrue(release.await(5, TimeUnit.SECONDS));
+            return null;
+        }).when(pageImagePersister).savePageImages(anyString(), anyString(), anyString(), anyString(),
+            anyMap(), anyBoolean(), anyInt());
+        PageImageBatchWriter writer = new PageImageBatchWriter(properties, pageImagePersister, pageLedger);
+        PageImageBatchWriter.Batch batch = writer.open(task, DPI, persistedPages);
+        batch.add(page(1));
+
+        CompletableFuture<Void> flush = CompletableFuture.runAsync(batch::flush);
+        assertTrue(saving.await(5, TimeUnit.SECONDS));
+        CompletableFuture<Void> close = CompletableFuture.runAsync(batch::close);
+
+        // 保存进行中时关闭不返回
+        assertThrows(TimeoutException.class, () -> close.get(200, TimeUnit.MILLISECONDS));
+        release.countDown();
+        flush.get(5, TimeUnit.SECONDS);
+        close.get(5, TimeUnit.SECONDS);
+
+        verify(pageLedger).markCompleted(eq("t1"), eq(Set.of(1)));
+        assertThrows(IllegalStateException.class, () -> batch.add(page(2)));
+    }
+
+    @Test
+    void testClose_DropsPendingPages() {
+        doNothing().when(pageImagePersister).savePageImages(anyString(), anyString(), anyString(), anyString(),
+            anyMap(), anyBoolean(), anyInt());
+        properties.getPagePersistence().setBatchSize(1);
+        PageImageBatchWriter writer = new PageImageBatchWriter(properties, pageImagePersister, pageLedger);
+        PageImageBatchWriter.Batch closed = writer.open(task, DPI, persistedPages);
+        PageImageBatchWriter.Batch open = writer.open(task, DPI, persistedPages);
+        closed.add(page(1));
+        open.add(page(2));
+
+        closed.close();
+        closed.flush();
+        writer.flushDue();
+
+        // 只保存仍打开的批次
+        assertEquals(Set.of(2), captureSaved(1).keySet());
+        assertEquals(Set.of(2), persistedPages);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<Integer, PdfToImageService.PageRenderInfo> captureSaved(int times) {
+        ArgumentCaptor<Map<Integer, PdfToImageService.PageRenderInfo>> pages = ArgumentCaptor.forClass(Map.class);
+        verify(pageImagePersister, times(times)).savePageImages(eq("t1"), eq("b1"), eq("u1"), eq("tenant"),
+            pages.capture(), eq(true), eq(DPI));
+        return pages.getValue();
+    }
+
+    private static PdfToImageService.PageRenderInfo page(int pageNumber) {
+        return PdfToImageService.PageRenderInfo.builder()
+            .pageNumber(pageNumber)
+            .minioObjectKey("pdf-images/u1/b1/t1/page_" + pageNumber + ".png")
+            .build();
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.minioupload.service;
+
+import com.example.minioupload.config.PdfConversionProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * PageImageEncoders 格式选择、JPEG默认质量和WebP尺寸回退的单元测试
+ */
+class PageImageEncodersTest {
+
+    private PdfConversionProperties properties;
+    private PdfConversionMetrics metrics;
+
+    @BeforeEach
+    void setUp() {
+        properties = new PdfConversionProperties();
+        metrics = new PdfConversionMetrics();
+    }
+
+    @Test
+    void testDefaults_JpegQualityMatchesImageIo() {
+        assertEquals(0.75f, properties.getImageRendering().getJpegQuality());
+    }
+
+    @Test
+    void testJpeg_DefaultQualityMatchesImageIoOutput() throws IOException {
+        BufferedImage image = sampleImage();
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        assertTrue(ImageIO.write(image, "jpg", expected));
+
+        PageImageEncoders encoders = new PageImageEncoders(properties, metrics);
+        byte[] actual = encoders.encodeToBytes(encoders.forFormat("JPG"), image);
+
+        // 与升级前ImageIO.write的输出体积一致
+        assertEquals(expected.size(), actual.length, expected.size() / 100.0);
+    }
+
+    @Test
+    void testJpeg_QualityAffectsSize() throws IOException {
+        BufferedImage image = sampleImage();
+        PageImageEncoders defaults = new PageImageEncoders(properties, metrics);
+        byte[] defaultBytes = defaults.encodeToBytes(defaults.forFormat("jpg"), image);
+
+        properties.getImageRendering().setJpegQuality(1.0f);
+        PageImageEncoders best = new PageImageEncoders(properties, metrics);
+        byte[] bestBytes = best.encodeToBytes(best.forFormat("jpg"), image);
+
+        assertTrue(bestBytes.length > defaultBytes.length);
+    }
+
+    @Test
+    void testFormatFor_WebpWithinLimit() {
+        PageImageEncoders encoders = new PageImageEncoders(properties, metrics);
+
+        assertEquals("webp", encoders.formatFor("webp", 2480, 3508));
+        assertEquals("webp", encoders.formatFor("webp", WebpPageEncoder.MAX_DIMENSION, WebpPageEncoder.MAX_DIMENSION));
+        // 非WebP格式不受尺寸限制
+        assertEquals("png", encoders.formatFor("png", 20000, 30000));
+    }
+
+    @Test
+    void testFormatFor_OversizedLossyWebpFallsBackToJpeg() {
+        properties.getImageRendering().setWebpLossless(false);
+        PageImageEncoders encoders = new PageImageEncoders(properties, metrics);
+
+        assertEquals("jpg", encoders.formatFor("webp", WebpPageEncoder.MAX_DIMENSION + 1, 100));
+        assertEquals("jpg", encoders.formatFor(" WEBP ", 100, WebpPageEncoder.MAX_DIMENSION + 1));
+    }
+
+    @Test
+    void testFormatFor_OversizedLosslessWebpFallsBackToPng() {
+        properties.getImageRendering().setWebpLossless(true);
+        PageImageEncoders encoders = new PageImageEncoders(properties, metrics);
+
+        assertEquals("png", encoders.formatFor("webp", 16384, 23170));
+    }
+
+    @Test
+    void testWebpFits_SizeLimit() {
+        assertTrue(WebpPageEncoder.fits(WebpPageEncoder.MAX_DIMENSION, 1));
+        assertFalse(WebpPageEncoder.fits(WebpPageEncoder.MAX_DIMENSION + 1, 1));
+        assertFalse(WebpPageEncoder.fits(1, WebpPageEncoder.MAX_DIMENSION + 1));
+    }
+
+    @Test
+    void testEncode_RecordsMetricsPerFormat() throws IOException {
+        PageImageEncoders encoders = new PageImageEncoders(properties, metrics);
+
+        byte[] png = encoders.encodeToBytes(encoders.forFormat("png"), sampleImage());
+
+        assertTrue(png.length > 0);
+        Map<String, Object> snapshot = metrics.snapshot();
+        assertTrue(String.valueOf(snapshot.get("encoders")).contains("png"));
+    }
+
+    private static BufferedImage sampleImage() {
+        BufferedImage image = new BufferedImage(320, 240, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setColor(Color.WHITE);
+        graphics.fillRect(0, 0, 320, 240);
+        graphics.setColor(new Color(30, 60, 160));
+        for (int i = 0; i < 24; i++) {
+            graphics.drawString("PDF page text line " + i, 10, 10 + i * 10);
+        }
+        graphics.dispose();
+        return image;
+    }
+}
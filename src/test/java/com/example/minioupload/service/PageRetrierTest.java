@@ -0,0 +1,172 @@
+package com.example.minioupload.service;
+
+import com.example.minioupload.config.PdfConversionProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * PageRetrier 重试、不重试和终止的单元测试
+ */
+class PageRetrierTest {
+
+    private PdfConversionProperties properties;
+    private PdfConversionMetrics metrics;
+    private PageRetrier retrier;
+    private ConversionControl control;
+
+    @BeforeEach
+    void setUp() {
+        properties = new PdfConversionProperties();
+        properties.getRetry().setMaxAttempts(3);
+        properties.getRetry().setInitialBackoffMillis(1L);
+        properties.getRetry().setBackoffMultiplier(2.0);
+        properties.getRetry().setMaxBackoffMillis(4L);
+        metrics = new PdfConversionMetrics();
+        retrier = new PageRetrier(properties, metrics);
+        control = new ConversionControl("task-1", true, 0, 0);
+        control.start();
+    }
+
+    @Test
+    void testCall_SucceedsAfterTransientFailures() throws IOException {
+        AtomicInteger attempts = new AtomicInteger();
+
+        String result = retrier.call(5, PdfConversionMetrics.STAGE_RENDER, control, () -> {
+            if (attempts.incrementAndGet() < 3) {
+                throw new IOException("transient");
+            }
+            return "ok";
+        });
+
+        assertEquals("ok", result);
+        assertEquals(3, attempts.get());
+        assertEquals(2L, retryStats().get("renderRetries"));
+        assertEquals(0L, retryStats().get("exhaustedPages"));
+    }
+
+    @Test
+    void testCall_ExhaustedThrowsPageConversionException() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        PageConversionException exception = assertThrows(PageConversionException.class, () ->
+            retrier.call(7, PdfConversionMetrics.STAGE_UPLOAD, control, () -> {
+                attempts.incrementAndGet();
+                throw new IllegalStateException("storage unavailable");
+            }));
+
+        assertEquals(3, attempts.get());
+        assertEquals(7, exception.getPageNumber());
+        assertEquals(3, exception.getAttempts());
+        assertTrue(exception.getCause() instanceof IllegalStateException);
+        assertEquals(2L, retryStats().get("uploadRetries"));
+        assertEquals(1L, retryStats().get("exhaustedPages"));
+
+        // 经过渲染模式再次包装后仍能找到
+        assertSame(exception, PageConversionException.find(new RuntimeException(new IOException(exception))));
+        assertNull(PageConversionException.find(new IOException("other")));
+    }
+
+    @Test
+    void testCall_SingleAttemptDoesNotRetry() {
+        properties.getRetry().setMaxAttempts(1);
+        AtomicInteger attempts = new AtomicInteger();
+
+        PageConversionException exception = assertThrows(PageConversionException.class, () ->
+            retrier.call(1, PdfConversionMetrics.STAGE_RENDER, control, () -> {
+                attempts.incrementAndGet();
+                throw new IOException("broken page");
+            }));
+
+        assertEquals(1, attempts.get());
+        assertEquals(1, exception.getAttempts());
+    }
+
+    @Test
+    void testCall_AbortedIsNotRetried() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        ConversionAbortedException exception = assertThrows(ConversionAbortedException.class, () ->
+            retrier.call(1, PdfConversionMetrics.STAGE_RENDER, control, () -> {
+                attempts.incrementAndGet();
+                throw new ConversionAbortedException(ConversionControl.STATUS_CANCELLED, "cancelled");
+            }));
+
+        assertEquals(1, attempts.get());
+        assertEquals(ConversionControl.STATUS_CANCELLED, exception.getStatus());
+    }
+
+    @Test
+    void testCall_FailureAfterAbortIsNotRetried() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        assertThrows(ConversionAbortedException.class, () ->
+            retrier.call(1, PdfConversionMetrics.STAGE_UPLOAD, control, () -> {
+                attempts.incrementAndGet();
+                control.abort(ConversionControl.STATUS_TIMEOUT, "timeout");
+                throw new IOException("stream closed");
+            }));
+
+        assertEquals(1, attempts.get());
+        assertEquals(0L, retryStats().get("uploadRetries"));
+    }
+
+    @Test
+    void testCall_InterruptedIOExceptionIsNotRetried() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        assertThrows(InterruptedIOException.class, () ->
+            retrier.call(1, PdfConversionMetrics.STAGE_UPLOAD, control, () -> {
+                attempts.incrementAndGet();
+                throw new InterruptedIOException("interrupted");
+            }));
+
+        assertEquals(1, attempts.get());
+    }
+
+    @Test
+    void testCall_AbortDuringBackoffEndsWaitImmediately() throws Exception {
+        properties.getRetry().setInitialBackoffMillis(60_000L);
+        properties.getRetry().setMaxBackoffMillis(60_000L);
+        CountDownLatch failed = new CountDownLatch(1);
+        Thread aborter = new Thread(() -> {
+            try {
+                failed.await();
+                // 等待重试线程进入退避
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            control.abort(ConversionControl.STATUS_CANCELLED, "cancelled by user");
+        });
+        aborter.start();
+
+        long start = System.nanoTime();
+        try (ConversionControl.PageScope ignored = control.enterPage(3)) {
+            ConversionAbortedException exception = assertThrows(ConversionAbortedException.class, () ->
+                retrier.call(3, PdfConversionMetrics.STAGE_RENDER, control, () -> {
+                    failed.countDown();
+                    throw new IOException("transient");
+                }));
+            assertEquals(ConversionControl.STATUS_CANCELLED, exception.getStatus());
+        }
+        aborter.join();
+
+        assertTrue(TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start) < 10);
+        // 关闭页面范围后清除中断标记
+        assertFalse(Thread.currentThread().isInterrupted());
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> retryStats() {
+        return (Map<String, Object>) metrics.snapshot().get("retry");
+    }
+}
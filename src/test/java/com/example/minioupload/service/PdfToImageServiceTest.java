@@ -0,0 +1,264 @@
+package com.example.minioupload.service;
+
+import com.example.minioupload.config.PdfConversionProperties;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.when;
+
+/**
+ * PdfToImageService 并行渲染、内存编码和WebP尺寸回退的单元测试
+ */
+@ExtendWith(MockitoExtension.class)
+class PdfToImageServiceTest {
+
+    private static final int PAGE_COUNT = 12;
+    private static final int DPI = 10;
+
+    @TempDir
+    Path tempDir;
+
+    @Mock
+    private MinioStorageService minioStorageService;
+
+    private PdfConversionProperties properties;
+    private ExecutorService renderExecutor;
+    private ImageBufferPool imageBufferPool;
+    private File pdfFile;
+    private final Set<Integer> uploadedPages = ConcurrentHashMap.newKeySet();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        properties = new PdfConversionProperties();
+        properties.setTempDirectory(tempDir.resolve("work").toString());
+        properties.getRetry().setMaxAttempts(1);
+        properties.getParallelRendering().setWorkerThreads(4);
+        properties.getParallelRendering().setMinPages(2);
+        renderExecutor = Executors.newFixedThreadPool(4);
+
+        // 页面尺寸各不相同，便于比较每页的渲染结果
+        pdfFile = tempDir.resolve("doc.pdf").toFile();
+        try (PDDocument document = new PDDocument()) {
+            for (int i = 0; i < PAGE_COUNT; i++) {
+                document.addPage(new PDPage(new PDRectangle(200 + i * 10, 300)));
+            }
+            document.save(pdfFile);
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        renderExecutor.shutdownNow();
+    }
+
+    @Test
+    void testConvert_ParallelMatchesSequential() throws IOException {
+        lenient().when(minioStorageService.uploadFile(any(File.class), anyString()))
+            .thenAnswer(invocation -> invocation.getArgument(1));
+
+        Map<Integer, PdfToImageService.PageRenderInfo> sequential = convert(false, allPagesReversed());
+        Map<Integer, PdfToImageService.PageRenderInfo> parallel = convert(true, allPagesReversed());
+
+        assertEquals(PAGE_COUNT, parallel.size());
+        // 并行结果按页码排序，与顺序模式逐页一致
+        assertEquals(new ArrayList<>(sequential.keySet()), new ArrayList<>(parallel.keySet()));
+        assertEquals(List.of(1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12), new ArrayList<>(parallel.keySet()));
+        assertEquals(sequential, parallel);
+        assertEquals("pdf-images/u1/b1/job/page_0005.png", parallel.get(5).getMinioObjectKey());
+    }
+
+    @Test
+    void testConvert_ParallelStopsAllWorkersOnFailure() throws IOException, InterruptedException {
+        when(minioStorageService.uploadFile(any(File.class), anyString())).thenAnswer(invocation -> {
+            String key = invocation.getArgument(1);
+            int pageNumber = Integer.parseInt(key.substring(key.lastIndexOf('_') + 1, key.lastIndexOf('.')));
+            uploadedPages.add(pageNumber);
+            // 按预估成本从高到低领取，最大的第12页最先上传
+            if (pageNumber == PAGE_COUNT) {
+                throw new IOException("upload failed: page " + pageNumber);
+            }
+            // 放慢其他页面，确保失败时仍有未领取的页面
+            Thread.sleep(100);
+            return key;
+        });
+
+        IOException exception = assertThrows(IOException.class, () -> convert(true, allPages()));
+
+        assertTrue(exception.getMessage().contains("upload failed: page 12"));
+        // 失败后其余工作线程不再领取新页面
+        assertTrue(uploadedPages.size() < PAGE_COUNT, "uploaded " + uploadedPages);
+        // 返回前所有工作线程均已结束
+        renderExecutor.shutdown();
+        assertTrue(renderExecutor.awaitTermination(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void testEncodePage_InMemoryBelowThreshold() throws IOException {
+        enableInMemoryEncoding(1024 * 1024);
+        PdfToImageService service = newService();
+        BufferedImage image = noisyImage(64, 64);
+
+        PdfToImageService.EncodedPage encodedPage = service.encodePage(renderedPage(image), "png",
+            PdfToImageService.OutputOptions.defaults(), tempDir);
+
+        assertNull(encodedPage.getImageFile());
+        PooledImageBuffer buffer = encodedPage.getImageBuffer();
+        assertNotNull(buffer);
+        assertEquals(buffer.size(), encodedPage.getFileSize().intValue());
+        assertNoImageFiles();
+
+        encodedPage.discard();
+        // 丢弃后缓冲区回到池中供下一页复用
+        assertSame(buffer, imageBufferPool.acquire());
+    }
+
+    @Test
+    void testEncodePage_SpillsToFileAboveThreshold() throws IOException {
+        enableInMemoryEncoding(1024);
+        PdfToImageService service = newService();
+        BufferedImage image = noisyImage(128, 128);
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", expected);
+
+        PdfToImageService.EncodedPage encodedPage = service.encodePage(renderedPage(image), "png",
+            PdfToImageService.OutputOptions.defaults(), tempDir);
+
+        assertNull(encodedPage.getImageBuffer());
+        File imageFile = encodedPage.getImageFile();
+        assertEquals(tempDir.resolve("page_0001.png").toFile(), imageFile);
+        // 转存时先写出已缓冲的内容，文件与直接编码结果一致
+        assertArrayEquals(expected.toByteArray(), Files.readAllBytes(imageFile.toPath()));
+        assertEquals(expected.size(), encodedPage.getFileSize().intValue());
+
+        encodedPage.discard();
+        assertFalse(imageFile.exists());
+    }
+
+    @Test
+    void testUploadPage_ReleasesBufferAfterFailedUpload() throws IOException {
+        enableInMemoryEncoding(1024 * 1024);
+        PdfToImageService service = newService();
+        PdfToImageService.EncodedPage encodedPage = service.encodePage(renderedPage(noisyImage(64, 64)), "png",
+            PdfToImageService.OutputOptions.defaults(), tempDir);
+        PooledImageBuffer buffer = encodedPage.getImageBuffer();
+        when(minioStorageService.uploadBytes(any(byte[].class), anyInt(), anyString(), anyString()))
+            .thenThrow(new IOException("MinIO upload failed"));
+
+        assertThrows(IOException.class, () ->
+            service.uploadPage(encodedPage, "u1", "b1", "job", ConversionControl.unbounded()));
+
+        assertNull(encodedPage.getImageBuffer());
+        assertSame(buffer, imageBufferPool.acquire());
+    }
+
+    @Test
+    void testEncodePage_OversizedWebpFallsBackToJpeg() throws IOException {
+        PdfToImageService service = newService();
+        BufferedImage image = new BufferedImage(WebpPageEncoder.MAX_DIMENSION + 1, 2, BufferedImage.TYPE_INT_RGB);
+
+        PdfToImageService.EncodedPage encodedPage = service.encodePage(renderedPage(image), "webp",
+            PdfToImageService.OutputOptions.defaults(), tempDir);
+
+        // 对象键、内容类型跟随回退格式
+        assertEquals("page_0001.jpg", encodedPage.getImageFileName());
+        assertEquals("image/jpeg", encodedPage.getContentType());
+        assertTrue(encodedPage.getImageFile().exists());
+        encodedPage.discard();
+    }
+
+    private Map<Integer, PdfToImageService.PageRenderInfo> convert(boolean parallel, List<Integer> pageNumbers)
+            throws IOException {
+        properties.getParallelRendering().setEnabled(parallel);
+        return newService().convertPagesToImagesAndUploadWithInfo(pdfFile, "u1", "b1", "job", pageNumbers,
+            DPI, "png", PdfToImageService.OutputOptions.defaults());
+    }
+
+    private PdfToImageService newService() {
+        PdfConversionMetrics metrics = new PdfConversionMetrics();
+        imageBufferPool = new ImageBufferPool(properties);
+        return new PdfToImageService(properties, minioStorageService, renderExecutor, renderExecutor, metrics,
+            imageBufferPool, new RenderMemoryBudget(properties, metrics), new PageImageEncoders(properties, metrics),
+            new RenderWorkerPool(properties, metrics), new PageCostModel(properties, metrics),
+            new PageRetrier(properties, metrics));
+    }
+
+    private void enableInMemoryEncoding(long spillThresholdBytes) {
+        PdfConversionProperties.InMemoryEncodingConfig inMemory = properties.getInMemoryEncoding();
+        inMemory.setEnabled(true);
+        inMemory.setSpillThresholdBytes(spillThresholdBytes);
+        inMemory.setBufferPoolSize(1);
+        inMemory.setInitialBufferBytes(1024);
+    }
+
+    private static PdfToImageService.RenderedPage renderedPage(BufferedImage image) {
+        return PdfToImageService.RenderedPage.builder()
+            .pageNumber(1)
+            .image(image)
+            .renderingDpi(DPI)
+            .pdfWidth(200.0)
+            .pdfHeight(300.0)
+            .build();
+    }
+
+    private static BufferedImage noisyImage(int width, int height) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Random random = new Random(7);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                image.setRGB(x, y, random.nextInt());
+            }
+        }
+        return image;
+    }
+
+    private void assertNoImageFiles() {
+        File[] images = tempDir.toFile().listFiles((dir, name) -> name.startsWith("page_"));
+        assertNotNull(images);
+        assertEquals(0, images.length);
+    }
+
+    private static List<Integer> allPages() {
+        List<Integer> pageNumbers = new ArrayList<>();
+        for (int page = 1; page <= PAGE_COUNT; page++) {
+            pageNumbers.add(page);
+        }
+        return pageNumbers;
+    }
+
+    private static List<Integer> allPagesReversed() {
+        List<Integer> pageNumbers = allPages();
+        Collections.reverse(pageNumbers);
+        return pageNumbers;
+    }
+}
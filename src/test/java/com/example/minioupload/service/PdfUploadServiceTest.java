@@ -0,0 +1,199 @@
+package com.example.minioupload.service;
+
+import com.example.minioupload.config.PdfConversionProperties;
+import com.example.minioupload.dto.PdfImageResponse;
+import com.example.minioupload.dto.PdfPageImageInfo;
+import com.example.minioupload.dto.PdfUploadResponse;
+import com.example.minioupload.model.PdfConversionTask;
+import com.example.minioupload.model.PdfPageImage;
+import com.example.minioupload.repository.PdfConversionTaskRepository;
+import com.example.minioupload.repository.PdfPageImageRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * PdfUploadService 图片分页查询和增量合并的单元测试
+ */
+@ExtendWith(MockitoExtension.class)
+class PdfUploadServiceTest {
+
+    private static final String BUSINESS = "biz";
+    private static final String TENANT = "tenant-1";
+    private static final String USER = "user-1";
+
+    @Mock
+    private PdfToImageService pdfToImageService;
+
+    @Mock
+    private MinioStorageService minioStorageService;
+
+    @Mock
+    private PdfConversionTaskRepository taskRepository;
+
+    @Mock
+    private PdfPageImageRepository pageImageRepository;
+
+    @Mock
+    private PageImagePersister pageImagePersister;
+
+    @Mock
+    private LazyPageRenderService lazyPageRenderService;
+
+    @Mock
+    private PdfConversionProgressService progressService;
+
+    @Mock
+    private PageDedupeService pageDedupeService;
+
+    @Mock
+    private DocumentDedupeService documentDedupeService;
+
+    @Mock
+    private ConversionWatchdog conversionWatchdog;
+
+    @Mock
+    private PageLedger pageLedger;
+
+    @Mock
+    private PageImageBatchWriter pageImageBatchWriter;
+
+    private PdfUploadService pdfUploadService;
+
+    @BeforeEach
+    void setUp() {
+        PdfConversionProperties properties = new PdfConversionProperties();
+        properties.getRecovery().setNodeId("node-1");
+        pdfUploadService = new PdfUploadService(properties, pdfToImageService, minioStorageService,
+            Runnable::run, Runnable::run, taskRepository, pageImageRepository, new ObjectMapper(),
+            pageImagePersister, lazyPageRenderService, progressService, pageDedupeService, documentDedupeService,
+            conversionWatchdog, new PdfConversionMetrics(), pageLedger, pageImageBatchWriter);
+        lenient().when(minioStorageService.getPresignedUrl(anyString(), anyInt()))
+            .thenAnswer(invocation -> "https://minio/" + invocation.getArgument(0));
+    }
+
+    @Test
+    void testGetImages_NewestIncrementalTaskWinsPerPage() {
+        when(taskRepository.findByBusinessIdAndTenantIdAndIsBaseTrue(BUSINESS, TENANT))
+            .thenReturn(task("base", "COMPLETED", 3));
+        // 与SQL排序一致：同一页面按创建时间倒序，第二次增量转换的记录在前
+        when(pageImageRepository.findMergedImagesByVariant(BUSINESS, TENANT, USER, "FULL")).thenReturn(List.of(
+            image("inc-2", 1, false),
+            image("inc-1", 1, false),
+            image("base", 1, true),
+            image("base", 2, true),
+            image("inc-1", 3, false),
+            image("base", 3, true)));
+
+        PdfImageResponse response = pdfUploadService.getImages(BUSINESS, TENANT, USER, 1, 10);
+
+        assertEquals("SUCCESS", response.getStatus());
+        assertEquals(3, response.getTotalPages());
+        assertEquals(List.of("inc-2/page_1.png", "base/page_2.png", "inc-1/page_3.png"), objectKeys(response));
+    }
+
+    @Test
+    void testGetImages_AutoIncrementalDropsRemovedPages() {
+        when(taskRepository.findByBusinessIdAndTenantIdAndIsBaseTrue(BUSINESS, TENANT))
+            .thenReturn(task("base", "COMPLETED", 3));
+        when(pageImageRepository.findMergedImagesByVariant(BUSINESS, TENANT, USER, "FULL")).thenReturn(List.of(
+            image("base", 1, true),
+            image("auto", 2, false),
+            image("base", 2, true),
+            image("base", 3, true)));
+        // 新版本删除了第3页
+        when(taskRepository.findLatestCompletedAutoIncrementalTask(BUSINESS, TENANT, USER))
+            .thenReturn(task("auto", "COMPLETED", 2));
+
+        PdfImageResponse response = pdfUploadService.getImages(BUSINESS, TENANT, USER, 1, 10);
+
+        assertEquals(2, response.getTotalPages());
+        assertEquals(List.of("base/page_1.png", "auto/page_2.png"), objectKeys(response));
+    }
+
+    @Test
+    void testGetImages_ProcessingBaseTaskSlicesByPageNumber() {
+        // 分批写入：任务仍在执行，已完成的页面已入库
+        when(taskRepository.findByBusinessIdAndTenantIdAndIsBaseTrue(BUSINESS, TENANT))
+            .thenReturn(task("base", "PROCESSING", 10));
+        when(pageImageRepository.findBaseImagesByVariant(BUSINESS, TENANT, "FULL")).thenReturn(List.of(
+            image("base", 1, true),
+            image("base", 2, true),
+            image("base", 5, true)));
+
+        PdfImageResponse response = pdfUploadService.getImages(BUSINESS, TENANT, null, 4, 3);
+
+        assertEquals("PARTIAL", response.getStatus());
+        assertEquals(10, response.getTotalPages());
+        assertEquals(List.of("base/page_5.png"), objectKeys(response));
+    }
+
+    @Test
+    void testCancelTask_RemoteTaskKeepsSharedObjects() throws Exception {
+        PdfConversionTask task = task("t1", "PROCESSING", 3);
+        task.setUserId(USER);
+        when(taskRepository.findByTaskId("t1")).thenReturn(task);
+        when(taskRepository.cancelUnfinished("t1", "Cancelled by user")).thenReturn(1);
+        String prefix = "pdf-images/" + USER + "/" + BUSINESS + "/t1/";
+        // 第1页原图及其瓦片目录仍被其他任务引用
+        when(pageDedupeService.discardTaskImages("t1"))
+            .thenReturn(Set.of(prefix + "page_0001.png", prefix + "tiles/page_0001/"));
+        when(minioStorageService.listObjectKeys(prefix)).thenReturn(List.of(
+            prefix + "page_0001.png",
+            prefix + "tiles/page_0001/0/0_0.png",
+            prefix + "page_0002.png",
+            prefix + "tiles/page_0002/0/0_0.png"));
+        when(minioStorageService.listObjectKeys("pdf/" + USER + "/" + BUSINESS + "/t1/")).thenReturn(List.of());
+
+        PdfUploadResponse response = pdfUploadService.cancelTask("t1");
+
+        assertEquals("CANCELLED", response.getStatus());
+        verify(minioStorageService).deleteFiles(List.of(prefix + "page_0002.png", prefix + "tiles/page_0002/0/0_0.png"));
+        verify(minioStorageService, times(1)).deleteFiles(anyList());
+    }
+
+    private static List<String> objectKeys(PdfImageResponse response) {
+        return response.getImages().stream()
+            .map(PdfPageImageInfo::getImageObjectKey)
+            .collect(Collectors.toList());
+    }
+
+    private static PdfConversionTask task(String taskId, String status, int totalPages) {
+        return PdfConversionTask.builder()
+            .taskId(taskId)
+            .businessId(BUSINESS)
+            .tenantId(TENANT)
+            .status(status)
+            .totalPages(totalPages)
+            .build();
+    }
+
+    private static PdfPageImage image(String taskId, int pageNumber, boolean isBase) {
+        return PdfPageImage.builder()
+            .taskId(taskId)
+            .businessId(BUSINESS)
+            .tenantId(TENANT)
+            .userId(isBase ? null : USER)
+            .pageNumber(pageNumber)
+            .variant("FULL")
+            .imageObjectKey(taskId + "/page_" + pageNumber + ".png")
+            .isBase(isBase)
+            .build();
+    }
+}
@@ -0,0 +1,152 @@
+package com.example.minioupload.service;
+
+import com.example.minioupload.config.PdfConversionProperties;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.junit.jupiter.api.Test;
+
+import java.io.InterruptedIOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * RenderMemoryBudget 阻塞、降DPI和独占预算的单元测试
+ */
+class RenderMemoryBudgetTest {
+
+    /**
+     * 1英寸见方的页面：100 DPI时为100x100像素，RGB位图40000字节
+     */
+    private static final PDPage PAGE = new PDPage(new PDRectangle(72, 72));
+    private static final long PAGE_BYTES_AT_100_DPI = 40_000L;
+
+    @Test
+    void testEstimateBytes() {
+        assertEquals(PAGE_BYTES_AT_100_DPI, RenderMemoryBudget.estimateBytes(PAGE, 100));
+        assertEquals(10_000L, RenderMemoryBudget.estimateBytes(PAGE, 100, 1));
+    }
+
+    @Test
+    void testReserve_DisabledNeverBlocks() throws Exception {
+        PdfConversionProperties properties = new PdfConversionProperties();
+        properties.getRenderMemory().setBudgetBytes(1L);
+        RenderMemoryBudget budget = new RenderMemoryBudget(properties, new PdfConversionMetrics());
+
+        try (RenderMemoryBudget.Reservation first = budget.reserve(PAGE, 1, 300);
+             RenderMemoryBudget.Reservation second = budget.reserve(PAGE, 2, 300)) {
+            assertEquals(300, first.getDpi());
+            assertEquals(300, second.getDpi());
+        }
+    }
+
+    @Test
+    void testReserve_BlocksUntilBudgetReleased() throws Exception {
+        RenderMemoryBudget budget = budget(100_000L, 72);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            RenderMemoryBudget.Reservation first = budget.reserve(PAGE, 1, 100);
+            RenderMemoryBudget.Reservation second = budget.reserve(PAGE, 2, 100);
+
+            Future<RenderMemoryBudget.Reservation> third = executor.submit(() -> budget.reserve(PAGE, 3, 100));
+            assertThrows(TimeoutException.class, () -> third.get(200, TimeUnit.MILLISECONDS));
+
+            first.close();
+            // 重复关闭不会多归还预算
+            first.close();
+            RenderMemoryBudget.Reservation admitted = third.get(5, TimeUnit.SECONDS);
+            assertEquals(100, admitted.getDpi());
+
+            Future<RenderMemoryBudget.Reservation> fourth = executor.submit(() -> budget.reserve(PAGE, 4, 100));
+            assertThrows(TimeoutException.class, () -> fourth.get(200, TimeUnit.MILLISECONDS));
+            second.close();
+            fourth.get(5, TimeUnit.SECONDS).close();
+            admitted.close();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testReserve_DowngradesDpiToFitBudget() throws Exception {
+        RenderMemoryBudget budget = budget(100_000L, 72);
+
+        try (RenderMemoryBudget.Reservation reservation = budget.reserve(PAGE, 1, 300)) {
+            assertTrue(reservation.getDpi() < 300);
+            assertTrue(reservation.getDpi() >= 72);
+            assertTrue(RenderMemoryBudget.estimateBytes(PAGE, reservation.getDpi()) <= 100_000L);
+            // 降到刚好能放入预算的最高DPI
+            assertTrue(RenderMemoryBudget.estimateBytes(PAGE, reservation.getDpi() + 1) > 100_000L);
+        }
+    }
+
+    @Test
+    void testReserve_OversizedAtMinDpiRunsAlone() throws Exception {
+        // 最低DPI 200时仍需160000字节，超过预算，只能独占整个预算
+        RenderMemoryBudget budget = budget(100_000L, 200);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            RenderMemoryBudget.Reservation small = budget.reserve(PAGE, 1, 10);
+
+            Future<RenderMemoryBudget.Reservation> oversized = executor.submit(() -> budget.reserve(PAGE, 2, 300));
+            assertThrows(TimeoutException.class, () -> oversized.get(200, TimeUnit.MILLISECONDS));
+            small.close();
+
+            RenderMemoryBudget.Reservation solo = oversized.get(5, TimeUnit.SECONDS);
+            assertEquals(200, solo.getDpi());
+
+            // 独占期间其他页面等待
+            CompletableFuture<RenderMemoryBudget.Reservation> next = CompletableFuture.supplyAsync(() -> {
+                try {
+                    return budget.reserve(PAGE, 3, 10);
+                } catch (InterruptedIOException e) {
+                    throw new IllegalStateException(e);
+                }
+            }, executor);
+            assertThrows(TimeoutException.class, () -> next.get(200, TimeUnit.MILLISECONDS));
+            solo.close();
+            next.get(5, TimeUnit.SECONDS).close();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testReserve_InterruptedWhileWaiting() throws Exception {
+        RenderMemoryBudget budget = budget(PAGE_BYTES_AT_100_DPI, 72);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        try (RenderMemoryBudget.Reservation ignored = budget.reserve(PAGE, 1, 100)) {
+            Thread waiter = new Thread(() -> {
+                try {
+                    budget.reserve(PAGE, 2, 100).close();
+                } catch (Throwable e) {
+                    failure.set(e);
+                }
+            });
+            waiter.start();
+            Thread.sleep(100);
+            waiter.interrupt();
+            waiter.join(5_000);
+            assertFalse(waiter.isAlive());
+        }
+
+        assertTrue(failure.get() instanceof InterruptedIOException);
+        // 被中断的等待者不占用预算
+        budget.reserve(PAGE, 3, 100).close();
+    }
+
+    private static RenderMemoryBudget budget(long budgetBytes, int minDpi) {
+        PdfConversionProperties properties = new PdfConversionProperties();
+        properties.getRenderMemory().setEnabled(true);
+        properties.getRenderMemory().setBudgetBytes(budgetBytes);
+        properties.getRenderMemory().setMinDpi(minDpi);
+        return new RenderMemoryBudget(properties, new PdfConversionMetrics());
+    }
+}
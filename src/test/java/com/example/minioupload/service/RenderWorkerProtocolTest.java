@@ -0,0 +1,132 @@
+package com.example.minioupload.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * RenderWorkerProtocol 请求和位图往返传输的单元测试
+ */
+class RenderWorkerProtocolTest {
+
+    @Test
+    void testRenderRequest_RoundTrip() throws IOException {
+        RenderWorkerProtocol.RenderRequest request = RenderWorkerProtocol.RenderRequest.builder()
+            .path("/tmp/pdf/文档.pdf")
+            .fileLength(123_456_789L)
+            .lastModified(1_700_000_000_000L)
+            .pageIndex(41)
+            .scale(150 / 72f)
+            .imageType(BufferedImage.TYPE_BYTE_GRAY)
+            .profile("BALANCED")
+            .antialiasing(true)
+            .renderText(true)
+            .renderImages(false)
+            .draftSkipImages(true)
+            .build();
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        request.write(new DataOutputStream(bytes));
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+
+        assertEquals(RenderWorkerProtocol.OP_RENDER, in.readUnsignedByte());
+        assertEquals(request, RenderWorkerProtocol.RenderRequest.read(in));
+        assertEquals(-1, in.read());
+    }
+
+    @Test
+    void testImage_RoundTripIntRgbAcrossChunks() throws IOException {
+        // 200×100像素的INT位图超过单个64KB传输块
+        BufferedImage image = new BufferedImage(200, 100, BufferedImage.TYPE_INT_RGB);
+        Random random = new Random(42);
+        for (int y = 0; y < image.getHeight(); y++) {
+            for (int x = 0; x < image.getWidth(); x++) {
+                image.setRGB(x, y, random.nextInt());
+            }
+        }
+
+        assertSamePixels(image, roundTrip(image));
+    }
+
+    @Test
+    void testImage_RoundTripOtherTypes() throws IOException {
+        BufferedImage argb = new BufferedImage(3, 2, BufferedImage.TYPE_INT_ARGB);
+        argb.setRGB(1, 1, 0x80FF0000);
+        BufferedImage gray = new BufferedImage(5, 4, BufferedImage.TYPE_BYTE_GRAY);
+        gray.getRaster().setSample(2, 3, 0, 77);
+        BufferedImage binary = new BufferedImage(9, 3, BufferedImage.TYPE_BYTE_BINARY);
+        binary.setRGB(8, 2, 0xFFFFFFFF);
+
+        assertSamePixels(argb, roundTrip(argb));
+        assertSamePixels(gray, roundTrip(gray));
+        assertSamePixels(binary, roundTrip(binary));
+    }
+
+    @Test
+    void testWriteImage_UnsupportedBuffer() {
+        BufferedImage image = new BufferedImage(2, 2, BufferedImage.TYPE_USHORT_GRAY);
+
+        assertThrows(IOException.class, () ->
+            RenderWorkerProtocol.writeImage(new DataOutputStream(new ByteArrayOutputStream()), image));
+    }
+
+    @Test
+    void testReadImage_RejectsInvalidHeader() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(100_000);
+        out.writeInt(100_000);
+        out.writeInt(BufferedImage.TYPE_INT_RGB);
+        out.writeInt(0);
+
+        IOException exception = assertThrows(IOException.class, () ->
+            RenderWorkerProtocol.readImage(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()))));
+        assertTrue(exception.getMessage().contains("Invalid image header"));
+    }
+
+    @Test
+    void testReadImage_RejectsLengthMismatchAndTruncation() throws IOException {
+        byte[] encoded = encode(new BufferedImage(4, 4, BufferedImage.TYPE_BYTE_GRAY));
+        byte[] wrongLength = encoded.clone();
+        // 数据长度字段位于宽、高、类型之后
+        wrongLength[15] = 15;
+
+        assertThrows(IOException.class, () ->
+            RenderWorkerProtocol.readImage(new DataInputStream(new ByteArrayInputStream(wrongLength))));
+        assertThrows(EOFException.class, () -> RenderWorkerProtocol.readImage(new DataInputStream(
+            new ByteArrayInputStream(Arrays.copyOf(encoded, encoded.length - 1)))));
+    }
+
+    private static BufferedImage roundTrip(BufferedImage image) throws IOException {
+        return RenderWorkerProtocol.readImage(new DataInputStream(new ByteArrayInputStream(encode(image))));
+    }
+
+    private static byte[] encode(BufferedImage image) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        RenderWorkerProtocol.writeImage(out, image);
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    private static void assertSamePixels(BufferedImage expected, BufferedImage actual) {
+        assertEquals(expected.getType(), actual.getType());
+        assertEquals(expected.getWidth(), actual.getWidth());
+        assertEquals(expected.getHeight(), actual.getHeight());
+        for (int y = 0; y < expected.getHeight(); y++) {
+            for (int x = 0; x < expected.getWidth(); x++) {
+                assertEquals(expected.getRGB(x, y), actual.getRGB(x, y), "pixel " + x + "," + y);
+            }
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.minioupload.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * TilePyramidGenerator 级别计算和切分的单元测试
+ */
+class TilePyramidGeneratorTest {
+
+    @Test
+    void testMaxLevel() {
+        assertEquals(0, TilePyramidGenerator.maxLevel(1, 1));
+        assertEquals(1, TilePyramidGenerator.maxLevel(2, 1));
+        assertEquals(2, TilePyramidGenerator.maxLevel(3, 3));
+        assertEquals(8, TilePyramidGenerator.maxLevel(256, 256));
+        assertEquals(9, TilePyramidGenerator.maxLevel(257, 100));
+        assertEquals(10, TilePyramidGenerator.maxLevel(600, 1000));
+        assertEquals(0, TilePyramidGenerator.maxLevel(0, 0));
+    }
+
+    @Test
+    void testGenerate_LevelsAndTileGrid() throws IOException {
+        TilePyramidGenerator generator = new TilePyramidGenerator(256, new SizeEncoder());
+
+        TilePyramidGenerator.TilePyramid pyramid = generator.generate(
+            new BufferedImage(1000, 600, BufferedImage.TYPE_INT_RGB));
+
+        assertEquals(10, pyramid.getMaxLevel());
+        Map<String, int[]> tiles = new HashMap<>();
+        for (TilePyramidGenerator.Tile tile : pyramid.getTiles()) {
+            tiles.put(tile.getPath(), SizeEncoder.decode(tile.getData()));
+        }
+
+        // 第10级原始分辨率：4列×3行，右下角瓦片为剩余部分
+        assertEquals(12, countLevel(pyramid.getTiles(), 10));
+        assertArrayEquals(new int[]{256, 256}, tiles.get("10/0_0.bin"));
+        assertArrayEquals(new int[]{232, 88}, tiles.get("10/3_2.bin"));
+        // 第9级500×300：2列×2行
+        assertEquals(4, countLevel(pyramid.getTiles(), 9));
+        assertArrayEquals(new int[]{244, 44}, tiles.get("9/1_1.bin"));
+        // 第8级及以下只有一块瓦片，尺寸向上取整减半
+        assertArrayEquals(new int[]{250, 150}, tiles.get("8/0_0.bin"));
+        assertArrayEquals(new int[]{2, 2}, tiles.get("1/0_0.bin"));
+        assertArrayEquals(new int[]{1, 1}, tiles.get("0/0_0.bin"));
+        assertEquals(12 + 4 + 9, pyramid.getTiles().size());
+    }
+
+    @Test
+    void testToDzi() throws IOException {
+        TilePyramidGenerator generator = new TilePyramidGenerator(256, new SizeEncoder());
+
+        String dzi = new String(generator.generate(new BufferedImage(300, 200, BufferedImage.TYPE_INT_RGB)).toDzi(),
+            StandardCharsets.UTF_8);
+
+        assertTrue(dzi.contains("TileSize=\"256\""));
+        assertTrue(dzi.contains("Format=\"bin\""));
+        assertTrue(dzi.contains("<Size Width=\"300\" Height=\"200\"/>"));
+    }
+
+    private static long countLevel(List<TilePyramidGenerator.Tile> tiles, int level) {
+        return tiles.stream().map(TilePyramidGenerator.Tile::getPath)
+            .filter(path -> path.startsWith(level + "/"))
+            .collect(Collectors.counting());
+    }
+
+    /**
+     * 只写出瓦片宽高的编码器
+     */
+    private static class SizeEncoder implements PageImageEncoder {
+
+        @Override
+        public String getFormat() {
+            return "bin";
+        }
+
+        @Override
+        public String getContentType() {
+            return "application/octet-stream";
+        }
+
+        @Override
+        public void encode(BufferedImage image, OutputStream output) throws IOException {
+            DataOutputStream out = new DataOutputStream(output);
+            out.writeInt(image.getWidth());
+            out.writeInt(image.getHeight());
+            out.flush();
+        }
+
+        static int[] decode(byte[] data) throws IOException {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+            return new int[]{in.readInt(), in.readInt()};
+        }
+    }
+}